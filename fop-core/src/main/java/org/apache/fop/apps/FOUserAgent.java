@@ -26,6 +26,7 @@ import java.io.OutputStream;
 import java.net.URISyntaxException;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import javax.xml.transform.Source;
 import javax.xml.transform.stream.StreamSource;
@@ -53,11 +54,14 @@ import org.apache.fop.events.EventBroadcaster;
 import org.apache.fop.events.EventListener;
 import org.apache.fop.events.FOPEventListenerProxy;
 import org.apache.fop.events.LoggingEventListener;
+import org.apache.fop.events.model.EventSeverity;
 import org.apache.fop.fo.ElementMappingRegistry;
 import org.apache.fop.fo.FOEventHandler;
 import org.apache.fop.fonts.FontManager;
 import org.apache.fop.hyphenation.HyphenationTreeCache;
+import org.apache.fop.image.ImagePreloader;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
+import org.apache.fop.pdf.PDFImageXObjectCache;
 import org.apache.fop.render.ImageHandlerRegistry;
 import org.apache.fop.render.Renderer;
 import org.apache.fop.render.RendererConfig;
@@ -105,6 +109,10 @@ public class FOUserAgent {
     private FOEventHandler foEventHandlerOverride;
     private boolean locatorEnabled = true; // true by default (for error messages).
     private boolean conserveMemoryPolicy;
+    private boolean pageNumberPlaceholders;
+    private int tableStreamingWindow;
+    private boolean staticContentReuse;
+    private volatile long deadline = Long.MAX_VALUE;
     private EventBroadcaster eventBroadcaster = new FOPEventBroadcaster();
     private StructureTreeEventHandler structureTreeEventHandler
             = DummyStructureTreeEventHandler.INSTANCE;
@@ -136,6 +144,8 @@ public class FOUserAgent {
 
     private final ImageSessionContext imageSessionContext;
     private final SoftMapCache pdfObjectCache = new SoftMapCache(true);
+    private ImagePreloader imagePreloader;
+    private RenderingProfiler profiler = RenderingProfiler.DISABLED;
 
     /**
      * Main constructor. <b>This constructor should not be called directly. Please use the
@@ -150,7 +160,17 @@ public class FOUserAgent {
         setTargetResolution(factory.getTargetResolution());
         setAccessibility(factory.isAccessibilityEnabled());
         setKeepEmptyTags(factory.isKeepEmptyTags());
-        imageSessionContext = new AbstractImageSessionContext(factory.getFallbackResolver()) {
+        imageSessionContext = createImageSessionContext();
+    }
+
+    /**
+     * Creates a new image session context for this user agent. Image session contexts are not
+     * thread-safe, so this is used by code that loads images on threads other than the one
+     * processing the document. Everything else should use {@link #getImageSessionContext()}.
+     * @return a new image session context
+     */
+    public ImageSessionContext createImageSessionContext() {
+        return new AbstractImageSessionContext(factory.getFallbackResolver()) {
 
             public ImageContext getParentContext() {
                 return factory;
@@ -485,6 +505,49 @@ public class FOUserAgent {
         return this.imageSessionContext;
     }
 
+    /**
+     * Returns the image preloader of this rendering run, which resolves image information
+     * concurrently while the FO tree is being built.
+     * @return the image preloader or null if image preloading is disabled
+     * @see FopFactoryBuilder#setImagePreloadThreads(int)
+     */
+    public synchronized ImagePreloader getImagePreloader() {
+        if (imagePreloader == null) {
+            Executor executor = factory.getImagePreloadExecutor();
+            if (executor != null) {
+                imagePreloader = new ImagePreloader(this, executor);
+            }
+        }
+        return imagePreloader;
+    }
+
+    /**
+     * Returns the executor that lays out page-sequences concurrently.
+     * @return the executor or null if page-sequences are laid out sequentially
+     * @see FopFactoryBuilder#setLayoutThreads(int)
+     */
+    public Executor getLayoutExecutor() {
+        return factory.getLayoutExecutor();
+    }
+
+    /**
+     * Returns the number of threads laying out page-sequences concurrently.
+     * @return the number of threads, 0 if page-sequences are laid out sequentially
+     * @see FopFactoryBuilder#setLayoutThreads(int)
+     */
+    public int getLayoutThreads() {
+        return factory.getLayoutThreads();
+    }
+
+    /**
+     * Returns the executor that encodes PDF content streams concurrently.
+     * @return the executor or null if streams are encoded when they are written
+     * @see FopFactoryBuilder#setStreamEncodingThreads(int)
+     */
+    public Executor getStreamEncodingExecutor() {
+        return factory.getStreamEncodingExecutor();
+    }
+
     // ---------------------------------------------- environment-level stuff
     //                                                (convenience access to FopFactory methods)
 
@@ -616,11 +679,29 @@ public class FOUserAgent {
             };
         }
 
-        /** {@inheritDoc} */
-        public void broadcastEvent(Event event) {
+        /**
+         * {@inheritDoc}
+         * Synchronized, since page-sequences may be laid out on several threads and event
+         * listeners are not expected to be thread-safe.
+         */
+        public synchronized void broadcastEvent(Event event) {
             rootListener.processEvent(event);
         }
 
+        /**
+         * {@inheritDoc}
+         * Until the first event installs the default listener, all events are of interest.
+         * Since {@link FOPEventListenerProxy} may reduce errors to warnings, errors are of
+         * interest as long as warnings are.
+         */
+        protected boolean isInterestedIn(EventSeverity severity) {
+            if (!listeners.hasEventListeners()) {
+                return true;
+            }
+            return super.isInterestedIn(severity)
+                    || (severity == EventSeverity.ERROR && super.isInterestedIn(EventSeverity.WARN));
+        }
+
     }
 
     /**
@@ -641,6 +722,129 @@ public class FOUserAgent {
         this.conserveMemoryPolicy = conserveMemoryPolicy;
     }
 
+    /**
+     * Check whether page number placeholders are enabled.
+     *
+     * @return true if unresolved page number citations may be painted as placeholders
+     */
+    public boolean isPageNumberPlaceholdersEnabled() {
+        return this.pageNumberPlaceholders;
+    }
+
+    /**
+     * Controls whether unresolved page number citations (for example, "page N of M" footers
+     * citing the last page) may be painted as placeholders whose text is filled in at the end of
+     * the document. Pages can then be rendered as soon as they are laid out instead of being
+     * held back until the cited page is known. The space reserved for such a citation does not
+     * change once it is resolved. Only output formats that support it (PDF, and PostScript with
+     * resource optimization) make use of the placeholders.
+     *
+     * @param pageNumberPlaceholders true to enable page number placeholders
+     */
+    public void setPageNumberPlaceholders(boolean pageNumberPlaceholders) {
+        this.pageNumberPlaceholders = pageNumberPlaceholders;
+    }
+
+    /**
+     * Returns the number of table row groups laid out per window in streaming table mode.
+     *
+     * @return the window size, or 0 if streaming table mode is disabled
+     */
+    public int getTableStreamingWindow() {
+        return this.tableStreamingWindow;
+    }
+
+    /**
+     * Enables the streaming table mode. Eligible tables (fixed table-layout, directly placed in
+     * the flow) are then turned into Knuth elements and page-broken in windows of the given
+     * number of row groups instead of all at once. The pages filled by a window are finished
+     * before the next window is laid out, so the layout data of earlier rows can be released.
+     * Page breaks are chosen within the window only, which may make them differ slightly from
+     * those found for the table as a whole.
+     *
+     * @param rowGroups the number of row groups per window, or 0 to disable streaming
+     */
+    public void setTableStreamingWindow(int rowGroups) {
+        this.tableStreamingWindow = Math.max(0, rowGroups);
+    }
+
+    /**
+     * Check whether the layout of static content may be reused across pages.
+     *
+     * @return true if static content layouts are reused
+     */
+    public boolean isStaticContentReuseEnabled() {
+        return this.staticContentReuse;
+    }
+
+    /**
+     * Controls whether the layout of static content (headers, footers, side regions) may be
+     * reused on subsequent pages of a page-sequence. A layout is only reused for the same region
+     * of the same dimensions, on a page of the same parity, with the same markers retrieved.
+     * Static content that depends on the page (page numbers, links, IDs, extension elements)
+     * is laid out again on every page.
+     *
+     * @param staticContentReuse true to enable the reuse of static content layouts
+     */
+    public void setStaticContentReuse(boolean staticContentReuse) {
+        this.staticContentReuse = staticContentReuse;
+    }
+
+    /**
+     * Sets the time by which the rendering run must be finished. Layout and rendering check
+     * the deadline for every page and abort the run with a {@link DeadlineExceededException}
+     * once it has passed.
+     *
+     * @param deadline the deadline (in milliseconds as returned by
+     * {@link System#currentTimeMillis()}, {@link Long#MAX_VALUE} for none)
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Returns the time by which the rendering run must be finished.
+     *
+     * @return the deadline ({@link Long#MAX_VALUE} if there is none)
+     */
+    public long getDeadline() {
+        return this.deadline;
+    }
+
+    /**
+     * Aborts the rendering run if its deadline has passed or the current thread has been
+     * interrupted.
+     *
+     * @throws DeadlineExceededException if the run has to be aborted
+     */
+    public void checkDeadline() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new DeadlineExceededException("Rendering interrupted");
+        }
+        if (deadline != Long.MAX_VALUE && System.currentTimeMillis() > deadline) {
+            throw new DeadlineExceededException("Rendering exceeded its deadline");
+        }
+    }
+
+    /**
+     * Returns the profiler collecting timings and counters for this rendering run.
+     *
+     * @return the profiler ({@link RenderingProfiler#DISABLED} unless one has been set)
+     */
+    public RenderingProfiler getProfiler() {
+        return this.profiler;
+    }
+
+    /**
+     * Sets the profiler collecting timings and counters for this rendering run. Call
+     * {@link RenderingProfiler#getReport()} after rendering to obtain the figures.
+     *
+     * @param profiler the profiler, or null to disable profiling
+     */
+    public void setProfiler(RenderingProfiler profiler) {
+        this.profiler = (profiler != null) ? profiler : RenderingProfiler.DISABLED;
+    }
+
     /**
      * Check whether complex script features are enabled.
      *
@@ -839,4 +1043,9 @@ public class FOUserAgent {
     public boolean isSimpleLineBreaking() {
         return factory.isSimpleLineBreaking();
     }
+
+    /** @see FopFactory#getImageXObjectCache() */
+    public PDFImageXObjectCache getImageXObjectCache() {
+        return factory.getImageXObjectCache();
+    }
 }
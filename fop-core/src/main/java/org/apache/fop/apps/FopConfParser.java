@@ -58,6 +58,10 @@ public class FopConfParser {
     private static final String PREFER_RENDERER = "prefer-renderer";
     private static final String TABLE_BORDER_OVERPAINT = "table-border-overpaint";
     private static final String SIMPLE_LINE_BREAKING = "simple-line-breaking";
+    private static final String IMAGE_XOBJECT_CACHE_SIZE = "image-xobject-cache-size";
+    private static final String IMAGE_PRELOAD_THREADS = "image-preload-threads";
+    private static final String LAYOUT_THREADS = "layout-threads";
+    private static final String STREAM_ENCODING_THREADS = "stream-encoding-threads";
 
     private final Log log = LogFactory.getLog(FopConfParser.class);
 
@@ -290,6 +294,42 @@ public class FopConfParser {
             }
         }
 
+        if (cfg.getChild(IMAGE_XOBJECT_CACHE_SIZE, false) != null) {
+            try {
+                fopFactoryBuilder.setImageXObjectCacheSize(
+                        Long.parseLong(cfg.getChild(IMAGE_XOBJECT_CACHE_SIZE).getValue().trim()));
+            } catch (ConfigurationException | NumberFormatException e) {
+                LogUtil.handleException(log, e, strict);
+            }
+        }
+
+        if (cfg.getChild(IMAGE_PRELOAD_THREADS, false) != null) {
+            try {
+                fopFactoryBuilder.setImagePreloadThreads(
+                        cfg.getChild(IMAGE_PRELOAD_THREADS).getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, strict);
+            }
+        }
+
+        if (cfg.getChild(LAYOUT_THREADS, false) != null) {
+            try {
+                fopFactoryBuilder.setLayoutThreads(
+                        cfg.getChild(LAYOUT_THREADS).getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, strict);
+            }
+        }
+
+        if (cfg.getChild(STREAM_ENCODING_THREADS, false) != null) {
+            try {
+                fopFactoryBuilder.setStreamEncodingThreads(
+                        cfg.getChild(STREAM_ENCODING_THREADS).getValueAsInteger());
+            } catch (ConfigurationException e) {
+                LogUtil.handleException(log, e, strict);
+            }
+        }
+
         // configure font manager
         new FontManagerConfigurator(cfg, baseURI, fopFactoryBuilder.getBaseURI(), resourceResolver)
                 .configure(fopFactoryBuilder.getFontManager(), strict);
@@ -29,6 +29,12 @@ import java.security.PrivilegedAction;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.xml.sax.SAXException;
 
@@ -48,6 +54,7 @@ import org.apache.fop.fo.ElementMappingRegistry;
 import org.apache.fop.fonts.FontManager;
 import org.apache.fop.hyphenation.HyphenationTreeCache;
 import org.apache.fop.layoutmgr.LayoutManagerMaker;
+import org.apache.fop.pdf.PDFImageXObjectCache;
 import org.apache.fop.render.ImageHandlerRegistry;
 import org.apache.fop.render.RendererConfig;
 import org.apache.fop.render.RendererConfig.RendererConfigParser;
@@ -67,6 +74,14 @@ public final class FopFactory implements ImageContext {
     /** logger instance */
     private static Log log = LogFactory.getLog(FopFactory.class);
 
+    private static final int IMAGE_PRELOAD_QUEUE_SIZE = 1024;
+
+    private static final int LAYOUT_QUEUE_SIZE = 64;
+
+    private static final int STREAM_ENCODING_QUEUE_SIZE = 256;
+
+    private static final long EXECUTOR_KEEP_ALIVE_SECONDS = 30;
+
     /** Factory for Renderers and FOEventHandlers */
     private final RendererFactory rendererFactory;
 
@@ -93,6 +108,14 @@ public final class FopFactory implements ImageContext {
 
     private HyphenationTreeCache hyphenationTreeCache;
 
+    private final PDFImageXObjectCache imageXObjectCache;
+
+    private ExecutorService imagePreloadExecutor;
+
+    private ExecutorService layoutExecutor;
+
+    private ExecutorService streamEncodingExecutor;
+
     private FopFactory(FopFactoryConfig config) {
         this.config = config;
         this.resolver = ResourceResolverFactory.createInternalResourceResolver(config.getBaseURI(),
@@ -103,6 +126,8 @@ public final class FopFactory implements ImageContext {
         this.xmlHandlers = new XMLHandlerRegistry();
         this.imageHandlers = new ImageHandlerRegistry();
         rendererConfig = new HashMap<String, RendererConfig>();
+        long cacheSize = config.getImageXObjectCacheSize();
+        this.imageXObjectCache = cacheSize > 0 ? new PDFImageXObjectCache(cacheSize) : null;
     }
 
     /**
@@ -460,6 +485,90 @@ public final class FopFactory implements ImageContext {
         return this.colorSpaceCache;
     }
 
+    /**
+     * Returns the cache of encoded image XObject streams shared by all documents produced by
+     * this instance.
+     * <p>
+     * Note: this method should not be considered as part of FOP's external API.
+     * @return the cache or null if it is disabled
+     */
+    public PDFImageXObjectCache getImageXObjectCache() {
+        return this.imageXObjectCache;
+    }
+
+    /**
+     * Returns the executor shared by all rendering runs of this instance for preloading image
+     * information. Its threads are daemon threads and terminate when idle. When all threads
+     * are busy and the queue is full, the submitting thread preloads the image itself.
+     * <p>
+     * Note: this method should not be considered as part of FOP's external API.
+     * @return the executor or null if image preloading is disabled
+     */
+    public synchronized ExecutorService getImagePreloadExecutor() {
+        int threads = config.getImagePreloadThreads();
+        if (imagePreloadExecutor == null && threads > 0) {
+            imagePreloadExecutor = createExecutor(threads, IMAGE_PRELOAD_QUEUE_SIZE, "fop-image-preload-");
+        }
+        return imagePreloadExecutor;
+    }
+
+    /**
+     * Returns the executor shared by all rendering runs of this instance for laying out
+     * page-sequences concurrently. Its threads are daemon threads and terminate when idle.
+     * When all threads are busy and the queue is full, the submitting thread lays out the
+     * page-sequence itself.
+     * <p>
+     * Note: this method should not be considered as part of FOP's external API.
+     * @return the executor or null if concurrent layout is disabled
+     */
+    public synchronized ExecutorService getLayoutExecutor() {
+        int threads = config.getLayoutThreads();
+        if (layoutExecutor == null && threads > 0) {
+            layoutExecutor = createExecutor(threads, LAYOUT_QUEUE_SIZE, "fop-layout-");
+        }
+        return layoutExecutor;
+    }
+
+    /** @return the number of threads laying out page-sequences concurrently, 0 if disabled */
+    public int getLayoutThreads() {
+        return config.getLayoutThreads();
+    }
+
+    /**
+     * Returns the executor shared by all rendering runs of this instance for compressing and
+     * encrypting PDF content streams. Its threads are daemon threads and terminate when idle.
+     * When all threads are busy and the queue is full, the submitting thread encodes the
+     * stream itself.
+     * <p>
+     * Note: this method should not be considered as part of FOP's external API.
+     * @return the executor or null if concurrent stream encoding is disabled
+     */
+    public synchronized ExecutorService getStreamEncodingExecutor() {
+        int threads = config.getStreamEncodingThreads();
+        if (streamEncodingExecutor == null && threads > 0) {
+            streamEncodingExecutor = createExecutor(threads, STREAM_ENCODING_QUEUE_SIZE,
+                    "fop-stream-encoding-");
+        }
+        return streamEncodingExecutor;
+    }
+
+    private static ExecutorService createExecutor(int threads, int queueSize, final String namePrefix) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                EXECUTOR_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(queueSize),
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, namePrefix + count.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     public HyphenationTreeCache getHyphenationTreeCache() {
         if (hyphenationTreeCache == null) {
             hyphenationTreeCache = new HyphenationTreeCache();
@@ -350,6 +350,61 @@ public final class FopFactoryBuilder {
         return this;
     }
 
+    /**
+     * Sets the size of the cache of encoded image XObject streams that is shared between all
+     * documents produced by the FOP factory, so images used by many documents (logos, signatures)
+     * are only encoded once. The cache is disabled by default.
+     *
+     * @param bytes the maximum number of cached bytes, 0 to disable the cache
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setImageXObjectCacheSize(long bytes) {
+        fopFactoryConfigBuilder.setImageXObjectCacheSize(bytes);
+        return this;
+    }
+
+    /**
+     * Sets the number of threads that preload the information (intrinsic size, etc.) of external
+     * graphics while the FO tree is being built, so layout does not stall on image I/O. Image
+     * preloading is disabled by default.
+     *
+     * @param threads the number of preloading threads, 0 to disable preloading
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setImagePreloadThreads(int threads) {
+        fopFactoryConfigBuilder.setImagePreloadThreads(threads);
+        return this;
+    }
+
+    /**
+     * Sets the number of threads that lay out page-sequences concurrently. Only page-sequences
+     * with an explicit (integer) initial-page-number that refer to a simple-page-master are
+     * laid out concurrently; their pages are still passed to the renderer in document order.
+     * Concurrent layout is disabled by default.
+     *
+     * @param threads the number of layout threads, 0 to lay out page-sequences sequentially
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setLayoutThreads(int threads) {
+        fopFactoryConfigBuilder.setLayoutThreads(threads);
+        return this;
+    }
+
+    /**
+     * Sets the number of threads that compress and, if encryption is enabled, encrypt the
+     * page content streams of PDF documents while the following pages are being rendered.
+     * The streams are still written in document order. Concurrent encoding is disabled by
+     * default and is not used for linearized documents.
+     *
+     * @param threads the number of stream encoding threads, 0 to encode streams when they are
+     * written
+     * @return <code>this</code>
+     */
+    public FopFactoryBuilder setStreamEncodingThreads(int threads) {
+        fopFactoryConfigBuilder.setStreamEncodingThreads(threads);
+        return this;
+    }
+
     public static class FopFactoryConfigImpl implements FopFactoryConfig {
 
         private final EnvironmentProfile enviro;
@@ -393,6 +448,10 @@ public final class FopFactoryBuilder {
 
         private boolean tableBorderOverpaint;
         private boolean simpleLineBreaking;
+        private long imageXObjectCacheSize;
+        private int imagePreloadThreads;
+        private int layoutThreads;
+        private int streamEncodingThreads;
 
         private static final class ImageContextImpl implements ImageContext {
 
@@ -411,6 +470,8 @@ public final class FopFactoryBuilder {
             this.enviro = enviro;
             this.baseURI = enviro.getDefaultBaseURI();
             this.imageManager = new ImageManager(new ImageContextImpl(this));
+            //reports image cache hits and misses to the profiler of the rendering run
+            this.imageManager.getCache().setCacheListener(RenderingProfiler.createImageCacheListener());
         }
 
         /** {@inheritDoc} */
@@ -518,6 +579,22 @@ public final class FopFactoryBuilder {
             return simpleLineBreaking;
         }
 
+        public long getImageXObjectCacheSize() {
+            return imageXObjectCacheSize;
+        }
+
+        public int getImagePreloadThreads() {
+            return imagePreloadThreads;
+        }
+
+        public int getLayoutThreads() {
+            return layoutThreads;
+        }
+
+        public int getStreamEncodingThreads() {
+            return streamEncodingThreads;
+        }
+
         public Map<String, String> getHyphenationPatternNames() {
             return hyphPatNames;
         }
@@ -567,6 +644,14 @@ public final class FopFactoryBuilder {
         void setTableBorderOverpaint(boolean b);
 
         void setSimpleLineBreaking(boolean b);
+
+        void setImageXObjectCacheSize(long bytes);
+
+        void setImagePreloadThreads(int threads);
+
+        void setLayoutThreads(int threads);
+
+        void setStreamEncodingThreads(int threads);
     }
 
     private static final class CompletedFopFactoryConfigBuilder implements FopFactoryConfigBuilder {
@@ -658,6 +743,22 @@ public final class FopFactoryBuilder {
         public void setSimpleLineBreaking(boolean b) {
             throwIllegalStateException();
         }
+
+        public void setImageXObjectCacheSize(long bytes) {
+            throwIllegalStateException();
+        }
+
+        public void setImagePreloadThreads(int threads) {
+            throwIllegalStateException();
+        }
+
+        public void setLayoutThreads(int threads) {
+            throwIllegalStateException();
+        }
+
+        public void setStreamEncodingThreads(int threads) {
+            throwIllegalStateException();
+        }
     }
 
     private static final class ActiveFopFactoryConfigBuilder implements FopFactoryConfigBuilder {
@@ -750,6 +851,22 @@ public final class FopFactoryBuilder {
         public void setSimpleLineBreaking(boolean b) {
             config.simpleLineBreaking = b;
         }
+
+        public void setImageXObjectCacheSize(long bytes) {
+            config.imageXObjectCacheSize = bytes;
+        }
+
+        public void setImagePreloadThreads(int threads) {
+            config.imagePreloadThreads = threads;
+        }
+
+        public void setLayoutThreads(int threads) {
+            config.layoutThreads = threads;
+        }
+
+        public void setStreamEncodingThreads(int threads) {
+            config.streamEncodingThreads = threads;
+        }
     }
 
 }
@@ -167,6 +167,33 @@ public interface FopFactoryConfig {
 
     boolean isSimpleLineBreaking();
 
+    /**
+     * Returns the maximum number of bytes of encoded image XObject stream data that are cached
+     * across the documents produced by a FOP factory.
+     * @return the cache size in bytes, 0 if image stream data is not cached
+     */
+    long getImageXObjectCacheSize();
+
+    /**
+     * Returns the number of threads used to preload image information while the FO tree is
+     * being built.
+     * @return the number of threads, 0 if images are not preloaded
+     */
+    int getImagePreloadThreads();
+
+    /**
+     * Returns the number of threads used to lay out page-sequences concurrently.
+     * @return the number of threads, 0 if page-sequences are laid out one after another
+     */
+    int getLayoutThreads();
+
+    /**
+     * Returns the number of threads used to compress and encrypt PDF content streams while
+     * the following pages are being rendered.
+     * @return the number of threads, 0 if streams are encoded when they are written
+     */
+    int getStreamEncodingThreads();
+
     /** @return the hyphenation pattern names */
     Map<String, String> getHyphenationPatternNames();
 
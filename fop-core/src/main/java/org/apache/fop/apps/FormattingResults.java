@@ -30,6 +30,8 @@ public class FormattingResults {
 
     private int pageCount;
     private List pageSequences;
+    private int maxBlockedPageCount;
+    private int unresolvedIDRefCount;
 
     /**
      * Constructor for the FormattingResults object
@@ -55,11 +57,51 @@ public class FormattingResults {
         return this.pageSequences;
     }
 
+    /**
+     * Gets the highest number of pages that were held back at the same time, because they
+     * (or pages before them) contained references to IDs that had not been laid out yet.
+     *
+     * @return   The maximum number of blocked pages
+     */
+    public int getMaxBlockedPageCount() {
+        return this.maxBlockedPageCount;
+    }
+
+    /**
+     * Sets the highest number of pages held back at the same time.
+     *
+     * @param count the maximum number of blocked pages
+     */
+    public void setMaxBlockedPageCount(int count) {
+        this.maxBlockedPageCount = count;
+    }
+
+    /**
+     * Gets the number of IDs that were still referenced but unresolved at the end of the
+     * document.
+     *
+     * @return   The number of unresolved ID references
+     */
+    public int getUnresolvedIDRefCount() {
+        return this.unresolvedIDRefCount;
+    }
+
+    /**
+     * Sets the number of IDs still unresolved at the end of the document.
+     *
+     * @param count the number of unresolved ID references
+     */
+    public void setUnresolvedIDRefCount(int count) {
+        this.unresolvedIDRefCount = count;
+    }
+
     /**
      * Resets this object
      */
     public void reset() {
         this.pageCount = 0;
+        this.maxBlockedPageCount = 0;
+        this.unresolvedIDRefCount = 0;
         if (this.pageSequences != null) {
             this.pageSequences.clear();
         }
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.apps;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.fop.apps.RenderingProfiler.Counter;
+import org.apache.fop.apps.RenderingProfiler.Phase;
+
+/**
+ * An immutable snapshot of the figures collected by a {@link RenderingProfiler}. Besides being
+ * queried directly, a report can be published to a metrics registry through a
+ * {@link MetricsSink}.
+ */
+public final class ProfilingReport {
+
+    /**
+     * Receives the figures of a report. Implement this interface to feed a metrics registry.
+     * Names are the phase and counter names (see {@link Phase#getName()} and
+     * {@link Counter#getName()}); stream byte counts are named
+     * <code>stream-bytes.&lt;stream type&gt;</code>.
+     */
+    public interface MetricsSink {
+
+        /**
+         * Receives the figures of a timed phase.
+         * @param name the name of the phase
+         * @param count the number of times the phase was timed
+         * @param totalNanos the total time spent in the phase, in nanoseconds
+         */
+        void timer(String name, long count, long totalNanos);
+
+        /**
+         * Receives the value of a counter.
+         * @param name the name of the counter
+         * @param value the value
+         */
+        void counter(String name, long value);
+    }
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final long[] phaseTimes;
+
+    private final long[] phaseInvocations;
+
+    private final long[] counters;
+
+    private final Map<String, Long> streamBytes;
+
+    ProfilingReport(long[] phaseTimes, long[] phaseInvocations, long[] counters,
+            Map<String, Long> streamBytes) {
+        this.phaseTimes = phaseTimes;
+        this.phaseInvocations = phaseInvocations;
+        this.counters = counters;
+        this.streamBytes = Collections.unmodifiableMap(streamBytes);
+    }
+
+    /**
+     * Returns the total time spent in a phase.
+     * @param phase the phase
+     * @return the time in nanoseconds
+     */
+    public long getTime(Phase phase) {
+        return phaseTimes[phase.ordinal()];
+    }
+
+    /**
+     * Returns the number of times a phase was timed.
+     * @param phase the phase
+     * @return the number of invocations
+     */
+    public long getInvocationCount(Phase phase) {
+        return phaseInvocations[phase.ordinal()];
+    }
+
+    /**
+     * Returns the value of a counter.
+     * @param counter the counter
+     * @return the value
+     */
+    public long getCount(Counter counter) {
+        return counters[counter.ordinal()];
+    }
+
+    /** @return the number of bytes written per output stream type, sorted by stream type */
+    public Map<String, Long> getStreamBytes() {
+        return streamBytes;
+    }
+
+    /**
+     * Publishes all figures of this report.
+     * @param sink the receiver of the figures
+     */
+    public void publishTo(MetricsSink sink) {
+        for (Phase phase : Phase.values()) {
+            sink.timer(phase.getName(), getInvocationCount(phase), getTime(phase));
+        }
+        for (Counter counter : Counter.values()) {
+            sink.counter(counter.getName(), getCount(counter));
+        }
+        for (Map.Entry<String, Long> entry : streamBytes.entrySet()) {
+            sink.counter("stream-bytes." + entry.getKey(), entry.getValue());
+        }
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Rendering profile:");
+        for (Phase phase : Phase.values()) {
+            sb.append("\n  ").append(phase.getName()).append(": ")
+                    .append(getTime(phase) / NANOS_PER_MILLI).append(" ms (")
+                    .append(getInvocationCount(phase)).append("x)");
+        }
+        for (Counter counter : Counter.values()) {
+            sb.append("\n  ").append(counter.getName()).append(": ").append(getCount(counter));
+        }
+        for (Map.Entry<String, Long> entry : streamBytes.entrySet()) {
+            sb.append("\n  stream-bytes.").append(entry.getKey()).append(": ")
+                    .append(entry.getValue());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.apps;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.xmlgraphics.image.loader.cache.ImageCacheListener;
+import org.apache.xmlgraphics.image.loader.cache.ImageKey;
+
+/**
+ * Collects per-phase timings and counters for a rendering run. A profiler is attached to a
+ * rendering run through {@link FOUserAgent#setProfiler(RenderingProfiler)}; after rendering,
+ * {@link #getReport()} delivers a snapshot of the collected figures.
+ * <p>
+ * Phases nest: the time reported for a phase includes the time spent in phases started from
+ * within it (for example, image loading triggered while the FO tree is built). Times are
+ * measured in nanoseconds.
+ * <p>
+ * This class is thread-safe. The {@link #DISABLED} instance ignores all calls, so code paths
+ * can report unconditionally; callers should nevertheless check {@link #isEnabled()} before
+ * doing any work that is only needed for profiling.
+ */
+public final class RenderingProfiler {
+
+    /** The rendering phases that are timed. */
+    public enum Phase {
+        /** creating the nodes of the FO tree, including property resolution */
+        FO_TREE("fo-tree"),
+        /** creating property lists and processing the nodes of the FO tree */
+        PROPERTY_RESOLUTION("property-resolution"),
+        /** finding line breaks */
+        LINE_BREAKING("line-breaking"),
+        /** finding page breaks */
+        PAGE_BREAKING("page-breaking"),
+        /** loading images */
+        IMAGE_LOADING("image-loading"),
+        /** embedding fonts into the output */
+        FONT_EMBEDDING("font-embedding"),
+        /** writing the output document */
+        OUTPUT("output");
+
+        private final String name;
+
+        private Phase(String name) {
+            this.name = name;
+        }
+
+        /** @return the name of the phase as used in reports */
+        public String getName() {
+            return name;
+        }
+    }
+
+    /** The events that are counted. */
+    public enum Counter {
+        /** formatting objects and other elements parsed into the FO tree */
+        ELEMENTS_PARSED("elements-parsed"),
+        /** active nodes created by the line and page breaking algorithms */
+        KNUTH_NODES("knuth-nodes"),
+        /** runs of the line and page breaking algorithms */
+        BREAKING_PASSES("breaking-passes"),
+        /** times a breaking algorithm had to restart from an earlier node */
+        BREAKING_RESTARTS("breaking-restarts"),
+        /** image (information) requests served from the image cache */
+        IMAGE_CACHE_HITS("image-cache-hits"),
+        /** image (information) requests that had to be loaded */
+        IMAGE_CACHE_MISSES("image-cache-misses"),
+        /** SVG images placed from a form they had been painted into before */
+        SVG_CACHE_HITS("svg-cache-hits"),
+        /** SVG images that had to be built and painted */
+        SVG_CACHE_MISSES("svg-cache-misses");
+
+        private final String name;
+
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        /** @return the name of the counter as used in reports */
+        public String getName() {
+            return name;
+        }
+    }
+
+    /** A profiler that collects nothing. */
+    public static final RenderingProfiler DISABLED = new RenderingProfiler(false);
+
+    private static final ThreadLocal<RenderingProfiler> CURRENT = new ThreadLocal<RenderingProfiler>();
+
+    private final boolean enabled;
+
+    private final AtomicLongArray phaseTimes = new AtomicLongArray(Phase.values().length);
+
+    private final AtomicLongArray phaseInvocations = new AtomicLongArray(Phase.values().length);
+
+    private final AtomicLongArray counters = new AtomicLongArray(Counter.values().length);
+
+    private final ConcurrentMap<String, AtomicLong> streamBytes
+            = new ConcurrentHashMap<String, AtomicLong>();
+
+    /** Creates a new, enabled profiler. */
+    public RenderingProfiler() {
+        this(true);
+    }
+
+    private RenderingProfiler(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the profiler of a rendering run.
+     * @param userAgent the user agent of the rendering run (may be null)
+     * @return the user agent's profiler, or {@link #DISABLED} if there is none
+     */
+    public static RenderingProfiler getInstance(FOUserAgent userAgent) {
+        RenderingProfiler profiler = (userAgent != null) ? userAgent.getProfiler() : null;
+        return (profiler != null) ? profiler : DISABLED;
+    }
+
+    /** @return true if this profiler collects figures */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts timing a phase.
+     * @return the start time to pass to {@link #stopTimer(Phase, long)}
+     */
+    public long startTimer() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Stops timing a phase and adds the elapsed time to the phase's total.
+     * @param phase the phase
+     * @param start the start time as returned by {@link #startTimer()}
+     */
+    public void stopTimer(Phase phase, long start) {
+        if (enabled) {
+            phaseTimes.addAndGet(phase.ordinal(), System.nanoTime() - start);
+            phaseInvocations.incrementAndGet(phase.ordinal());
+        }
+    }
+
+    /**
+     * Increments a counter by one.
+     * @param counter the counter
+     */
+    public void increment(Counter counter) {
+        if (enabled) {
+            counters.incrementAndGet(counter.ordinal());
+        }
+    }
+
+    /**
+     * Adds a value to a counter.
+     * @param counter the counter
+     * @param delta the value to add
+     */
+    public void add(Counter counter, long delta) {
+        if (enabled && delta != 0) {
+            counters.addAndGet(counter.ordinal(), delta);
+        }
+    }
+
+    /**
+     * Records bytes written for a type of output stream (for example, content streams,
+     * images or fonts).
+     * @param streamType the stream type
+     * @param bytes the number of bytes
+     */
+    public void addStreamBytes(String streamType, long bytes) {
+        if (!enabled) {
+            return;
+        }
+        AtomicLong total = streamBytes.get(streamType);
+        if (total == null) {
+            AtomicLong newTotal = new AtomicLong();
+            total = streamBytes.putIfAbsent(streamType, newTotal);
+            if (total == null) {
+                total = newTotal;
+            }
+        }
+        total.addAndGet(bytes);
+    }
+
+    /** @return a snapshot of the figures collected so far */
+    public ProfilingReport getReport() {
+        Phase[] phases = Phase.values();
+        long[] times = new long[phases.length];
+        long[] invocations = new long[phases.length];
+        for (int i = 0; i < phases.length; i++) {
+            times[i] = phaseTimes.get(i);
+            invocations[i] = phaseInvocations.get(i);
+        }
+        long[] counts = new long[Counter.values().length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = counters.get(i);
+        }
+        Map<String, Long> bytes = new TreeMap<String, Long>();
+        for (Map.Entry<String, AtomicLong> entry : streamBytes.entrySet()) {
+            bytes.put(entry.getKey(), entry.getValue().get());
+        }
+        return new ProfilingReport(times, invocations, counts, bytes);
+    }
+
+    /**
+     * Makes this profiler the one that receives figures which cannot be attributed to a
+     * rendering run otherwise (image cache hits and misses) on the current thread.
+     * @return the profiler previously attached to the current thread, to be passed to
+     * {@link #detach(RenderingProfiler)}
+     */
+    public RenderingProfiler attach() {
+        RenderingProfiler previous = CURRENT.get();
+        if (enabled) {
+            CURRENT.set(this);
+        }
+        return previous;
+    }
+
+    /**
+     * Reverts a previous {@link #attach()}.
+     * @param previous the value returned by {@link #attach()}
+     */
+    public void detach(RenderingProfiler previous) {
+        if (enabled) {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Returns a listener for the shared image cache that reports hits and misses to the
+     * profiler attached to the current thread.
+     * @return the image cache listener
+     */
+    static ImageCacheListener createImageCacheListener() {
+        return new ImageCacheListener() {
+
+            public void invalidHit(String uri) {
+                count(Counter.IMAGE_CACHE_HITS);
+            }
+
+            public void cacheHitImageInfo(String uri) {
+                count(Counter.IMAGE_CACHE_HITS);
+            }
+
+            public void cacheMissImageInfo(String uri) {
+                count(Counter.IMAGE_CACHE_MISSES);
+            }
+
+            public void cacheHitImage(ImageKey key) {
+                count(Counter.IMAGE_CACHE_HITS);
+            }
+
+            public void cacheMissImage(ImageKey key) {
+                count(Counter.IMAGE_CACHE_MISSES);
+            }
+
+            private void count(Counter counter) {
+                RenderingProfiler profiler = CURRENT.get();
+                if (profiler != null) {
+                    profiler.increment(counter);
+                }
+            }
+        };
+    }
+}
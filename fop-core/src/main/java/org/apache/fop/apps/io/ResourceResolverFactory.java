@@ -21,10 +21,8 @@ package org.apache.fop.apps.io;
 
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.net.MalformedURLException;
 import java.net.URI;
 import java.util.Collections;
 import java.util.HashMap;
@@ -191,7 +189,7 @@ public final class ResourceResolverFactory {
 
         /** {@inheritDoc} */
         public Resource getResource(String id) throws IOException {
-            return new Resource(new FileDeletingInputStream(getTempFile(id)));
+            return new TempFileResource(getTempFile(id));
         }
 
         /** {@inheritDoc} */
@@ -200,25 +198,6 @@ public final class ResourceResolverFactory {
         }
     }
 
-    private static class FileDeletingInputStream extends FilterInputStream {
-
-        private final File file;
-
-        protected FileDeletingInputStream(File file) throws MalformedURLException, IOException {
-            super(file.toURI().toURL().openStream());
-            this.file = file;
-        }
-
-        @Override
-        public void close() throws IOException {
-            try {
-                super.close();
-            } finally {
-                file.delete();
-            }
-        }
-    }
-
     private static class NormalResourceResolver implements ResourceResolver {
         public Resource getResource(URI uri) throws IOException {
             return new Resource(uri.toURL().openStream());
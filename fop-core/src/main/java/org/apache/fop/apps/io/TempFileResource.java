@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.apps.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+import org.apache.xmlgraphics.io.Resource;
+
+/**
+ * A temporary resource held in a file, as created by the default temporary resource resolver.
+ * The file is deleted when the resource is closed. Its content can be read through the file's
+ * channel, so it can be transferred to another file without passing through the heap.
+ */
+public final class TempFileResource extends Resource {
+
+    private final FileInputStream in;
+
+    TempFileResource(File file) throws IOException {
+        this(new FileDeletingInputStream(file));
+    }
+
+    private TempFileResource(FileDeletingInputStream in) {
+        super(in);
+        this.in = in;
+    }
+
+    /**
+     * Returns the channel of the temporary file. Reading from it advances this resource.
+     * @return the file channel
+     */
+    public FileChannel getChannel() {
+        return in.getChannel();
+    }
+
+    private static final class FileDeletingInputStream extends FileInputStream {
+
+        private final File file;
+
+        FileDeletingInputStream(File file) throws IOException {
+            super(file);
+            this.file = file;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                file.delete();
+            }
+        }
+    }
+}
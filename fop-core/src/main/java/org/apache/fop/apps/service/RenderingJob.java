@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.apps.service;
+
+import java.io.OutputStream;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+
+import org.apache.fop.apps.FOUserAgent;
+
+/**
+ * Describes one rendering job submitted to a {@link RenderingService}: the input, the optional
+ * transformation producing XSL-FO, the output format and the target stream.
+ */
+public class RenderingJob {
+
+    private final String outputFormat;
+
+    private final Source source;
+
+    private final Transformer transformer;
+
+    private final OutputStream outputStream;
+
+    private FOUserAgent userAgent;
+
+    private long estimatedMemory = -1;
+
+    /**
+     * Creates a new rendering job.
+     * @param outputFormat the MIME type of the output format
+     * @param source the input (XSL-FO, or XML if a transformer producing XSL-FO is given)
+     * @param transformer the transformer to apply to the input, or null if the input is XSL-FO
+     * @param outputStream the output stream, or null for output formats that need none
+     * (like printing)
+     */
+    public RenderingJob(String outputFormat, Source source, Transformer transformer,
+            OutputStream outputStream) {
+        this.outputFormat = outputFormat;
+        this.source = source;
+        this.transformer = transformer;
+        this.outputStream = outputStream;
+    }
+
+    /** @return the MIME type of the output format */
+    public String getOutputFormat() {
+        return outputFormat;
+    }
+
+    /** @return the input */
+    public Source getSource() {
+        return source;
+    }
+
+    /** @return the transformer to apply to the input, or null for an identity transformation */
+    public Transformer getTransformer() {
+        return transformer;
+    }
+
+    /** @return the output stream, may be null */
+    public OutputStream getOutputStream() {
+        return outputStream;
+    }
+
+    /**
+     * Sets the user agent to use for this job. If none is set, the service creates one from
+     * its factory.
+     * @param userAgent the user agent
+     */
+    public void setUserAgent(FOUserAgent userAgent) {
+        this.userAgent = userAgent;
+    }
+
+    /** @return the user agent set for this job, or null */
+    public FOUserAgent getUserAgent() {
+        return userAgent;
+    }
+
+    /**
+     * Sets the estimated amount of memory the job needs. It is used by the service's admission
+     * control. If not set, the service's default estimate is used.
+     * @param bytes the estimated memory in bytes
+     */
+    public void setEstimatedMemory(long bytes) {
+        this.estimatedMemory = bytes;
+    }
+
+    /** @return the estimated memory in bytes, or -1 if not set */
+    public long getEstimatedMemory() {
+        return estimatedMemory;
+    }
+}
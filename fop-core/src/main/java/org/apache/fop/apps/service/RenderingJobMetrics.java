@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.apps.service;
+
+/**
+ * Metrics of a completed {@link RenderingJob}.
+ */
+public final class RenderingJobMetrics {
+
+    private final int pageCount;
+
+    private final long outputBytes;
+
+    private final long queueTime;
+
+    private final long processingTime;
+
+    RenderingJobMetrics(int pageCount, long outputBytes, long queueTime, long processingTime) {
+        this.pageCount = pageCount;
+        this.outputBytes = outputBytes;
+        this.queueTime = queueTime;
+        this.processingTime = processingTime;
+    }
+
+    /** @return the number of pages produced */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /** @return the number of bytes written to the job's output stream */
+    public long getOutputBytes() {
+        return outputBytes;
+    }
+
+    /** @return the time in milliseconds the job waited for admission and a worker */
+    public long getQueueTime() {
+        return queueTime;
+    }
+
+    /**
+     * Returns the time spent processing the job. Since FOP lays out and renders pages
+     * while the input is being parsed, this includes transformation, layout and rendering.
+     * @return the processing time in milliseconds
+     */
+    public long getProcessingTime() {
+        return processingTime;
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return "pages=" + pageCount + ", bytes=" + outputBytes + ", queue=" + queueTime
+                + "ms, processing=" + processingTime + "ms";
+    }
+}
@@ -0,0 +1,372 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.apps.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.fop.apps.DeadlineExceededException;
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FormattingResults;
+
+/**
+ * A thread-safe rendering service around a shared {@link FopFactory}. Jobs are processed by a
+ * bounded pool of worker threads. Jobs that cannot be started immediately are queued up to a
+ * configurable limit; beyond that, {@link #submit(RenderingJob)} rejects them. Optionally, each
+ * job is subject to a memory budget, a processing time limit and an output size limit.
+ * <p>
+ * The memory budget is admission control based on the memory the callers estimate for their
+ * jobs ({@link RenderingJob#setEstimatedMemory(long)}); the memory actually used by a job is
+ * not measured. A job is only submitted to the worker pool once its estimate fits into what is
+ * left of the budget, so waiting for memory blocks the submitting thread, not a worker.
+ * <p>
+ * The time limit is checked while the input is parsed, for every page laid out and rendered
+ * (see {@link FOUserAgent#setDeadline(long)}) and for every write to the output stream.
+ * <p>
+ * Instances are created through {@link RenderingServiceBuilder}.
+ */
+public class RenderingService {
+
+    /** logging instance */
+    private static Log log = LogFactory.getLog(RenderingService.class);
+
+    /** memory permits are counted in units of 1 KiB */
+    private static final int MEMORY_UNIT = 1024;
+
+    private final FopFactory fopFactory;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Semaphore memoryPermits;
+
+    private final int maxMemoryPermits;
+
+    private final long defaultJobMemory;
+
+    private final long jobTimeout;
+
+    private final long maxOutputBytes;
+
+    RenderingService(FopFactory fopFactory, ThreadPoolExecutor executor, long memoryBudget,
+            long defaultJobMemory, long jobTimeout, long maxOutputBytes) {
+        this.fopFactory = fopFactory;
+        this.executor = executor;
+        if (memoryBudget > 0) {
+            this.maxMemoryPermits = (int) Math.min(Integer.MAX_VALUE, memoryBudget / MEMORY_UNIT);
+            this.memoryPermits = new Semaphore(maxMemoryPermits, true);
+        } else {
+            this.maxMemoryPermits = 0;
+            this.memoryPermits = null;
+        }
+        this.defaultJobMemory = defaultJobMemory;
+        this.jobTimeout = jobTimeout;
+        this.maxOutputBytes = maxOutputBytes;
+    }
+
+    /** @return the FopFactory used by this service */
+    public FopFactory getFopFactory() {
+        return fopFactory;
+    }
+
+    /**
+     * Submits a job for asynchronous processing. If a memory budget is set, this method blocks
+     * until the job's estimated memory fits into the budget (at most for the job's time
+     * budget).
+     * @param job the rendering job
+     * @return the future delivering the job's metrics when it has completed
+     * @throws RejectedExecutionException if the job queue is full or the service has been
+     * shut down
+     * @throws RenderingServiceOverloadedException if the job's time budget elapsed while
+     * waiting for memory
+     * @throws InterruptedException if interrupted while waiting for memory
+     */
+    public Future<RenderingJobMetrics> submit(final RenderingJob job) throws InterruptedException {
+        final long submitted = System.currentTimeMillis();
+        final int permits = acquireMemory(job);
+        final AtomicBoolean released = new AtomicBoolean(permits == 0);
+        FutureTask<RenderingJobMetrics> task = new FutureTask<RenderingJobMetrics>(
+                new Callable<RenderingJobMetrics>() {
+                    public RenderingJobMetrics call() throws Exception {
+                        try {
+                            return process(job, submitted);
+                        } finally {
+                            releaseMemory(permits, released);
+                        }
+                    }
+                }) {
+            protected void done() {
+                //a job cancelled before it started never runs its callable
+                if (isCancelled()) {
+                    releaseMemory(permits, released);
+                }
+            }
+        };
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ree) {
+            releaseMemory(permits, released);
+            throw ree;
+        }
+        return task;
+    }
+
+    /**
+     * Processes a job and waits for it to complete.
+     * @param job the rendering job
+     * @return the job's metrics
+     * @throws FOPException if an error occurs while processing the job
+     * @throws RejectedExecutionException if the job queue is full or the service has been
+     * shut down
+     * @throws RenderingServiceOverloadedException if the job's time budget elapsed while
+     * waiting for memory
+     */
+    public RenderingJobMetrics render(RenderingJob job) throws FOPException {
+        Future<RenderingJobMetrics> future = null;
+        try {
+            future = submit(job);
+            return future.get();
+        } catch (InterruptedException ie) {
+            if (future != null) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new FOPException("Interrupted while waiting for the rendering job", ie);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof FOPException) {
+                throw (FOPException) cause;
+            } else if (cause instanceof TransformerException
+                    && ((TransformerException) cause).getException() instanceof FOPException) {
+                throw (FOPException) ((TransformerException) cause).getException();
+            } else if (cause instanceof Exception) {
+                throw new FOPException((Exception) cause);
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new FOPException(String.valueOf(cause), ee);
+            }
+        }
+    }
+
+    private RenderingJobMetrics process(RenderingJob job, long submitted)
+            throws FOPException, TransformerException {
+        long started = System.currentTimeMillis();
+        long deadline = (jobTimeout > 0) ? submitted + jobTimeout : Long.MAX_VALUE;
+        if (started > deadline) {
+            throw new FOPException("Rendering job timed out after " + jobTimeout
+                    + "ms while waiting for a worker");
+        }
+
+        FOUserAgent userAgent = job.getUserAgent();
+        if (userAgent == null) {
+            userAgent = fopFactory.newFOUserAgent();
+        }
+        userAgent.setDeadline(deadline);
+        CountingOutputStream out = null;
+        Fop fop;
+        if (job.getOutputStream() != null) {
+            out = new LimitedOutputStream(job.getOutputStream(), maxOutputBytes, userAgent);
+            fop = fopFactory.newFop(job.getOutputFormat(), userAgent, out);
+        } else {
+            fop = fopFactory.newFop(job.getOutputFormat(), userAgent);
+        }
+
+        Transformer transformer = job.getTransformer();
+        if (transformer == null) {
+            transformer = TransformerFactory.newInstance().newTransformer();
+        }
+        DeadlineFilter filter = new DeadlineFilter(userAgent);
+        filter.setContentHandler(fop.getDefaultHandler());
+        Result res = new SAXResult(filter);
+        try {
+            transformer.transform(job.getSource(), res);
+        } catch (DeadlineExceededException dee) {
+            throw new FOPException(dee);
+        }
+
+        FormattingResults results = fop.getResults();
+        RenderingJobMetrics metrics = new RenderingJobMetrics(
+                (results != null) ? results.getPageCount() : 0,
+                (out != null) ? out.getByteCount() : 0,
+                started - submitted,
+                System.currentTimeMillis() - started);
+        if (log.isDebugEnabled()) {
+            log.debug("Rendering job completed: " + metrics);
+        }
+        return metrics;
+    }
+
+    private void releaseMemory(int permits, AtomicBoolean released) {
+        if (released.compareAndSet(false, true)) {
+            memoryPermits.release(permits);
+        }
+    }
+
+    private int acquireMemory(RenderingJob job) throws InterruptedException {
+        if (memoryPermits == null) {
+            return 0;
+        }
+        long estimate = job.getEstimatedMemory();
+        if (estimate < 0) {
+            estimate = defaultJobMemory;
+        }
+        //A job larger than the whole budget runs on its own rather than never
+        int permits = (int) Math.min(maxMemoryPermits,
+                Math.max(1, (estimate + MEMORY_UNIT - 1) / MEMORY_UNIT));
+        if (jobTimeout > 0) {
+            if (!memoryPermits.tryAcquire(permits, jobTimeout, TimeUnit.MILLISECONDS)) {
+                throw new RenderingServiceOverloadedException("Rendering job timed out after "
+                        + jobTimeout + "ms while waiting for memory");
+            }
+        } else {
+            memoryPermits.acquire(permits);
+        }
+        return permits;
+    }
+
+    /** @return the number of jobs currently being processed */
+    public int getActiveJobCount() {
+        return executor.getActiveCount();
+    }
+
+    /** @return the number of jobs waiting for a worker thread */
+    public int getQueuedJobCount() {
+        return executor.getQueue().size();
+    }
+
+    /** @return the number of completed jobs (successful or not) */
+    public long getCompletedJobCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    /**
+     * Initiates an orderly shutdown: already submitted jobs are processed, but no new jobs
+     * are accepted.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Waits for all jobs to complete after a shutdown request.
+     * @param timeout the maximum time to wait
+     * @param unit the time unit of the timeout argument
+     * @return true if the service has terminated, false if the timeout elapsed before
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    /**
+     * Aborts the job while the input is parsed if its time budget is exhausted (or its thread
+     * has been interrupted). Layout and rendering check the deadline themselves.
+     */
+    private static final class DeadlineFilter extends XMLFilterImpl {
+
+        private final FOUserAgent userAgent;
+
+        DeadlineFilter(FOUserAgent userAgent) {
+            this.userAgent = userAgent;
+        }
+
+        public void startElement(String uri, String localName, String qName, Attributes atts)
+                throws SAXException {
+            try {
+                userAgent.checkDeadline();
+            } catch (DeadlineExceededException dee) {
+                throw new SAXException(new FOPException(dee));
+            }
+            super.startElement(uri, localName, qName, atts);
+        }
+    }
+
+    /** Counts the bytes written and fails on a write that would exceed a limit or after the job's deadline. */
+    private static final class LimitedOutputStream extends CountingOutputStream {
+
+        private final long limit;
+
+        private final FOUserAgent userAgent;
+
+        LimitedOutputStream(OutputStream out, long limit, FOUserAgent userAgent) {
+            super(out);
+            this.limit = limit;
+            this.userAgent = userAgent;
+        }
+
+        public void write(int b) throws IOException {
+            checkLimit(1);
+            super.write(b);
+        }
+
+        public void write(byte[] b) throws IOException {
+            checkLimit(b.length);
+            super.write(b);
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkLimit(len);
+            super.write(b, off, len);
+        }
+
+        /** Checked before the bytes reach the target, so a single write cannot overshoot. */
+        private void checkLimit(int n) throws IOException {
+            if (limit > 0 && getByteCount() + n > limit) {
+                throw new IOException("Rendering job exceeded its output limit of "
+                        + limit + " bytes");
+            }
+        }
+
+        protected void afterWrite(int n) throws IOException {
+            try {
+                userAgent.checkDeadline();
+            } catch (DeadlineExceededException dee) {
+                throw new IOException(dee.getMessage(), dee);
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.apps.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.fop.apps.FopFactory;
+
+/**
+ * Builder for {@link RenderingService} instances. By default, the service uses one worker
+ * thread per available processor, queues up to 100 jobs and imposes no memory, time or output
+ * limits.
+ */
+public final class RenderingServiceBuilder {
+
+    private final FopFactory fopFactory;
+
+    private int maxConcurrentJobs = Runtime.getRuntime().availableProcessors();
+
+    private int maxQueuedJobs = 100;
+
+    private long memoryBudget;
+
+    private long defaultJobMemory = 64L * 1024 * 1024;
+
+    private long jobTimeout;
+
+    private long maxOutputBytes;
+
+    /**
+     * Creates a new builder.
+     * @param fopFactory the FopFactory shared by all jobs of the service
+     */
+    public RenderingServiceBuilder(FopFactory fopFactory) {
+        if (fopFactory == null) {
+            throw new NullPointerException("fopFactory must not be null");
+        }
+        this.fopFactory = fopFactory;
+    }
+
+    /**
+     * Sets the maximum number of jobs processed at the same time, i.e. the number of worker
+     * threads.
+     * @param maxConcurrentJobs the maximum number of concurrent jobs
+     * @return this builder
+     */
+    public RenderingServiceBuilder setMaxConcurrentJobs(int maxConcurrentJobs) {
+        if (maxConcurrentJobs <= 0) {
+            throw new IllegalArgumentException("maxConcurrentJobs must be greater than 0");
+        }
+        this.maxConcurrentJobs = maxConcurrentJobs;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of jobs waiting for a worker thread. Further jobs are rejected.
+     * @param maxQueuedJobs the maximum number of queued jobs (0 to reject all jobs when all
+     * workers are busy)
+     * @return this builder
+     */
+    public RenderingServiceBuilder setMaxQueuedJobs(int maxQueuedJobs) {
+        if (maxQueuedJobs < 0) {
+            throw new IllegalArgumentException("maxQueuedJobs must not be negative");
+        }
+        this.maxQueuedJobs = maxQueuedJobs;
+        return this;
+    }
+
+    /**
+     * Sets the memory budget shared by all concurrently processed jobs. A job only starts
+     * when its estimated memory fits into what is left of the budget.
+     * @param bytes the memory budget in bytes (0 to disable memory-based admission control)
+     * @return this builder
+     */
+    public RenderingServiceBuilder setMemoryBudget(long bytes) {
+        this.memoryBudget = bytes;
+        return this;
+    }
+
+    /**
+     * Sets the estimated memory of jobs which don't specify one themselves.
+     * @param bytes the estimated memory in bytes
+     * @return this builder
+     * @see RenderingJob#setEstimatedMemory(long)
+     */
+    public RenderingServiceBuilder setDefaultJobMemory(long bytes) {
+        this.defaultJobMemory = bytes;
+        return this;
+    }
+
+    /**
+     * Sets the time budget of a job, measured from its submission. Jobs exceeding it are
+     * aborted with an exception.
+     * @param timeout the timeout (0 for no limit)
+     * @param unit the time unit of the timeout argument
+     * @return this builder
+     */
+    public RenderingServiceBuilder setJobTimeout(long timeout, TimeUnit unit) {
+        this.jobTimeout = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of bytes a job may write to its output stream. Jobs exceeding
+     * it are aborted with an exception.
+     * @param bytes the output limit in bytes (0 for no limit)
+     * @return this builder
+     */
+    public RenderingServiceBuilder setMaxOutputBytes(long bytes) {
+        this.maxOutputBytes = bytes;
+        return this;
+    }
+
+    /**
+     * Builds the rendering service.
+     * @return the new rendering service
+     */
+    public RenderingService build() {
+        BlockingQueue<Runnable> queue = (maxQueuedJobs > 0)
+                ? new ArrayBlockingQueue<Runnable>(maxQueuedJobs)
+                : new SynchronousQueue<Runnable>();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxConcurrentJobs,
+                maxConcurrentJobs, 60, TimeUnit.SECONDS, queue, new WorkerThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return new RenderingService(fopFactory, executor, memoryBudget, defaultJobMemory,
+                jobTimeout, maxOutputBytes);
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger SERVICE_COUNT = new AtomicInteger();
+
+        private final int serviceNumber = SERVICE_COUNT.incrementAndGet();
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "fop-rendering-" + serviceNumber + "-"
+                    + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
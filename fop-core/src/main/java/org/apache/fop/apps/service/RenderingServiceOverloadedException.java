@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.apps.service;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Thrown when the {@link RenderingService} does not accept a job because it is overloaded:
+ * the job could not get its share of the memory budget within its time budget. Callers
+ * should treat it as a temporary condition (an HTTP server would answer with status 503)
+ * rather than as a failure of the job.
+ */
+public class RenderingServiceOverloadedException extends RejectedExecutionException {
+
+    private static final long serialVersionUID = 4263129371864532147L;
+
+    /**
+     * Constructs a new exception with the specified detail message.
+     * @param message the detail message
+     */
+    public RenderingServiceOverloadedException(String message) {
+        super(message);
+    }
+}
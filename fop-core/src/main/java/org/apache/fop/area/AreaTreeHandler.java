@@ -23,6 +23,7 @@ package org.apache.fop.area;
 import java.io.OutputStream;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executor;
 
 import org.xml.sax.SAXException;
 
@@ -89,6 +90,12 @@ public class AreaTreeHandler extends FOEventHandler {
 
     private int idGen;
 
+    // Lays out page-sequences concurrently, null if disabled
+    private PageSequenceLayoutQueue layoutQueue;
+
+    // Whether the current page-sequence is laid out by the layout queue
+    private boolean concurrentLayout;
+
     /**
      * Constructor.
      *
@@ -110,14 +117,38 @@ public class AreaTreeHandler extends FOEventHandler {
         }
 
         this.idTracker = new IDTracker();
+        model.setIDTracker(idTracker);
 
         this.useComplexScriptFeatures = userAgent.isComplexScriptFeaturesEnabled();
 
+        Executor layoutExecutor = userAgent.getLayoutExecutor();
+        if (layoutExecutor != null && !userAgent.isAccessibilityEnabled()) {
+            // allow each layout thread to work ahead by one page-sequence
+            this.layoutQueue = new PageSequenceLayoutQueue(this, layoutExecutor,
+                    2 * userAgent.getLayoutThreads());
+        }
+
         if (log.isDebugEnabled()) {
             statistics = new Statistics();
         }
     }
 
+    /**
+     * Constructor for a handler that lays out a single page-sequence on behalf of another
+     * handler. See {@link PageSequenceLayoutQueue}.
+     *
+     * @param userAgent FOUserAgent object for process
+     * @param model the model receiving the pages of the page-sequence
+     * @param lmMaker the LayoutManager maker
+     */
+    AreaTreeHandler(FOUserAgent userAgent, AreaTreeModel model, LayoutManagerMaker lmMaker) {
+        super(userAgent);
+        this.model = model;
+        this.lmMaker = lmMaker;
+        this.idTracker = new IDTracker();
+        this.useComplexScriptFeatures = userAgent.isComplexScriptFeaturesEnabled();
+    }
+
     /**
      * Sets up the AreaTreeModel instance for use by the AreaTreeHandler.
      *
@@ -182,6 +213,16 @@ public class AreaTreeHandler extends FOEventHandler {
         return useComplexScriptFeatures;
     }
 
+    /**
+     * Indicates whether unresolved page numbers are laid out as placeholders, which is the
+     * case if enabled on the user agent and supported by the renderer.
+     *
+     * @return true if page number placeholders are used
+     */
+    public boolean isPageNumberPlaceholdersEnabled() {
+        return model.isPageNumberPlaceholdersEnabled();
+    }
+
     /**
      * Prepare AreaTreeHandler for document processing This is called from
      * FOTreeBuilder.startDocument()
@@ -226,7 +267,8 @@ public class AreaTreeHandler extends FOEventHandler {
         rootFObj = pageSequence.getRoot();
 
         //Before the first page-sequence...
-        if (this.prevPageSeqLM == null) {
+        if (this.prevPageSeqLM == null
+                && (layoutQueue == null || !layoutQueue.hasSubmittedJobs())) {
             // extension attachments from fo:root
             wrapAndAddExtensionAttachments(rootFObj.getExtensionAttachments());
             // extension attachments from fo:declarations
@@ -236,6 +278,15 @@ public class AreaTreeHandler extends FOEventHandler {
             }
         }
 
+        if (layoutQueue != null) {
+            concurrentLayout = layoutQueue.isEligible(pageSequence);
+            if (concurrentLayout) {
+                layoutQueue.setNextInitialPageNumber(pageSequence.getInitialPageNumber());
+            } else {
+                // the page-sequence depends on the preceding ones, so these must be complete
+                layoutQueue.mergeAll(pageSequence.getInitialPageNumber());
+            }
+        }
         finishPrevPageSequence(pageSequence.getInitialPageNumber());
         pageSequence.initPageNumber();
     }
@@ -259,8 +310,15 @@ public class AreaTreeHandler extends FOEventHandler {
             statistics.end();
         }
 
+        if (concurrentLayout && !layoutQueue.isEligible(pageSequence)) {
+            // the static content turned out to depend on the preceding page-sequences
+            layoutQueue.mergeAll(pageSequence.getInitialPageNumber());
+            concurrentLayout = false;
+        }
         // If no main flow, nothing to layout!
-        if (pageSequence.getMainFlow() != null) {
+        if (pageSequence.getMainFlow() != null && concurrentLayout) {
+            layoutQueue.submit(pageSequence);
+        } else if (pageSequence.getMainFlow() != null) {
             PageSequenceLayoutManager pageSLM;
             pageSLM = getLayoutManagerMaker().makePageSequenceLayoutManager(
                     this, pageSequence);
@@ -316,6 +374,9 @@ public class AreaTreeHandler extends FOEventHandler {
     @Override
     public void endDocument() throws SAXException {
 
+        if (layoutQueue != null) {
+            layoutQueue.mergeAll(null);
+        }
         finishPrevPageSequence(null);
         // process fox:destination elements
         if (rootFObj != null) {
@@ -339,6 +400,10 @@ public class AreaTreeHandler extends FOEventHandler {
             }
             idTracker.signalIDProcessed(rootFObj.getId());
         }
+        results.setUnresolvedIDRefCount(idTracker.getUnresolvedIDRefCount());
+        if (model instanceof RenderPagesModel) {
+            results.setMaxBlockedPageCount(((RenderPagesModel) model).getMaxBlockedPageCount());
+        }
         model.endDocument();
 
         if (statistics != null) {
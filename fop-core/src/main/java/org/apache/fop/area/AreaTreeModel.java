@@ -125,6 +125,22 @@ public class AreaTreeModel {
         return pageSequenceList.get(seq - 1).getPage(count);
     }
 
+    /**
+     * Sets the tracker resolving the ID references of the pages added to this model.
+     * @param idTracker the ID tracker
+     */
+    void setIDTracker(IDTracker idTracker) {
+    }
+
+    /**
+     * Indicates whether unresolved page numbers are painted as placeholders, so pages only
+     * waiting for them can be rendered right away.
+     * @return true if the pages' renderer paints page number placeholders
+     */
+    public boolean isPageNumberPlaceholdersEnabled() {
+        return false;
+    }
+
     /**
      *
      * @param locale The locale of the document
@@ -75,7 +75,7 @@ public class CachedRenderPagesModel extends RenderPagesModel {
     protected boolean checkPreparedPages(PageViewport newpage, boolean renderUnresolved) {
         for (Iterator iter = prepared.iterator(); iter.hasNext();) {
             PageViewport pageViewport = (PageViewport)iter.next();
-            if (pageViewport.isResolved() || renderUnresolved) {
+            if (isRenderable(pageViewport) || renderUnresolved) {
                 if (pageViewport != newpage) {
                     try {
                         // load page from cache
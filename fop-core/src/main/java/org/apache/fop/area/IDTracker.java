@@ -19,6 +19,7 @@
 
 package org.apache.fop.area;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -30,25 +31,45 @@ import org.apache.commons.logging.LogFactory;
 /**
  * Used by the AreaTreeHandler to keep track of ID reference usage
  * on a PageViewport level.
+ * <p>
+ * All information about an ID (the pages it is located on, the Resolvable objects waiting
+ * for it and its layout state) is kept in a single index entry, so each operation needs only
+ * one lookup. IDs are numbered in the order they are first seen, and every page records the
+ * numbers of the IDs located on it, which keeps replacing a page independent of the number
+ * of IDs in the document.
  */
 public class IDTracker {
 
     private static final Log LOG = LogFactory.getLog(IDTracker.class);
 
-    // Map of ID's whose area is located on one or more consecutive
-    // PageViewports. Each ID has a list of PageViewports that
-    // form the defined area of this ID
-    private Map<String, List<PageViewport>> idLocations
-            = new java.util.HashMap<String, List<PageViewport>>();
+    // Index of all IDs seen so far (located, referenced or signalled)
+    private Map<String, IDEntry> index = new java.util.HashMap<String, IDEntry>();
 
-    // idref's whose target PageViewports have yet to be identified
-    // Each idref has a HashSet of Resolvable objects containing that idref
-    private Map<String, Set<Resolvable>> unresolvedIDRefs
-            = new java.util.HashMap<String, Set<Resolvable>>();
+    // The index entries by number
+    private List<IDEntry> entries = new java.util.ArrayList<IDEntry>();
 
-    private Set<String> unfinishedIDs = new java.util.HashSet<String>();
+    // The numbers of the IDs located on each PageViewport
+    private Map<PageViewport, IDNumbers> idsByPage
+            = new java.util.IdentityHashMap<PageViewport, IDNumbers>();
 
-    private Set<String> alreadyResolvedIDs = new java.util.HashSet<String>();
+    // Number of located IDs
+    private int locatedIDCount;
+
+    // Number of IDs with Resolvable objects waiting for them
+    private int unresolvedIDCount;
+
+    // Number of resolutions dispatched to Resolvable objects
+    private int resolutionCount;
+
+    private IDEntry getEntry(String id) {
+        IDEntry entry = index.get(id);
+        if (entry == null) {
+            entry = new IDEntry(id, entries.size());
+            index.put(id, entry);
+            entries.add(entry);
+        }
+        return entry;
+    }
 
     /**
      * Tie a PageViewport with an ID found on a child area of the PV. Note that
@@ -62,29 +83,40 @@ public class IDTracker {
         if (LOG.isDebugEnabled()) {
             LOG.debug("associateIDWithPageViewport(" + id + ", " + pv + ")");
         }
-        List<PageViewport> pvList = idLocations.get(id);
-        if (pvList == null) { // first time ID located
-            pvList = new java.util.ArrayList<PageViewport>();
-            idLocations.put(id, pvList);
-            pvList.add(pv);
+        IDEntry entry = getEntry(id);
+        if (entry.locations == null) { // first time ID located
+            entry.locations = new java.util.ArrayList<PageViewport>();
+            entry.locations.add(pv);
+            locatedIDCount++;
+            addToPage(pv, entry.number);
             // signal the PageViewport that it is the first PV to contain this id:
-            pv.setFirstWithID(id);
+            pv.setFirstWithID(entry.id);
             /*
              * See if this ID is in the unresolved idref list, if so resolve
              * Resolvable objects tied to it.
              */
-            if (!unfinishedIDs.contains(id)) {
-                tryIDResolution(id, pvList);
+            if (!entry.pending) {
+                tryIDResolution(entry, entry.locations);
             }
         } else {
             /* TODO: The check is a quick-fix to avoid a waste
              * when adding inline-ids to the page */
-            if (!pvList.contains(pv)) {
-                pvList.add(pv);
+            if (!entry.locations.contains(pv)) {
+                entry.locations.add(pv);
+                addToPage(pv, entry.number);
             }
         }
     }
 
+    private void addToPage(PageViewport pv, int number) {
+        IDNumbers numbers = idsByPage.get(pv);
+        if (numbers == null) {
+            numbers = new IDNumbers();
+            idsByPage.put(pv, numbers);
+        }
+        numbers.add(number);
+    }
+
     /**
      * This method tie an ID to the areaTreeHandler until this one is ready to
      * be processed. This is used in page-number-citation-last processing so we
@@ -96,7 +128,7 @@ public class IDTracker {
         if (LOG.isDebugEnabled()) {
             LOG.debug("signalPendingID(" + id + ")");
         }
-        unfinishedIDs.add(id);
+        getEntry(id).pending = true;
     }
 
     /**
@@ -111,19 +143,19 @@ public class IDTracker {
             LOG.debug("signalIDProcessed(" + id + ")");
         }
 
-        alreadyResolvedIDs.add(id);
-        if (!unfinishedIDs.contains(id)) {
+        IDEntry entry = getEntry(id);
+        entry.processed = true;
+        if (!entry.pending) {
             return;
         }
-        unfinishedIDs.remove(id);
+        entry.pending = false;
 
-        List<PageViewport> idLocs = idLocations.get(id);
-        Set<Resolvable> todo = unresolvedIDRefs.get(id);
-        if (todo != null) {
-            for (Resolvable res : todo) {
-                res.resolveIDRef(id, idLocs);
+        if (entry.unresolved != null) {
+            for (Resolvable res : entry.unresolved) {
+                res.resolveIDRef(entry.id, entry.locations);
+                resolutionCount++;
             }
-            unresolvedIDRefs.remove(id);
+            clearUnresolved(entry);
         }
     }
 
@@ -134,30 +166,36 @@ public class IDTracker {
      * @return true if the ID has been resolved
      */
     public boolean alreadyResolvedID(String id) {
-        return (alreadyResolvedIDs.contains(id));
+        IDEntry entry = index.get(id);
+        return entry != null && entry.processed;
     }
 
     /**
      * Tries to resolve all unresolved ID references on the given set of pages.
      *
-     * @param id ID to resolve
+     * @param entry the entry of the ID to resolve
      * @param pvList list of PageViewports
      */
-    private void tryIDResolution(String id, List<PageViewport> pvList) {
-        Set<Resolvable> todo = unresolvedIDRefs.get(id);
-        if (todo != null) {
-            for (Resolvable res : todo) {
-                if (!unfinishedIDs.contains(id)) {
-                    res.resolveIDRef(id, pvList);
+    private void tryIDResolution(IDEntry entry, List<PageViewport> pvList) {
+        if (entry.unresolved != null) {
+            for (Resolvable res : entry.unresolved) {
+                if (!entry.pending) {
+                    res.resolveIDRef(entry.id, pvList);
+                    resolutionCount++;
                 } else {
                     return;
                 }
             }
-            alreadyResolvedIDs.add(id);
-            unresolvedIDRefs.remove(id);
+            entry.processed = true;
+            clearUnresolved(entry);
         }
     }
 
+    private void clearUnresolved(IDEntry entry) {
+        entry.unresolved = null;
+        unresolvedIDCount--;
+    }
+
     /**
      * Tries to resolve all unresolved ID references on the given page.
      *
@@ -167,9 +205,9 @@ public class IDTracker {
         String[] ids = pv.getIDRefs();
         if (ids != null) {
             for (String id : ids) {
-                List<PageViewport> pvList = idLocations.get(id);
-                if (!(pvList == null || pvList.isEmpty())) {
-                    tryIDResolution(id, pvList);
+                IDEntry entry = index.get(id);
+                if (entry != null && entry.locations != null && !entry.locations.isEmpty()) {
+                    tryIDResolution(entry, entry.locations);
                 }
             }
         }
@@ -182,11 +220,9 @@ public class IDTracker {
      * @return the list of PageViewports
      */
     public List<PageViewport> getPageViewportsContainingID(String id) {
-        if (!(idLocations == null || idLocations.isEmpty())) {
-            List<PageViewport> idLocs = idLocations.get(id);
-            if (idLocs != null) {
-                return idLocs;
-            }
+        IDEntry entry = index.get(id);
+        if (entry != null && entry.locations != null) {
+            return entry.locations;
         }
         return Collections.emptyList();
     }
@@ -230,13 +266,66 @@ public class IDTracker {
      * @param res the Resolvable object needing the idref to be resolved
      */
     public void addUnresolvedIDRef(String idref, Resolvable res) {
-        Set<Resolvable> todo = unresolvedIDRefs.get(idref);
-        if (todo == null) {
-            todo = new java.util.HashSet<Resolvable>();
-            unresolvedIDRefs.put(idref, todo);
+        IDEntry entry = getEntry(idref);
+        if (entry.unresolved == null) {
+            entry.unresolved = new java.util.LinkedHashSet<Resolvable>();
+            unresolvedIDCount++;
         }
-        // add Resolvable object to this HashSet
-        todo.add(res);
+        // add Resolvable object to this set
+        entry.unresolved.add(res);
+    }
+
+    /** @return the number of IDs located on at least one page */
+    public int getLocatedIDCount() {
+        return locatedIDCount;
+    }
+
+    /** @return the number of IDs with references still waiting to be resolved */
+    public int getUnresolvedIDRefCount() {
+        return unresolvedIDCount;
+    }
+
+    /**
+     * Returns the number of times a Resolvable object was handed the pages of an ID. This
+     * grows whenever references are resolved, which allows checking for resolved pages only
+     * after something actually changed.
+     * @return the number of resolutions so far
+     */
+    int getResolutionCount() {
+        return resolutionCount;
+    }
+
+    /** @return a snapshot of the page viewports of each ID located so far, in index order */
+    Map<String, List<PageViewport>> getIDLocations() {
+        Map<String, List<PageViewport>> locations = new java.util.LinkedHashMap<String, List<PageViewport>>();
+        for (IDEntry entry : entries) {
+            if (entry.locations != null) {
+                locations.put(entry.id, entry.locations);
+            }
+        }
+        return locations;
+    }
+
+    /** @return a snapshot of the Resolvable objects waiting for each unresolved idref */
+    Map<String, Set<Resolvable>> getUnresolvedIDRefs() {
+        Map<String, Set<Resolvable>> unresolved = new java.util.LinkedHashMap<String, Set<Resolvable>>();
+        for (IDEntry entry : entries) {
+            if (entry.unresolved != null) {
+                unresolved.put(entry.id, entry.unresolved);
+            }
+        }
+        return unresolved;
+    }
+
+    /** @return a snapshot of the IDs whose formatting objects have been completely laid out */
+    Set<String> getAlreadyResolvedIDs() {
+        Set<String> processed = new java.util.LinkedHashSet<String>();
+        for (IDEntry entry : entries) {
+            if (entry.processed) {
+                processed.add(entry.id);
+            }
+        }
+        return processed;
     }
 
     /**
@@ -246,14 +335,60 @@ public class IDTracker {
      * @param newPageViewPort new page view port
      */
     public void replacePageViewPort(PageViewport oldPageViewPort, PageViewport newPageViewPort) {
-
-        for (List<PageViewport> viewPortList : idLocations.values()) {
-            for (int i = 0, len = viewPortList.size(); i < len; i++) {
-                PageViewport currPV = viewPortList.get(i);
-                if (currPV == oldPageViewPort) {
-                    viewPortList.set(i, newPageViewPort);
+        IDNumbers numbers = idsByPage.remove(oldPageViewPort);
+        if (numbers == null) {
+            return;
+        }
+        for (int i = 0; i < numbers.size; i++) {
+            List<PageViewport> viewPortList = entries.get(numbers.numbers[i]).locations;
+            for (int j = 0, len = viewPortList.size(); j < len; j++) {
+                if (viewPortList.get(j) == oldPageViewPort) {
+                    viewPortList.set(j, newPageViewPort);
                 }
             }
+            addToPage(newPageViewPort, numbers.numbers[i]);
+        }
+    }
+
+    /** The state of a single ID. */
+    private static final class IDEntry {
+
+        /** the canonical instance of the ID */
+        private final String id;
+
+        /** the number of the ID, in the order the IDs were first seen */
+        private final int number;
+
+        /** the pages the ID is located on, null if not located yet */
+        private List<PageViewport> locations;
+
+        /** the Resolvable objects waiting for the ID, null if there are none */
+        private Set<Resolvable> unresolved;
+
+        /** true while the areas of the formatting object are generated */
+        private boolean pending;
+
+        /** true once the formatting object has been laid out completely */
+        private boolean processed;
+
+        IDEntry(String id, int number) {
+            this.id = id;
+            this.number = number;
+        }
+    }
+
+    /** A compact, growable list of ID numbers. */
+    private static final class IDNumbers {
+
+        private int[] numbers = new int[2];
+
+        private int size;
+
+        void add(int number) {
+            if (size == numbers.length) {
+                numbers = Arrays.copyOf(numbers, size * 2);
+            }
+            numbers[size++] = number;
         }
     }
 }
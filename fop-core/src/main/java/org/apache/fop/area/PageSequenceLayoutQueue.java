@@ -0,0 +1,417 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.apache.fop.datatypes.Numeric;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.flow.RetrieveMarker;
+import org.apache.fop.fo.pagination.AbstractPageSequence;
+import org.apache.fop.fo.pagination.PageSequence;
+import org.apache.fop.fo.pagination.StaticContent;
+import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.fonts.SubsetRecorder;
+import org.apache.fop.layoutmgr.PageSequenceLayoutManager;
+
+/**
+ * Lays out page-sequences concurrently on behalf of an {@link AreaTreeHandler}.
+ * <p>
+ * Each submitted page-sequence is laid out on the layout executor by a
+ * {@link PageSequenceLayoutManager} bound to a detached handler, which buffers the pages and
+ * has its own {@link IDTracker}; layout threads therefore never touch the document's area tree
+ * model. The results are merged on the parsing thread, strictly in document order: the
+ * force-page-count of a page-sequence is applied once the initial-page-number of the following
+ * one is known, its IDs and unresolved ID references are handed over to the document's
+ * {@link IDTracker} (which resolves the citations between page-sequences) and its pages are
+ * added to the area tree model. Renderers thus receive the pages in the same order as with
+ * sequential layout. The glyphs a page-sequence uses from subset fonts are recorded by a
+ * {@link SubsetRecorder} and added to the fonts' subsets when it is merged, so the subset
+ * glyph numbering follows document order, too.
+ * <p>
+ * Only page-sequences whose layout does not depend on the preceding ones are eligible: they
+ * need an explicit initial-page-number and must refer to a simple-page-master (page-sequence
+ * masters keep state while a page-sequence is laid out). A page-sequence whose static content
+ * has a retrieve-marker with a document boundary is laid out sequentially, too, as it may
+ * retrieve markers from the preceding page-sequences.
+ */
+class PageSequenceLayoutQueue {
+
+    private static Log log = LogFactory.getLog(PageSequenceLayoutQueue.class);
+
+    private final AreaTreeHandler areaTreeHandler;
+
+    private final Executor executor;
+
+    private final int maxPendingJobs;
+
+    private final LinkedList<LayoutJob> pendingJobs = new LinkedList<LayoutJob>();
+
+    private int submittedJobCount;
+
+    /**
+     * Creates a new layout queue.
+     * @param areaTreeHandler the handler the results are merged into
+     * @param executor the executor laying out the page-sequences
+     * @param maxPendingJobs the maximum number of page-sequences laid out ahead of the merge
+     */
+    PageSequenceLayoutQueue(AreaTreeHandler areaTreeHandler, Executor executor, int maxPendingJobs) {
+        this.areaTreeHandler = areaTreeHandler;
+        this.executor = executor;
+        this.maxPendingJobs = Math.max(1, maxPendingJobs);
+    }
+
+    /**
+     * Indicates whether the given page-sequence can be laid out concurrently. This is checked
+     * when the page-sequence starts and again when its FO subtree is complete, as the
+     * retrieve-markers are only known then.
+     * @param pageSequence the page-sequence
+     * @return true if its layout does not depend on the preceding page-sequences
+     */
+    boolean isEligible(AbstractPageSequence pageSequence) {
+        if (!(pageSequence instanceof PageSequence)) {
+            return false;
+        }
+        Numeric initialPageNumber = pageSequence.getInitialPageNumber();
+        if (initialPageNumber == null || initialPageNumber.getEnum() != 0) {
+            //auto, auto-odd and auto-even continue from the preceding page-sequence
+            return false;
+        }
+        PageSequence ps = (PageSequence) pageSequence;
+        if (ps.getRoot().getLayoutMasterSet().getPageSequenceMaster(ps.getMasterReference()) != null) {
+            return false;
+        }
+        for (FONode flow : ps.getFlowMap().values()) {
+            if (flow instanceof StaticContent && retrievesFromDocument(flow)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a subtree contains a retrieve-marker with a document boundary, which may
+     * retrieve a marker from a preceding page-sequence.
+     */
+    private static boolean retrievesFromDocument(FONode node) {
+        if (node instanceof RetrieveMarker) {
+            return ((RetrieveMarker) node).getRetrieveBoundary() == Constants.EN_DOCUMENT;
+        }
+        for (FONode.FONodeIterator it = node.getChildNodes(); it != null && it.hasNext();) {
+            if (retrievesFromDocument(it.next())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return true if at least one page-sequence has been submitted */
+    boolean hasSubmittedJobs() {
+        return submittedJobCount > 0;
+    }
+
+    /**
+     * Starts laying out the given page-sequence. If too many page-sequences are pending, this
+     * waits until the oldest one has been merged.
+     * @param pageSequence the page-sequence, whose FO subtree must be complete
+     */
+    void submit(PageSequence pageSequence) {
+        submittedJobCount++;
+        DetachedAreaTreeHandler handler = new DetachedAreaTreeHandler(areaTreeHandler,
+                "S" + submittedJobCount + "P");
+        PageSequenceLayoutManager pslm = areaTreeHandler.getLayoutManagerMaker()
+                .makePageSequenceLayoutManager(handler, pageSequence);
+        LayoutJob job = new LayoutJob(handler, pslm);
+        pendingJobs.add(job);
+        executor.execute(job);
+        while (pendingJobs.size() > maxPendingJobs) {
+            mergeFirst();
+        }
+    }
+
+    /**
+     * Signals the start of the next page-sequence, which is needed to apply the
+     * force-page-count of the last submitted one. Completed page-sequences are merged.
+     * @param initialPageNumber the initial-page-number of the next page-sequence
+     */
+    void setNextInitialPageNumber(Numeric initialPageNumber) {
+        if (!pendingJobs.isEmpty()) {
+            pendingJobs.getLast().setNextInitialPageNumber(initialPageNumber);
+        }
+        while (!pendingJobs.isEmpty() && pendingJobs.getFirst().isReadyToMerge()) {
+            mergeFirst();
+        }
+    }
+
+    /**
+     * Waits for all submitted page-sequences and merges them.
+     * @param initialPageNumber the initial-page-number of the next page-sequence or null at
+     * the end of the document
+     */
+    void mergeAll(Numeric initialPageNumber) {
+        if (!pendingJobs.isEmpty()) {
+            pendingJobs.getLast().setNextInitialPageNumber(initialPageNumber);
+        }
+        while (!pendingJobs.isEmpty()) {
+            mergeFirst();
+        }
+    }
+
+    private void mergeFirst() {
+        LayoutJob job = pendingJobs.removeFirst();
+        PageSequenceLayoutManager pslm;
+        try {
+            pslm = job.getLayoutManager();
+        } catch (RuntimeException e) {
+            cancelPendingJobs();
+            throw e;
+        } catch (Error e) {
+            cancelPendingJobs();
+            throw e;
+        }
+        job.subsetRecorder.replay();
+        pslm.doForcePageCount(job.nextInitialPageNumber);
+        pslm.finishPageSequence();
+        job.handler.mergeInto(areaTreeHandler);
+    }
+
+    private void cancelPendingJobs() {
+        for (LayoutJob job : pendingJobs) {
+            job.cancel(true);
+        }
+        pendingJobs.clear();
+    }
+
+    /** Lays out a single page-sequence. */
+    private static final class LayoutJob extends FutureTask<PageSequenceLayoutManager> {
+
+        private final DetachedAreaTreeHandler handler;
+
+        private final SubsetRecorder subsetRecorder;
+
+        private boolean nextInitialPageNumberKnown;
+
+        private Numeric nextInitialPageNumber;
+
+        LayoutJob(DetachedAreaTreeHandler handler, final PageSequenceLayoutManager pslm) {
+            this(handler, pslm, new SubsetRecorder());
+        }
+
+        private LayoutJob(DetachedAreaTreeHandler handler, final PageSequenceLayoutManager pslm,
+                final SubsetRecorder subsetRecorder) {
+            super(new Callable<PageSequenceLayoutManager>() {
+                public PageSequenceLayoutManager call() {
+                    subsetRecorder.activate();
+                    try {
+                        pslm.activateLayout();
+                    } finally {
+                        subsetRecorder.deactivate();
+                    }
+                    return pslm;
+                }
+            });
+            this.handler = handler;
+            this.subsetRecorder = subsetRecorder;
+        }
+
+        void setNextInitialPageNumber(Numeric initialPageNumber) {
+            //like with sequential layout, a page-sequence without flow doesn't count
+            if (!nextInitialPageNumberKnown) {
+                nextInitialPageNumber = initialPageNumber;
+                nextInitialPageNumberKnown = true;
+            }
+        }
+
+        boolean isReadyToMerge() {
+            return nextInitialPageNumberKnown && isDone();
+        }
+
+        PageSequenceLayoutManager getLayoutManager() {
+            try {
+                return get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for page-sequence layout", ie);
+            } catch (ExecutionException ee) {
+                Throwable cause = ee.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                } else {
+                    throw new RuntimeException(cause);
+                }
+            }
+        }
+    }
+
+    /**
+     * Area tree handler for a page-sequence laid out on a layout thread. It buffers the pages
+     * and keeps track of IDs locally until the page-sequence is merged into the document.
+     */
+    private static final class DetachedAreaTreeHandler extends AreaTreeHandler {
+
+        private final AreaTreeHandler parent;
+
+        private final String keyPrefix;
+
+        private int keyCount;
+
+        DetachedAreaTreeHandler(AreaTreeHandler parent, String keyPrefix) {
+            super(parent.getUserAgent(), new PageSequenceBuffer(), parent.getLayoutManagerMaker());
+            this.parent = parent;
+            this.keyPrefix = keyPrefix;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public FontInfo getFontInfo() {
+            return parent.getFontInfo();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean isPageNumberPlaceholdersEnabled() {
+            return parent.isPageNumberPlaceholdersEnabled();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String generatePageViewportKey() {
+            //keys must be unique within the document and independent of thread scheduling
+            keyCount++;
+            return keyPrefix + keyCount;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void notifyPageSequenceFinished(AbstractPageSequence pageSequence, int pageCount) {
+            parent.notifyPageSequenceFinished(pageSequence, pageCount);
+        }
+
+        /**
+         * Transfers the pages and the ID information of the page-sequence to the target
+         * handler, in the order sequential layout would have produced them.
+         * @param target the target handler
+         */
+        void mergeInto(AreaTreeHandler target) {
+            IDTracker tracker = getIDTracker();
+            IDTracker targetTracker = target.getIDTracker();
+            Set<String> processedIDs = tracker.getAlreadyResolvedIDs();
+
+            //page-number-citation-last references from preceding page-sequences must only be
+            //resolved once all the pages of an ID are known
+            for (String id : processedIDs) {
+                if (!targetTracker.alreadyResolvedID(id)) {
+                    targetTracker.signalPendingID(id);
+                }
+            }
+            for (Map.Entry<String, Set<Resolvable>> entry : tracker.getUnresolvedIDRefs().entrySet()) {
+                for (Resolvable res : entry.getValue()) {
+                    targetTracker.addUnresolvedIDRef(entry.getKey(), res);
+                }
+            }
+
+            Map<PageViewport, List<String>> idsByPage = new IdentityHashMap<PageViewport, List<String>>();
+            for (Map.Entry<String, List<PageViewport>> entry : tracker.getIDLocations().entrySet()) {
+                for (PageViewport pv : entry.getValue()) {
+                    List<String> ids = idsByPage.get(pv);
+                    if (ids == null) {
+                        ids = new ArrayList<String>();
+                        idsByPage.put(pv, ids);
+                    }
+                    ids.add(entry.getKey());
+                }
+            }
+
+            PageSequenceBuffer buffer = (PageSequenceBuffer) getAreaTreeModel();
+            AreaTreeModel targetModel = target.getAreaTreeModel();
+            targetModel.startPageSequence(buffer.getCurrentPageSequence());
+            for (PageViewport pv : buffer.pages) {
+                List<String> ids = idsByPage.get(pv);
+                if (ids != null) {
+                    for (String id : ids) {
+                        targetTracker.associateIDWithPageViewport(id, pv);
+                    }
+                }
+                //resolves the references to preceding page-sequences
+                targetTracker.tryIDResolution(pv);
+                targetModel.addPage(pv);
+            }
+
+            for (String id : processedIDs) {
+                targetTracker.signalIDProcessed(id);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Merged page-sequence " + keyPrefix + " with " + buffer.pages.size()
+                        + " pages");
+            }
+        }
+    }
+
+    /** Holds the pages of a single page-sequence until it is merged. */
+    private static final class PageSequenceBuffer extends AreaTreeModel {
+
+        private final List<PageViewport> pages = new ArrayList<PageViewport>();
+
+        /** {@inheritDoc} */
+        @Override
+        public void startPageSequence(org.apache.fop.area.PageSequence pageSequence) {
+            this.currentPageSequence = pageSequence;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void addPage(PageViewport page) {
+            pages.add(page);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int getPageSequenceCount() {
+            return (currentPageSequence != null) ? 1 : 0;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int getPageCount(int seq) {
+            return pages.size();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public PageViewport getPage(int seq, int count) {
+            return pages.get(count);
+        }
+    }
+}
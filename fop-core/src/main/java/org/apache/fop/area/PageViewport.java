@@ -33,6 +33,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.apache.fop.apps.FOPException;
+import org.apache.fop.area.inline.UnresolvedPageNumber;
 import org.apache.fop.fo.flow.AbstractRetrieveMarker;
 import org.apache.fop.fo.flow.Marker;
 import org.apache.fop.fo.flow.Markers;
@@ -323,6 +324,25 @@ public class PageViewport extends AreaTreeObject implements Resolvable {
             || unresolvedIDRefs.size() == 0;
     }
 
+    /**
+     * Check if the unresolved idrefs of this page, if any, only concern page numbers that may be
+     * painted as placeholders, so the page can be rendered before they are resolved.
+     * @return true if the page only waits for page numbers that may be painted as placeholders
+     */
+    public boolean hasOnlyPageNumberPlaceholders() {
+        if (unresolvedIDRefs != null) {
+            for (List<Resolvable> resolvables : unresolvedIDRefs.values()) {
+                for (Resolvable res : resolvables) {
+                    if (!(res instanceof UnresolvedPageNumber)
+                            || !((UnresolvedPageNumber) res).isPlaceholder()) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
     /**
      * Get the unresolved idrefs for this page.
      * @return String array of idref's that still have not been resolved
@@ -340,13 +360,14 @@ public class PageViewport extends AreaTreeObject implements Resolvable {
                 pendingResolved = new HashMap<String, List<PageViewport>>();
             }
             pendingResolved.put(id, pages);
-        } else {
-            if (unresolvedIDRefs != null) {
-                List<Resolvable> todo = unresolvedIDRefs.get(id);
-                if (todo != null) {
-                    for (Resolvable res : todo) {
-                        res.resolveIDRef(id, pages);
-                    }
+        }
+        //Resolve even if the page contents have been cleared: a page rendered with page number
+        //placeholders still needs the text of its page numbers to fill in the placeholders
+        if (unresolvedIDRefs != null) {
+            List<Resolvable> todo = unresolvedIDRefs.get(id);
+            if (todo != null) {
+                for (Resolvable res : todo) {
+                    res.resolveIDRef(id, pages);
                 }
             }
         }
@@ -31,6 +31,7 @@ import org.xml.sax.SAXException;
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.render.AbstractRenderer;
 import org.apache.fop.render.Renderer;
 import org.apache.fop.render.RendererEventProducer;
 
@@ -56,6 +57,16 @@ public class RenderPagesModel extends AreaTreeModel {
     private List<OffDocumentItem> pendingODI = new java.util.ArrayList<OffDocumentItem>();
     private List<OffDocumentItem> endDocODI = new java.util.ArrayList<OffDocumentItem>();
 
+    private IDTracker idTracker;
+
+    /** resolution count of the ID tracker when the prepared pages were last checked */
+    private int checkedResolutionCount = -1;
+
+    private int maxBlockedPageCount;
+
+    /** true if pages only waiting for page number citations can be rendered right away */
+    private final boolean pageNumberPlaceholders;
+
     /**
      * Create a new render pages model with the given renderer.
      * @param userAgent FOUserAgent object for process
@@ -82,6 +93,20 @@ public class RenderPagesModel extends AreaTreeModel {
         } catch (IOException e) {
             throw new FOPException(e);
         }
+        pageNumberPlaceholders = userAgent.isPageNumberPlaceholdersEnabled()
+                && renderer instanceof AbstractRenderer
+                && ((AbstractRenderer) renderer).supportsPageNumberPlaceholders();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isPageNumberPlaceholdersEnabled() {
+        return pageNumberPlaceholders;
+    }
+
+    @Override
+    void setIDTracker(IDTracker idTracker) {
+        this.idTracker = idTracker;
     }
 
     @Override
@@ -114,8 +139,9 @@ public class RenderPagesModel extends AreaTreeModel {
         // it is more appropriate to do this after queued pages but
         // it will mean that the renderer has not prepared a page that
         // could be referenced
-        boolean ready = renderer.supportsOutOfOrder() && page.isResolved();
+        boolean ready = renderer.supportsOutOfOrder() && isRenderable(page);
         if (ready) {
+            renderer.getUserAgent().checkDeadline();
             if (!renderer.supportsOutOfOrder() && page.getPageSequence().isFirstPage(page)) {
                 renderer.startPageSequence(getCurrentPageSequence());
             }
@@ -163,10 +189,13 @@ public class RenderPagesModel extends AreaTreeModel {
      */
     protected boolean checkPreparedPages(PageViewport newPageViewport,
                                          boolean renderUnresolved) {
+        if (!renderUnresolved && !mayRenderPreparedPages()) {
+            return renderer.supportsOutOfOrder() || prepared.isEmpty();
+        }
 
         for (Iterator iter = prepared.iterator(); iter.hasNext();) {
             PageViewport pageViewport = (PageViewport)iter.next();
-            if (pageViewport.isResolved() || renderUnresolved) {
+            if (isRenderable(pageViewport) || renderUnresolved) {
                 if (!renderer.supportsOutOfOrder()
                         && pageViewport.getPageSequence().isFirstPage(pageViewport)) {
                     renderer.startPageSequence(pageViewport.getPageSequence());
@@ -181,14 +210,53 @@ public class RenderPagesModel extends AreaTreeModel {
                 }
             }
         }
+        if (idTracker != null) {
+            checkedResolutionCount = idTracker.getResolutionCount();
+        }
         return renderer.supportsOutOfOrder() || prepared.isEmpty();
     }
 
+    /**
+     * Determines whether a prepared page may have become renderable since the last check.
+     * Prepared pages only become resolved when the ID tracker resolves references, so as long
+     * as it hasn't, the only candidate is a page just prepared in front of an otherwise empty
+     * queue (in-order renderers queue resolved pages, too).
+     * @return false if checking the prepared pages would not render anything
+     */
+    private boolean mayRenderPreparedPages() {
+        if (idTracker == null || idTracker.getResolutionCount() != checkedResolutionCount) {
+            return true;
+        }
+        return !renderer.supportsOutOfOrder() && prepared.size() == 1;
+    }
+
+    /**
+     * Indicates whether a page can be rendered, i.e. whether it is resolved or, if page number
+     * placeholders are used, only waits for page numbers that are painted as placeholders.
+     * @param pageViewport the page
+     * @return true if the page can be rendered
+     */
+    protected boolean isRenderable(PageViewport pageViewport) {
+        return pageViewport.isResolved()
+                || (pageNumberPlaceholders && pageViewport.hasOnlyPageNumberPlaceholders());
+    }
+
+    /** @return the number of pages waiting for their ID references (or for preceding pages) */
+    public int getBlockedPageCount() {
+        return prepared.size();
+    }
+
+    /** @return the highest number of pages that were waiting to be rendered at the same time */
+    public int getMaxBlockedPageCount() {
+        return maxBlockedPageCount;
+    }
+
     /**
      * Renders the given page and notified about unresolved IDs if any.
      * @param pageViewport the page to be rendered.
      */
     protected void renderPage(PageViewport pageViewport) {
+        renderer.getUserAgent().checkDeadline();
         try {
             renderer.renderPage(pageViewport);
         } catch (Exception e) {
@@ -213,6 +281,7 @@ public class RenderPagesModel extends AreaTreeModel {
             renderer.preparePage(page);
         }
         prepared.add(page);
+        maxBlockedPageCount = Math.max(maxBlockedPageCount, prepared.size());
     }
 
     /** {@inheritDoc} */
@@ -252,6 +321,7 @@ public class RenderPagesModel extends AreaTreeModel {
         pendingODI.clear();
         processOffDocumentItems(endDocODI);
 
+        renderer.getUserAgent().checkDeadline();
         try {
             renderer.stopRenderer();
         } catch (IOException ex) {
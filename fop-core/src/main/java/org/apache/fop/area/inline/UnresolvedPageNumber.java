@@ -42,6 +42,7 @@ public class UnresolvedPageNumber extends TextArea implements Resolvable {
     private String pageIDRef;
     private String text;
     private boolean pageType;
+    private boolean placeholder;
 
     /** Indicates that the reference refers to the first area generated by a formatting object. */
     public static final boolean FIRST = true;
@@ -93,6 +94,35 @@ public class UnresolvedPageNumber extends TextArea implements Resolvable {
         return new String[] {pageIDRef};
     }
 
+    /**
+     * Returns the type of reference.
+     *
+     * @return {@link #FIRST} if the reference refers to the first area generated by a formatting
+     *             object, {@link #LAST} if it refers to the last one
+     */
+    public boolean getReferenceType() {
+        return pageType;
+    }
+
+    /**
+     * Indicates whether this page number may be painted as a placeholder, i.e. before it is
+     * resolved. If so, the area keeps the width reserved during layout once it is resolved.
+     *
+     * @param placeholder true if this page number may be painted as a placeholder
+     */
+    public void setPlaceholder(boolean placeholder) {
+        this.placeholder = placeholder;
+    }
+
+    /**
+     * Indicates whether this page number may be painted as a placeholder.
+     *
+     * @return true if this page number may be painted before it is resolved
+     */
+    public boolean isPlaceholder() {
+        return placeholder;
+    }
+
     /**
      * Get the (resolved or unresolved) text.
      *
@@ -127,8 +157,10 @@ public class UnresolvedPageNumber extends TextArea implements Resolvable {
             removeText();
             text = page.getPageNumberString();
             addWord(text, 0, getBidiLevel());
-            // update ipd
-            if (font != null) {
+            // update ipd (unless a placeholder may already have been painted for it)
+            if (placeholder) {
+                font = null;
+            } else if (font != null) {
                 handleIPDVariation(font.getWordWidth(text) - getIPD());
                 // set the Font object to null, as we don't need it any more
                 font = null;
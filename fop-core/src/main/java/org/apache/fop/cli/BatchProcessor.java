@@ -0,0 +1,438 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.cli;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FormattingResults;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Processes a batch of rendering jobs listed in a manifest file, using a single (warm)
+ * FopFactory shared by a number of worker threads. This avoids paying for JVM startup,
+ * configuration parsing, font detection and JIT warm-up for every single document.
+ * <p>
+ * The manifest contains one job per line. Empty lines and lines starting with "#" are
+ * ignored. The fields of a job are separated by tabs:
+ * <pre>
+ * input  stylesheet  format  output  [name=value ...]
+ * </pre>
+ * <ul>
+ *   <li>input: the XSL-FO file or, if a stylesheet is given, the XML file</li>
+ *   <li>stylesheet: the XSLT stylesheet, or "-" if the input is XSL-FO</li>
+ *   <li>format: a MIME type or one of the short names pdf, ps, pcl, afp, rtf, tiff, png,
+ *   txt, svg, at, if and fo (the latter only with a stylesheet, for -foout)</li>
+ *   <li>output: the output file</li>
+ *   <li>name=value: optional stylesheet parameters</li>
+ * </ul>
+ * Relative paths are resolved against the manifest's directory. Compiled stylesheets are
+ * shared by all jobs using them.
+ */
+public class BatchProcessor {
+
+    private static final String NO_STYLESHEET = "-";
+
+    private final CommandLineOptions options;
+
+    private final int threads;
+
+    private final Map<File, Templates> templatesCache = new ConcurrentHashMap<File, Templates>();
+
+    private final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+
+    /**
+     * Creates a new batch processor.
+     * @param options the command-line options providing the FopFactory and the settings
+     * common to all jobs
+     * @param threads the number of worker threads
+     */
+    public BatchProcessor(CommandLineOptions options, int threads) {
+        this.options = options;
+        this.threads = threads;
+    }
+
+    /**
+     * Reads the jobs from a manifest file.
+     * @param manifest the manifest file
+     * @return the list of jobs
+     * @throws IOException if the manifest cannot be read
+     * @throws FOPException if the manifest contains an invalid line
+     */
+    public static List<BatchJob> readManifest(File manifest) throws IOException, FOPException {
+        File baseDir = manifest.getAbsoluteFile().getParentFile();
+        List<BatchJob> jobs = new ArrayList<BatchJob>();
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(manifest), "UTF-8"));
+        try {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                BatchJob job = parseJob(line, baseDir, lineNo);
+                if (job != null) {
+                    jobs.add(job);
+                }
+            }
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+        return jobs;
+    }
+
+    /**
+     * Parses a manifest line.
+     * @param line the line
+     * @param baseDir the directory against which relative paths are resolved
+     * @param lineNo the line number (for error messages)
+     * @return the job, or null for empty and comment lines
+     * @throws FOPException if the line is invalid
+     */
+    static BatchJob parseJob(String line, File baseDir, int lineNo) throws FOPException {
+        String trimmed = line.trim();
+        if (trimmed.length() == 0 || trimmed.startsWith("#")) {
+            return null;
+        }
+        String[] fields = trimmed.split("\t");
+        if (fields.length < 4) {
+            throw new FOPException("Manifest line " + lineNo
+                    + ": expected input, stylesheet, format and output separated by tabs");
+        }
+        File input = resolve(baseDir, fields[0].trim());
+        String xslt = fields[1].trim();
+        File stylesheet = NO_STYLESHEET.equals(xslt) ? null : resolve(baseDir, xslt);
+        String format = toMimeType(fields[2].trim());
+        File output = resolve(baseDir, fields[3].trim());
+        if (stylesheet == null && MimeConstants.MIME_XSL_FO.equals(format)) {
+            throw new FOPException("Manifest line " + lineNo
+                    + ": FO output is only available with a stylesheet");
+        }
+        Vector params = new Vector();
+        for (int i = 4; i < fields.length; i++) {
+            String param = fields[i].trim();
+            int eq = param.indexOf('=');
+            if (eq <= 0) {
+                throw new FOPException("Manifest line " + lineNo
+                        + ": invalid stylesheet parameter '" + param + "', expected name=value");
+            }
+            params.addElement(param.substring(0, eq));
+            params.addElement(param.substring(eq + 1));
+        }
+        return new BatchJob(lineNo, input, stylesheet, format, output, params);
+    }
+
+    private static File resolve(File baseDir, String path) {
+        File file = new File(path);
+        return file.isAbsolute() ? file : new File(baseDir, path);
+    }
+
+    /**
+     * Converts a short output format name to its MIME type.
+     * @param format the short name or MIME type
+     * @return the MIME type
+     * @throws FOPException if the format is unknown
+     */
+    static String toMimeType(String format) throws FOPException {
+        if (format.indexOf('/') > 0) {
+            return format;
+        }
+        String name = format.toLowerCase(Locale.ENGLISH);
+        if ("pdf".equals(name)) {
+            return MimeConstants.MIME_PDF;
+        } else if ("ps".equals(name)) {
+            return MimeConstants.MIME_POSTSCRIPT;
+        } else if ("pcl".equals(name)) {
+            return MimeConstants.MIME_PCL;
+        } else if ("afp".equals(name)) {
+            return MimeConstants.MIME_AFP;
+        } else if ("rtf".equals(name)) {
+            return MimeConstants.MIME_RTF;
+        } else if ("tiff".equals(name)) {
+            return MimeConstants.MIME_TIFF;
+        } else if ("png".equals(name)) {
+            return MimeConstants.MIME_PNG;
+        } else if ("txt".equals(name)) {
+            return MimeConstants.MIME_PLAIN_TEXT;
+        } else if ("svg".equals(name)) {
+            return MimeConstants.MIME_SVG;
+        } else if ("at".equals(name)) {
+            return MimeConstants.MIME_FOP_AREA_TREE;
+        } else if ("if".equals(name)) {
+            return MimeConstants.MIME_FOP_IF;
+        } else if ("fo".equals(name)) {
+            return MimeConstants.MIME_XSL_FO;
+        } else {
+            throw new FOPException("Unknown output format: " + format);
+        }
+    }
+
+    /**
+     * Processes the given jobs and prints a line per job and a summary at the end.
+     * @param jobs the jobs to process
+     * @param out the stream to print the results to
+     * @return the number of failed jobs
+     * @throws InterruptedException if interrupted while waiting for the jobs
+     */
+    public int process(List<BatchJob> jobs, PrintStream out) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        List<Future<JobResult>> futures = new ArrayList<Future<JobResult>>(jobs.size());
+        try {
+            for (final BatchJob job : jobs) {
+                futures.add(executor.submit(new Callable<JobResult>() {
+                    public JobResult call() {
+                        return run(job);
+                    }
+                }));
+            }
+            List<JobResult> results = new ArrayList<JobResult>(jobs.size());
+            for (Future<JobResult> future : futures) {
+                JobResult result;
+                try {
+                    result = future.get();
+                } catch (ExecutionException ee) {
+                    //run() catches everything but Errors
+                    throw new IllegalStateException(ee.getCause());
+                }
+                results.add(result);
+                out.println(result);
+            }
+            return printSummary(results, System.currentTimeMillis() - start, out);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private JobResult run(BatchJob job) {
+        Log log = options.getLogger();
+        long start = System.currentTimeMillis();
+        OutputStream out = null;
+        try {
+            FOUserAgent userAgent = options.newFOUserAgent();
+            userAgent.setOutputFile(job.getOutput());
+            out = new BufferedOutputStream(new FileOutputStream(job.getOutput()));
+            Transformer transformer = newTransformer(job);
+            InputHandler handler = new InputHandler(job.getInput());
+            int pages = 0;
+            if (MimeConstants.MIME_XSL_FO.equals(job.getOutputFormat())) {
+                transformer.transform(handler.createMainSource(), new StreamResult(out));
+            } else {
+                Fop fop = userAgent.newFop(job.getOutputFormat(), out);
+                Result res = new SAXResult(fop.getDefaultHandler());
+                transformer.transform(handler.createMainSource(), res);
+                FormattingResults results = fop.getResults();
+                if (results != null) {
+                    pages = results.getPageCount();
+                }
+            }
+            out.close();
+            out = null;
+            return new JobResult(job, pages, System.currentTimeMillis() - start, null);
+        } catch (Exception e) {
+            IOUtils.closeQuietly(out);
+            job.getOutput().delete();
+            log.error("Batch job on line " + job.getLineNumber() + " failed", e);
+            return new JobResult(job, 0, System.currentTimeMillis() - start, e);
+        }
+    }
+
+    private Transformer newTransformer(BatchJob job) throws TransformerConfigurationException {
+        if (job.getStylesheet() == null) {
+            synchronized (transformerFactory) {
+                return transformerFactory.newTransformer();
+            }
+        }
+        Templates templates = templatesCache.get(job.getStylesheet());
+        if (templates == null) {
+            synchronized (transformerFactory) {
+                templates = transformerFactory.newTemplates(new StreamSource(job.getStylesheet()));
+            }
+            templatesCache.put(job.getStylesheet(), templates);
+        }
+        Transformer transformer = templates.newTransformer();
+        Vector commonParams = options.getXSLTParams();
+        setParameters(transformer, commonParams);
+        setParameters(transformer, job.getParameters());
+        //as for a single input, so stylesheets can branch on the job's output format
+        transformer.setParameter("fop-output-format", job.getOutputFormat());
+        return transformer;
+    }
+
+    private static void setParameters(Transformer transformer, Vector params) {
+        if (params != null) {
+            for (int i = 0; i < params.size(); i += 2) {
+                transformer.setParameter((String) params.elementAt(i),
+                        params.elementAt(i + 1));
+            }
+        }
+    }
+
+    private static int printSummary(List<JobResult> results, long wallTime, PrintStream out) {
+        int failed = 0;
+        int pages = 0;
+        long total = 0;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (JobResult result : results) {
+            if (!result.isSuccessful()) {
+                failed++;
+            }
+            pages += result.getPageCount();
+            total += result.getTime();
+            min = Math.min(min, result.getTime());
+            max = Math.max(max, result.getTime());
+        }
+        int count = results.size();
+        out.println();
+        out.println("Jobs: " + count + " (" + (count - failed) + " succeeded, "
+                + failed + " failed), pages: " + pages);
+        if (count > 0) {
+            out.println("Wall time: " + wallTime + "ms, job time: total " + total
+                    + "ms, avg " + (total / count) + "ms, min " + min + "ms, max " + max + "ms");
+        }
+        return failed;
+    }
+
+    /** A job of a batch. */
+    public static final class BatchJob {
+
+        private final int lineNumber;
+        private final File input;
+        private final File stylesheet;
+        private final String outputFormat;
+        private final File output;
+        private final Vector params;
+
+        BatchJob(int lineNumber, File input, File stylesheet, String outputFormat, File output,
+                Vector params) {
+            this.lineNumber = lineNumber;
+            this.input = input;
+            this.stylesheet = stylesheet;
+            this.outputFormat = outputFormat;
+            this.output = output;
+            this.params = params;
+        }
+
+        /** @return the line number of the job in the manifest */
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        /** @return the input file */
+        public File getInput() {
+            return input;
+        }
+
+        /** @return the stylesheet, null for XSL-FO input */
+        public File getStylesheet() {
+            return stylesheet;
+        }
+
+        /** @return the output format (MIME type) */
+        public String getOutputFormat() {
+            return outputFormat;
+        }
+
+        /** @return the output file */
+        public File getOutput() {
+            return output;
+        }
+
+        /** @return the stylesheet parameters (name, value, name, value, ...) */
+        public Vector getParameters() {
+            return params;
+        }
+    }
+
+    private static final class JobResult {
+
+        private final BatchJob job;
+        private final int pageCount;
+        private final long time;
+        private final Exception error;
+
+        JobResult(BatchJob job, int pageCount, long time, Exception error) {
+            this.job = job;
+            this.pageCount = pageCount;
+            this.time = time;
+            this.error = error;
+        }
+
+        boolean isSuccessful() {
+            return error == null;
+        }
+
+        int getPageCount() {
+            return pageCount;
+        }
+
+        long getTime() {
+            return time;
+        }
+
+        public String toString() {
+            StringBuffer sb = new StringBuffer();
+            sb.append(isSuccessful() ? "OK     " : "FAILED ");
+            sb.append(job.getInput().getName()).append(" -> ").append(job.getOutput().getName());
+            sb.append(" (").append(time).append("ms");
+            if (isSuccessful()) {
+                sb.append(", ").append(pageCount).append(pageCount == 1 ? " page" : " pages");
+            } else {
+                sb.append(", ").append(error.getMessage());
+            }
+            sb.append(")");
+            return sb.toString();
+        }
+    }
+}
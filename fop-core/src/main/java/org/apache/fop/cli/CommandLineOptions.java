@@ -122,6 +122,10 @@ public class CommandLineOptions {
     private boolean strictValidation = true;
     /* control memory-conservation policy */
     private boolean conserveMemoryPolicy;
+    /* true if unresolved page number citations may be painted as placeholders */
+    private boolean pageNumberPlaceholders;
+    /* number of row groups per window in streaming table mode (0: disabled) */
+    private int tableStreamingWindow;
     /* true if a complex script features are enabled */
     private boolean useComplexScriptFeatures = true;
     /* set to true if -dpi used in command line */
@@ -144,6 +148,12 @@ public class CommandLineOptions {
 
     private String cacheName;
 
+    private File batchfile;
+
+    private int batchThreads = Runtime.getRuntime().availableProcessors();
+
+    private boolean warmup;
+
     /**
      * Construct a command line option object.
      */
@@ -169,17 +179,28 @@ public class CommandLineOptions {
                 if (showConfiguration.equals(Boolean.TRUE)) {
                     dumpConfiguration();
                 }
+                if (batchfile != null || warmup) {
+                    //the jobs define input and output, only the factory is set up here
+                    if (batchfile != null && !batchfile.exists()) {
+                        throw new FileNotFoundException("Error: batch manifest "
+                                + batchfile.getAbsolutePath() + " not found ");
+                    }
+                    setUserConfig();
+                    if (flushCache) {
+                        flushCache();
+                    }
+                    addXSLTParameter("fop-version", Version.getVersion());
+                    return true;
+                }
                 checkSettings();
                 setUserConfig();
                 if (flushCache) {
                     flushCache();
                 }
                 //Factory config is set up, now we can create the user agent
-                foUserAgent = factory.newFOUserAgent();
-                foUserAgent.getRendererOptions().putAll(renderingOptions);
+                foUserAgent = newFOUserAgent();
                 addXSLTParameter("fop-output-format", getOutputFormat());
                 addXSLTParameter("fop-version", Version.getVersion());
-                foUserAgent.setConserveMemoryPolicy(conserveMemoryPolicy);
                 // TODO: Handle this!!
                 //if (!useComplexScriptFeatures) {
                 //    foUserAgent.setComplexScriptFeaturesEnabled(false);
@@ -235,6 +256,20 @@ public class CommandLineOptions {
         return true;
     }
 
+    /**
+     * Creates a new user agent from the factory configured by the command-line options and
+     * applies the rendering options given on the command-line.
+     * @return a new FOUserAgent instance
+     */
+    FOUserAgent newFOUserAgent() {
+        FOUserAgent userAgent = factory.newFOUserAgent();
+        userAgent.getRendererOptions().putAll(renderingOptions);
+        userAgent.setConserveMemoryPolicy(conserveMemoryPolicy);
+        userAgent.setPageNumberPlaceholders(pageNumberPlaceholders);
+        userAgent.setTableStreamingWindow(tableStreamingWindow);
+        return userAgent;
+    }
+
     /**
      * @return the InputHandler instance defined by the command-line options.
      */
@@ -287,6 +322,10 @@ public class CommandLineOptions {
                 strictValidation = false;
             } else if (args[i].equals("-conserve")) {
                 conserveMemoryPolicy = true;
+            } else if (args[i].equals("-pnplaceholders")) {
+                pageNumberPlaceholders = true;
+            } else if (args[i].equals("-tablewindow")) {
+                i = i + parseTableWindowOption(args, i);
             } else if (args[i].equals("-flush")) {
                 flushCache = true;
             } else if (args[i].equals("-cache")) {
@@ -295,6 +334,12 @@ public class CommandLineOptions {
                 i = i + parseResolution(args, i);
             } else if (args[i].equals("-q") || args[i].equals("--quiet")) {
                 // nop. Left there for backwards compatibility
+            } else if (args[i].equals("-batch")) {
+                i = i + parseBatchOption(args, i);
+            } else if (args[i].equals("-threads")) {
+                i = i + parseThreadsOption(args, i);
+            } else if (args[i].equals("-warmup")) {
+                warmup = true;
             } else if (args[i].equals("-fo")) {
                 i = i + parseFOInputOption(args, i);
             } else if (args[i].equals("-xsl")) {
@@ -417,6 +462,54 @@ public class CommandLineOptions {
         }
     }
 
+    private int parseBatchOption(String[] args, int i) throws FOPException {
+        if ((i + 1 == args.length)
+                || (isOption(args[i + 1]))) {
+            throw new FOPException("if you use '-batch', you must specify "
+              + "the name of the manifest file");
+        } else {
+            batchfile = new File(args[i + 1]);
+            baseURI = getBaseURI(batchfile);
+            return 1;
+        }
+    }
+
+    private int parseThreadsOption(String[] args, int i) throws FOPException {
+        if ((i + 1 == args.length)
+                || (isOption(args[i + 1]))) {
+            throw new FOPException("if you use '-threads', you must specify "
+              + "the number of worker threads");
+        } else {
+            try {
+                batchThreads = Integer.parseInt(args[i + 1]);
+            } catch (NumberFormatException e) {
+                throw new FOPException("Invalid number of threads: " + args[i + 1]);
+            }
+            if (batchThreads <= 0) {
+                throw new FOPException("The number of threads must be greater than 0");
+            }
+            return 1;
+        }
+    }
+
+    private int parseTableWindowOption(String[] args, int i) throws FOPException {
+        if ((i + 1 == args.length)
+                || (isOption(args[i + 1]))) {
+            throw new FOPException("if you use '-tablewindow', you must specify "
+              + "the number of table row groups per window");
+        } else {
+            try {
+                tableStreamingWindow = Integer.parseInt(args[i + 1]);
+            } catch (NumberFormatException e) {
+                throw new FOPException("Invalid table window size: " + args[i + 1]);
+            }
+            if (tableStreamingWindow <= 0) {
+                throw new FOPException("The table window size must be greater than 0");
+            }
+            return 1;
+        }
+    }
+
     private int parseConfigurationOption(String[] args, int i) throws FOPException {
         if ((i + 1 == args.length)
                 || (isOption(args[i + 1]))) {
@@ -1091,6 +1184,47 @@ public class CommandLineOptions {
         return foUserAgent;
     }
 
+    /**
+     * Returns the batch manifest file if set.
+     * @return the batch manifest file, null if not in batch mode
+     */
+    public File getBatchFile() {
+        return batchfile;
+    }
+
+    /**
+     * Indicates whether a batch of jobs listed in a manifest file is to be processed.
+     * @return true in batch mode
+     */
+    public boolean isBatchMode() {
+        return batchfile != null;
+    }
+
+    /**
+     * Returns the number of worker threads used in batch mode.
+     * @return the number of threads
+     */
+    public int getBatchThreads() {
+        return batchThreads;
+    }
+
+    /**
+     * Indicates whether the built-in warm-up document is to be rendered instead of an input
+     * file, for example as the training run for a class data sharing archive.
+     * @return true in warm-up mode
+     */
+    public boolean isWarmupMode() {
+        return warmup;
+    }
+
+    /**
+     * Returns the stylesheet parameters given on the command-line.
+     * @return the parameters (name, value, name, value, ...), null if there are none
+     */
+    Vector getXSLTParams() {
+        return xsltParams;
+    }
+
     /**
      * Returns the XSL-FO file if set.
      * @return the XSL-FO file, null if not set
@@ -1215,12 +1349,25 @@ public class CommandLineOptions {
             + "  -conserve         enable memory-conservation policy (trades memory-consumption"
             + " for disk I/O)\n"
             + "                    (Note: currently only influences whether the area tree is"
-            + " serialized.)\n\n"
+            + " serialized.)\n"
+            + "  -pnplaceholders   paint forward page number citations as placeholders which are"
+            + " filled in\n"
+            + "                    at the end (PDF and PostScript with resource optimization)\n"
+            + "  -tablewindow n    lay out fixed-layout tables in windows of n row groups to bound"
+            + " memory use\n\n"
 
             + "  -cache            specifies a file/directory path location"
             + " for the font cache file\n"
             + "  -flush            flushes the current font cache file\n\n"
 
+            + "  -batch manifest   renders all jobs listed in the manifest file using a shared\n"
+            + "                    FopFactory; one job per line with tab-separated fields:\n"
+            + "                    input, stylesheet (or -), format, output [, name=value ...]\n"
+            + "  -threads n        number of worker threads for -batch (default: number of CPUs)\n"
+            + "  -warmup           renders a built-in one-page document to the common output formats\n"
+            + "                    and reports the time to the first page (training run for a\n"
+            + "                    class data sharing archive, see FOP_CDS_ARCHIVE in the fop script)\n\n"
+
             + " [INPUT]  \n"
             + "  infile            xsl:fo input file (the same as the next) \n"
             + "                    (use '-' for infile to pipe input from stdin)\n"
@@ -1277,7 +1424,8 @@ public class CommandLineOptions {
             + "  fop foo.fo -mif foo.mif\n"
             + "  fop foo.fo -rtf foo.rtf\n"
             + "  fop foo.fo -print\n"
-            + "  fop foo.fo -awt\n");
+            + "  fop foo.fo -awt\n"
+            + "  fop -c cfg.xml -batch jobs.txt -threads 8\n");
     }
 
     /**
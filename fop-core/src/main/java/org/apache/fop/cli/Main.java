@@ -168,6 +168,21 @@ public final class Main {
                 System.exit(0);
             }
 
+            if (options.isBatchMode()) {
+                BatchProcessor processor = new BatchProcessor(options, options.getBatchThreads());
+                int failed = processor.process(
+                        BatchProcessor.readManifest(options.getBatchFile()), System.out);
+                // @SuppressFBWarnings("DM_EXIT")
+                System.exit(failed > 0 ? 1 : 0);
+            }
+
+            if (options.isWarmupMode()) {
+                StartupWarmup warmup = new StartupWarmup(options);
+                int failed = warmup.process(StartupWarmup.DEFAULT_FORMATS, System.out);
+                // @SuppressFBWarnings("DM_EXIT")
+                System.exit(failed > 0 ? 1 : 0);
+            }
+
             foUserAgent = options.getFOUserAgent();
             String outputFormat = options.getOutputFormat();
 
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.cli;
+
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.commons.io.output.NullOutputStream;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FormattingResults;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Renders a built-in one-page document to each of the commonly used output formats and
+ * reports the time it took until the first page was rendered. This loads and initializes
+ * everything a short-lived invocation of FOP needs: the property makers, the element
+ * mappings, the layout managers, the renderers and handlers registered through service files
+ * and the SVG support.
+ * <p>
+ * The warm-up is meant as the training run for a class data sharing archive. Run in a JVM
+ * started with -XX:ArchiveClassesAtExit (JDK 13 or later), the classes it loaded are written
+ * to an archive; later invocations started with -XX:SharedArchiveFile map them from the
+ * archive instead of loading, verifying and linking them again. The fop launch script does
+ * both if FOP_CDS_ARCHIVE is set, and the "appcds" Ant target creates the archive. Running the
+ * warm-up again with the archive shows the time to first page saved.
+ */
+public class StartupWarmup {
+
+    /** the output formats rendered by default */
+    static final String[] DEFAULT_FORMATS = {
+        MimeConstants.MIME_PDF,
+        MimeConstants.MIME_POSTSCRIPT,
+        MimeConstants.MIME_PCL,
+        MimeConstants.MIME_AFP,
+        MimeConstants.MIME_RTF,
+        MimeConstants.MIME_FOP_IF,
+        MimeConstants.MIME_FOP_AREA_TREE
+    };
+
+    private static final String DOCUMENT
+            = "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+            + "<fo:layout-master-set>"
+            + "<fo:simple-page-master master-name=\"page\" page-width=\"210mm\" page-height=\"297mm\""
+            + " margin=\"20mm\">"
+            + "<fo:region-body margin-top=\"15mm\"/><fo:region-before extent=\"10mm\"/>"
+            + "</fo:simple-page-master>"
+            + "</fo:layout-master-set>"
+            + "<fo:page-sequence master-reference=\"page\">"
+            + "<fo:static-content flow-name=\"xsl-region-before\">"
+            + "<fo:block text-align=\"end\" border-after-style=\"solid\">Page <fo:page-number/></fo:block>"
+            + "</fo:static-content>"
+            + "<fo:flow flow-name=\"xsl-region-body\">"
+            + "<fo:block font-size=\"16pt\" font-weight=\"bold\" space-after=\"6pt\">Warm-up</fo:block>"
+            + "<fo:block text-align=\"justify\" language=\"en\">The quick brown fox"
+            + " jumps over the lazy dog. <fo:inline font-style=\"italic\">Pack my box with five dozen"
+            + " liquor jugs.</fo:inline> <fo:basic-link external-destination=\"url(http://xmlgraphics"
+            + ".apache.org/fop/)\" color=\"blue\">Apache FOP</fo:basic-link></fo:block>"
+            + "<fo:list-block space-before=\"6pt\"><fo:list-item>"
+            + "<fo:list-item-label end-indent=\"label-end()\"><fo:block>&#x2022;</fo:block>"
+            + "</fo:list-item-label>"
+            + "<fo:list-item-body start-indent=\"body-start()\"><fo:block>Item</fo:block>"
+            + "</fo:list-item-body>"
+            + "</fo:list-item></fo:list-block>"
+            + "<fo:table width=\"100%\" table-layout=\"fixed\" border=\"0.5pt solid black\""
+            + " space-before=\"6pt\"><fo:table-body><fo:table-row>"
+            + "<fo:table-cell padding=\"2pt\" background-color=\"#EEEEEE\"><fo:block>A</fo:block>"
+            + "</fo:table-cell>"
+            + "<fo:table-cell padding=\"2pt\"><fo:block text-align=\"end\">1.00</fo:block>"
+            + "</fo:table-cell>"
+            + "</fo:table-row></fo:table-body></fo:table>"
+            + "<fo:block space-before=\"6pt\"><fo:leader leader-pattern=\"rule\""
+            + " leader-length=\"100%\"/></fo:block>"
+            + "<fo:block><fo:instream-foreign-object>"
+            + "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"20pt\" height=\"10pt\">"
+            + "<rect width=\"20\" height=\"10\" fill=\"green\"/></svg>"
+            + "</fo:instream-foreign-object></fo:block>"
+            + "</fo:flow>"
+            + "</fo:page-sequence>"
+            + "</fo:root>";
+
+    private final CommandLineOptions options;
+
+    /**
+     * Creates a new warm-up.
+     * @param options the command-line options providing the FopFactory and the rendering
+     * options
+     */
+    public StartupWarmup(CommandLineOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Renders the built-in document to the given output formats and prints a line per format
+     * and the time to the first page.
+     * @param formats the MIME types of the output formats
+     * @param out the stream to print the results to
+     * @return the number of formats that failed
+     */
+    public int process(String[] formats, PrintStream out) {
+        long start = System.currentTimeMillis();
+        long firstPage = -1;
+        long firstPageUptime = -1;
+        int failed = 0;
+        for (String format : formats) {
+            long formatStart = System.currentTimeMillis();
+            try {
+                int pages = render(format);
+                out.println(format + ": " + pages + " page(s), "
+                        + (System.currentTimeMillis() - formatStart) + "ms");
+                if (firstPage < 0) {
+                    firstPage = System.currentTimeMillis() - start;
+                    firstPageUptime = ManagementFactory.getRuntimeMXBean().getUptime();
+                }
+            } catch (Exception e) {
+                options.getLogger().error("Warm-up for " + format + " failed", e);
+                out.println(format + ": failed (" + e.getMessage() + ")");
+                failed++;
+            }
+        }
+        out.println();
+        if (firstPage >= 0) {
+            out.println("Time to first page: " + firstPage + "ms (" + firstPageUptime
+                    + "ms after JVM start)");
+        }
+        out.println("Total: " + (System.currentTimeMillis() - start) + "ms");
+        return failed;
+    }
+
+    private int render(String format) throws Exception {
+        FOUserAgent userAgent = options.newFOUserAgent();
+        Fop fop = userAgent.newFop(format, NullOutputStream.NULL_OUTPUT_STREAM);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(DOCUMENT)),
+                new SAXResult(fop.getDefaultHandler()));
+        FormattingResults results = fop.getResults();
+        return results != null ? results.getPageCount() : 0;
+    }
+}
@@ -32,7 +32,12 @@ import org.apache.fop.complexscripts.util.ScriptContextTester;
  */
 public abstract class GlyphPositioningSubtable extends GlyphSubtable implements GlyphPositioning {
 
-    private static final GlyphPositioningState STATE = new GlyphPositioningState();
+    /** per-thread (reset) processing state, reused across invocations on the same thread */
+    private static final ThreadLocal<GlyphPositioningState> STATE = new ThreadLocal<GlyphPositioningState>() {
+        protected GlyphPositioningState initialValue() {
+            return new GlyphPositioningState();
+        }
+    };
 
     /**
      * Instantiate a <code>GlyphPositioningSubtable</code>.
@@ -122,9 +127,7 @@ public abstract class GlyphPositioningSubtable extends GlyphSubtable implements
      * @return true if a non-zero adjustment occurred
      */
     public static final boolean position(GlyphSequence gs, String script, String language, String feature, int fontSize, GlyphPositioningSubtable[] sta, int[] widths, int[][] adjustments, ScriptContextTester sct) {
-        synchronized (STATE) {
-            return position(STATE.reset(gs, script, language, feature, fontSize, widths, adjustments, sct), sta, -1);
-        }
+        return position(STATE.get().reset(gs, script, language, feature, fontSize, widths, adjustments, sct), sta, -1);
     }
 
 }
@@ -1251,7 +1251,7 @@ public class GlyphPositioningTable extends GlyphTable {
                 if (nga < ngm) {
                     return false;                       // insufficient glyphs available to match
                 } else {
-                    int[] ga = ps.getGlyphs(offset, ngm, reverse, ignores, null, counts);
+                    int[] ga = ps.getGlyphs(offset, ngm, reverse, ignores, ps.getScratchBuffer().getGlyphArray(ngm), counts);
                     for (int k = 0; k < ngm; k++) {
                         if (ga [ k ] != glyphs [ k ]) {
                             return false;               // match fails at ga [ k ]
@@ -1338,7 +1338,7 @@ public class GlyphPositioningTable extends GlyphTable {
                 if (nga < ngm) {
                     return false;                       // insufficient glyphs available to match
                 } else {
-                    int[] ga = ps.getGlyphs(offset, ngm, reverse, ignores, null, counts);
+                    int[] ga = ps.getGlyphs(offset, ngm, reverse, ignores, ps.getScratchBuffer().getGlyphArray(ngm), counts);
                     for (int k = 0; k < ngm; k++) {
                         int gi = ga [ k ];
                         int ms = ps.getClassMatchSet(gi);
@@ -1439,7 +1439,7 @@ public class GlyphPositioningTable extends GlyphTable {
                 if (nga < ngm) {
                     return false;                       // insufficient glyphs available to match
                 } else {
-                    int[] ga = ps.getGlyphs(offset, ngm, reverse, ignores, null, counts);
+                    int[] ga = ps.getGlyphs(offset, ngm, reverse, ignores, ps.getScratchBuffer().getGlyphArray(ngm), counts);
                     for (int k = 0; k < ngm; k++) {
                         GlyphCoverageTable ct = gca [ k ];
                         if (ct != null) {
@@ -470,6 +470,17 @@ public class GlyphProcessingState {
         return getAssociation(0);
     }
 
+    /**
+     * Obtain the per-thread scratch buffer, which may be used to obtain temporary glyph arrays
+     * (e.g., for the <code>glyphs</code> and <code>counts</code> arguments of
+     * {@link #getGlyphs(int, int, boolean, GlyphTester, int[], int[])}) without allocating. Arrays
+     * obtained from the scratch buffer must not be retained beyond the current lookup application.
+     * @return scratch buffer of current thread
+     */
+    public GlyphScratchBuffer getScratchBuffer() {
+        return GlyphScratchBuffer.get();
+    }
+
     /**
      * Obtain <code>count</code> glyphs starting at specified offset from current position. If
      * <code>reverseOrder</code> is true, then glyphs are returned in reverse order starting at specified offset
@@ -921,7 +932,8 @@ public class GlyphProcessingState {
             gsCount = nrg - gsOffset;
         }
         int ng = nig + gsCount - count;
-        IntBuffer gb = IntBuffer.allocate(ng);
+        // assemble candidate glyphs in per-thread scratch buffer, only copying them if they differ from input
+        IntBuffer gb = getScratchBuffer().getGlyphBuffer(ng);
         List al = new ArrayList(ng);
         for (int i = 0, n = position; i < n; i++) {
             gb.put(igs.getGlyph(i));
@@ -938,8 +950,10 @@ public class GlyphProcessingState {
         gb.flip();
         assert igs != null;
         if (igs.compareGlyphs(gb) != 0) {
-            this.igs = new GlyphSequence(igs.getCharacters(), gb, al);
-            this.indexLast = gb.limit();
+            int[] ga = new int [ ng ];
+            gb.get(ga);
+            this.igs = new GlyphSequence(igs.getCharacters(), IntBuffer.wrap(ga), al);
+            this.indexLast = ng;
             return true;
         } else {
             return false;
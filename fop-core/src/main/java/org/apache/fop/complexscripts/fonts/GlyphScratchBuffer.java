@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.complexscripts.fonts;
+
+import java.nio.IntBuffer;
+
+/**
+ * <p>Per-thread scratch storage used during glyph processing in order to avoid allocating
+ * short lived arrays and buffers on each lookup application, e.g., when matching input,
+ * backtrack and lookahead contexts.</p>
+ *
+ * <p>Arrays returned by this class are owned by the current thread and are only valid until
+ * the next request for an array of the same length (or the next request for a buffer); they
+ * must never be retained or handed out beyond the scope of the method that obtained them.</p>
+ */
+public final class GlyphScratchBuffer {
+
+    /** maximum length of arrays kept per length; longer requests are freshly allocated */
+    static final int MAX_POOLED_LENGTH = 32;
+
+    private static final ThreadLocal<GlyphScratchBuffer> SCRATCH = new ThreadLocal<GlyphScratchBuffer>() {
+        protected GlyphScratchBuffer initialValue() {
+            return new GlyphScratchBuffer();
+        }
+    };
+
+    /** glyph arrays, indexed by length */
+    private final int[][] glyphArrays = new int [ MAX_POOLED_LENGTH + 1 ][];
+    /** reusable glyph buffer */
+    private IntBuffer glyphBuffer;
+
+    private GlyphScratchBuffer() {
+    }
+
+    /**
+     * Obtain the scratch buffer of the current thread.
+     * @return scratch buffer
+     */
+    public static GlyphScratchBuffer get() {
+        return SCRATCH.get();
+    }
+
+    /**
+     * Obtain a scratch glyph array of exactly <code>length</code> elements. The content
+     * of the returned array is undefined.
+     * @param length of array
+     * @return scratch array (or a new array if length exceeds pooled length)
+     */
+    public int[] getGlyphArray(int length) {
+        if ((length < 0) || (length > MAX_POOLED_LENGTH)) {
+            return new int [ Math.max(length, 0) ];
+        }
+        int[] ga = glyphArrays [ length ];
+        if (ga == null) {
+            ga = new int [ length ];
+            glyphArrays [ length ] = ga;
+        }
+        return ga;
+    }
+
+    /**
+     * Obtain a cleared scratch glyph buffer having at least the specified capacity.
+     * @param capacity minimum capacity
+     * @return cleared scratch buffer
+     */
+    public IntBuffer getGlyphBuffer(int capacity) {
+        if ((glyphBuffer == null) || (glyphBuffer.capacity() < capacity)) {
+            glyphBuffer = IntBuffer.allocate(Math.max(capacity, MAX_POOLED_LENGTH));
+        }
+        glyphBuffer.clear();
+        return glyphBuffer;
+    }
+
+}
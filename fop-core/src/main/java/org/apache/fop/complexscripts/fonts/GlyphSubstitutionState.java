@@ -46,6 +46,8 @@ public class GlyphSubstitutionState extends GlyphProcessingState {
     private List oal;
     /** character association predications */
     private boolean predications;
+    /** true if output buffers have been handed out by {@link #getOutput}, and thus cannot be reused */
+    private boolean outputShared;
 
     /**
      * Construct default (reset) glyph substitution state.
@@ -90,8 +92,16 @@ public class GlyphSubstitutionState extends GlyphProcessingState {
     public GlyphSubstitutionState reset(GlyphSequence gs, String script, String language, String feature, ScriptContextTester sct) {
         super.reset(gs, script, language, feature, sct);
         this.alternatesIndex = null;
-        this.ogb = IntBuffer.allocate(gs.getGlyphCount());
-        this.oal = new ArrayList(gs.getGlyphCount());
+        int ng = gs.getGlyphCount();
+        if ((ogb != null) && !outputShared && (ogb.capacity() >= ng)) {
+            // reuse output buffers of previous use of this state
+            ogb.clear();
+            oal.clear();
+        } else {
+            this.ogb = IntBuffer.allocate(ng);
+            this.oal = new ArrayList(ng);
+        }
+        this.outputShared = false;
         this.predications = gs.getPredications();
         return this;
     }
@@ -165,6 +175,7 @@ public class GlyphSubstitutionState extends GlyphProcessingState {
         if (position > 0) {
             ogb.limit(position);
             ogb.rewind();
+            outputShared = true;
             return new GlyphSequence(igs.getCharacters(), ogb, oal);
         } else {
             return igs;
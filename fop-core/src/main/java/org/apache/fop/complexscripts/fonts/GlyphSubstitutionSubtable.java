@@ -32,7 +32,12 @@ import org.apache.fop.complexscripts.util.ScriptContextTester;
  */
 public abstract class GlyphSubstitutionSubtable extends GlyphSubtable implements GlyphSubstitution {
 
-    private static final GlyphSubstitutionState STATE = new GlyphSubstitutionState();
+    /** per-thread (reset) processing state, reused across invocations on the same thread */
+    private static final ThreadLocal<GlyphSubstitutionState> STATE = new ThreadLocal<GlyphSubstitutionState>() {
+        protected GlyphSubstitutionState initialValue() {
+            return new GlyphSubstitutionState();
+        }
+    };
 
     /**
      * Instantiate a <code>GlyphSubstitutionSubtable</code>.
@@ -120,9 +125,7 @@ public abstract class GlyphSubstitutionSubtable extends GlyphSubtable implements
      * @return output glyph sequence
      */
     public static final GlyphSequence substitute(GlyphSequence gs, String script, String language, String feature, GlyphSubstitutionSubtable[] sta, ScriptContextTester sct) {
-        synchronized (STATE) {
-            return substitute(STATE.reset(gs, script, language, feature, sct), sta, -1);
-        }
+        return substitute(STATE.get().reset(gs, script, language, feature, sct), sta, -1);
     }
 
 }
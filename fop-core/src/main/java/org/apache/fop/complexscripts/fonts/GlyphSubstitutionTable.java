@@ -778,7 +778,7 @@ public class GlyphSubstitutionTable extends GlyphTable {
                 if (nga < ngm) {
                     return false;                       // insufficient glyphs available to match
                 } else {
-                    int[] ga = ss.getGlyphs(offset, ngm, reverse, ignores, null, counts);
+                    int[] ga = ss.getGlyphs(offset, ngm, reverse, ignores, ss.getScratchBuffer().getGlyphArray(ngm), counts);
                     for (int k = 0; k < ngm; k++) {
                         if (ga [ k ] != glyphs [ k ]) {
                             return false;               // match fails at ga [ k ]
@@ -865,7 +865,7 @@ public class GlyphSubstitutionTable extends GlyphTable {
                 if (nga < ngm) {
                     return false;                       // insufficient glyphs available to match
                 } else {
-                    int[] ga = ss.getGlyphs(offset, ngm, reverse, ignores, null, counts);
+                    int[] ga = ss.getGlyphs(offset, ngm, reverse, ignores, ss.getScratchBuffer().getGlyphArray(ngm), counts);
                     for (int k = 0; k < ngm; k++) {
                         int gi = ga [ k ];
                         int ms = ss.getClassMatchSet(gi);
@@ -966,7 +966,7 @@ public class GlyphSubstitutionTable extends GlyphTable {
                 if (nga < ngm) {
                     return false;                       // insufficient glyphs available to match
                 } else {
-                    int[] ga = ss.getGlyphs(offset, ngm, reverse, ignores, null, counts);
+                    int[] ga = ss.getGlyphs(offset, ngm, reverse, ignores, ss.getScratchBuffer().getGlyphArray(ngm), counts);
                     for (int k = 0; k < ngm; k++) {
                         GlyphCoverageTable ct = gca [ k ];
                         if (ct != null) {
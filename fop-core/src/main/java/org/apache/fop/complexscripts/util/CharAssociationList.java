@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.complexscripts.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * <p>A packed list of character associations. The offset and count of each (non-disjoint)
+ * association are held in parallel integer arrays, and a {@link CharAssociation} instance is
+ * only materialized when an element is actually requested through {@link #get(int)}, e.g., in
+ * order to record a predication on it. Once materialized (or once added as an object), the
+ * same instance is returned by subsequent calls, thus preserving the identity semantics of an
+ * ordinary list of associations.</p>
+ *
+ * <p>Callers that only need the interval of an association should use {@link #getOffset(int)}
+ * and {@link #getCount(int)}, which never allocate.</p>
+ */
+public class CharAssociationList extends AbstractList<CharAssociation> implements RandomAccess {
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    /** association offsets */
+    private int[] offsets;
+    /** association counts */
+    private int[] counts;
+    /** materialized (or explicitly added) associations, lazily allocated */
+    private CharAssociation[] associations;
+    /** number of associations */
+    private int size;
+
+    /**
+     * Instantiate an empty association list.
+     */
+    public CharAssociationList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Instantiate an empty association list.
+     * @param capacity initial capacity
+     */
+    public CharAssociationList(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must be non-negative: " + capacity);
+        }
+        this.offsets = new int [ capacity ];
+        this.counts = new int [ capacity ];
+    }
+
+    /**
+     * Instantiate an association list populated with the associations of an existing
+     * collection. As with an ordinary list copy, both lists share the same association
+     * instances, so a predication recorded through one list is visible through the other;
+     * if the collection is itself a packed list, then its associations are materialized
+     * before being shared.
+     * @param c collection of associations
+     */
+    public CharAssociationList(Collection<? extends CharAssociation> c) {
+        if (c instanceof CharAssociationList) {
+            CharAssociationList l = (CharAssociationList) c;
+            for (int i = 0; i < l.size; i++) {
+                l.get(i);
+            }
+            this.size = l.size;
+            this.offsets = Arrays.copyOf(l.offsets, l.size);
+            this.counts = Arrays.copyOf(l.counts, l.size);
+            this.associations = (l.associations != null)
+                ? Arrays.copyOf(l.associations, l.size) : new CharAssociation [ l.size ];
+        } else {
+            this.offsets = new int [ c.size() ];
+            this.counts = new int [ c.size() ];
+            for (CharAssociation a : c) {
+                add(a);
+            }
+        }
+    }
+
+    /**
+     * Create a packed list of identity associations, i.e., where the glyph at index I is
+     * associated with the character at index I, or with no character if I is greater or
+     * equal to the number of characters.
+     * @param numChars number of characters
+     * @param numGlyphs number of glyphs
+     * @return packed identity association list
+     */
+    public static CharAssociationList makeIdentity(int numChars, int numGlyphs) {
+        CharAssociationList l = new CharAssociationList(numGlyphs);
+        for (int i = 0; i < numGlyphs; i++) {
+            int k = (i > numChars) ? numChars : i;
+            l.add(i, (k == numChars) ? 0 : 1);
+        }
+        return l;
+    }
+
+    /**
+     * Append a non-disjoint association without instantiating a {@link CharAssociation}.
+     * @param offset association offset
+     * @param count association count
+     */
+    public void add(int offset, int count) {
+        ensureCapacity(size + 1);
+        offsets [ size ] = offset;
+        counts [ size ] = count;
+        if (associations != null) {
+            associations [ size ] = null;
+        }
+        size++;
+        modCount++;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean add(CharAssociation a) {
+        ensureCapacity(size + 1);
+        setAt(size++, a);
+        modCount++;
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CharAssociation get(int index) {
+        checkIndex(index);
+        CharAssociation a = (associations != null) ? associations [ index ] : null;
+        if (a == null) {
+            if (associations == null) {
+                associations = new CharAssociation [ offsets.length ];
+            }
+            a = new CharAssociation(offsets [ index ], counts [ index ]);
+            associations [ index ] = a;
+        }
+        return a;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CharAssociation set(int index, CharAssociation a) {
+        CharAssociation o = get(index);
+        setAt(index, a);
+        return o;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void clear() {
+        if (associations != null) {
+            Arrays.fill(associations, 0, size, null);
+        }
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Obtain offset of association at specified index without materializing it.
+     * @param index of association
+     * @return association offset
+     */
+    public int getOffset(int index) {
+        checkIndex(index);
+        return offsets [ index ];
+    }
+
+    /**
+     * Obtain count of association at specified index without materializing it.
+     * @param index of association
+     * @return association count
+     */
+    public int getCount(int index) {
+        checkIndex(index);
+        return counts [ index ];
+    }
+
+    private void setAt(int index, CharAssociation a) {
+        offsets [ index ] = a.getOffset();
+        counts [ index ] = a.getCount();
+        if (associations == null) {
+            associations = new CharAssociation [ offsets.length ];
+        }
+        associations [ index ] = a;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > offsets.length) {
+            int capacityNew = Math.max(capacity, Math.max(DEFAULT_CAPACITY, offsets.length * 2));
+            offsets = Arrays.copyOf(offsets, capacityNew);
+            counts = Arrays.copyOf(counts, capacityNew);
+            if (associations != null) {
+                associations = Arrays.copyOf(associations, capacityNew);
+            }
+        }
+    }
+
+    private void checkIndex(int index) {
+        if ((index < 0) || (index >= size)) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+    }
+
+}
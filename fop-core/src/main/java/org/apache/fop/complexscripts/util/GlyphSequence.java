@@ -225,6 +225,23 @@ public class GlyphSequence implements Cloneable {
      * @return glyph array
      */
     public int[] getGlyphs(int offset, int count) {
+        return getGlyphs(offset, count, null);
+    }
+
+    /**
+     * Obtain count glyphs starting at offset, storing them into a caller supplied
+     * array, which permits the caller to reuse a scratch array across calls. If
+     * <code>count</code> is negative, then it is treated as if the number of
+     * available glyphs were specified.
+     * @param offset into glyph sequence
+     * @param count of glyphs to obtain starting at offset, or negative,
+     * indicating all avaialble glyphs starting at offset
+     * @param ga array into which glyphs are stored, or null, in which case a new
+     * array is allocated; if non-null, its length must be at least the effective count
+     * @return glyph array (<code>ga</code> if it was non-null)
+     * @throws IndexOutOfBoundsException if offset + count exceeds the number of glyphs
+     */
+    public int[] getGlyphs(int offset, int count, int[] ga) {
         int ng = getGlyphCount();
         if (offset < 0) {
             offset = 0;
@@ -234,11 +251,18 @@ public class GlyphSequence implements Cloneable {
         if (count < 0) {
             count = ng - offset;
         }
-        int[] ga = new int [ count ];
-        for (int i = offset, n = offset + count, k = 0; i < n; i++) {
-            if (k < ga.length) {
-                ga [ k++ ] = glyphs.get(i);
-            }
+        if (ga == null) {
+            ga = new int [ count ];
+        } else if (ga.length < count) {
+            throw new IllegalArgumentException("glyphs array length (" + ga.length
+                + ") is less than count (" + count + ")");
+        }
+        if (offset + count > ng) {
+            throw new IndexOutOfBoundsException("offset (" + offset + ") + count (" + count
+                + ") exceeds glyph count (" + ng + ")");
+        }
+        if (count > 0) {
+            System.arraycopy(glyphs.array(), glyphs.arrayOffset() + offset, ga, 0, count);
         }
         return ga;
     }
@@ -454,18 +478,20 @@ public class GlyphSequence implements Cloneable {
         if (lga != null) {
             ng += lga.length;
         }
-        IntBuffer gb = IntBuffer.allocate(ng);
+        int[] ga = new int [ ng ];
+        int k = 0;
         if (bga != null) {
-            gb.put(bga);
+            System.arraycopy(bga, 0, ga, k, bga.length);
+            k += bga.length;
         }
         if (iga != null) {
-            gb.put(iga);
+            System.arraycopy(iga, 0, ga, k, iga.length);
+            k += iga.length;
         }
         if (lga != null) {
-            gb.put(lga);
+            System.arraycopy(lga, 0, ga, k, lga.length);
         }
-        gb.flip();
-        return gb;
+        return IntBuffer.wrap(ga);
     }
 
     /**
@@ -595,7 +621,7 @@ public class GlyphSequence implements Cloneable {
         if (ib != null) {
             int n = ib.limit();
             int[] ia = new int[n];
-            ib.get(ia, 0, n);
+            System.arraycopy(ib.array(), ib.arrayOffset(), ia, 0, n);
             return ia;
         } else {
             return new int[0];
@@ -603,14 +629,7 @@ public class GlyphSequence implements Cloneable {
     }
 
     private static List makeIdentityAssociations(int numChars, int numGlyphs) {
-        int nc = numChars;
-        int ng = numGlyphs;
-        List av = new ArrayList(ng);
-        for (int i = 0, n = ng; i < n; i++) {
-            int k = (i > nc) ? nc : i;
-            av.add(new CharAssociation(i, (k == nc) ? 0 : 1));
-        }
-        return av;
+        return CharAssociationList.makeIdentity(numChars, numGlyphs);
     }
 
     private static IntBuffer copyBuffer(IntBuffer ib) {
@@ -626,7 +645,9 @@ public class GlyphSequence implements Cloneable {
     }
 
     private static List copyAssociations(List ca) {
-        if (ca != null) {
+        if (ca instanceof CharAssociationList) {
+            return new CharAssociationList((CharAssociationList) ca);
+        } else if (ca != null) {
             return new ArrayList(ca);
         } else {
             return ca;
@@ -31,7 +31,7 @@ import org.apache.fop.events.model.EventSeverity;
  * EventListener implementation that redirects events to Commons Logging. The events are
  * converted to localized messages.
  */
-public class LoggingEventListener implements EventListener {
+public class LoggingEventListener implements SeverityAwareEventListener {
 
     /** Default logger instance */
     private static Log defaultLog = LogFactory.getLog(LoggingEventListener.class);
@@ -75,6 +75,21 @@ public class LoggingEventListener implements EventListener {
         return this.log;
     }
 
+    /** {@inheritDoc} */
+    public boolean isInterestedIn(EventSeverity severity) {
+        if (severity == EventSeverity.INFO) {
+            return log.isInfoEnabled();
+        } else if (severity == EventSeverity.WARN) {
+            return log.isWarnEnabled();
+        } else if (severity == EventSeverity.ERROR) {
+            return log.isErrorEnabled();
+        } else if (severity == EventSeverity.FATAL) {
+            return !skipFatal && log.isFatalEnabled();
+        } else {
+            return true;
+        }
+    }
+
     /** {@inheritDoc} */
     public void processEvent(Event event) {
         String msg = EventFormatter.format(event);
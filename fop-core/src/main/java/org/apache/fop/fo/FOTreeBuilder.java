@@ -39,6 +39,7 @@ import org.apache.fop.accessibility.fo.FO2StructureTreeConverter;
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.apps.FormattingResults;
+import org.apache.fop.apps.RenderingProfiler;
 import org.apache.fop.fo.ElementMapping.Maker;
 import org.apache.fop.fo.extensions.ExtensionElementMapping;
 import org.apache.fop.fo.pagination.Root;
@@ -159,17 +160,23 @@ public class FOTreeBuilder extends DefaultHandler {
 
     /** {@inheritDoc} */
     public void endDocument() throws SAXException {
-        this.delegate.endDocument();
-        if (this.rootFObj == null && empty) {
-            FOValidationEventProducer eventProducer
-                = FOValidationEventProducer.Provider.get(userAgent.getEventBroadcaster());
-            eventProducer.emptyDocument(this);
-        }
-        rootFObj = null;
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("Parsing of document complete");
+        RenderingProfiler profiler = RenderingProfiler.getInstance(userAgent);
+        RenderingProfiler previous = profiler.attach();
+        try {
+            this.delegate.endDocument();
+            if (this.rootFObj == null && empty) {
+                FOValidationEventProducer eventProducer
+                    = FOValidationEventProducer.Provider.get(userAgent.getEventBroadcaster());
+                eventProducer.emptyDocument(this);
+            }
+            rootFObj = null;
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Parsing of document complete");
+            }
+            foEventHandler.endDocument();
+        } finally {
+            profiler.detach(previous);
         }
-        foEventHandler.endDocument();
     }
 
     /** {@inheritDoc} */
@@ -178,18 +185,28 @@ public class FOTreeBuilder extends DefaultHandler {
         this.depth++;
         errorinstart = false;
         final ContentHandler contentHandler = delegate;
-        SAXException saxException = AccessController.doPrivileged(
-            new PrivilegedAction<SAXException>() {
-                public SAXException run() {
-                    try {
-                        contentHandler.startElement(namespaceURI, localName, rawName, attlist);
-                    } catch (SAXException e) {
-                        return e;
+        RenderingProfiler profiler = RenderingProfiler.getInstance(userAgent);
+        RenderingProfiler previous = profiler.attach();
+        long start = profiler.startTimer();
+        SAXException saxException;
+        try {
+            saxException = AccessController.doPrivileged(
+                new PrivilegedAction<SAXException>() {
+                    public SAXException run() {
+                        try {
+                            contentHandler.startElement(namespaceURI, localName, rawName, attlist);
+                        } catch (SAXException e) {
+                            return e;
+                        }
+                        return null;
                     }
-                    return null;
                 }
-            }
-        );
+            );
+        } finally {
+            profiler.stopTimer(RenderingProfiler.Phase.FO_TREE, start);
+            profiler.increment(RenderingProfiler.Counter.ELEMENTS_PARSED);
+            profiler.detach(previous);
+        }
         if (saxException != null) {
             errorinstart = true;
             throw saxException;
@@ -200,18 +217,26 @@ public class FOTreeBuilder extends DefaultHandler {
     public void endElement(final String uri, final String localName, final String rawName) throws SAXException {
         if (!errorinstart) {
             final ContentHandler contentHandler = delegate;
-            SAXException saxException = AccessController.doPrivileged(
-                new PrivilegedAction<SAXException>() {
-                    public SAXException run() {
-                        try {
-                            contentHandler.endElement(uri, localName, rawName);
-                        } catch (SAXException e) {
-                            return e;
+            //ending a page-sequence triggers its layout and rendering
+            RenderingProfiler profiler = RenderingProfiler.getInstance(userAgent);
+            RenderingProfiler previous = profiler.attach();
+            SAXException saxException;
+            try {
+                saxException = AccessController.doPrivileged(
+                    new PrivilegedAction<SAXException>() {
+                        public SAXException run() {
+                            try {
+                                contentHandler.endElement(uri, localName, rawName);
+                            } catch (SAXException e) {
+                                return e;
+                            }
+                            return null;
                         }
-                        return null;
                     }
-                }
-            );
+                );
+            } finally {
+                profiler.detach(previous);
+            }
             if (saxException != null) {
                 throw saxException;
             }
@@ -316,10 +341,16 @@ public class FOTreeBuilder extends DefaultHandler {
                     rootFObj.setBuilderContext(builderContext);
                     rootFObj.setFOEventHandler(foEventHandler);
                 }
-                propertyList = foNode.createPropertyList(
-                                    currentPropertyList, foEventHandler);
-                foNode.processNode(localName, getEffectiveLocator(),
-                                    attlist, propertyList);
+                RenderingProfiler profiler = RenderingProfiler.getInstance(userAgent);
+                long start = profiler.startTimer();
+                try {
+                    propertyList = foNode.createPropertyList(
+                                        currentPropertyList, foEventHandler);
+                    foNode.processNode(localName, getEffectiveLocator(),
+                                        attlist, propertyList);
+                } finally {
+                    profiler.stopTimer(RenderingProfiler.Phase.PROPERTY_RESOLUTION, start);
+                }
                 if (foNode.getNameId() == Constants.FO_MARKER) {
                     if (builderContext.inMarker()) {
                         nestedMarkerDepth++;
@@ -21,6 +21,8 @@ package org.apache.fop.fo.expr;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.xmlgraphics.util.UnitConv;
 
@@ -40,13 +42,31 @@ import org.apache.fop.fo.properties.StringProperty;
  * Class to parse XSL-FO property expressions.
  * This class is heavily based on the epxression parser in James Clark's
  * XT, an XSLT processor.
+ * <p>
+ * Expressions are compiled into a tree of {@link Expression} objects which is then evaluated
+ * against the property's context (the {@link PropertyInfo}). Compiled expressions don't depend
+ * on the context, so they are cached by expression text: generated FO tends to repeat identical
+ * property values many times, and those are only tokenized and parsed once. Everything that
+ * depends on the context (percentages, relative and pixel lengths, colors, and all function
+ * calls including <code>inherited-property-value()</code> and
+ * <code>from-nearest-specified-value()</code>) is resolved on each evaluation.
  */
 public final class PropertyParser extends PropertyTokenizer {
-    private PropertyInfo propInfo;    // Maker and propertyList related info
 
     private static final String RELUNIT = "em";
     private static final HashMap FUNCTION_TABLE = new HashMap();
 
+    /** the maximum number of cached compiled expressions */
+    private static final int MAX_COMPILED_EXPRESSIONS = 4096;
+
+    /** compiled expressions, keyed by expression text */
+    private static final ConcurrentMap<String, Expression> COMPILED_EXPRESSIONS
+            = new ConcurrentHashMap<String, Expression>();
+
+    /** the compiled form of the empty expression */
+    private static final Expression EMPTY_EXPRESSION
+            = new ConstantExpression(StringProperty.getInstance(""));
+
     static {
         // Initialize the HashMap of XSL-defined functions
         FUNCTION_TABLE.put("ceiling", new CeilingFunction());
@@ -90,126 +110,123 @@ public final class PropertyParser extends PropertyTokenizer {
     public static Property parse(String expr, PropertyInfo propInfo)
             throws PropertyException {
         try {
-            return new PropertyParser(expr, propInfo).parseProperty();
+            return compile(expr).evaluate(propInfo);
         } catch (PropertyException exc) {
             exc.setPropertyInfo(propInfo);
             throw exc;
         }
     }
 
+    /**
+     * Returns the compiled form of a property expression, from the cache if possible.
+     * @param expr the property expression
+     * @return the compiled expression
+     * @throws PropertyException if the expression cannot be parsed
+     */
+    static Expression compile(String expr) throws PropertyException {
+        Expression compiled = COMPILED_EXPRESSIONS.get(expr);
+        if (compiled == null) {
+            compiled = new PropertyParser(expr).parseProperty();
+            if (COMPILED_EXPRESSIONS.size() >= MAX_COMPILED_EXPRESSIONS) {
+                //start over rather than tracking usage; hot expressions come back quickly
+                COMPILED_EXPRESSIONS.clear();
+            }
+            COMPILED_EXPRESSIONS.put(expr, compiled);
+        }
+        return compiled;
+    }
+
 
     /**
-     * Private constructor. Called by the static parse() method.
+     * Private constructor. Called by the static compile() method.
      * @param propExpr The specified value (attribute on the xml element).
-     * @param pInfo A PropertyInfo object representing the context in
-     * which the property expression is to be evaluated.
      */
-    private PropertyParser(String propExpr, PropertyInfo pInfo) {
+    private PropertyParser(String propExpr) {
         super(propExpr);
-        this.propInfo = pInfo;
     }
 
     /**
      * Parse the property expression described in the instance variables.
-     * Note: If the property expression String is empty, a StringProperty
-     * object holding an empty String is returned.
-     * @return A Property object holding the parsed result.
-     * @throws PropertyException If the "expr" cannot be parsed as a Property.
+     * Note: If the property expression String is empty, the expression
+     * evaluates to a StringProperty object holding an empty String.
+     * @return the compiled expression
+     * @throws PropertyException If the "expr" cannot be parsed.
      */
-    private Property parseProperty() throws PropertyException {
+    private Expression parseProperty() throws PropertyException {
         next();
         if (currentToken == TOK_EOF) {
             // if prop value is empty string, force to StringProperty
-            return StringProperty.getInstance("");
+            return EMPTY_EXPRESSION;
         }
-        ListProperty propList = null;
+        List<Expression> items = null;
         while (true) {
-            Property prop = parseAdditiveExpr();
+            Expression expr = parseAdditiveExpr();
             if (currentToken == TOK_EOF) {
-                if (propList != null) {
-                    propList.addProperty(prop);
-                    return propList;
+                if (items != null) {
+                    items.add(expr);
+                    return new ListExpression(items.toArray(new Expression[items.size()]));
                 } else {
-                    return prop;
+                    return expr;
                 }
             } else {
-                if (propList == null) {
-                    propList = new ListProperty(prop);
-                } else {
-                    propList.addProperty(prop);
+                if (items == null) {
+                    items = new java.util.ArrayList<Expression>();
                 }
+                items.add(expr);
             }
-            // throw new PropertyException("unexpected token");
         }
-        // return prop;
     }
 
     /**
-     * Try to parse an addition or subtraction expression and return the
-     * resulting Property.
+     * Try to parse an addition or subtraction expression.
      */
-    private Property parseAdditiveExpr() throws PropertyException {
-        // Evaluate and put result on the operand stack
-        Property prop = parseMultiplicativeExpr();
+    private Expression parseAdditiveExpr() throws PropertyException {
+        Expression expr = parseMultiplicativeExpr();
         loop:
         while (true) {
             switch (currentToken) {
             case TOK_PLUS:
-                next();
-                prop = evalAddition(prop.getNumeric(),
-                                    parseMultiplicativeExpr().getNumeric());
-                break;
             case TOK_MINUS:
+                int operator = currentToken;
                 next();
-                prop = evalSubtraction(prop.getNumeric(),
-                                    parseMultiplicativeExpr().getNumeric());
+                expr = new OperationExpression(operator, expr, parseMultiplicativeExpr());
                 break;
             default:
                 break loop;
             }
         }
-        return prop;
+        return expr;
     }
 
     /**
-     * Try to parse a multiply, divide or modulo expression and return
-     * the resulting Property.
+     * Try to parse a multiply, divide or modulo expression.
      */
-    private Property parseMultiplicativeExpr() throws PropertyException {
-        Property prop = parseUnaryExpr();
+    private Expression parseMultiplicativeExpr() throws PropertyException {
+        Expression expr = parseUnaryExpr();
         loop:
         while (true) {
             switch (currentToken) {
             case TOK_DIV:
-                next();
-                prop = evalDivide(prop.getNumeric(),
-                                  parseUnaryExpr().getNumeric());
-                break;
             case TOK_MOD:
-                next();
-                prop = evalModulo(prop.getNumber(),
-                                  parseUnaryExpr().getNumber());
-                break;
             case TOK_MULTIPLY:
+                int operator = currentToken;
                 next();
-                prop = evalMultiply(prop.getNumeric(),
-                                    parseUnaryExpr().getNumeric());
+                expr = new OperationExpression(operator, expr, parseUnaryExpr());
                 break;
             default:
                 break loop;
             }
         }
-        return prop;
+        return expr;
     }
 
     /**
-     * Try to parse a unary minus expression and return the
-     * resulting Property.
+     * Try to parse a unary minus expression.
      */
-    private Property parseUnaryExpr() throws PropertyException {
+    private Expression parseUnaryExpr() throws PropertyException {
         if (currentToken == TOK_MINUS) {
             next();
-            return evalNegate(parseUnaryExpr().getNumeric());
+            return new NegationExpression(parseUnaryExpr());
         }
         return parsePrimaryExpr();
     }
@@ -227,15 +244,14 @@ public final class PropertyParser extends PropertyTokenizer {
     }
 
     /**
-     * Try to parse a primary expression and return the
-     * resulting Property.
+     * Try to parse a primary expression.
      * A primary expression is either a parenthesized expression or an
      * expression representing a primitive Property datatype, such as a
      * string literal, an NCname, a number or a unit expression, or a
      * function call expression.
      */
-    private Property parsePrimaryExpr() throws PropertyException {
-        Property prop;
+    private Expression parsePrimaryExpr() throws PropertyException {
+        Expression expr;
         if (currentToken == TOK_COMMA) {
             //Simply skip commas, for example for font-family
             next();
@@ -243,62 +259,30 @@ public final class PropertyParser extends PropertyTokenizer {
         switch (currentToken) {
         case TOK_LPAR:
             next();
-            prop = parseAdditiveExpr();
+            expr = parseAdditiveExpr();
             expectRpar();
-            return prop;
+            return expr;
 
         case TOK_LITERAL:
-            prop = StringProperty.getInstance(currentTokenValue);
+            expr = new ConstantExpression(StringProperty.getInstance(currentTokenValue));
             break;
 
         case TOK_NCNAME:
             // Interpret this in context of the property or do it later?
-            prop = new NCnameProperty(currentTokenValue);
+            expr = new NCnameExpression(currentTokenValue);
             break;
 
         case TOK_FLOAT:
-            prop = NumberProperty.getInstance(Double.valueOf(currentTokenValue));
+            expr = new ConstantExpression(NumberProperty.getInstance(Double.valueOf(currentTokenValue)));
             break;
 
         case TOK_INTEGER:
-            prop = NumberProperty.getInstance(Integer.valueOf(currentTokenValue));
+            expr = new ConstantExpression(NumberProperty.getInstance(Integer.valueOf(currentTokenValue)));
             break;
 
         case TOK_PERCENT:
-            /*
-             * Get the length base value object from the Maker. If null, then
-             * this property can't have % values. Treat it as a real number.
-             */
-            double pcval = Double.parseDouble(
-                    currentTokenValue.substring(0, currentTokenValue.length() - 1)) / 100.0;
-            PercentBase pcBase = this.propInfo.getPercentBase();
-            if (pcBase != null) {
-                if (pcBase.getDimension() == 0) {
-                    prop = NumberProperty.getInstance(pcval * pcBase.getBaseValue());
-                } else if (pcBase.getDimension() == 1) {
-                    if (pcBase instanceof LengthBase) {
-                        if (pcval == 0.0) {
-                            prop = FixedLength.ZERO_FIXED_LENGTH;
-                            break;
-                        }
-
-                        //If the base of the percentage is known
-                        //and absolute, it can be resolved by the
-                        //parser
-                        Length base = ((LengthBase)pcBase).getBaseLength();
-                        if (base != null && base.isAbsolute()) {
-                            prop = FixedLength.getInstance(pcval * base.getValue());
-                            break;
-                        }
-                    }
-                    prop = new PercentLength(pcval, pcBase);
-                } else {
-                    throw new PropertyException("Illegal percent dimension value");
-                }
-            } else {
-                // WARNING? Interpret as a decimal fraction, eg. 50% = .5
-                prop = NumberProperty.getInstance(pcval);
-            }
+            expr = new PercentExpression(Double.parseDouble(
+                    currentTokenValue.substring(0, currentTokenValue.length() - 1)) / 100.0);
             break;
 
         case TOK_NUMERIC:
@@ -306,28 +290,16 @@ public final class PropertyParser extends PropertyTokenizer {
             int numLen = currentTokenValue.length() - currentUnitLength;
             String unitPart = currentTokenValue.substring(numLen);
             double numPart = Double.parseDouble(currentTokenValue.substring(0, numLen));
-            if (RELUNIT.equals(unitPart)) {
-                prop = (Property) NumericOp.multiply(
-                                    NumberProperty.getInstance(numPart),
-                                    propInfo.currentFontSize());
+            if (RELUNIT.equals(unitPart) || "px".equals(unitPart)) {
+                expr = new RelativeLengthExpression(numPart, unitPart);
             } else {
-                if ("px".equals(unitPart)) {
-                    //pass the ratio between target-resolution and
-                    //the default resolution of 72dpi
-                    float resolution = propInfo.getPropertyList().getFObj()
-                            .getUserAgent().getSourceResolution();
-                    prop = FixedLength.getInstance(
-                            numPart, unitPart,
-                             UnitConv.IN2PT / resolution);
-                } else {
-                    //use default resolution of 72dpi
-                    prop = FixedLength.getInstance(numPart, unitPart);
-                }
+                //use default resolution of 72dpi
+                expr = new ConstantExpression(FixedLength.getInstance(numPart, unitPart));
             }
             break;
 
         case TOK_COLORSPEC:
-            prop = ColorProperty.getInstance(propInfo.getUserAgent(), currentTokenValue);
+            expr = new ColorExpression(currentTokenValue);
             break;
 
         case TOK_FUNCTION_LPAR:
@@ -337,43 +309,40 @@ public final class PropertyParser extends PropertyTokenizer {
                                             + currentTokenValue);
             }
             next();
-            // Push new function (for function context: getPercentBase())
-            propInfo.pushFunction(function);
-            prop = function.eval(parseArgs(function), propInfo);
-            propInfo.popFunction();
-            return prop;
+            return new FunctionExpression(function, parseArgs(function));
 
         default:
             // TODO: add the token or the expr to the error message.
             throw new PropertyException("syntax error");
         }
         next();
-        return prop;
+        return expr;
     }
 
     /**
      * Parse a comma separated list of function arguments. Each argument
      * may itself be an expression. This method consumes the closing right
-     * parenthesis of the argument list.
+     * parenthesis of the argument list. Defaults for missing optional
+     * arguments are added when the function call is evaluated.
      * @param function The function object for which the arguments are collected.
-     * @return An array of Property objects representing the arguments found.
+     * @return An array of compiled expressions representing the arguments found.
      * @throws PropertyException If the number of arguments found isn't equal
      * to the number expected or if another argument parsing error occurs.
      */
-    Property[] parseArgs(Function function) throws PropertyException {
+    Expression[] parseArgs(Function function) throws PropertyException {
         int numReq = function.getRequiredArgsCount();   // # required args
         int numOpt = function.getOptionalArgsCount();   // # optional args
         boolean hasVar = function.hasVariableArgs();    // has variable args
-        List<Property> args = new java.util.ArrayList<Property>(numReq + numOpt);
+        List<Expression> args = new java.util.ArrayList<Expression>(numReq + numOpt);
         if (currentToken == TOK_RPAR) {
             // No args: func()
             next();
         } else {
             while (true) {
-                Property p = parseAdditiveExpr();
+                Expression arg = parseAdditiveExpr();
                 int i = args.size();
                 if ((i < numReq) || ((i - numReq) < numOpt) || hasVar) {
-                    args.add(p);
+                    args.add(arg);
                 } else {
                     throw new PropertyException("Unexpected function argument at index " + i);
                 }
@@ -389,14 +358,225 @@ public final class PropertyParser extends PropertyTokenizer {
         if (numArgs < numReq) {
             throw new PropertyException("Expected " + numReq + " required arguments, but only "
                     + numArgs + " specified");
-        } else {
-            for (int i = 0; i < numOpt; i++) {
-                if (args.size() < (numReq + i + 1)) {
-                    args.add(function.getOptionalArgDefault(i, propInfo));
+        }
+        return args.toArray(new Expression[numArgs]);
+    }
+
+    /**
+     * A compiled property expression. Instances are immutable and may be shared between threads.
+     */
+    abstract static class Expression {
+
+        /**
+         * Evaluates the expression.
+         * @param propInfo the context in which the expression is evaluated
+         * @return the resulting property
+         * @throws PropertyException if the expression cannot be evaluated in the given context
+         */
+        abstract Property evaluate(PropertyInfo propInfo) throws PropertyException;
+    }
+
+    /** An expression that evaluates to the same property in any context. */
+    private static final class ConstantExpression extends Expression {
+
+        private final Property property;
+
+        ConstantExpression(Property property) {
+            this.property = property;
+        }
+
+        Property evaluate(PropertyInfo propInfo) {
+            return property;
+        }
+    }
+
+    private static final class NCnameExpression extends Expression {
+
+        private final String ncName;
+
+        NCnameExpression(String ncName) {
+            this.ncName = ncName;
+        }
+
+        Property evaluate(PropertyInfo propInfo) {
+            return new NCnameProperty(ncName);
+        }
+    }
+
+    private static final class PercentExpression extends Expression {
+
+        private final double pcval;
+
+        PercentExpression(double pcval) {
+            this.pcval = pcval;
+        }
+
+        Property evaluate(PropertyInfo propInfo) throws PropertyException {
+            /*
+             * Get the length base value object from the Maker. If null, then
+             * this property can't have % values. Treat it as a real number.
+             */
+            PercentBase pcBase = propInfo.getPercentBase();
+            if (pcBase != null) {
+                if (pcBase.getDimension() == 0) {
+                    return NumberProperty.getInstance(pcval * pcBase.getBaseValue());
+                } else if (pcBase.getDimension() == 1) {
+                    if (pcBase instanceof LengthBase) {
+                        if (pcval == 0.0) {
+                            return FixedLength.ZERO_FIXED_LENGTH;
+                        }
+
+                        //If the base of the percentage is known
+                        //and absolute, it can be resolved by the
+                        //parser
+                        Length base = ((LengthBase)pcBase).getBaseLength();
+                        if (base != null && base.isAbsolute()) {
+                            return FixedLength.getInstance(pcval * base.getValue());
+                        }
+                    }
+                    return new PercentLength(pcval, pcBase);
+                } else {
+                    throw new PropertyException("Illegal percent dimension value");
                 }
+            } else {
+                // WARNING? Interpret as a decimal fraction, eg. 50% = .5
+                return NumberProperty.getInstance(pcval);
+            }
+        }
+    }
+
+    /** A length in a unit that depends on the context: em or px. */
+    private static final class RelativeLengthExpression extends Expression {
+
+        private final double numPart;
+
+        private final String unitPart;
+
+        RelativeLengthExpression(double numPart, String unitPart) {
+            this.numPart = numPart;
+            this.unitPart = unitPart;
+        }
+
+        Property evaluate(PropertyInfo propInfo) throws PropertyException {
+            if (RELUNIT.equals(unitPart)) {
+                return (Property) NumericOp.multiply(
+                                    NumberProperty.getInstance(numPart),
+                                    propInfo.currentFontSize());
+            } else {
+                //pass the ratio between target-resolution and
+                //the default resolution of 72dpi
+                float resolution = propInfo.getPropertyList().getFObj()
+                        .getUserAgent().getSourceResolution();
+                return FixedLength.getInstance(
+                        numPart, unitPart,
+                         UnitConv.IN2PT / resolution);
+            }
+        }
+    }
+
+    private static final class ColorExpression extends Expression {
+
+        private final String colorSpec;
+
+        ColorExpression(String colorSpec) {
+            this.colorSpec = colorSpec;
+        }
+
+        Property evaluate(PropertyInfo propInfo) throws PropertyException {
+            return ColorProperty.getInstance(propInfo.getUserAgent(), colorSpec);
+        }
+    }
+
+    private static final class OperationExpression extends Expression {
+
+        private final int operator;
+
+        private final Expression left;
+
+        private final Expression right;
+
+        OperationExpression(int operator, Expression left, Expression right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        Property evaluate(PropertyInfo propInfo) throws PropertyException {
+            Property op1 = left.evaluate(propInfo);
+            switch (operator) {
+            case TOK_PLUS:
+                return evalAddition(op1.getNumeric(), right.evaluate(propInfo).getNumeric());
+            case TOK_MINUS:
+                return evalSubtraction(op1.getNumeric(), right.evaluate(propInfo).getNumeric());
+            case TOK_DIV:
+                return evalDivide(op1.getNumeric(), right.evaluate(propInfo).getNumeric());
+            case TOK_MOD:
+                return evalModulo(op1.getNumber(), right.evaluate(propInfo).getNumber());
+            case TOK_MULTIPLY:
+                return evalMultiply(op1.getNumeric(), right.evaluate(propInfo).getNumeric());
+            default:
+                throw new IllegalStateException("Unexpected operator: " + operator);
+            }
+        }
+    }
+
+    private static final class NegationExpression extends Expression {
+
+        private final Expression operand;
+
+        NegationExpression(Expression operand) {
+            this.operand = operand;
+        }
+
+        Property evaluate(PropertyInfo propInfo) throws PropertyException {
+            return evalNegate(operand.evaluate(propInfo).getNumeric());
+        }
+    }
+
+    private static final class FunctionExpression extends Expression {
+
+        private final Function function;
+
+        private final Expression[] args;
+
+        FunctionExpression(Function function, Expression[] args) {
+            this.function = function;
+            this.args = args;
+        }
+
+        Property evaluate(PropertyInfo propInfo) throws PropertyException {
+            // Push new function (for function context: getPercentBase())
+            propInfo.pushFunction(function);
+            int numReq = function.getRequiredArgsCount();
+            int numOpt = function.getOptionalArgsCount();
+            Property[] values = new Property[Math.max(args.length, numReq + numOpt)];
+            for (int i = 0; i < args.length; i++) {
+                values[i] = args[i].evaluate(propInfo);
+            }
+            for (int i = args.length; i < values.length; i++) {
+                values[i] = function.getOptionalArgDefault(i - numReq, propInfo);
+            }
+            Property prop = function.eval(values, propInfo);
+            propInfo.popFunction();
+            return prop;
+        }
+    }
+
+    private static final class ListExpression extends Expression {
+
+        private final Expression[] items;
+
+        ListExpression(Expression[] items) {
+            this.items = items;
+        }
+
+        Property evaluate(PropertyInfo propInfo) throws PropertyException {
+            ListProperty propList = new ListProperty(items[0].evaluate(propInfo));
+            for (int i = 1; i < items.length; i++) {
+                propList.addProperty(items[i].evaluate(propInfo));
             }
+            return propList;
         }
-        return args.toArray(new Property [ args.size() ]);
     }
 
     /**
@@ -408,7 +588,7 @@ public final class PropertyParser extends PropertyTokenizer {
      * the sum of the two operands.
      * @throws PropertyException If either operand is null.
      */
-    private Property evalAddition(Numeric op1,
+    private static Property evalAddition(Numeric op1,
                                   Numeric op2) throws PropertyException {
         if (op1 == null || op2 == null) {
             throw new PropertyException("Non numeric operand in addition");
@@ -425,7 +605,7 @@ public final class PropertyParser extends PropertyTokenizer {
      * the difference of the two operands.
      * @throws PropertyException If either operand is null.
      */
-    private Property evalSubtraction(Numeric op1,
+    private static Property evalSubtraction(Numeric op1,
                                      Numeric op2) throws PropertyException {
         if (op1 == null || op2 == null) {
             throw new PropertyException("Non numeric operand in subtraction");
@@ -441,7 +621,7 @@ public final class PropertyParser extends PropertyTokenizer {
      * the negative of the operand (multiplication by *1).
      * @throws PropertyException If the operand is null.
      */
-    private Property evalNegate(Numeric op) throws PropertyException {
+    private static Property evalNegate(Numeric op) throws PropertyException {
         if (op == null) {
             throw new PropertyException("Non numeric operand to unary minus");
         }
@@ -457,7 +637,7 @@ public final class PropertyParser extends PropertyTokenizer {
      * the product of the two operands.
      * @throws PropertyException If either operand is null.
      */
-    private Property evalMultiply(Numeric op1,
+    private static Property evalMultiply(Numeric op1,
                                   Numeric op2) throws PropertyException {
         if (op1 == null || op2 == null) {
             throw new PropertyException("Non numeric operand in multiplication");
@@ -475,7 +655,7 @@ public final class PropertyParser extends PropertyTokenizer {
      * op1 divided by op2.
      * @throws PropertyException If either operand is null.
      */
-    private Property evalDivide(Numeric op1,
+    private static Property evalDivide(Numeric op1,
                                 Numeric op2) throws PropertyException {
         if (op1 == null || op2 == null) {
             throw new PropertyException("Non numeric operand in division");
@@ -492,7 +672,7 @@ public final class PropertyParser extends PropertyTokenizer {
      * op1 mod op2.
      * @throws PropertyException If either operand is null.
      */
-    private Property evalModulo(Number op1,
+    private static Property evalModulo(Number op1,
                                 Number op2) throws PropertyException {
         if (op1 == null || op2 == null) {
             throw new PropertyException("Non number operand to modulo");
@@ -54,6 +54,12 @@ public abstract class AbstractRetrieveMarker extends FObjMixed {
 
     private StructureTreeElement structureTreeElement;
 
+    /**
+     * The marker whose cloned content is currently held by this node, if that content may be
+     * laid out again when the same marker is retrieved next time.
+     */
+    private Marker reusableMarker;
+
     /**
      * Create a new AbstractRetrieveMarker instance that
      * is a child of the given {@link FONode}
@@ -198,20 +204,29 @@ public abstract class AbstractRetrieveMarker extends FObjMixed {
     }
 
     /**
-     * Clone the subtree of the given marker
+     * Clone the subtree of the given marker. If the same marker was bound on the previous
+     * retrieval (typically a running header that doesn't change from page to page), the content
+     * cloned then is kept: it was resolved in the same property context and, like any other
+     * static content, can be laid out again. Accessibility requires the cloning events for
+     * each retrieval, so then the content is always cloned.
      *
      * @param marker the marker that is to be cloned
      */
     public void bindMarker(Marker marker) {
         // clean up remnants from a possible earlier layout
-        if (firstChild != null) {
-            currentTextNode = null;
-            firstChild = null;
+        currentTextNode = null;
+        if (marker == reusableMarker && firstChild != null) {
+            return;
         }
+        reusableMarker = null;
+        firstChild = null;
         if (marker.getChildNodes() != null) {
             try {
                 restoreFOEventHandlerState();
                 cloneFromMarker(marker);
+                if (!getUserAgent().isAccessibilityEnabled()) {
+                    reusableMarker = marker;
+                }
             } catch (FOPException exc) {
                 getFOValidationEventProducer().markerCloningFailed(this,
                         marker.getMarkerClassName(), exc, getLocator());
@@ -31,12 +31,14 @@ import org.apache.xmlgraphics.image.loader.ImageManager;
 import org.apache.fop.ResourceEventProducer;
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.RenderingProfiler;
 import org.apache.fop.datatypes.Length;
 import org.apache.fop.datatypes.URISpecification;
 import org.apache.fop.fo.FONode;
 import org.apache.fop.fo.PropertyList;
 import org.apache.fop.fo.ValidationException;
 import org.apache.fop.fo.properties.FixedLength;
+import org.apache.fop.image.ImagePreloader;
 
 /**
  * Class modelling the <a href="http://www.w3.org/TR/xsl/#fo_external-graphic">
@@ -56,6 +58,7 @@ public class ExternalGraphic extends AbstractGraphics {
     private int intrinsicWidth;
     private int intrinsicHeight;
     private Length intrinsicAlignmentAdjust;
+    private boolean imageInfoPending;
 
     /**
      * Create a new ExternalGraphic node that is a child
@@ -74,11 +77,39 @@ public class ExternalGraphic extends AbstractGraphics {
 
         //Additional processing: obtain the image's intrinsic size and baseline information
         url = URISpecification.getURL(src);
+        ImagePreloader preloader = getUserAgent().getImagePreloader();
+        if (preloader != null) {
+            //Resolved concurrently; the intrinsic values are set up on first access
+            preloader.preload(url);
+            imageInfoPending = true;
+        } else {
+            setupIntrinsicValues(null);
+        }
+    }
+
+    private void resolvePendingImageInfo() {
+        if (imageInfoPending) {
+            imageInfoPending = false;
+            setupIntrinsicValues(getUserAgent().getImagePreloader());
+        }
+    }
+
+    private void setupIntrinsicValues(ImagePreloader preloader) {
         FOUserAgent userAgent = getUserAgent();
-        ImageManager manager = userAgent.getImageManager();
         ImageInfo info = null;
         try {
-            info = manager.getImageInfo(url, userAgent.getImageSessionContext());
+            if (preloader != null) {
+                info = preloader.getImageInfo(url);
+            } else {
+                ImageManager manager = userAgent.getImageManager();
+                RenderingProfiler profiler = RenderingProfiler.getInstance(userAgent);
+                long start = profiler.startTimer();
+                try {
+                    info = manager.getImageInfo(url, userAgent.getImageSessionContext());
+                } finally {
+                    profiler.stopTimer(RenderingProfiler.Phase.IMAGE_LOADING, start);
+                }
+            }
         } catch (ImageException e) {
             ResourceEventProducer eventProducer = ResourceEventProducer.Provider.get(
                     getUserAgent().getEventBroadcaster());
@@ -145,16 +176,19 @@ public class ExternalGraphic extends AbstractGraphics {
 
     /** {@inheritDoc} */
     public int getIntrinsicWidth() {
+        resolvePendingImageInfo();
         return this.intrinsicWidth;
     }
 
     /** {@inheritDoc} */
     public int getIntrinsicHeight() {
+        resolvePendingImageInfo();
         return this.intrinsicHeight;
     }
 
     /** {@inheritDoc} */
     public Length getIntrinsicAlignmentAdjust() {
+        resolvePendingImageInfo();
         return this.intrinsicAlignmentAdjust;
     }
 
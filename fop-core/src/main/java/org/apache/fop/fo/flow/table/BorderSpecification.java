@@ -22,18 +22,28 @@ package org.apache.fop.fo.flow.table;
 import org.apache.fop.fo.Constants;
 import org.apache.fop.fo.properties.CommonBorderPaddingBackground;
 import org.apache.fop.fo.properties.CommonBorderPaddingBackground.BorderInfo;
+import org.apache.fop.fo.properties.PropertyCache;
 
 /**
  * A border's informations, along with the FO element which declared it. Used for border
  * resolution in the collapsing-border model.
+ * <p>
+ * Instances are immutable. Those obtained through {@link #getInstance(BorderInfo, int)}
+ * are shared, so that the many grid units of a large table refer to a handful of
+ * specifications only.
  */
 public/*TODO*/ class BorderSpecification {
 
+    private static final PropertyCache<BorderSpecification> CACHE
+            = new PropertyCache<BorderSpecification>();
+
     private static BorderSpecification defaultBorder;
 
-    private BorderInfo borderInfo;
+    private final BorderInfo borderInfo;
+
+    private final int holder;
 
-    private int holder;
+    private final int hash;
 
     /**
      * Creates a new border specification.
@@ -44,11 +54,23 @@ public/*TODO*/ class BorderSpecification {
     public/*TODO*/ BorderSpecification(BorderInfo borderInfo, int holder) {
         this.borderInfo = borderInfo;
         this.holder = holder;
+        this.hash = 37 * (borderInfo == null ? 0 : borderInfo.hashCode()) + holder;
+    }
+
+    /**
+     * Returns a shared border specification.
+     *
+     * @param borderInfo the border's informations
+     * @param holder the FO element declaring this border
+     * @return the cached instance equal to a new BorderSpecification(borderInfo, holder)
+     */
+    public/*TODO*/ static BorderSpecification getInstance(BorderInfo borderInfo, int holder) {
+        return CACHE.fetch(new BorderSpecification(borderInfo, holder));
     }
 
     static synchronized BorderSpecification getDefaultBorder() {
         if (defaultBorder == null) {
-            defaultBorder = new BorderSpecification(CommonBorderPaddingBackground
+            defaultBorder = getInstance(CommonBorderPaddingBackground
                     .getDefaultBorderInfo(), Constants.FO_TABLE_CELL);
         }
         return defaultBorder;
@@ -75,6 +97,25 @@ public/*TODO*/ class BorderSpecification {
         return holder;
     }
 
+    /** {@inheritDoc} */
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof BorderSpecification)) {
+            return false;
+        }
+        BorderSpecification other = (BorderSpecification) obj;
+        return holder == other.holder && hash == other.hash
+                && (borderInfo == null ? other.borderInfo == null
+                        : borderInfo.equals(other.borderInfo));
+    }
+
+    /** {@inheritDoc} */
+    public int hashCode() {
+        return hash;
+    }
+
     /** {@inheritDoc} */
     public String toString() {
         String holderName = "";
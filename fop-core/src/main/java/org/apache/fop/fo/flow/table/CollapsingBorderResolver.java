@@ -19,7 +19,6 @@
 
 package org.apache.fop.fo.flow.table;
 
-import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -56,9 +55,14 @@ class CollapsingBorderResolver implements BorderResolver {
 
     private Resolver resolverInFooter;
 
-    private List<ConditionalBorder> leadingBorders;
+    /**
+     * The borders competing with the border-before of body rows starting a page, one per
+     * column. Packed into an array since they are looked up for every body row.
+     */
+    private ConditionalBorder[] leadingBorders;
 
-    private List<ConditionalBorder> trailingBorders;
+    /** Same as {@link #leadingBorders}, for the border-after of rows ending a page. */
+    private ConditionalBorder[] trailingBorders;
 
     /* TODO Temporary hack for resolved borders in header */
     /* Currently the normal border is always used. */
@@ -155,7 +159,7 @@ class CollapsingBorderResolver implements BorderResolver {
         void integrateLeadingBorders(List<GridUnit> row) {
             for (int i = 0; i < table.getNumberOfColumns(); i++) {
                 GridUnit gu = row.get(i);
-                ConditionalBorder border = leadingBorders.get(i);
+                ConditionalBorder border = leadingBorders[i];
                 gu.integrateCompetingBorder(CommonBorderPaddingBackground.BEFORE, border,
                         false, true, true);
             }
@@ -171,7 +175,7 @@ class CollapsingBorderResolver implements BorderResolver {
         void integrateTrailingBorders(List<GridUnit> row) {
             for (int i = 0; i < table.getNumberOfColumns(); i++) {
                 GridUnit gu = row.get(i);
-                ConditionalBorder border = trailingBorders.get(i);
+                ConditionalBorder border = trailingBorders[i];
                 gu.integrateCompetingBorder(CommonBorderPaddingBackground.AFTER, border,
                         false, true, true);
             }
@@ -281,7 +285,7 @@ class CollapsingBorderResolver implements BorderResolver {
 
         void endPart() {
             super.endPart();
-            leadingBorders = new ArrayList(table.getNumberOfColumns());
+            leadingBorders = new ConditionalBorder[previousRow.size()];
             /*
              * Another hack...
              * The border-after of a header is always the same. Leading and rest don't
@@ -291,11 +295,11 @@ class CollapsingBorderResolver implements BorderResolver {
              * grid units from the body will always resolve against the same, normal
              * header border.
              */
-            for (Object aPreviousRow : previousRow) {
-                ConditionalBorder borderAfter = ((GridUnit) aPreviousRow).borderAfter;
+            for (int i = 0; i < leadingBorders.length; i++) {
+                ConditionalBorder borderAfter = previousRow.get(i).borderAfter;
                 borderAfter.leadingTrailing = borderAfter.normal;
                 borderAfter.rest = borderAfter.normal;
-                leadingBorders.add(borderAfter);
+                leadingBorders[i] = borderAfter;
             }
             /* TODO Temporary hack for resolved borders in header */
             headerLastRow = previousRow;
@@ -322,13 +326,13 @@ class CollapsingBorderResolver implements BorderResolver {
 
         void endPart() {
             resolveBordersLastRowInPart(footerLastRow, true, true, true);
-            trailingBorders = new ArrayList(table.getNumberOfColumns());
+            trailingBorders = new ConditionalBorder[footerFirstRow.size()];
             // See same method in ResolverInHeader for an explanation of the hack
-            for (Object aFooterFirstRow : footerFirstRow) {
-                ConditionalBorder borderBefore = ((GridUnit) aFooterFirstRow).borderBefore;
+            for (int i = 0; i < trailingBorders.length; i++) {
+                ConditionalBorder borderBefore = footerFirstRow.get(i).borderBefore;
                 borderBefore.leadingTrailing = borderBefore.normal;
                 borderBefore.rest = borderBefore.normal;
-                trailingBorders.add(borderBefore);
+                trailingBorders[i] = borderBefore;
             }
         }
 
@@ -421,11 +425,7 @@ class CollapsingBorderResolver implements BorderResolver {
         } else {
             if (leadingBorders == null || table.omitHeaderAtBreak()) {
                 // No header, leading borders determined by the table
-                leadingBorders = new ArrayList(table.getNumberOfColumns());
-                for (Object o : table.getColumns()) {
-                    ConditionalBorder border = ((TableColumn) o).borderBefore;
-                    leadingBorders.add(border);
-                }
+                leadingBorders = getColumnBorders(true);
             }
             if (part instanceof TableFooter) {
                 resolverInFooter = new ResolverInFooter();
@@ -433,11 +433,7 @@ class CollapsingBorderResolver implements BorderResolver {
             } else {
                 if (trailingBorders == null || table.omitFooterAtBreak()) {
                     // No footer, trailing borders determined by the table
-                    trailingBorders = new ArrayList(table.getNumberOfColumns());
-                    for (Object o : table.getColumns()) {
-                        ConditionalBorder border = ((TableColumn) o).borderAfter;
-                        trailingBorders.add(border);
-                    }
+                    trailingBorders = getColumnBorders(false);
                 }
                 delegate = resolverInBody;
             }
@@ -445,6 +441,16 @@ class CollapsingBorderResolver implements BorderResolver {
         delegate.startPart(part);
     }
 
+    private ConditionalBorder[] getColumnBorders(boolean before) {
+        List columns = table.getColumns();
+        ConditionalBorder[] borders = new ConditionalBorder[columns.size()];
+        for (int i = 0; i < borders.length; i++) {
+            TableColumn column = (TableColumn) columns.get(i);
+            borders[i] = before ? column.borderBefore : column.borderAfter;
+        }
+        return borders;
+    }
+
     /** {@inheritDoc} */
     public void endPart() {
         delegate.endPart();
@@ -123,6 +123,16 @@ public class PrimaryGridUnit extends GridUnit {
         return this.elements;
     }
 
+    /**
+     * Releases the cell's layout manager and Knuth elements once all of its areas have been
+     * added, so that they may be garbage-collected while the rest of the table is being laid
+     * out (streaming table mode).
+     */
+    public void releaseLayoutData() {
+        this.cellLM = null;
+        this.elements = null;
+    }
+
     /**
      * Returns the widths of the border-before and -after for this cell. In the separate
      * border model the border-separation is included. In the collapsing model only half
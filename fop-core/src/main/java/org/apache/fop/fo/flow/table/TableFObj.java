@@ -256,7 +256,7 @@ public abstract class TableFObj extends FObj {
      * @param side one of CommonBorderPaddingBackground.BEFORE|AFTER|START|END
      */
     private void createBorder(int side) {
-        BorderSpecification borderSpec = new BorderSpecification(
+        BorderSpecification borderSpec = BorderSpecification.getInstance(
                 getCommonBorderPaddingBackground().getBorderInfo(side), getNameId());
         switch (side) {
         case CommonBorderPaddingBackground.BEFORE:
@@ -54,7 +54,7 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
     private final boolean embedded;
     private final InternalResourceResolver resourceResolver;
 
-    private boolean isMetricsLoaded;
+    private volatile boolean isMetricsLoaded;
     private Typeface realFont;
     private FontDescriptor realFontDescriptor;
 
@@ -98,45 +98,54 @@ public class LazyFont extends Typeface implements FontDescriptor, Substitutable,
     }
 
     private void load(boolean fail) {
+        //double-checked, as the font may be used by several layout threads
         if (!isMetricsLoaded) {
-            try {
-                if (fontUris.getMetrics() != null) {
-                    // Use of XML based font metrics is DEPRECATED!
-                    // @todo Possible thread problem here
-                    XMLFontMetricsReader reader = null;
-                    InputStream in = resourceResolver.getResource(fontUris.getMetrics());
-                    InputSource src = new InputSource(in);
-                    src.setSystemId(fontUris.getMetrics().toASCIIString());
-                    reader = new XMLFontMetricsReader(src, resourceResolver);
-                    reader.setKerningEnabled(useKerning);
-                    reader.setAdvancedEnabled(useAdvanced);
-                    if (this.embedded) {
-                        reader.setFontEmbedURI(fontUris.getEmbed());
-                    }
-                    realFont = reader.getFont();
-                } else {
-                    if (fontUris.getEmbed() == null) {
-                        throw new RuntimeException("Cannot load font. No font URIs available.");
-                    }
-                    realFont = FontLoader.loadFont(fontUris, subFontName, embedded, embeddingMode, encodingMode,
-                            useKerning, useAdvanced, resourceResolver, simulateStyle, embedAsType1, useSVG);
+            synchronized (this) {
+                if (!isMetricsLoaded) {
+                    loadRealFont(fail);
                 }
-                if (realFont instanceof FontDescriptor) {
-                    realFontDescriptor = (FontDescriptor) realFont;
+            }
+        }
+    }
+
+    private void loadRealFont(boolean fail) {
+        try {
+            if (fontUris.getMetrics() != null) {
+                // Use of XML based font metrics is DEPRECATED!
+                // @todo Possible thread problem here
+                XMLFontMetricsReader reader = null;
+                InputStream in = resourceResolver.getResource(fontUris.getMetrics());
+                InputSource src = new InputSource(in);
+                src.setSystemId(fontUris.getMetrics().toASCIIString());
+                reader = new XMLFontMetricsReader(src, resourceResolver);
+                reader.setKerningEnabled(useKerning);
+                reader.setAdvancedEnabled(useAdvanced);
+                if (this.embedded) {
+                    reader.setFontEmbedURI(fontUris.getEmbed());
                 }
-            } catch (RuntimeException e) {
-                String error = "Failed to read font file " + fontUris.getEmbed() + " " + e.getMessage();
-                throw new RuntimeException(error, e);
-            } catch (Exception e) {
-                String error = "Failed to read font file " + fontUris.getEmbed() + " " + e.getMessage();
-                log.error(error, e);
-                if (fail) {
-                    throw new RuntimeException(error, e);
+                realFont = reader.getFont();
+            } else {
+                if (fontUris.getEmbed() == null) {
+                    throw new RuntimeException("Cannot load font. No font URIs available.");
                 }
+                realFont = FontLoader.loadFont(fontUris, subFontName, embedded, embeddingMode, encodingMode,
+                        useKerning, useAdvanced, resourceResolver, simulateStyle, embedAsType1, useSVG);
+            }
+            if (realFont instanceof FontDescriptor) {
+                realFontDescriptor = (FontDescriptor) realFont;
+            }
+        } catch (RuntimeException e) {
+            String error = "Failed to read font file " + fontUris.getEmbed() + " " + e.getMessage();
+            throw new RuntimeException(error, e);
+        } catch (Exception e) {
+            String error = "Failed to read font file " + fontUris.getEmbed() + " " + e.getMessage();
+            log.error(error, e);
+            if (fail) {
+                throw new RuntimeException(error, e);
             }
-            realFont.setEventListener(this.eventListener);
-            isMetricsLoaded = true;
         }
+        realFont.setEventListener(this.eventListener);
+        isMetricsLoaded = true;
     }
 
     /**
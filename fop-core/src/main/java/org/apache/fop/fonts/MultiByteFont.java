@@ -190,10 +190,39 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
         return encoding;
     }
 
+    /**
+     * Returns the CID set character selectors are mapped with on the current thread: the
+     * private subset of the active {@link SubsetRecorder} while a page-sequence is laid out
+     * concurrently, the shared one otherwise.
+     */
+    private CIDSet getMappingCIDSet() {
+        SubsetRecorder recorder = SubsetRecorder.getActive();
+        if (recorder != null && cidSet instanceof CIDSubset) {
+            return recorder.getSubset(this);
+        }
+        return cidSet;
+    }
+
+    /**
+     * Adds the glyphs of a subset recorded during concurrent layout to the shared subset, in
+     * the order they were first used.
+     * @param subset the recorded subset
+     */
+    synchronized void addSubsetGlyphs(CIDSubset subset) {
+        //selector 0 is .notdef
+        for (int i = 1, c = subset.getNumberOfGlyphs(); i < c; i++) {
+            int codePoint = subset.getUnicode(i);
+            int selector = cidSet.mapCodePoint(subset.getOriginalGlyphIndex(i), codePoint);
+            if (isCID() && selector > 256 && codePoint <= Character.MAX_VALUE) {
+                mapUnencodedChar((char) codePoint);
+            }
+        }
+    }
+
     /** {@inheritDoc} */
-    public int getWidth(int i, int size) {
+    public synchronized int getWidth(int i, int size) {
         if (isEmbeddable()) {
-            int glyphIndex = cidSet.getOriginalGlyphIndex(i);
+            int glyphIndex = getMappingCIDSet().getOriginalGlyphIndex(i);
             return size * width[glyphIndex];
         } else {
             return size * width[i];
@@ -207,8 +236,8 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
         return arr;
     }
 
-    public Rectangle getBoundingBox(int glyphIndex, int size) {
-        int index = isEmbeddable() ? cidSet.getOriginalGlyphIndex(glyphIndex) : glyphIndex;
+    public synchronized Rectangle getBoundingBox(int glyphIndex, int size) {
+        int index = isEmbeddable() ? getMappingCIDSet().getOriginalGlyphIndex(glyphIndex) : glyphIndex;
         Rectangle bbox = boundingBoxes[index];
         return new Rectangle(bbox.x * size, bbox.y * size, bbox.width * size, bbox.height * size);
     }
@@ -361,7 +390,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
 
     /** {@inheritDoc} */
     @Override
-    public char mapChar(char c) {
+    public synchronized char mapChar(char c) {
         notifyMapOperation();
         int glyphIndex = findGlyphIndex(c);
         if (glyphIndex == SingleByteEncoding.NOT_FOUND_CODE_POINT) {
@@ -371,7 +400,12 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
             }
         }
         if (isEmbeddable()) {
-            glyphIndex = cidSet.mapChar(glyphIndex, c);
+            CIDSet mappingSet = getMappingCIDSet();
+            glyphIndex = mappingSet.mapChar(glyphIndex, c);
+            if (mappingSet != cidSet) {
+                //additional encodings are only set up when the glyphs are replayed
+                return (char) glyphIndex;
+            }
         }
         if (isCID() && glyphIndex > 256) {
             mapUnencodedChar(c);
@@ -381,7 +415,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
 
     /** {@inheritDoc} */
     @Override
-    public int mapCodePoint(int cp) {
+    public synchronized int mapCodePoint(int cp) {
         notifyMapOperation();
         int glyphIndex = findGlyphIndex(cp);
         if (glyphIndex == SingleByteEncoding.NOT_FOUND_CODE_POINT) {
@@ -396,7 +430,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
             }
         }
         if (isEmbeddable()) {
-            glyphIndex = cidSet.mapCodePoint(glyphIndex, cp);
+            glyphIndex = getMappingCIDSet().mapCodePoint(glyphIndex, cp);
         }
         return (char) glyphIndex;
     }
@@ -457,7 +491,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * Returns a Map of used Glyphs.
      * @return Map Map of used Glyphs
      */
-    public Map<Integer, Integer> getUsedGlyphs() {
+    public synchronized Map<Integer, Integer> getUsedGlyphs() {
         return cidSet.getGlyphs();
     }
 
@@ -466,7 +500,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * @param glyphIndex The original index of the character
      * @return The character
      */
-    public char getUnicodeFromGID(int glyphIndex) {
+    public synchronized char getUnicodeFromGID(int glyphIndex) {
         return cidSet.getUnicodeFromGID(glyphIndex);
     }
 
@@ -475,7 +509,7 @@ public class MultiByteFont extends CIDFont implements Substitutable, Positionabl
      * @param ch The character
      * @return The glyph index in the font
      */
-    public int getGIDFromChar(char ch) {
+    public synchronized int getGIDFromChar(char ch) {
         return cidSet.getGIDFromChar(ch);
     }
 
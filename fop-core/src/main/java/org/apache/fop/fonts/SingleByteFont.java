@@ -112,7 +112,14 @@ public class SingleByteFont extends CustomFont {
             if (idx >= 0 && idx < width.length) {
                 return size * width[idx];
             }
-        } else if (this.additionalEncodings != null) {
+        } else {
+            return getAdditionalWidth(i, size);
+        }
+        return 0;
+    }
+
+    private synchronized int getAdditionalWidth(int i, int size) {
+        if (this.additionalEncodings != null) {
             int encodingIndex = (i / 256) - 1;
             SimpleSingleByteEncoding encoding = getAdditionalEncoding(encodingIndex);
             int codePoint = i % 256;
@@ -205,7 +212,7 @@ public class SingleByteFont extends CustomFont {
 
     /** {@inheritDoc} */
     @Override
-    public char mapChar(char c) {
+    public synchronized char mapChar(char c) {
         notifyMapOperation();
         char d = lookupChar(c);
         if (d == SingleByteEncoding.NOT_FOUND_CODE_POINT) {
@@ -219,11 +226,27 @@ public class SingleByteFont extends CustomFont {
             }
         }
         if (isEmbeddable() && isSubset()) {
-            mapChar(d, c);
+            SubsetRecorder recorder = SubsetRecorder.getActive();
+            if (recorder != null) {
+                recorder.recordGlyph(this, d, c);
+            } else {
+                mapChar(d, c);
+            }
         }
         return d;
     }
 
+    /**
+     * Adds the glyphs recorded during concurrent layout to the subset, in the order they were
+     * first used.
+     * @param glyphs the recorded glyphs (glyph index -> character)
+     */
+    synchronized void addSubsetGlyphs(Map<Integer, Character> glyphs) {
+        for (Map.Entry<Integer, Character> entry : glyphs.entrySet()) {
+            mapChar(entry.getKey(), entry.getValue());
+        }
+    }
+
     private int mapChar(int glyphIndex, char unicode) {
         // Reencode to a new subset font or get the reencoded value
         // IOW, accumulate the accessed characters and build a character map for them
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects the glyphs a page-sequence uses from subset-embedded fonts while it is laid out on
+ * a layout thread. While a recorder is active on a thread, the fonts map characters into a
+ * subset private to the recorder instead of the font's shared subset, so layout threads never
+ * modify (or read) the shared subsets. When the page-sequence is merged, {@link #replay()}
+ * adds the recorded glyphs to the shared subsets in the order they were first used. The
+ * glyph numbering of the shared subsets thus follows document order and doesn't depend on
+ * the timing of the layout threads.
+ */
+public final class SubsetRecorder {
+
+    private static final ThreadLocal<SubsetRecorder> ACTIVE = new ThreadLocal<SubsetRecorder>();
+
+    private final Map<MultiByteFont, CIDSubset> multiByteSubsets
+            = new LinkedHashMap<MultiByteFont, CIDSubset>();
+
+    private final Map<SingleByteFont, Map<Integer, Character>> singleByteSubsets
+            = new LinkedHashMap<SingleByteFont, Map<Integer, Character>>();
+
+    /**
+     * Returns the recorder active on the current thread.
+     * @return the active recorder or null if the fonts' shared subsets are to be used
+     */
+    static SubsetRecorder getActive() {
+        return ACTIVE.get();
+    }
+
+    /** Activates this recorder on the current thread. */
+    public void activate() {
+        ACTIVE.set(this);
+    }
+
+    /** Deactivates the recorder active on the current thread. */
+    public void deactivate() {
+        ACTIVE.remove();
+    }
+
+    /**
+     * Returns the private subset of the given font, creating it on first use.
+     * @param font the font
+     * @return the subset containing the glyphs recorded for the font
+     */
+    CIDSubset getSubset(MultiByteFont font) {
+        CIDSubset subset = multiByteSubsets.get(font);
+        if (subset == null) {
+            subset = new CIDSubset(font);
+            multiByteSubsets.put(font, subset);
+        }
+        return subset;
+    }
+
+    /**
+     * Records the use of a glyph of a single-byte font.
+     * @param font the font
+     * @param glyphIndex the glyph index
+     * @param unicode the character mapped to the glyph
+     */
+    void recordGlyph(SingleByteFont font, int glyphIndex, char unicode) {
+        Map<Integer, Character> glyphs = singleByteSubsets.get(font);
+        if (glyphs == null) {
+            glyphs = new LinkedHashMap<Integer, Character>();
+            singleByteSubsets.put(font, glyphs);
+        }
+        if (!glyphs.containsKey(glyphIndex)) {
+            glyphs.put(glyphIndex, unicode);
+        }
+    }
+
+    /**
+     * Adds the recorded glyphs to the shared subsets of the fonts. Must be called on the
+     * thread owning the shared subsets, with no recorder active.
+     */
+    public void replay() {
+        for (Map.Entry<MultiByteFont, CIDSubset> entry : multiByteSubsets.entrySet()) {
+            entry.getKey().addSubsetGlyphs(entry.getValue());
+        }
+        for (Map.Entry<SingleByteFont, Map<Integer, Character>> entry : singleByteSubsets.entrySet()) {
+            entry.getKey().addSubsetGlyphs(entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.image;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.apache.xmlgraphics.image.loader.ImageException;
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.RenderingProfiler;
+
+/**
+ * Resolves {@link ImageInfo} instances ahead of layout. While the FO tree is being built,
+ * image URIs are submitted to {@link #preload(String)}, which starts preloading the image on
+ * an executor. Layout later obtains the result through {@link #getImageInfo(String)}, which
+ * only blocks if preloading has not finished yet. Each URI is preloaded at most once per
+ * rendering run.
+ */
+public class ImagePreloader {
+
+    private final FOUserAgent userAgent;
+
+    private final Executor executor;
+
+    private final ConcurrentMap<String, Future<ImageInfo>> imageInfos
+            = new ConcurrentHashMap<String, Future<ImageInfo>>();
+
+    /**
+     * Creates a new preloader.
+     * @param userAgent the user agent of the rendering run
+     * @param executor the executor running the preloading tasks
+     */
+    public ImagePreloader(FOUserAgent userAgent, Executor executor) {
+        this.userAgent = userAgent;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts preloading the image with the given URI, unless it was already requested.
+     * @param uri the image URI
+     * @return the future delivering the image information
+     */
+    public Future<ImageInfo> preload(final String uri) {
+        Future<ImageInfo> future = imageInfos.get(uri);
+        if (future == null) {
+            FutureTask<ImageInfo> task = new FutureTask<ImageInfo>(new Callable<ImageInfo>() {
+                public ImageInfo call() throws ImageException, IOException {
+                    RenderingProfiler profiler = RenderingProfiler.getInstance(userAgent);
+                    RenderingProfiler previous = profiler.attach();
+                    long start = profiler.startTimer();
+                    try {
+                        //ImageSessionContext is not thread-safe, so each task gets its own
+                        return userAgent.getImageManager().getImageInfo(uri,
+                                userAgent.createImageSessionContext());
+                    } finally {
+                        profiler.stopTimer(RenderingProfiler.Phase.IMAGE_LOADING, start);
+                        profiler.detach(previous);
+                    }
+                }
+            });
+            future = imageInfos.putIfAbsent(uri, task);
+            if (future == null) {
+                future = task;
+                executor.execute(task);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Returns the image information for the given URI, waiting for preloading to finish if
+     * necessary. If the URI has not been submitted before, it is preloaded now.
+     * @param uri the image URI
+     * @return the image information
+     * @throws ImageException if the image cannot be handled
+     * @throws IOException if an I/O error occurred (including a missing image)
+     */
+    public ImageInfo getImageInfo(String uri) throws ImageException, IOException {
+        Future<ImageInfo> future = preload(uri);
+        try {
+            return future.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while preloading image " + uri);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof ImageException) {
+                throw (ImageException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new ImageException("Error while preloading image " + uri, cause);
+            }
+        }
+    }
+
+    /** @return the number of distinct image URIs submitted for preloading */
+    public int getRequestCount() {
+        return imageInfos.size();
+    }
+}
@@ -19,6 +19,7 @@
 
 package org.apache.fop.layoutmgr;
 
+import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 
@@ -213,6 +214,20 @@ public abstract class AbstractBreaker {
     /** blockListIndex of the current BlockSequence in blockLists */
     protected int blockListIndex;
 
+    /** the element list of the current block list if it only holds a window of the content */
+    private List<KnuthElement> contentWindow;
+    /** elements of the last window not yet added to the area tree, to be broken with the next window */
+    private List<KnuthElement> pendingWindowElements;
+    /** true if the rest of the windowed content is to be requested at once */
+    private boolean contentWindowingDisabled;
+
+    /**
+     * Maximum number of elements carried over from one content window to the next. Beyond it,
+     * the rest of the content is requested at once rather than breaking an ever growing list
+     * again for every window.
+     */
+    private static final int MAX_PENDING_WINDOW_ELEMENTS = 10000;
+
 
     /** desired text alignment */
     protected int alignment;
@@ -411,7 +426,7 @@ public abstract class AbstractBreaker {
                         BreakingAlgorithm.ALL_BREAKS);
                 boolean ipdChangesOnNextPage = (alg.getIPDdifference() != 0);
                 boolean onLastPageAndIPDChanges = false;
-                if (!ipdChangesOnNextPage) {
+                if (!ipdChangesOnNextPage && contentWindow == null) {
                     onLastPageAndIPDChanges = (lastPageHasIPDChange(optimalPageCount) && !thereIsANonRestartableLM(alg)
                             && (shouldRedoLayout() || (wasLayoutRedone() && optimalPageCount > 1)));
                 }
@@ -450,6 +465,17 @@ public abstract class AbstractBreaker {
                     blockListIndex = -1;
                     nextSequenceStartsOn = getNextBlockList(childLC, Constants.EN_COLUMN, positionAtBreak,
                             restartAtLM, firstElementsForRestart);
+                } else if (contentWindow != null) {
+                    //*** Phase 3: Add areas for the settled parts of the window ***
+                    int settledPos = addAreasForContentWindow(alg, optimalPageCount, blockList);
+                    int startPos = Math.min(Math.max(0, settledPos), contentWindow.size());
+                    pendingWindowElements = new LinkedList<KnuthElement>(
+                            contentWindow.subList(startPos, contentWindow.size()));
+                    contentWindow = null;
+                    if (settledPos < 0 || pendingWindowElements.size() > MAX_PENDING_WINDOW_ELEMENTS) {
+                        //the carried-over elements would keep growing: lay out the rest in one go
+                        contentWindowingDisabled = true;
+                    }
                 } else {
                     log.debug("PLM> optimalPageCount= " + optimalPageCount
                             + " pageBreaks.size()= " + alg.getPageBreaks().size());
@@ -492,6 +518,29 @@ public abstract class AbstractBreaker {
     protected abstract void doPhase3(PageBreakingAlgorithm alg, int partCount,
             BlockSequence originalList, BlockSequence effectiveList);
 
+    /**
+     * Phase 3 for a block list that only holds a window of the content (see
+     * {@link LayoutContext#isContentPending()}). The last part may still change once the next
+     * window is known, so implementations add the areas for the other parts only. The elements
+     * from the returned index onwards are broken again together with the next window.
+     * If the content cannot be laid out in windows, no areas are added and -1 is returned;
+     * the rest of the content is then requested at once and broken together with the window.
+     * This implementation doesn't support windows.
+     * @param alg PageBreakingAlgorithm instance which determined the breaks
+     * @param partCount number of parts (pages) found for the window
+     * @param blockList the Knuth element list of the window
+     * @return the index of the first element whose areas have not been added, or -1
+     */
+    protected int addAreasForContentWindow(PageBreakingAlgorithm alg, int partCount,
+            BlockSequence blockList) {
+        return -1;
+    }
+
+    /** @return true if elements of the previous content window are waiting to be laid out */
+    protected boolean hasPendingWindowElements() {
+        return pendingWindowElements != null;
+    }
+
     /**
      * Phase 3 of Knuth algorithm: Adds the areas
      * @param alg PageBreakingAlgorithm instance which determined the breaks
@@ -671,6 +720,9 @@ public abstract class AbstractBreaker {
 
         BlockSequence blockList;
         List<KnuthElement> returnedList;
+        contentWindow = null;
+        childLC.setContentPending(false);
+        childLC.setContentWindowingDisabled(contentWindowingDisabled);
         if (firstElements == null) {
             returnedList = getNextKnuthElements(childLC, alignment);
         } else if (positionAtIPDChange == null) {
@@ -695,6 +747,21 @@ public abstract class AbstractBreaker {
                     restartAtLM);
             returnedList.addAll(0, firstElements);
         }
+        if (!childLC.isContentPending()) {
+            contentWindowingDisabled = false;
+        }
+        if (pendingWindowElements != null) {
+            if (returnedList == null) {
+                returnedList = new LinkedList<KnuthElement>();
+            }
+            returnedList.addAll(0, pendingWindowElements);
+            pendingWindowElements = null;
+        }
+        if (returnedList != null && !returnedList.isEmpty() && childLC.isContentPending()
+                && !ElementListUtils.endsWithForcedBreak(returnedList)) {
+            // the indices of the block list created below match those of this list
+            contentWindow = returnedList;
+        }
         if (returnedList != null) {
             if (returnedList.isEmpty()) {
                 nextSequenceStartsOn = handleSpanChange(childLC, nextSequenceStartsOn);
@@ -207,6 +207,14 @@ public abstract class AbstractPageSequenceLayoutManager extends AbstractLayoutMa
         idTracker.addUnresolvedIDRef(id, curPage.getPageViewport());
     }
 
+    /**
+     * Indicates whether unresolved page numbers are laid out as placeholders.
+     * @return true if enabled and supported by the renderer
+     */
+    public boolean isPageNumberPlaceholdersEnabled() {
+        return areaTreeHandler.isPageNumberPlaceholdersEnabled();
+    }
+
     /**
      * Bind the RetrieveMarker to the corresponding Marker subtree.
      * If the boundary is page then it will only check the
@@ -225,8 +233,25 @@ public abstract class AbstractPageSequenceLayoutManager extends AbstractLayoutMa
      * could be found.
      */
     public RetrieveMarker resolveRetrieveMarker(RetrieveMarker rm) {
+        Marker mark = findMarker(rm);
+        if (mark == null) {
+            log.debug("found no marker with name: " + rm.getRetrieveClassName());
+            return null;
+        } else {
+            rm.bindMarker(mark);
+            return rm;
+        }
+    }
+
+    /**
+     * Finds the marker a retrieve-marker retrieves on the current page, without binding it.
+     *
+     * @param rm the RetrieveMarker instance whose properties are to
+     * used to find the matching Marker.
+     * @return the matching Marker, or null if no Marker could be found.
+     */
+    protected Marker findMarker(RetrieveMarker rm) {
         AreaTreeModel areaTreeModel = areaTreeHandler.getAreaTreeModel();
-        String name = rm.getRetrieveClassName();
         int boundary = rm.getRetrieveBoundary();
 
         // get marker from the current markers on area tree
@@ -259,13 +284,7 @@ public abstract class AbstractPageSequenceLayoutManager extends AbstractLayoutMa
             }
         }
 
-        if (mark == null) {
-            log.debug("found no marker with name: " + name);
-            return null;
-        } else {
-            rm.bindMarker(mark);
-            return rm;
-        }
+        return mark;
     }
 
     /**
@@ -283,6 +302,7 @@ public abstract class AbstractPageSequenceLayoutManager extends AbstractLayoutMa
      * @return a new page
      */
     protected Page makeNewPage(boolean isBlank) {
+        areaTreeHandler.getUserAgent().checkDeadline();
         if (curPage != null) {
             finishPage();
         }
@@ -22,6 +22,7 @@ package org.apache.fop.layoutmgr;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.apps.RenderingProfiler;
 import org.apache.fop.fo.Constants;
 
 /**
@@ -192,6 +193,13 @@ public abstract class BreakingAlgorithm {
     private boolean partOverflowRecoveryActivated = true;
     private KnuthNode lastRecovered;
 
+    private RenderingProfiler profiler = RenderingProfiler.DISABLED;
+    private RenderingProfiler.Phase profilerPhase;
+    /** the number of active nodes added since the figures were last reported to the profiler */
+    private int addedNodeCount;
+    /** the number of restarts since the figures were last reported to the profiler */
+    private int restartCount;
+
     /**
      * Create a new instance.
      *
@@ -488,6 +496,16 @@ public abstract class BreakingAlgorithm {
         this.lineWidth = lineWidth;
     }
 
+    /**
+     * Sets the profiler receiving the timings and counters of this algorithm's runs.
+     * @param profiler the profiler
+     * @param phase the phase the runs are reported as
+     */
+    protected void setProfiler(RenderingProfiler profiler, RenderingProfiler.Phase phase) {
+        this.profiler = profiler;
+        this.profilerPhase = phase;
+    }
+
     /**
      * @param par           the paragraph to break
      * @param threshold     upper bound of the adjustment ratio
@@ -522,6 +540,25 @@ public abstract class BreakingAlgorithm {
     public int findBreakingPoints(KnuthSequence par, int startIndex,
                                   double threshold, boolean force,
                                   int allowedBreaks) {
+        if (!profiler.isEnabled()) {
+            return doFindBreakingPoints(par, startIndex, threshold, force, allowedBreaks);
+        }
+        long start = profiler.startTimer();
+        try {
+            return doFindBreakingPoints(par, startIndex, threshold, force, allowedBreaks);
+        } finally {
+            profiler.stopTimer(profilerPhase, start);
+            profiler.increment(RenderingProfiler.Counter.BREAKING_PASSES);
+            profiler.add(RenderingProfiler.Counter.KNUTH_NODES, addedNodeCount);
+            profiler.add(RenderingProfiler.Counter.BREAKING_RESTARTS, restartCount);
+            addedNodeCount = 0;
+            restartCount = 0;
+        }
+    }
+
+    private int doFindBreakingPoints(KnuthSequence par, int startIndex,
+                                     double threshold, boolean force,
+                                     int allowedBreaks) {
         this.par = par;
         this.threshold = threshold;
         this.force = force;
@@ -889,6 +926,7 @@ public abstract class BreakingAlgorithm {
         if (log.isDebugEnabled()) {
             log.debug("Restarting at node " + restartingNode);
         }
+        restartCount++;
 
         restartingNode.totalDemerits = 0;
         addNode(restartingNode.line, restartingNode);
@@ -1356,6 +1394,7 @@ public abstract class BreakingAlgorithm {
         }
         activeLines[headIdx + 1] = node;
         activeNodeCount++;
+        addedNodeCount++;
     }
 
     /**
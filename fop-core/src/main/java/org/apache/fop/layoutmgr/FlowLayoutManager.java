@@ -158,6 +158,14 @@ public class FlowLayoutManager extends BlockStackingLayoutManager {
 
         elements.addAll(childElements);
 
+        if (childLC.isContentPending()) {
+            // only a window of the child's content (streaming table mode); the page breaker
+            // lays it out and asks for the rest of the child's content afterwards
+            context.setContentPending(true);
+            SpaceResolver.resolveElementList(elements);
+            return elements;
+        }
+
         if (ElementListUtils.endsWithForcedBreak(elements)) {
             // a descendant of this flow has break-before or break-after
             if (childLM.isFinished() && !hasNextChildLM()) {
@@ -206,6 +214,7 @@ public class FlowLayoutManager extends BlockStackingLayoutManager {
         childLC.setStackLimitBP(context.getStackLimitBP());
         childLC.setRefIPD(context.getRefIPD());
         childLC.setWritingMode(getCurrentPage().getSimplePageMaster().getWritingMode());
+        childLC.setContentWindowingDisabled(context.isContentWindowingDisabled());
         return childLC;
     }
 
@@ -52,6 +52,10 @@ public final class LayoutContext {
 
     private static final int TREAT_AS_ARTIFACT = 0x20;
 
+    private static final int CONTENT_PENDING = 0x40;
+
+    private static final int CONTENT_WINDOWING_DISABLED = 0x80;
+
     private int flags; // Contains some set of flags defined above
 
     /**
@@ -693,5 +697,42 @@ public final class LayoutContext {
     public void setTreatAsArtifact(boolean treatAsArtifact) {
         setFlags(TREAT_AS_ARTIFACT, treatAsArtifact);
     }
+
+    /**
+     * Indicates whether the element list just returned by a layout manager only holds a
+     * window of its content, i.e. the layout manager is not finished and expects to be asked
+     * for the remaining elements once the pages filled by this window have been laid out.
+     * @return true if more content follows the returned element list
+     */
+    public boolean isContentPending() {
+        return (flags & CONTENT_PENDING) != 0;
+    }
+
+    /**
+     * Signals that the returned element list only holds a window of the content.
+     * @param contentPending true if more content follows the returned element list
+     * @see #isContentPending()
+     */
+    public void setContentPending(boolean contentPending) {
+        setFlags(CONTENT_PENDING, contentPending);
+    }
+
+    /**
+     * Indicates whether layout managers are to return all of their remaining content at once
+     * instead of another window (see {@link #isContentPending()}).
+     * @return true if the content must not be returned in windows
+     */
+    public boolean isContentWindowingDisabled() {
+        return (flags & CONTENT_WINDOWING_DISABLED) != 0;
+    }
+
+    /**
+     * Asks the layout managers to return all of their remaining content at once.
+     * @param disabled true if the content must not be returned in windows
+     * @see #isContentWindowingDisabled()
+     */
+    public void setContentWindowingDisabled(boolean disabled) {
+        setFlags(CONTENT_WINDOWING_DISABLED, disabled);
+    }
 }
 
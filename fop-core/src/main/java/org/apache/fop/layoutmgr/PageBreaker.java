@@ -162,7 +162,7 @@ public class PageBreaker extends AbstractBreaker {
     /** {@inheritDoc} */
     protected int getNextBlockList(LayoutContext childLC, int nextSequenceStartsOn,
             Position positionAtIPDChange, LayoutManager restartLM, List firstElements) {
-        if (!layoutRedone && !handlingFloat()) {
+        if (!layoutRedone && !handlingFloat() && !hasPendingWindowElements()) {
             if (!firstPart) {
                 // if this is the first page that will be created by
                 // the current BlockSequence, it could have a break
@@ -339,6 +339,28 @@ public class PageBreaker extends AbstractBreaker {
         addAreas(alg, partCount, originalList, effectiveList);
     }
 
+    /** {@inheritDoc} */
+    protected int addAreasForContentWindow(PageBreakingAlgorithm alg, int partCount,
+            BlockSequence blockList) {
+        if (needColumnBalancing || !FootenoteUtil.getFootnotes(blockList).isEmpty()) {
+            // balancing and footnotes deferred to later parts need the whole content
+            return -1;
+        }
+        if (partCount < 2) {
+            // nothing settled yet
+            return 0;
+        }
+        //Add definitive areas for all parts but the last one
+        addAreas(alg, partCount - 1, blockList, blockList);
+        //The next window continues in the next column or on the next page
+        handleBreakTrait(Constants.EN_COLUMN);
+        pageBreakHandled = true;
+        pageProvider.setStartOfNextElementList(pslm.getCurrentPageNum(),
+                pslm.getCurrentPV().getCurrentSpan().getCurrentFlowIndex(), this.spanAllActive);
+        PageBreakPosition pbp = alg.getPageBreaks().get(partCount - 2);
+        return alg.par.getFirstBoxIndex(pbp.getLeafPos() + 1);
+    }
+
     protected void prepareToRedoLayout(PageBreakingAlgorithm alg, int partCount,
             BlockSequence originalList,
             BlockSequence effectiveList) {
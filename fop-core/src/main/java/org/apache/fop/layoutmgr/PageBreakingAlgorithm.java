@@ -27,6 +27,7 @@ import java.util.ListIterator;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.apps.RenderingProfiler;
 import org.apache.fop.fo.Constants;
 import org.apache.fop.fo.FObj;
 import org.apache.fop.layoutmgr.AbstractBreaker.FloatPosition;
@@ -145,6 +146,11 @@ class PageBreakingAlgorithm extends BreakingAlgorithm {
         this.footnoteSeparatorLength = footnoteSeparatorLength;
         this.autoHeight = autoHeight;
         this.favorSinglePart = favorSinglePart;
+        FObj fobj = (topLevelLM != null) ? topLevelLM.getFObj() : null;
+        if (fobj != null) {
+            setProfiler(RenderingProfiler.getInstance(fobj.getUserAgent()),
+                    RenderingProfiler.Phase.PAGE_BREAKING);
+        }
     }
 
     /**
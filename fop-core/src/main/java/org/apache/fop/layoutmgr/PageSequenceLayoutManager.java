@@ -26,6 +26,7 @@ import java.util.List;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.area.Area;
 import org.apache.fop.area.AreaTreeHandler;
 import org.apache.fop.area.AreaTreeModel;
@@ -63,6 +64,9 @@ public class PageSequenceLayoutManager extends AbstractPageSequenceLayoutManager
     private int startIntrusionAdjustment;
     private int endIntrusionAdjustment;
 
+    /** Layouts of static content reused across pages, created on first use. */
+    private StaticContentLayoutCache staticContentLayoutCache;
+
     /**
      * Constructor
      *
@@ -79,6 +83,20 @@ public class PageSequenceLayoutManager extends AbstractPageSequenceLayoutManager
         return this.pageProvider;
     }
 
+    /**
+     * @return the cache of static content layouts, or null if static content is laid out again
+     * on every page
+     */
+    StaticContentLayoutCache getStaticContentLayoutCache() {
+        if (staticContentLayoutCache == null) {
+            FOUserAgent userAgent = getPageSequence().getUserAgent();
+            if (userAgent.isStaticContentReuseEnabled() && !userAgent.isAccessibilityEnabled()) {
+                staticContentLayoutCache = new StaticContentLayoutCache(this);
+            }
+        }
+        return staticContentLayoutCache;
+    }
+
     /**
      * @return the PageSequence being managed by this layout manager
      */
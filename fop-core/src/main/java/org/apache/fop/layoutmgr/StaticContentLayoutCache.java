@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.fop.area.Area;
+import org.apache.fop.area.Block;
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.FOElementMapping;
+import org.apache.fop.fo.FONode;
+import org.apache.fop.fo.FOText;
+import org.apache.fop.fo.FObj;
+import org.apache.fop.fo.flow.ListItem;
+import org.apache.fop.fo.flow.Marker;
+import org.apache.fop.fo.flow.RetrieveMarker;
+import org.apache.fop.fo.flow.table.Table;
+import org.apache.fop.fo.pagination.SideRegion;
+import org.apache.fop.fo.pagination.StaticContent;
+
+/**
+ * Remembers the areas generated for the static content of a page-sequence so they can be
+ * added to later pages again instead of laying out the same content once per page.
+ * <p>
+ * A layout is identified by the side region, its dimensions, the parity of the page (which
+ * resolves "inside" and "outside" alignments) and the markers retrieved by the static content.
+ * Content that depends on the page in any other way is never cached: page numbers and
+ * citations, links, change bars, retrieve-table-markers, formatting objects with an ID (their
+ * areas must be registered per page) and extension elements.
+ * <p>
+ * Page numbers are not patched into cached areas: the width of a number can change the line
+ * breaks of its paragraph, so a static content containing an fo:page-number (or a citation),
+ * directly or in a retrieved marker, is laid out again on every page. Running footers of the
+ * form "Page n of m" therefore don't benefit from the cache.
+ * <p>
+ * The cached areas are shared between pages, which is safe as long as nothing modifies the
+ * area tree of a page once it has been laid out.
+ */
+class StaticContentLayoutCache {
+
+    /** the maximum number of layouts kept before the cache is cleared */
+    private static final int MAX_ENTRIES = 64;
+
+    private final AbstractPageSequenceLayoutManager pslm;
+
+    /** the retrieve-markers of each static content, or null if it cannot be cached */
+    private final Map<StaticContent, List<RetrieveMarker>> retrieveMarkers
+            = new IdentityHashMap<StaticContent, List<RetrieveMarker>>();
+
+    private final Map<Marker, Boolean> cacheableMarkers = new IdentityHashMap<Marker, Boolean>();
+
+    private final Map<Key, Layout> layouts = new HashMap<Key, Layout>();
+
+    /**
+     * Creates a new cache.
+     * @param pslm the layout manager of the page-sequence the static content belongs to
+     */
+    StaticContentLayoutCache(AbstractPageSequenceLayoutManager pslm) {
+        this.pslm = pslm;
+    }
+
+    /**
+     * Creates the key identifying the layout of a static content on the current page.
+     * @param sc the static content
+     * @param region the side region it is laid out into
+     * @param ipd the inline-progression-dimension of the region
+     * @param bpd the block-progression-dimension of the region
+     * @return the key, or null if the layout of the static content depends on the page
+     */
+    Key createKey(StaticContent sc, SideRegion region, int ipd, int bpd) {
+        List<RetrieveMarker> rms = getRetrieveMarkers(sc);
+        if (rms == null) {
+            return null;
+        }
+        List<Marker> markers;
+        if (rms.isEmpty()) {
+            markers = Collections.emptyList();
+        } else {
+            markers = new ArrayList<Marker>(rms.size());
+            for (RetrieveMarker rm : rms) {
+                Marker marker = pslm.findMarker(rm);
+                if (marker != null && !isCacheable(marker)) {
+                    return null;
+                }
+                markers.add(marker);
+            }
+        }
+        boolean odd = pslm.getCurrentPV().getPageNumber() % 2 != 0;
+        return new Key(region, sc, ipd, bpd, odd, markers);
+    }
+
+    /**
+     * Returns a cached layout.
+     * @param key the key created by {@link #createKey}
+     * @return the layout or null if there is none
+     */
+    Layout get(Key key) {
+        return layouts.get(key);
+    }
+
+    /**
+     * Adds a layout to the cache.
+     * @param key the key created by {@link #createKey}
+     * @param areas the block areas generated for the static content
+     * @param overflowAmount the amount the content overflows the region by, or 0
+     */
+    void put(Key key, List<Area> areas, int overflowAmount) {
+        if (layouts.size() >= MAX_ENTRIES) {
+            layouts.clear();
+        }
+        List<Block> blocks = new ArrayList<Block>(areas.size());
+        for (Area area : areas) {
+            blocks.add((Block) area);
+        }
+        layouts.put(key, new Layout(blocks, overflowAmount));
+    }
+
+    private List<RetrieveMarker> getRetrieveMarkers(StaticContent sc) {
+        if (!retrieveMarkers.containsKey(sc)) {
+            List<RetrieveMarker> rms = new ArrayList<RetrieveMarker>();
+            retrieveMarkers.put(sc, isPageIndependent(sc, rms) ? rms : null);
+        }
+        return retrieveMarkers.get(sc);
+    }
+
+    private boolean isCacheable(Marker marker) {
+        Boolean cacheable = cacheableMarkers.get(marker);
+        if (cacheable == null) {
+            List<RetrieveMarker> rms = new ArrayList<RetrieveMarker>();
+            cacheable = isPageIndependent(marker, rms) && rms.isEmpty();
+            cacheableMarkers.put(marker, cacheable);
+        }
+        return cacheable;
+    }
+
+    /**
+     * Checks whether the layout of a subtree does not depend on the page it is laid out on,
+     * apart from the markers it retrieves.
+     * @param node the root of the subtree
+     * @param rms the list the retrieve-markers found in the subtree are added to
+     * @return true if the subtree does not depend on the page
+     */
+    static boolean isPageIndependent(FONode node, List<RetrieveMarker> rms) {
+        if (node instanceof FOText) {
+            return true;
+        }
+        if (!(node instanceof FObj) || !FOElementMapping.URI.equals(node.getNamespaceURI())) {
+            return false;
+        }
+        FObj fobj = (FObj) node;
+        if (fobj.hasId()) {
+            return false;
+        }
+        switch (fobj.getNameId()) {
+        case Constants.FO_PAGE_NUMBER:
+        case Constants.FO_PAGE_NUMBER_CITATION:
+        case Constants.FO_PAGE_NUMBER_CITATION_LAST:
+        case Constants.FO_BASIC_LINK:
+        case Constants.FO_CHANGE_BAR_BEGIN:
+        case Constants.FO_CHANGE_BAR_END:
+        case Constants.FO_RETRIEVE_TABLE_MARKER:
+            return false;
+        case Constants.FO_RETRIEVE_MARKER:
+            rms.add((RetrieveMarker) fobj);
+            return true;
+        case Constants.FO_INSTREAM_FOREIGN_OBJECT:
+            return true;
+        case Constants.FO_TABLE:
+            Table table = (Table) fobj;
+            if (!isNullOrPageIndependent(table.getTableHeader(), rms)
+                    || !isNullOrPageIndependent(table.getTableFooter(), rms)) {
+                return false;
+            }
+            break;
+        case Constants.FO_LIST_ITEM:
+            ListItem item = (ListItem) fobj;
+            return isNullOrPageIndependent(item.getLabel(), rms)
+                    && isNullOrPageIndependent(item.getBody(), rms);
+        default:
+            break;
+        }
+        for (FONode.FONodeIterator it = fobj.getChildNodes(); it != null && it.hasNext();) {
+            if (!isPageIndependent(it.next(), rms)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNullOrPageIndependent(FONode node, List<RetrieveMarker> rms) {
+        return node == null || isPageIndependent(node, rms);
+    }
+
+    /** Identifies the layout of a static content. */
+    static final class Key {
+
+        private final SideRegion region;
+        private final StaticContent staticContent;
+        private final int ipd;
+        private final int bpd;
+        private final boolean oddPage;
+        private final List<Marker> markers;
+
+        Key(SideRegion region, StaticContent staticContent, int ipd, int bpd, boolean oddPage,
+                List<Marker> markers) {
+            this.region = region;
+            this.staticContent = staticContent;
+            this.ipd = ipd;
+            this.bpd = bpd;
+            this.oddPage = oddPage;
+            this.markers = markers;
+        }
+
+        /** {@inheritDoc} */
+        public int hashCode() {
+            int hash = System.identityHashCode(region);
+            hash = 31 * hash + System.identityHashCode(staticContent);
+            hash = 31 * hash + ipd;
+            hash = 31 * hash + bpd;
+            hash = 31 * hash + (oddPage ? 1 : 0);
+            for (Marker marker : markers) {
+                hash = 31 * hash + System.identityHashCode(marker);
+            }
+            return hash;
+        }
+
+        /** {@inheritDoc} */
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            if (region != other.region || staticContent != other.staticContent
+                    || ipd != other.ipd || bpd != other.bpd || oddPage != other.oddPage
+                    || markers.size() != other.markers.size()) {
+                return false;
+            }
+            for (int i = 0; i < markers.size(); i++) {
+                if (markers.get(i) != other.markers.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** The areas generated for a static content. */
+    static final class Layout {
+
+        private final List<Block> blocks;
+        private final int overflowAmount;
+
+        Layout(List<Block> blocks, int overflowAmount) {
+            this.blocks = blocks;
+            this.overflowAmount = overflowAmount;
+        }
+
+        /** @return the block areas to add to the region */
+        List<Block> getBlocks() {
+            return blocks;
+        }
+
+        /** @return the amount the content overflows the region by, or 0 */
+        int getOverflowAmount() {
+            return overflowAmount;
+        }
+    }
+}
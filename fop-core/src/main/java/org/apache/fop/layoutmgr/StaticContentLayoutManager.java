@@ -136,25 +136,52 @@ public class StaticContentLayoutManager extends BlockStackingLayoutManager {
         }
         setContentAreaIPD(targetIPD);
         setContentAreaBPD(targetBPD);
+
+        RegionReference region = targetRegion;
+        StaticContentLayoutCache cache = (region != null) ? getPSLM().getStaticContentLayoutCache() : null;
+        StaticContentLayoutCache.Key key = null;
+        if (cache != null) {
+            key = cache.createKey(getStaticContentFO(), regionFO, targetIPD, targetBPD);
+            StaticContentLayoutCache.Layout layout = (key != null) ? cache.get(key) : null;
+            if (layout != null) {
+                for (Block block : layout.getBlocks()) {
+                    region.addBlock(block);
+                }
+                targetRegion = null;
+                if (layout.getOverflowAmount() > 0) {
+                    notifyOverflow(layout.getOverflowAmount());
+                }
+                return;
+            }
+        }
+
         breaker = new StaticContentBreaker(this, targetIPD, targetAlign);
         breaker.doLayout(targetBPD, autoHeight);
+        int overflowAmount = breaker.isOverflow() ? breaker.getOverflowAmount() : 0;
+        if (key != null) {
+            cache.put(key, region.getBlocks(), overflowAmount);
+        }
         if (breaker.isOverflow()) {
             if (!autoHeight) {
-                String page = getPSLM().getCurrentPage().getPageViewport().getPageNumberString();
-
-                BlockLevelEventProducer eventProducer = BlockLevelEventProducer.Provider.get(
-                        getStaticContentFO().getUserAgent().getEventBroadcaster());
-                boolean canRecover = (regionFO.getOverflow() != EN_ERROR_IF_OVERFLOW);
-                boolean needClip = (regionFO.getOverflow() == Constants.EN_HIDDEN
-                        || regionFO.getOverflow() == Constants.EN_ERROR_IF_OVERFLOW);
-                eventProducer.staticRegionOverflow(this, regionFO.getName(),
-                        page,
-                        breaker.getOverflowAmount(), needClip, canRecover,
-                        getStaticContentFO().getLocator());
+                notifyOverflow(overflowAmount);
             }
         }
     }
 
+    private void notifyOverflow(int overflowAmount) {
+        String page = getPSLM().getCurrentPage().getPageViewport().getPageNumberString();
+
+        BlockLevelEventProducer eventProducer = BlockLevelEventProducer.Provider.get(
+                getStaticContentFO().getUserAgent().getEventBroadcaster());
+        boolean canRecover = (regionFO.getOverflow() != EN_ERROR_IF_OVERFLOW);
+        boolean needClip = (regionFO.getOverflow() == Constants.EN_HIDDEN
+                || regionFO.getOverflow() == Constants.EN_ERROR_IF_OVERFLOW);
+        eventProducer.staticRegionOverflow(this, regionFO.getName(),
+                page,
+                overflowAmount, needClip, canRecover,
+                getStaticContentFO().getLocator());
+    }
+
     /**
      * Convenience method that returns the Static Content node.
      * @return the static content node
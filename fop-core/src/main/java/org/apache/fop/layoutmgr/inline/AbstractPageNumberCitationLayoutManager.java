@@ -130,6 +130,7 @@ public abstract class AbstractPageNumberCitationLayoutManager extends LeafNodeLa
         } else {
             UnresolvedPageNumber unresolved = new UnresolvedPageNumber(citation.getRefId(), font,
                     getReferenceType());
+            unresolved.setPlaceholder(getPSLM().isPageNumberPlaceholdersEnabled());
             getPSLM().addUnresolvedArea(citation.getRefId(), unresolved);
             text = unresolved;
         }
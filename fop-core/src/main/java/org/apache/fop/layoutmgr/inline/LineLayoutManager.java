@@ -29,6 +29,7 @@ import java.util.ListIterator;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.fop.apps.RenderingProfiler;
 import org.apache.fop.area.Area;
 import org.apache.fop.area.LineArea;
 import org.apache.fop.area.Trait;
@@ -326,6 +327,8 @@ public class LineLayoutManager extends InlineStackingLayoutManager
             follow = fl;
             thisLLM = llm;
             activePossibility = -1;
+            setProfiler(RenderingProfiler.getInstance(fobj.getUserAgent()),
+                    RenderingProfiler.Phase.LINE_BREAKING);
         }
 
         @Override
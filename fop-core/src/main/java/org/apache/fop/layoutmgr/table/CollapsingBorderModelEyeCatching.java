@@ -19,6 +19,9 @@
 
 package org.apache.fop.layoutmgr.table;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.apache.fop.fo.Constants;
 import org.apache.fop.fo.flow.table.BorderSpecification;
 import org.apache.fop.fo.properties.CommonBorderPaddingBackground;
@@ -27,10 +30,30 @@ import org.apache.fop.fo.properties.CommonBorderPaddingBackground.BorderInfo;
 /**
  * Implements the normal "collapse" border model defined in 6.7.10 in XSL 1.0.
  *
+ * <p>
+ * The outcome of the resolution only depends on the two border specifications, and a
+ * table only declares a few distinct ones, so outcomes are remembered per pair of
+ * specifications. This saves repeating the same comparisons for every grid unit of large
+ * tables. The second specification of a pair is compared by identity, so looking up an
+ * outcome allocates nothing; specifications obtained through
+ * {@link BorderSpecification#getInstance(BorderInfo, int)} are shared and thus hit the memo.
+ *
  * TODO Column groups are not yet checked in this algorithm!
  */
 public class CollapsingBorderModelEyeCatching extends CollapsingBorderModel {
 
+    /** maximum number of first border specifications outcomes are remembered for */
+    static final int MAX_MEMOIZED_BORDERS = 1024;
+
+    /** maximum number of outcomes remembered per first border specification */
+    static final int MAX_OUTCOMES_PER_BORDER = 32;
+
+    private static final BorderSpecification DISCARDED_BORDER = BorderSpecification.getInstance(
+            CommonBorderPaddingBackground.getDefaultBorderInfo(), 0/*TODO*/);
+
+    private final ConcurrentMap<BorderSpecification, Outcomes> outcomes
+            = new ConcurrentHashMap<BorderSpecification, Outcomes>();
+
     /** {@inheritDoc} */
     public BorderSpecification determineWinner(BorderSpecification border1,
             BorderSpecification border2, boolean discard) {
@@ -39,8 +62,7 @@ public class CollapsingBorderModelEyeCatching extends CollapsingBorderModel {
         if (discard) {
             if (bi1.getWidth().isDiscard()) {
                 if (bi2.getWidth().isDiscard()) {
-                    return new BorderSpecification(
-                            CommonBorderPaddingBackground.getDefaultBorderInfo(), 0/*TODO*/);
+                    return DISCARDED_BORDER;
                 } else {
                     return border2;
                 }
@@ -55,6 +77,46 @@ public class CollapsingBorderModelEyeCatching extends CollapsingBorderModel {
     /** {@inheritDoc} */
     public BorderSpecification determineWinner(BorderSpecification border1,
             BorderSpecification border2) {
+        Outcomes memo = outcomes.get(border1);
+        Winner winner = (memo != null) ? memo.get(border2) : null;
+        if (winner == null) {
+            BorderSpecification resolved = resolveWinner(border1, border2);
+            if (resolved == null) {
+                winner = Winner.NONE;
+            } else {
+                winner = (resolved == border1) ? Winner.FIRST : Winner.SECOND;
+            }
+            if (memo == null && outcomes.size() < MAX_MEMOIZED_BORDERS) {
+                memo = new Outcomes();
+                Outcomes existing = outcomes.putIfAbsent(border1, memo);
+                if (existing != null) {
+                    memo = existing;
+                }
+            }
+            if (memo != null) {
+                memo.put(border2, winner);
+            }
+        }
+        if (winner == Winner.FIRST) {
+            return border1;
+        } else if (winner == Winner.SECOND) {
+            return border2;
+        } else {
+            return null;
+        }
+    }
+
+    /** @return the number of currently remembered outcomes */
+    int getMemoizedPairCount() {
+        int count = 0;
+        for (Outcomes memo : outcomes.values()) {
+            count += memo.size();
+        }
+        return count;
+    }
+
+    private BorderSpecification resolveWinner(BorderSpecification border1,
+            BorderSpecification border2) {
         BorderInfo bi1 = border1.getBorderInfo();
         BorderInfo bi2 = border2.getBorderInfo();
         // Rule 1
@@ -93,4 +155,59 @@ public class CollapsingBorderModelEyeCatching extends CollapsingBorderModel {
         }
         return null;
     }
+
+    /** The outcome of resolving a pair of borders. */
+    private enum Winner { FIRST, SECOND, NONE }
+
+    /**
+     * The outcomes remembered for one border specification, keyed by the identity of the
+     * other specification. The entries are copied on write, so lookups need no locking.
+     */
+    private static final class Outcomes {
+
+        private volatile Outcome[] entries = new Outcome[0];
+
+        Winner get(BorderSpecification border) {
+            for (Outcome entry : entries) {
+                if (entry.border == border) {
+                    return entry.winner;
+                }
+            }
+            return null;
+        }
+
+        synchronized void put(BorderSpecification border, Winner winner) {
+            if (get(border) != null) {
+                return;
+            }
+            Outcome[] current = entries;
+            Outcome[] updated;
+            if (current.length >= MAX_OUTCOMES_PER_BORDER) {
+                //only specifications that are not shared can fill the memo; start over
+                updated = new Outcome[1];
+            } else {
+                updated = new Outcome[current.length + 1];
+                System.arraycopy(current, 0, updated, 0, current.length);
+            }
+            updated[updated.length - 1] = new Outcome(border, winner);
+            entries = updated;
+        }
+
+        int size() {
+            return entries.length;
+        }
+    }
+
+    /** The outcome of resolving a given border specification against another one. */
+    private static final class Outcome {
+
+        private final BorderSpecification border;
+
+        private final Winner winner;
+
+        Outcome(BorderSpecification border, Winner winner) {
+            this.border = border;
+            this.winner = winner;
+        }
+    }
 }
@@ -35,6 +35,7 @@ import org.apache.fop.fo.flow.table.EmptyGridUnit;
 import org.apache.fop.fo.flow.table.GridUnit;
 import org.apache.fop.fo.flow.table.PrimaryGridUnit;
 import org.apache.fop.fo.flow.table.Table;
+import org.apache.fop.fo.flow.table.TableBody;
 import org.apache.fop.fo.flow.table.TableColumn;
 import org.apache.fop.fo.flow.table.TablePart;
 import org.apache.fop.fo.properties.CommonBorderPaddingBackground;
@@ -314,6 +315,12 @@ class RowPainter {
                         firstCellParts[i].start, lastCellParts[i].end,
                         actualRowHeight, borderBeforeWhich, borderAfterWhich,
                         lastOnPage);
+                if (lastCellParts[i].isLastPart() && tclm.isStreaming()
+                        && currentGU.getPrimary().getTablePart() instanceof TableBody) {
+                    // the body cell is complete; in streaming table mode its layout data is
+                    // released since its areas will not be added again
+                    currentGU.getPrimary().releaseLayoutData();
+                }
                 firstCellParts[i] = null; // why? what about the lastCellParts[i]?
                 Arrays.fill(firstCellOnPage, i, i + currentGU.getCell().getNumberColumnsSpanned(),
                         false);
@@ -80,6 +80,17 @@ public class TableContentLayoutManager implements PercentBaseContext {
     private boolean headerIsBeingRepeated;
     private boolean  atLeastOnce;
 
+    /** number of row groups per window in streaming table mode, 0 if disabled */
+    private int streamingWindow;
+    /** elements of the first row group of the next window, null if there is no next window */
+    private List nextWindowElements;
+    private Keep nextWindowKeepWithNext;
+    private int nextWindowBreakAfter;
+    /** header and footer elements to be added after the last window */
+    private KnuthBox deferredHeader;
+    private KnuthBox deferredFooter;
+    private int deferredHeaderFootnoteBPD;
+
     /**
      * Main constructor
      * @param parent Parent layout manager
@@ -136,6 +147,29 @@ public class TableContentLayoutManager implements PercentBaseContext {
         return this.footerList;
     }
 
+    /**
+     * Enables the streaming table mode: each call to
+     * {@link #getNextKnuthElements(LayoutContext, int)} then only returns the elements for
+     * the given number of row groups of the table body.
+     * @param rowGroups the number of row groups per window, or 0 to create all elements at once
+     */
+    void setStreamingWindow(int rowGroups) {
+        this.streamingWindow = rowGroups;
+    }
+
+    /**
+     * @return true if the elements last returned are only a window of the table body and
+     * more row groups follow
+     */
+    boolean isWindowPending() {
+        return nextWindowElements != null;
+    }
+
+    /** @return true if the table body is laid out in windows of row groups */
+    boolean isStreaming() {
+        return streamingWindow > 0;
+    }
+
     /**
      * Get a sequence of KnuthElements representing the content
      * of the node assigned to the LM.
@@ -150,10 +184,10 @@ public class TableContentLayoutManager implements PercentBaseContext {
             LOG.debug("==> Columns: " + getTableLM().getColumns());
         }
         KnuthBox headerAsFirst = null;
-        KnuthBox headerAsSecondToLast = null;
-        KnuthBox footerAsLast = null;
+        KnuthBox headerAsSecondToLast = deferredHeader;
+        KnuthBox footerAsLast = deferredFooter;
         LinkedList returnList = new LinkedList();
-        int headerFootnoteBPD = 0;
+        int headerFootnoteBPD = deferredHeaderFootnoteBPD;
         if (headerIter != null && headerList == null) {
             this.headerList = getKnuthElementsForRowIterator(
                     headerIter, context, alignment, TableRowIterator.HEADER);
@@ -209,15 +243,30 @@ public class TableContentLayoutManager implements PercentBaseContext {
                 footerNetHeight += getFootnotesBPD(footnotes);
             }
         }
-        returnList.addAll(getKnuthElementsForRowIterator(
-                bodyIter, context, alignment, TableRowIterator.BODY));
+        if (isStreaming()) {
+            returnList.addAll(getKnuthElementsForBodyWindow(context, alignment));
+        } else {
+            returnList.addAll(getKnuthElementsForRowIterator(
+                    bodyIter, context, alignment, TableRowIterator.BODY));
+        }
         if (headerAsFirst != null) {
             int insertionPoint = 0;
             if (returnList.size() > 0 && ((ListElement)returnList.getFirst()).isForcedBreak()) {
                 insertionPoint++;
             }
             returnList.add(insertionPoint, headerAsFirst);
-        } else if (headerAsSecondToLast != null) {
+        }
+        if (isWindowPending()) {
+            //The elements closing the table content go after the last window
+            deferredHeader = headerAsSecondToLast;
+            deferredFooter = footerAsLast;
+            deferredHeaderFootnoteBPD = headerFootnoteBPD;
+            return returnList;
+        }
+        deferredHeader = null;
+        deferredFooter = null;
+        deferredHeaderFootnoteBPD = 0;
+        if (headerAsSecondToLast != null) {
             int insertionPoint = returnList.size();
             if (returnList.size() > 0 && ((ListElement)returnList.getLast()).isForcedBreak()) {
                 insertionPoint--;
@@ -237,6 +286,128 @@ public class TableContentLayoutManager implements PercentBaseContext {
         return returnList;
     }
 
+    /**
+     * Sets the penalty value and break class of the break element produced by TableStepper
+     * for the last row group of the given list, so that it represents the keep or break
+     * between that row group and the one whose elements have just been created.
+     * @param returnList the elements created so far
+     * @param context the layout context holding the keep-with-previous and break-before
+     * values of the next row group
+     * @param keepWithNextPending the keep-with-next of the previous row group
+     * @param breakAfter the break-after of the previous row group
+     */
+    private void setBreakBetweenRowGroups(LinkedList returnList, LayoutContext context,
+            Keep keepWithNextPending, int breakAfter) {
+        //Determine keep constraints
+        Keep keep = keepWithNextPending.compare(context.getKeepWithPreviousPending());
+        context.clearKeepWithPreviousPending();
+        keep = keep.compare(getTableLM().getKeepTogether());
+        int penaltyValue = keep.getPenalty();
+        int breakClass = keep.getContext();
+
+        int breakBetween = BreakUtil.compareBreakClasses(breakAfter,
+                context.getBreakBefore());
+        if (breakBetween != Constants.EN_AUTO) {
+            penaltyValue = -KnuthElement.INFINITE;
+            breakClass = breakBetween;
+        }
+        BreakElement breakElement;
+        ListIterator elemIter = returnList.listIterator(returnList.size());
+        ListElement elem = (ListElement) elemIter.previous();
+        if (elem instanceof KnuthGlue) {
+            breakElement = (BreakElement) elemIter.previous();
+        } else {
+            breakElement = (BreakElement) elem;
+        }
+        breakElement.setPenaltyValue(penaltyValue);
+        breakElement.setBreakClass(breakClass);
+    }
+
+    /**
+     * Creates the Knuth elements for the next window of the table body in streaming table
+     * mode. The elements of the row group following the window are created as well, in order
+     * to determine the break between the two; they start the next window. Unlike the last
+     * window, a window that is followed by another one ends with that break.
+     * @param context Active LayoutContext
+     * @param alignment alignment indicator
+     * @return the elements of the window
+     */
+    private LinkedList getKnuthElementsForBodyWindow(LayoutContext context, int alignment) {
+        LinkedList returnList = new LinkedList();
+        context.clearKeepsPending();
+        context.setBreakBefore(Constants.EN_AUTO);
+        context.setBreakAfter(Constants.EN_AUTO);
+        boolean firstWindow = (nextWindowElements == null);
+        Keep keepWithPrevious = Keep.KEEP_AUTO;
+        int breakBefore = Constants.EN_AUTO;
+        int breakBetween;
+        if (firstWindow) {
+            EffRow[] rowGroup = bodyIter.getNextRowGroup();
+            if (rowGroup == null) {
+                return returnList;
+            }
+            RowGroupLayoutManager rowGroupLM = new RowGroupLayoutManager(getTableLM(), rowGroup,
+                    stepper);
+            returnList.addAll(rowGroupLM.getNextKnuthElements(context, alignment,
+                    TableRowIterator.BODY));
+            keepWithPrevious = keepWithPrevious.compare(context.getKeepWithPreviousPending());
+            breakBefore = context.getBreakBefore();
+            breakBetween = context.getBreakAfter();
+        } else {
+            returnList.addAll(nextWindowElements);
+            nextWindowElements = null;
+            context.updateKeepWithNextPending(nextWindowKeepWithNext);
+            context.setBreakAfter(nextWindowBreakAfter);
+            breakBetween = nextWindowBreakAfter;
+        }
+        int rowGroupCount = 1;
+        EffRow[] rowGroup;
+        while ((rowGroup = bodyIter.getNextRowGroup()) != null) {
+            RowGroupLayoutManager rowGroupLM = new RowGroupLayoutManager(getTableLM(), rowGroup,
+                    stepper);
+            Keep keepWithNextPending = context.getKeepWithNextPending();
+            context.clearKeepWithNextPending();
+            List nextRowGroupElems = rowGroupLM.getNextKnuthElements(context, alignment,
+                    TableRowIterator.BODY);
+            setBreakBetweenRowGroups(returnList, context, keepWithNextPending, breakBetween);
+            if (rowGroupCount == streamingWindow) {
+                nextWindowElements = nextRowGroupElems;
+                nextWindowKeepWithNext = context.getKeepWithNextPending();
+                nextWindowBreakAfter = context.getBreakAfter();
+                context.setBreakAfter(Constants.EN_AUTO);
+                break;
+            }
+            returnList.addAll(nextRowGroupElems);
+            breakBetween = context.getBreakAfter();
+            rowGroupCount++;
+        }
+        if (nextWindowElements == null) {
+            //Last window: see getKnuthElementsForRowIterator
+            ListIterator elemIter = returnList.listIterator(returnList.size());
+            ListElement elem = (ListElement) elemIter.previous();
+            if (elem instanceof KnuthGlue) {
+                BreakElement breakElement = (BreakElement) elemIter.previous();
+                breakElement.setPenaltyValue(KnuthElement.INFINITE);
+            } else {
+                elemIter.remove();
+            }
+            //fox:orphan-content-limit
+            int orphanContentLimit = getTableLM().getTable().getOrphanContentLimit().getValue();
+            if (orphanContentLimit != 0) {
+                ElementListUtils.removeLegalBreaksFromEnd(returnList, orphanContentLimit);
+            }
+        }
+        context.updateKeepWithPreviousPending(keepWithPrevious);
+        context.setBreakBefore(breakBefore);
+
+        //fox:widow-content-limit
+        int widowContentLimit = getTableLM().getTable().getWidowContentLimit().getValue();
+        if (widowContentLimit != 0 && firstWindow) {
+            ElementListUtils.removeLegalBreaks(returnList, widowContentLimit);
+        }
+        return returnList;
+    }
+
     private int getFootnotesBPD(List<List<KnuthElement>> footnotes) {
         int bpd = 0;
         for (List<KnuthElement> footnote : footnotes) {
@@ -294,29 +465,7 @@ public class TableContentLayoutManager implements PercentBaseContext {
                  * to go two steps backwards in the list.
                  */
 
-                //Determine keep constraints
-                Keep keep = keepWithNextPending.compare(context.getKeepWithPreviousPending());
-                context.clearKeepWithPreviousPending();
-                keep = keep.compare(getTableLM().getKeepTogether());
-                int penaltyValue = keep.getPenalty();
-                int breakClass = keep.getContext();
-
-                breakBetween = BreakUtil.compareBreakClasses(breakBetween,
-                        context.getBreakBefore());
-                if (breakBetween != Constants.EN_AUTO) {
-                    penaltyValue = -KnuthElement.INFINITE;
-                    breakClass = breakBetween;
-                }
-                BreakElement breakElement;
-                ListIterator elemIter = returnList.listIterator(returnList.size());
-                ListElement elem = (ListElement) elemIter.previous();
-                if (elem instanceof KnuthGlue) {
-                    breakElement = (BreakElement) elemIter.previous();
-                } else {
-                    breakElement = (BreakElement) elem;
-                }
-                breakElement.setPenaltyValue(penaltyValue);
-                breakElement.setBreakClass(breakClass);
+                setBreakBetweenRowGroups(returnList, context, keepWithNextPending, breakBetween);
                 returnList.addAll(nextRowGroupElems);
                 breakBetween = context.getBreakAfter();
             }
@@ -45,6 +45,7 @@ import org.apache.fop.fo.properties.KeepProperty;
 import org.apache.fop.layoutmgr.BlockLevelEventProducer;
 import org.apache.fop.layoutmgr.BreakElement;
 import org.apache.fop.layoutmgr.BreakOpportunity;
+import org.apache.fop.layoutmgr.FlowLayoutManager;
 import org.apache.fop.layoutmgr.KnuthElement;
 import org.apache.fop.layoutmgr.KnuthGlue;
 import org.apache.fop.layoutmgr.LayoutContext;
@@ -205,6 +206,10 @@ public class TableLayoutManager extends SpacedBorderedPaddedBlockLayoutManager
     /** {@inheritDoc} */
     public List getNextKnuthElements(LayoutContext context, int alignment) {
 
+        if (contentLM != null && contentLM.isWindowPending()) {
+            return getNextWindowElements(context, alignment);
+        }
+
         List returnList = new LinkedList();
 
         /*
@@ -266,6 +271,7 @@ public class TableLayoutManager extends SpacedBorderedPaddedBlockLayoutManager
         // Elements for the table-header/footer/body
         List contentKnuthElements;
         contentLM = new TableContentLayoutManager(this);
+        contentLM.setStreamingWindow(context.isContentWindowingDisabled() ? 0 : getStreamingWindow());
         LayoutContext childLC = LayoutContext.newInstance();
         /*
         childLC.setStackLimit(
@@ -286,14 +292,6 @@ public class TableLayoutManager extends SpacedBorderedPaddedBlockLayoutManager
         context.updateKeepWithPreviousPending(getKeepWithPrevious());
         context.updateKeepWithPreviousPending(childLC.getKeepWithPreviousPending());
 
-        context.updateKeepWithNextPending(getKeepWithNext());
-        context.updateKeepWithNextPending(childLC.getKeepWithNextPending());
-
-        if (getTable().isSeparateBorderModel()) {
-            addKnuthElementsForBorderPaddingAfter(returnList, true);
-        }
-        addKnuthElementsForSpaceAfter(returnList, alignment);
-
         if (!context.suppressBreakBefore()) {
             //addKnuthElementsForBreakBefore(returnList, context);
             int breakBefore = BreakUtil.compareBreakClasses(getTable().getBreakBefore(),
@@ -304,6 +302,55 @@ public class TableLayoutManager extends SpacedBorderedPaddedBlockLayoutManager
             }
         }
 
+        if (contentLM.isWindowPending()) {
+            context.setContentPending(true);
+        } else {
+            addKnuthElementsAfterContent(returnList, context, childLC, alignment);
+        }
+        return returnList;
+    }
+
+    /**
+     * Returns the elements for the next window of the table body in streaming table mode.
+     * The elements before the table content have already been returned with the first window.
+     */
+    private List getNextWindowElements(LayoutContext context, int alignment) {
+        List returnList = new LinkedList();
+        if (context.isContentWindowingDisabled()) {
+            //the page breaker cannot settle windows of this content: return all remaining row groups
+            contentLM.setStreamingWindow(Integer.MAX_VALUE);
+        }
+        if (getTable().isSeparateBorderModel()) {
+            addPendingMarks(context);
+        }
+        LayoutContext childLC = LayoutContext.newInstance();
+        childLC.setRefIPD(context.getRefIPD());
+        childLC.copyPendingMarksFrom(context);
+
+        List contentKnuthElements = contentLM.getNextKnuthElements(childLC, alignment);
+        for (Object contentKnuthElement : contentKnuthElements) {
+            notifyPos(((ListElement) contentKnuthElement).getPosition());
+        }
+        wrapPositionElements(contentKnuthElements, returnList);
+
+        if (contentLM.isWindowPending()) {
+            context.setContentPending(true);
+        } else {
+            addKnuthElementsAfterContent(returnList, context, childLC, alignment);
+        }
+        return returnList;
+    }
+
+    private void addKnuthElementsAfterContent(List returnList, LayoutContext context,
+            LayoutContext childLC, int alignment) {
+        context.updateKeepWithNextPending(getKeepWithNext());
+        context.updateKeepWithNextPending(childLC.getKeepWithNextPending());
+
+        if (getTable().isSeparateBorderModel()) {
+            addKnuthElementsForBorderPaddingAfter(returnList, true);
+        }
+        addKnuthElementsForSpaceAfter(returnList, alignment);
+
         //addKnuthElementsForBreakAfter(returnList, context);
         int breakAfter = BreakUtil.compareBreakClasses(getTable().getBreakAfter(),
                 childLC.getBreakAfter());
@@ -314,7 +361,23 @@ public class TableLayoutManager extends SpacedBorderedPaddedBlockLayoutManager
 
         setFinished(true);
         resetSpaces();
-        return returnList;
+    }
+
+    /**
+     * Returns the number of row groups per window if this table is laid out in streaming
+     * table mode. The mode only applies to tables with fixed table-layout that are placed
+     * directly in the flow, so that the page breaker can add the areas for a window before the
+     * next one is created. Row groups are never split across windows, so row spans do not
+     * cross window boundaries.
+     * @return the number of row groups per window, or 0 if the table is laid out at once
+     */
+    private int getStreamingWindow() {
+        int window = getTable().getUserAgent().getTableStreamingWindow();
+        if (window <= 0 || getTable().isAutoLayout()
+                || !(getParent() instanceof FlowLayoutManager)) {
+            return 0;
+        }
+        return window;
     }
 
     private boolean supportResize(FONode node) {
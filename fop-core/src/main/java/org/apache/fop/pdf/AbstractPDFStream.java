@@ -22,6 +22,10 @@ package org.apache.fop.pdf;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.io.output.CountingOutputStream;
 
@@ -41,6 +45,9 @@ public abstract class AbstractPDFStream extends PDFObject {
 
     private PDFNumber refLength = new PDFNumber();
 
+    /** the stream data being encoded ahead of output, see {@link #encodeAhead(Executor)} */
+    private FutureTask<StreamCache> encodedAhead;
+
     protected AbstractPDFStream() {
         this(true);
     }
@@ -210,6 +217,51 @@ public abstract class AbstractPDFStream extends PDFObject {
         return bytesWritten;
     }
 
+    /**
+     * Starts encoding (compressing and, if encryption is active, encrypting) the stream data
+     * on the given executor, so the encoded data is ready by the time the stream is output.
+     * The filters are set up on the calling thread. The stream data must not change anymore.
+     * @param executor the executor to encode the stream data on
+     */
+    void encodeAhead(Executor executor) {
+        if (encodedAhead == null) {
+            setupFilterList();
+            encodedAhead = new FutureTask<StreamCache>(new Callable<StreamCache>() {
+                public StreamCache call() throws IOException {
+                    return encodeStream();
+                }
+            });
+            executor.execute(encodedAhead);
+        }
+    }
+
+    /** @return true if the stream data is being encoded ahead of output and is not ready yet */
+    boolean isEncodingAhead() {
+        return encodedAhead != null && !encodedAhead.isDone();
+    }
+
+    private StreamCache getEncodedAhead() throws IOException {
+        try {
+            return encodedAhead.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a stream to be encoded", ie);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new RuntimeException(cause);
+            }
+        } finally {
+            encodedAhead = null;
+        }
+    }
+
     /**
      * Overload the base object method so we don't have to copy
      * byte arrays around so much
@@ -217,14 +269,21 @@ public abstract class AbstractPDFStream extends PDFObject {
      */
     @Override
     public int output(OutputStream stream) throws IOException {
-        setupFilterList();
+        StreamCache encodedStream = null;
+        if (encodedAhead != null) {
+            //the filters have been set up when encoding started
+            encodedStream = getEncodedAhead();
+        } else {
+            setupFilterList();
+        }
 
         CountingOutputStream cout = new CountingOutputStream(stream);
         StringBuilder textBuffer = new StringBuilder(64);
 
-        StreamCache encodedStream = null;
         final Object lengthEntry;
-        if (encodeOnTheFly) {
+        if (encodedStream != null) {
+            lengthEntry = encodedStream.getSize();
+        } else if (encodeOnTheFly) {
             if (!refLength.hasObjectNumber()) {
                 registerChildren();
             }
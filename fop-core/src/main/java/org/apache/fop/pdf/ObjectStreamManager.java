@@ -35,6 +35,8 @@ class ObjectStreamManager {
 
     private final PDFDocument pdfDocument;
 
+    private final boolean streaming;
+
     private final List<CompressedObjectReference> compressedObjectReferences;
 
     private int numObjectsInStream;
@@ -42,16 +44,36 @@ class ObjectStreamManager {
     private ObjectStream currentObjectStream;
 
     ObjectStreamManager(PDFDocument pdfDocument) {
+        this(pdfDocument, false);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param pdfDocument the document the object streams belong to
+     * @param streaming true if object streams are to be registered for output as soon as they
+     * are complete (see {@link #flush()}) rather than being written with the trailer; such
+     * streams do not extend each other, so that they can be released once written
+     */
+    ObjectStreamManager(PDFDocument pdfDocument, boolean streaming) {
         this.pdfDocument = pdfDocument;
-        createObjectStream();
+        this.streaming = streaming;
+        if (!streaming) {
+            createObjectStream();
+        }
         compressedObjectReferences = new ArrayList<CompressedObjectReference>();
     }
 
     void add(CompressedObject compressedObject) {
-        if (numObjectsInStream++ == OBJECT_STREAM_CAPACITY) {
+        if (currentObjectStream == null) {
+            createObjectStream();
+        } else if (numObjectsInStream == OBJECT_STREAM_CAPACITY) {
+            if (streaming) {
+                flush();
+            }
             createObjectStream();
-            numObjectsInStream = 1;
         }
+        numObjectsInStream++;
         compressedObjectReferences.add(currentObjectStream.addObject(compressedObject));
     }
 
@@ -59,8 +81,23 @@ class ObjectStreamManager {
         currentObjectStream = currentObjectStream == null
                 ? new ObjectStream()
                 : new ObjectStream(currentObjectStream);
+        numObjectsInStream = 0;
         pdfDocument.assignObjectNumber(currentObjectStream);
-        pdfDocument.addTrailerObject(currentObjectStream);
+        if (!streaming) {
+            pdfDocument.addTrailerObject(currentObjectStream);
+        }
+    }
+
+    /**
+     * Registers the current object stream with the document for output. Subsequently added
+     * objects go to a new object stream. Only for streaming instances.
+     */
+    void flush() {
+        assert streaming;
+        if (currentObjectStream != null) {
+            pdfDocument.addObject(currentObjectStream);
+            currentObjectStream = null;
+        }
     }
 
     List<CompressedObjectReference> getCompressedObjectReferences() {
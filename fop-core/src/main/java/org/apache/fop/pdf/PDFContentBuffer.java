@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.xmlgraphics.util.DoubleFormatUtil;
+
+/**
+ * A growable byte buffer for assembling PDF content stream operators. Content streams only
+ * contain single-byte characters, so text is written as ISO-8859-1 bytes directly, without
+ * going through intermediate strings, string buffers or a character encoder. Numbers and
+ * hex-encoded glyph codes are formatted straight into the buffer, which can be reset and
+ * reused for the next operator.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class PDFContentBuffer {
+
+    private static final byte[] HEX_DIGITS = {
+        '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F'
+    };
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private byte[] buf;
+
+    private int count;
+
+    /** scratch buffer for {@link DoubleFormatUtil}, reused for every number */
+    private StringBuffer numberBuffer;
+
+    /** Creates a new buffer. */
+    public PDFContentBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new buffer.
+     * @param capacity the initial capacity in bytes
+     */
+    public PDFContentBuffer(int capacity) {
+        this.buf = new byte[Math.max(capacity, 16)];
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buf.length) {
+            byte[] newBuf = new byte[Math.max(capacity, buf.length << 1)];
+            System.arraycopy(buf, 0, newBuf, 0, count);
+            buf = newBuf;
+        }
+    }
+
+    /**
+     * Appends a character. Characters outside ISO-8859-1 are written as '?', like the
+     * character encoder used for content streams does.
+     * @param c the character
+     * @return this buffer
+     */
+    public PDFContentBuffer append(char c) {
+        if (count == buf.length) {
+            ensureCapacity(count + 1);
+        }
+        buf[count++] = (byte) (c > 0xFF ? '?' : c);
+        return this;
+    }
+
+    /**
+     * Appends the characters of a string.
+     * @param s the string
+     * @return this buffer
+     * @see #append(char)
+     */
+    public PDFContentBuffer append(CharSequence s) {
+        int len = s.length();
+        ensureCapacity(count + len);
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            buf[count++] = (byte) (c > 0xFF ? '?' : c);
+        }
+        return this;
+    }
+
+    /**
+     * Appends the content of another buffer.
+     * @param other the buffer to append
+     * @return this buffer
+     */
+    public PDFContentBuffer append(PDFContentBuffer other) {
+        ensureCapacity(count + other.count);
+        System.arraycopy(other.buf, 0, buf, count, other.count);
+        count += other.count;
+        return this;
+    }
+
+    /**
+     * Appends bytes.
+     * @param b the bytes
+     * @param off the offset of the first byte
+     * @param len the number of bytes
+     * @return this buffer
+     */
+    public PDFContentBuffer append(byte[] b, int off, int len) {
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+        return this;
+    }
+
+    /**
+     * Appends an integer in decimal notation.
+     * @param value the value
+     * @return this buffer
+     */
+    public PDFContentBuffer append(int value) {
+        if (value < 0) {
+            if (value == Integer.MIN_VALUE) {
+                return append(Integer.toString(value));
+            }
+            append('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        ensureCapacity(count + digits);
+        int pos = count + digits;
+        do {
+            buf[--pos] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        count += digits;
+        return this;
+    }
+
+    /**
+     * Appends a double value formatted like {@link PDFNumber#doubleOut(double, int)}, i.e.
+     * with at most the given number of decimal places and without trailing zeros.
+     * @param value the value
+     * @param dec the maximum number of decimal places
+     * @return this buffer
+     */
+    public PDFContentBuffer appendDouble(double value, int dec) {
+        if (dec < 0 || dec > 16) {
+            throw new IllegalArgumentException("Parameter dec must be between 1 and 16");
+        }
+        if (value == (int) value) {
+            //integral values are common (0, 1, -1 in matrices) and need no rounding
+            return append((int) value);
+        }
+        if (numberBuffer == null) {
+            numberBuffer = new StringBuffer(32);
+        }
+        numberBuffer.setLength(0);
+        DoubleFormatUtil.formatDouble(value, dec, dec, numberBuffer);
+        return append(numberBuffer);
+    }
+
+    /**
+     * Appends the octal escape sequence ("\ooo") of a character code, as used in PDF
+     * literal strings.
+     * @param code the character code
+     * @return this buffer
+     */
+    public PDFContentBuffer appendOctalEscape(int code) {
+        append('\\');
+        if (code == 0) {
+            return append('0');
+        }
+        int digits = 0;
+        for (int v = code; v != 0; v >>>= 3) {
+            digits++;
+        }
+        ensureCapacity(count + digits);
+        for (int shift = (digits - 1) * 3; shift >= 0; shift -= 3) {
+            buf[count++] = (byte) ('0' + ((code >>> shift) & 7));
+        }
+        return this;
+    }
+
+    /**
+     * Appends a Unicode code point as upper case hex digits like
+     * {@link PDFText#toUnicodeHex(int, StringBuffer)} does: four digits for code points
+     * in the Basic Multilingual Plane, six digits otherwise.
+     * @param codePoint the code point (or glyph index)
+     * @return this buffer
+     */
+    public PDFContentBuffer appendUnicodeHex(int codePoint) {
+        int digits = (codePoint >= 0 && codePoint <= 0xFFFF) ? 4 : 6;
+        ensureCapacity(count + digits);
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            buf[count++] = HEX_DIGITS[(codePoint >>> shift) & 0x0F];
+        }
+        return this;
+    }
+
+    /** @return the number of bytes in the buffer */
+    public int length() {
+        return count;
+    }
+
+    /** Empties the buffer, keeping its capacity. */
+    public void reset() {
+        count = 0;
+    }
+
+    /**
+     * Writes the content of the buffer to an output stream.
+     * @param out the output stream
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, count);
+    }
+
+    /** @return a copy of the content of the buffer */
+    public byte[] toByteArray() {
+        byte[] result = new byte[count];
+        System.arraycopy(buf, 0, result, 0, count);
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        char[] chars = new char[count];
+        for (int i = 0; i < count; i++) {
+            chars[i] = (char) (buf[i] & 0xFF);
+        }
+        return new String(chars);
+    }
+}
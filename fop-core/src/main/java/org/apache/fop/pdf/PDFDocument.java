@@ -33,6 +33,8 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -180,6 +182,19 @@ public class PDFDocument {
 
     private boolean formXObjectEnabled;
 
+    private boolean structureTreeStreamingEnabled;
+
+    /** object streams holding the structure elements written before the trailer, if any */
+    private ObjectStreamManager streamedStructureTreeObjectStreams;
+
+    private PDFImageXObjectCache imageXObjectCache;
+
+    /** bytes written per stream class, or null if not collected */
+    private Map<String, Long> streamByteCounts;
+
+    /** the executor content streams are encoded on ahead of output, or null */
+    private Executor streamEncodingExecutor;
+
     protected boolean outputStarted;
 
     /**
@@ -951,6 +966,35 @@ public class PDFDocument {
         return xObject;
     }
 
+    /**
+     * Add a form XObject whose contents are only known at the end of the document.
+     * The Form XObject gets its number (and name) right away, so it can be referenced from
+     * the content of pages that are written before its contents are complete. It must be
+     * added to the document with {@link #addObject(PDFObject)} (and its children registered)
+     * once its contents are complete.
+     *
+     * @param res the PDF resource context to add to, may be null
+     * @param cont the PDF Stream contents of the Form XObject
+     * @param formres a reference to the PDF Resources for the Form XObject data
+     * @return the PDF Form XObject that references the PDF data
+     */
+    public PDFFormXObject addDeferredFormXObject(
+        PDFResourceContext res,
+        PDFStream cont,
+        PDFReference formres) {
+
+        PDFFormXObject xObject = new PDFFormXObject(
+                ++this.xObjectCount,
+                cont,
+                formres);
+        assignObjectNumber(xObject);
+        this.resources.addXObject(xObject);
+        if (res != null) {
+            res.addXObject(xObject);
+        }
+        return xObject;
+    }
+
     /**
      * Get the root Outlines object. This method does not write
      * the outline to the PDF document, it simply creates a
@@ -1019,6 +1063,9 @@ public class PDFDocument {
      */
     public void output(OutputStream stream) throws IOException {
         outputStarted = true;
+        if (streamEncodingExecutor != null) {
+            encodeStreamsAhead();
+        }
         //Write out objects until the list is empty. This approach (used with a
         //LinkedList) allows for output() methods to create and register objects
         //on the fly even during serialization.
@@ -1028,6 +1075,50 @@ public class PDFDocument {
         }
     }
 
+    /**
+     * Starts encoding the pending content streams concurrently, so they are compressed and
+     * encrypted while other work is done on the output thread. Other kinds of streams may
+     * touch shared state (fonts, images) while they are encoded and are left alone.
+     */
+    private void encodeStreamsAhead() {
+        List<PDFStream> streams = new ArrayList<PDFStream>();
+        for (PDFObject object : this.objects) {
+            if (object.getClass() == PDFStream.class) {
+                streams.add((PDFStream) object);
+            }
+        }
+        for (PDFStream contentStream : streams) {
+            contentStream.encodeAhead(streamEncodingExecutor);
+        }
+    }
+
+    /**
+     * Writes out the objects registered so far, like {@link #output(OutputStream)}, but stops
+     * at the first content stream that is still being encoded on the stream encoding executor
+     * (see {@link #setStreamEncodingExecutor(Executor)}). The remaining objects are written by
+     * a later call, so the encoding of a page's content overlaps with the rendering of the next
+     * page.
+     *
+     * @param stream the OutputStream to output the document to
+     * @throws IOException if there is an exception writing to the output stream
+     */
+    public void outputReadyObjects(OutputStream stream) throws IOException {
+        if (streamEncodingExecutor == null) {
+            output(stream);
+            return;
+        }
+        outputStarted = true;
+        encodeStreamsAhead();
+        while (this.objects.size() > 0) {
+            PDFObject object = this.objects.get(0);
+            if (object instanceof AbstractPDFStream && ((AbstractPDFStream) object).isEncodingAhead()) {
+                break;
+            }
+            this.objects.remove(0);
+            streamIndirectObject(object, stream);
+        }
+    }
+
     protected void writeTrailer(OutputStream stream, int first, int last, int size, long mainOffset, long startxref)
             throws IOException {
         TrailerOutputHelper trailerOutputHelper = mayCompressStructureTreeElements()
@@ -1050,9 +1141,68 @@ public class PDFDocument {
         recordObjectOffset(o);
         int len = outputIndirectObject(o, stream);
         this.position += len;
+        if (streamByteCounts != null && o instanceof AbstractPDFStream) {
+            String streamType = o.getClass().getSimpleName();
+            Long total = streamByteCounts.get(streamType);
+            streamByteCounts.put(streamType, (total != null) ? total + len : len);
+        }
         return len;
     }
 
+    /**
+     * Writes out the given structure element and all its registered descendants, which are then
+     * no longer retained by this document. This allows the structure tree of a large document
+     * to be written page-sequence by page-sequence rather than being held in memory until the
+     * trailer is written. The subtree must be finished: no structure elements or content items
+     * may be added to it afterwards. Does nothing for linearized documents.
+     *
+     * @param subtreeRoot the root of a finished subtree of the structure tree
+     * @param stream the stream the document is being written to
+     * @throws IOException if there is an exception writing to the output stream
+     */
+    public void outputStructureTree(PDFStructElem subtreeRoot, OutputStream stream) throws IOException {
+        if (structureTreeElements == null || isLinearizationEnabled()) {
+            return;
+        }
+        List<PDFStructElem> finished = new ArrayList<PDFStructElem>();
+        List<PDFStructElem> remaining = new ArrayList<PDFStructElem>(structureTreeElements.size());
+        for (PDFStructElem structElem : structureTreeElements) {
+            if (isInSubtree(structElem, subtreeRoot)) {
+                finished.add(structElem);
+            } else {
+                remaining.add(structElem);
+            }
+        }
+        if (finished.isEmpty()) {
+            return;
+        }
+        structureTreeElements = remaining;
+        if (mayCompressStructureTreeElements()) {
+            if (streamedStructureTreeObjectStreams == null) {
+                streamedStructureTreeObjectStreams = new ObjectStreamManager(this, true);
+            }
+            for (PDFStructElem structElem : finished) {
+                streamedStructureTreeObjectStreams.add(structElem);
+            }
+            streamedStructureTreeObjectStreams.flush();
+            output(stream);
+        } else {
+            streamIndirectObjects(finished, stream);
+        }
+        for (PDFStructElem structElem : finished) {
+            structElem.releaseContent();
+        }
+    }
+
+    private static boolean isInSubtree(PDFStructElem structElem, PDFStructElem subtreeRoot) {
+        for (PDFStructElem elem = structElem; elem != null; elem = elem.getParentStructElem()) {
+            if (elem == subtreeRoot) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void streamIndirectObjects(Collection<? extends PDFObject> objects, OutputStream stream)
             throws IOException {
         for (PDFObject o : objects) {
@@ -1221,9 +1371,18 @@ public class PDFDocument {
         public void outputStructureTreeElements(OutputStream stream)
                 throws IOException {
             assert structureTreeElements.size() > 0;
-            structureTreeObjectStreams = new ObjectStreamManager(PDFDocument.this);
-            for (PDFStructElem structElem : structureTreeElements) {
-                structureTreeObjectStreams.add(structElem);
+            if (streamedStructureTreeObjectStreams != null) {
+                structureTreeObjectStreams = streamedStructureTreeObjectStreams;
+                for (PDFStructElem structElem : structureTreeElements) {
+                    structureTreeObjectStreams.add(structElem);
+                }
+                structureTreeObjectStreams.flush();
+                output(stream);
+            } else {
+                structureTreeObjectStreams = new ObjectStreamManager(PDFDocument.this);
+                for (PDFStructElem structElem : structureTreeElements) {
+                    structureTreeObjectStreams.add(structElem);
+                }
             }
         }
 
@@ -1269,4 +1428,64 @@ public class PDFDocument {
     public void setFormXObjectEnabled(boolean b) {
         formXObjectEnabled = b;
     }
+
+    /**
+     * Indicates whether finished parts of the structure tree are written out as soon as
+     * possible (see {@link #outputStructureTree(PDFStructElem, OutputStream)}). This is never
+     * the case for linearized documents, which can only be written once complete.
+     * @return true if the structure tree is to be streamed
+     */
+    public boolean isStructureTreeStreamingEnabled() {
+        return structureTreeStreamingEnabled && !isLinearizationEnabled();
+    }
+
+    public void setStructureTreeStreamingEnabled(boolean b) {
+        structureTreeStreamingEnabled = b;
+    }
+
+    /**
+     * Enables or disables counting the bytes written for stream objects.
+     * @param b true to count the bytes written per stream class
+     * @see #getStreamByteCounts()
+     */
+    public void setStreamByteCountsEnabled(boolean b) {
+        streamByteCounts = b ? new TreeMap<String, Long>() : null;
+    }
+
+    /**
+     * Returns the number of bytes written so far for stream objects (including the object
+     * header and dictionary), keyed by the simple name of the stream class (for example,
+     * <code>PDFStream</code> for content streams or <code>PDFImageXObject</code>).
+     * @return the byte counts, or null if counting is disabled
+     */
+    public Map<String, Long> getStreamByteCounts() {
+        return streamByteCounts;
+    }
+
+    /**
+     * Sets the executor on which content streams are compressed and, if encryption is active,
+     * encrypted. Objects are still written in order; only the encoding of the streams runs
+     * concurrently.
+     * @param executor the executor, or null to encode each stream while it is written
+     */
+    public void setStreamEncodingExecutor(Executor executor) {
+        this.streamEncodingExecutor = executor;
+    }
+
+    /**
+     * Returns the cache of encoded image XObject streams, which may be shared with other documents.
+     * @return the cache or null if image stream data is not to be cached
+     */
+    public PDFImageXObjectCache getImageXObjectCache() {
+        return imageXObjectCache;
+    }
+
+    /**
+     * Sets a cache of encoded image XObject streams. Image streams are then only encoded once
+     * for all documents that share the cache. The cache is not used while encryption is active.
+     * @param cache the cache or null to disable caching
+     */
+    public void setImageXObjectCache(PDFImageXObjectCache cache) {
+        this.imageXObjectCache = cache;
+    }
 }
@@ -58,6 +58,59 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
 
     private static byte[] ivZero = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
 
+    /*
+     * Obtaining a Cipher from the security providers is expensive, so instances are kept per
+     * thread and only initialized again for each use. Strings and streams use separate instances
+     * as strings (in object streams) are encrypted while a stream is being encrypted.
+     */
+    private static final CipherCache RC4_STRING_CIPHERS = new CipherCache("RC4");
+
+    private static final CipherCache RC4_STREAM_CIPHERS = new CipherCache("RC4");
+
+    private static final CipherCache AES_STRING_CIPHERS = new CipherCache("AES/CBC/PKCS5Padding");
+
+    private static final CipherCache AES_STREAM_CIPHERS = new CipherCache("AES/CBC/PKCS5Padding");
+
+    private static final CipherCache AES_NO_PADDING_CIPHERS = new CipherCache("AES/CBC/NoPadding");
+
+    /** the key of the object that was encrypted last, to share it between its strings and streams */
+    private volatile ObjectKey lastObjectKey;
+
+    private static final class CipherCache extends ThreadLocal<Cipher> {
+
+        private final String transformation;
+
+        CipherCache(String transformation) {
+            this.transformation = transformation;
+        }
+
+        @Override
+        protected Cipher initialValue() {
+            try {
+                return Cipher.getInstance(transformation);
+            } catch (NoSuchAlgorithmException e) {
+                throw new UnsupportedOperationException(e);
+            } catch (NoSuchPaddingException e) {
+                throw new UnsupportedOperationException(e);
+            }
+        }
+    }
+
+    private static final class ObjectKey {
+
+        private final int objectNumber;
+
+        private final int generation;
+
+        private final byte[] key;
+
+        ObjectKey(int objectNumber, int generation, byte[] key) {
+            this.objectNumber = objectNumber;
+            this.generation = generation;
+            this.key = key;
+        }
+    }
+
     private class EncryptionInitializer {
 
         private final PDFEncryptionParams encryptionParams;
@@ -648,18 +701,21 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
             return null;
         }
 
-        /** {@inheritDoc} */
+        /**
+         * {@inheritDoc}
+         * This method may be called on any thread, so streams can be encrypted concurrently.
+         */
         public OutputStream applyFilter(OutputStream out) throws IOException {
             if (useAlgorithm31a) {
                 byte[] iv = new byte[16];
                 random.nextBytes(iv);
-                Cipher cipher = initCipher(encryptionKey, false, iv);
+                Cipher cipher = initCipher(AES_STREAM_CIPHERS.get(), encryptionKey, iv);
                 out.write(iv);
                 out.flush();
                 return new CipherOutputStream(out, cipher);
             } else {
-                byte[] key = createEncryptionKey(streamNumber.getNumber(), streamGeneration);
-                Cipher cipher = initCipher(key);
+                byte[] key = getObjectKey(streamNumber.getNumber(), streamGeneration);
+                Cipher cipher = initCipher(RC4_STREAM_CIPHERS.get(), key);
                 return new CipherOutputStream(out, cipher);
             }
         }
@@ -714,7 +770,7 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
             System.arraycopy(encryptedData, 0, storedData, 16, encryptedData.length);
             return storedData;
         } else {
-            byte[] key = createEncryptionKey(o.getObjectNumber().getNumber(), o.getGeneration());
+            byte[] key = getObjectKey(o.getObjectNumber().getNumber(), o.getGeneration());
             return encryptWithKey(key, data);
         }
     }
@@ -766,39 +822,55 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
     }
 
     private static Cipher initCipher(byte[] key) {
+        return initCipher(RC4_STRING_CIPHERS.get(), key);
+    }
+
+    private static Cipher initCipher(byte[] key, boolean noPadding, byte[] iv) {
+        return initCipher(noPadding ? AES_NO_PADDING_CIPHERS.get() : AES_STRING_CIPHERS.get(), key, iv);
+    }
+
+    private static Cipher initCipher(Cipher cipher, byte[] key) {
         try {
             SecretKeySpec keyspec = new SecretKeySpec(key, "RC4");
-            Cipher cipher = Cipher.getInstance("RC4");
             cipher.init(Cipher.ENCRYPT_MODE, keyspec);
             return cipher;
         } catch (InvalidKeyException e) {
             throw new IllegalStateException(e);
-        } catch (NoSuchAlgorithmException e) {
-            throw new UnsupportedOperationException(e);
-        } catch (NoSuchPaddingException e) {
-            throw new UnsupportedOperationException(e);
         }
     }
 
-    private static Cipher initCipher(byte[] key, boolean noPadding, byte[] iv) {
+    private static Cipher initCipher(Cipher cipher, byte[] key, byte[] iv) {
         try {
             SecretKeySpec skeySpec = new SecretKeySpec(key, "AES");
             IvParameterSpec ivspec = new IvParameterSpec(iv);
-            Cipher cipher = noPadding ? Cipher.getInstance("AES/CBC/NoPadding") : Cipher
-                    .getInstance("AES/CBC/PKCS5Padding");
             cipher.init(Cipher.ENCRYPT_MODE, skeySpec, ivspec);
             return cipher;
         } catch (InvalidKeyException e) {
             throw new IllegalStateException(e);
-        } catch (NoSuchAlgorithmException e) {
-            throw new UnsupportedOperationException(e);
-        } catch (NoSuchPaddingException e) {
-            throw new UnsupportedOperationException(e);
         } catch (InvalidAlgorithmParameterException e) {
             throw new UnsupportedOperationException(e);
         }
     }
 
+    /**
+     * Returns the key to encrypt the strings and streams of an object with. The key of the
+     * object encrypted last is reused, as an object's strings are encrypted one after another.
+     *
+     * @param objectNumber the object number
+     * @param generationNumber the generation number
+     * @return the key to use for encryption
+     */
+    private byte[] getObjectKey(int objectNumber, int generationNumber) {
+        ObjectKey objectKey = lastObjectKey;
+        if (objectKey == null || objectKey.objectNumber != objectNumber
+                || objectKey.generation != generationNumber) {
+            objectKey = new ObjectKey(objectNumber, generationNumber,
+                    createEncryptionKey(objectNumber, generationNumber));
+            lastObjectKey = objectKey;
+        }
+        return objectKey.key;
+    }
+
     /**
      * Applies Algorithm 3.1 from the PDF 1.4 Reference.
      *
@@ -806,7 +878,7 @@ public final class PDFEncryptionJCE extends PDFObject implements PDFEncryption {
      * @param generationNumber the generation number
      * @return the key to use for encryption
      */
-    private byte[] createEncryptionKey(int objectNumber, int generationNumber) {
+    private synchronized byte[] createEncryptionKey(int objectNumber, int generationNumber) {
         // Step 1 passed in
         // Step 2
         byte[] md5Input = prepareMD5Input(objectNumber, generationNumber);
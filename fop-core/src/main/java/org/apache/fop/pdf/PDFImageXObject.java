@@ -21,11 +21,16 @@ package org.apache.fop.pdf;
 
 // Java
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Set;
 import java.util.UUID;
 
+import org.apache.commons.io.output.CountingOutputStream;
+
+import org.apache.fop.util.CloseBlockerOutputStream;
+
 /* modified by JKT to integrate with 0.12.0 */
 /* modified by Eric SCHAEFFER to integrate with 0.13.0 */
 
@@ -153,6 +158,113 @@ public class PDFImageXObject extends PDFXObject {
         pdfimage.outputContents(out);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected StreamCache encodeStream() throws IOException {
+        PDFImageXObjectCache cache = getApplicableCache();
+        if (cache == null) {
+            return super.encodeStream();
+        }
+        String cacheKey = createCacheKey(getDocumentSafely());
+        byte[] data = cache.get(cacheKey);
+        StreamCache encodedStream = StreamCacheFactory.getInstance().createStreamCache(
+                data != null ? data.length : getSizeHint());
+        OutputStream out = encodedStream.getOutputStream();
+        if (data != null) {
+            out.write(data);
+            out.close();
+        } else {
+            encodeAndCache(out, cache, cacheKey);
+        }
+        return encodedStream;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected int encodeAndWriteStream(OutputStream out, PDFNumber refLength) throws IOException {
+        PDFImageXObjectCache cache = getApplicableCache();
+        if (cache == null) {
+            return super.encodeAndWriteStream(out, refLength);
+        }
+        String cacheKey = createCacheKey(getDocumentSafely());
+        byte[] data = cache.get(cacheKey);
+        int bytesWritten = 0;
+        byte[] buf = encode("\nstream\n");
+        out.write(buf);
+        bytesWritten += buf.length;
+        int length;
+        if (data != null) {
+            out.write(data);
+            length = data.length;
+        } else {
+            CountingOutputStream cout = new CountingOutputStream(new CloseBlockerOutputStream(out));
+            encodeAndCache(cout, cache, cacheKey);
+            length = cout.getCount();
+        }
+        refLength.setNumber(length);
+        bytesWritten += length;
+        buf = encode("\nendstream");
+        out.write(buf);
+        bytesWritten += buf.length;
+        return bytesWritten;
+    }
+
+    /**
+     * Returns the document's image XObject cache if it applies to this image.
+     * @return the cache or null
+     */
+    private PDFImageXObjectCache getApplicableCache() {
+        PDFDocument doc = getDocumentSafely();
+        PDFImageXObjectCache cache = doc.getImageXObjectCache();
+        if (cache == null || pdfimage.getKey() == null || doc.isEncryptionActive()) {
+            return null;
+        }
+        return cache;
+    }
+
+    /**
+     * Encodes the stream data straight to the given stream and adds a copy of the encoded
+     * data to the cache. The copy is dropped as soon as it grows beyond the cache's capacity,
+     * so images too large to be cached are not held in memory.
+     * @param out the stream to write the encoded data to (closed afterwards)
+     * @param cache the cache
+     * @param cacheKey the key of the stream data
+     * @throws IOException in case of an I/O problem
+     */
+    private void encodeAndCache(OutputStream out, PDFImageXObjectCache cache, String cacheKey)
+            throws IOException {
+        CapturingOutputStream capture = new CapturingOutputStream(out, cache.getMaxBytes());
+        OutputStream filteredOutput = getFilterList().applyFilters(capture);
+        outputRawStreamData(filteredOutput);
+        filteredOutput.close();
+        byte[] data = capture.getCapturedData();
+        if (data != null) {
+            cache.put(cacheKey, data);
+        }
+    }
+
+    /**
+     * Builds the cache key from the image key (normally its URI) and all settings that
+     * influence the encoded stream data.
+     */
+    private String createCacheKey(PDFDocument doc) {
+        StringBuilder sb = new StringBuilder(pdfimage.getKey());
+        sb.append('|').append(pdfimage.getClass().getName());
+        if (!pdfimage.isPS()) {
+            sb.append('|').append(pdfimage.getWidth()).append('x').append(pdfimage.getHeight());
+            sb.append('|').append(pdfimage.getBitsPerComponent());
+            PDFDeviceColorSpace cs = pdfimage.getColorSpace();
+            sb.append('|').append(cs != null ? cs.getName() : null);
+            sb.append('|').append(pdfimage.getICCStream() != null);
+        }
+        PDFFilter implicitFilter = pdfimage.getPDFFilter();
+        sb.append('|').append(implicitFilter != null ? implicitFilter.getName() : null);
+        sb.append('|').append(pdfimage.getFilterHint());
+        sb.append('|').append(pdfimage.multipleFiltersAllowed());
+        sb.append('|').append(doc.getFilterMap().get(getDefaultFilterName()));
+        return sb.toString();
+    }
+
     /** {@inheritDoc} */
     protected int getSizeHint() throws IOException {
         return 0;
@@ -189,4 +301,48 @@ public class PDFImageXObject extends PDFXObject {
         }
     }
 
+    /**
+     * Passes the data written to it on and keeps a copy of it as long as it doesn't exceed
+     * a given number of bytes.
+     */
+    private static final class CapturingOutputStream extends FilterOutputStream {
+
+        private final long maxBytes;
+
+        /** the copy of the data, or null if the data exceeded the limit */
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        CapturingOutputStream(OutputStream out, long maxBytes) {
+            super(out);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (canCapture(1)) {
+                copy.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (canCapture(len)) {
+                copy.write(b, off, len);
+            }
+        }
+
+        private boolean canCapture(int len) {
+            if (copy != null && copy.size() + (long) len > maxBytes) {
+                copy = null;
+            }
+            return copy != null;
+        }
+
+        /** @return the data written to the stream, or null if it exceeded the limit */
+        byte[] getCapturedData() {
+            return copy != null ? copy.toByteArray() : null;
+        }
+    }
 }
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A byte-bounded, least-recently-used cache of encoded (filtered) image XObject stream data.
+ * An instance is meant to be shared between many {@link PDFDocument}s (for example, by all
+ * documents produced by the same <code>FopFactory</code>), so that frequently used images such
+ * as logos and signatures are only encoded once and can afterwards be copied into each document
+ * as is.
+ * <p>
+ * This class is thread-safe.
+ */
+public class PDFImageXObjectCache {
+
+    private final long maxBytes;
+
+    private final Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+
+    private long currentBytes;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    /**
+     * Creates a new cache.
+     * @param maxBytes the maximum number of stream bytes held by the cache
+     */
+    public PDFImageXObjectCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be greater than 0: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cached stream data for the given key.
+     * @param key the cache key
+     * @return the encoded stream data or null if there is no such entry
+     */
+    public synchronized byte[] get(String key) {
+        byte[] data = entries.get(key);
+        if (data != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return data;
+    }
+
+    /**
+     * Adds encoded stream data to the cache, evicting least recently used entries if
+     * necessary. Data larger than the cache's capacity is not cached.
+     * @param key the cache key
+     * @param data the encoded stream data (must not be modified afterwards)
+     */
+    public synchronized void put(String key, byte[] data) {
+        if (data.length > maxBytes) {
+            return;
+        }
+        byte[] old = entries.put(key, data);
+        if (old != null) {
+            currentBytes -= old.length;
+        }
+        currentBytes += data.length;
+        Iterator<byte[]> iter = entries.values().iterator();
+        while (currentBytes > maxBytes && iter.hasNext()) {
+            byte[] eldest = iter.next();
+            if (eldest == data) {
+                continue;
+            }
+            iter.remove();
+            currentBytes -= eldest.length;
+            evictions++;
+        }
+    }
+
+    /** Removes all entries from the cache. */
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    /** @return the maximum number of bytes held by the cache */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /** @return the number of bytes currently held by the cache */
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    /** @return the number of entries currently held by the cache */
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    /** @return the number of cache hits */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    /** @return the number of cache misses */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    /** @return the number of entries evicted because of the byte budget */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+    /** {@inheritDoc} */
+    public synchronized String toString() {
+        return "PDFImageXObjectCache[entries=" + entries.size() + ", bytes=" + currentBytes
+                + "/" + maxBytes + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + "]";
+    }
+}
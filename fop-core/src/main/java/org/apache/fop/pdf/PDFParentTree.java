@@ -19,6 +19,11 @@
 
 package org.apache.fop.pdf;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.commons.io.output.CountingOutputStream;
+
 /**
  * Class representing a PDF /ParentTree.
  */
@@ -26,7 +31,21 @@ public class PDFParentTree extends PDFNumberTreeNode {
 
     private static final int MAX_NUMS_ARRAY_SIZE = 50;
 
+    private final boolean storeObjectNumbers;
+
     public PDFParentTree() {
+        this(false);
+    }
+
+    /**
+     * Creates a new parent tree.
+     *
+     * @param storeObjectNumbers true if only the object numbers of the values are to be kept
+     * rather than the values themselves, so that the structure elements and arrays they refer to
+     * can be released once written. All values must then be indirect objects.
+     */
+    public PDFParentTree(boolean storeObjectNumbers) {
+        this.storeObjectNumbers = storeObjectNumbers;
         put("Kids", new PDFArray());
     }
 
@@ -40,7 +59,9 @@ public class PDFParentTree extends PDFNumberTreeNode {
     private void setNumOfKidsArrays(int numKids) {
         for (int i = getKids().length(); i < numKids; i++) {
             PDFNumberTreeNode newArray = new PDFNumberTreeNode();
-            newArray.setNums(new PDFNumsArray(newArray));
+            newArray.setNums(storeObjectNumbers
+                    ? new ObjectNumbersNumsArray(newArray, i * MAX_NUMS_ARRAY_SIZE)
+                    : new PDFNumsArray(newArray));
             newArray.setLowerLimit(i * MAX_NUMS_ARRAY_SIZE);
             newArray.setUpperLimit(i * MAX_NUMS_ARRAY_SIZE);
             addKid(newArray);
@@ -63,8 +84,69 @@ public class PDFParentTree extends PDFNumberTreeNode {
         PDFNumberTreeNode numsArray = (PDFNumberTreeNode) getKids().get(array);
         numsArray.addToNums(num, object);
     }
-}
 
+    /**
+     * A Nums array for the keys of a single kid of the parent tree that only holds the object
+     * numbers of its values, indexed by key.
+     */
+    private static final class ObjectNumbersNumsArray extends PDFNumsArray {
+
+        private final int lowerLimit;
 
+        private final PDFObjectNumber[] objectNumbers = new PDFObjectNumber[MAX_NUMS_ARRAY_SIZE];
 
+        private int length;
 
+        ObjectNumbersNumsArray(PDFObject parent, int lowerLimit) {
+            super(parent);
+            this.lowerLimit = lowerLimit;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public void put(Integer key, Object obj) {
+            if (!(obj instanceof PDFObject) || !((PDFObject) obj).hasObjectNumber()) {
+                throw new IllegalArgumentException("Not an indirect object: " + obj);
+            }
+            int index = key - lowerLimit;
+            if (objectNumbers[index] == null) {
+                length++;
+            }
+            objectNumbers[index] = ((PDFObject) obj).getObjectNumber();
+        }
+
+        @Override
+        public Object get(Integer key) {
+            int index = key - lowerLimit;
+            if (index < 0 || index >= MAX_NUMS_ARRAY_SIZE || objectNumbers[index] == null) {
+                return null;
+            }
+            return new PDFReference(objectNumbers[index] + " 0 R");
+        }
+
+        @Override
+        public int output(OutputStream stream) throws IOException {
+            CountingOutputStream cout = new CountingOutputStream(stream);
+            StringBuilder textBuffer = new StringBuilder(64);
+            textBuffer.append('[');
+            boolean first = true;
+            for (int i = 0; i < MAX_NUMS_ARRAY_SIZE; i++) {
+                if (objectNumbers[i] != null) {
+                    if (!first) {
+                        textBuffer.append(" ");
+                    }
+                    first = false;
+                    //Objects of a new document always have generation 0
+                    textBuffer.append(lowerLimit + i).append(' ').append(objectNumbers[i]).append(" 0 R");
+                }
+            }
+            textBuffer.append(']');
+            PDFDocument.flushTextBuffer(textBuffer, cout);
+            return cout.getCount();
+        }
+    }
+}
@@ -22,7 +22,6 @@ package org.apache.fop.pdf;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -42,8 +41,12 @@ public class PDFStream extends AbstractPDFStream {
      */
     protected StreamCache data;
 
+    /** content added but not yet written to the stream cache */
+    private transient PDFContentBuffer pending;
     private transient Writer streamWriter;
-    private transient char[] charBuffer;
+
+    /** pending content is written to the stream cache once it exceeds this size */
+    private static final int PENDING_FLUSH_SIZE = 8192;
 
     /**
      * Create an empty stream object
@@ -70,13 +73,39 @@ public class PDFStream extends AbstractPDFStream {
     private void setUp() {
         try {
             data = StreamCacheFactory.getInstance().createStreamCache();
-            this.streamWriter = new OutputStreamWriter(
-                    getBufferOutputStream(), PDFDocument.ENCODING);
-            //Buffer to minimize calls to the converter
-            this.streamWriter = new java.io.BufferedWriter(this.streamWriter);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        //Content is single-byte, so it is buffered as bytes rather than being passed through
+        //a character encoder
+        this.pending = new PDFContentBuffer(256);
+        this.streamWriter = new Writer() {
+            public void write(int c) {
+                add((char) c);
+            }
+
+            public void write(char[] cbuf, int off, int len) {
+                for (int i = 0; i < len; i++) {
+                    pending.append(cbuf[off + i]);
+                }
+                maybeFlush();
+            }
+
+            public void write(String str, int off, int len) {
+                for (int i = 0; i < len; i++) {
+                    pending.append(str.charAt(off + i));
+                }
+                maybeFlush();
+            }
+
+            public void flush() throws IOException {
+                PDFStream.this.flush();
+            }
+
+            public void close() throws IOException {
+                PDFStream.this.flush();
+            }
+        };
     }
 
     /**
@@ -85,12 +114,8 @@ public class PDFStream extends AbstractPDFStream {
      * @param s the string of PDF to add
      */
     public void add(String s) {
-        try {
-            this.streamWriter.write(s);
-        } catch (IOException ex) {
-            //TODO throw the exception and catch it elsewhere
-            ex.printStackTrace();
-        }
+        pending.append(s);
+        maybeFlush();
     }
 
     /**
@@ -99,30 +124,51 @@ public class PDFStream extends AbstractPDFStream {
      * @param sb the string buffer of PDF to add
      */
     public void add(StringBuffer sb) {
-        try {
-            int nHave = sb.length();
-            if (charBuffer == null) {
-                charBuffer = new char [ nHave * 2 ];
-            } else {
-                int nAvail = charBuffer.length;
-                if (nAvail < nHave) {
-                    int nAlloc = nAvail;
-                    while (nAlloc < nHave) {
-                        nAlloc *= 2;
-                    }
-                    charBuffer = new char [ nAlloc ];
-                }
+        pending.append(sb);
+        maybeFlush();
+    }
+
+    /**
+     * Append data to the stream
+     *
+     * @param content the content buffer of PDF to add
+     */
+    public void add(PDFContentBuffer content) {
+        pending.append(content);
+        maybeFlush();
+    }
+
+    /**
+     * Append the contents of another stream to the stream
+     *
+     * @param stream the stream whose contents are added
+     * @throws IOException in case of an I/O problem
+     */
+    public void add(PDFStream stream) throws IOException {
+        stream.outputRawStreamData(getBufferOutputStream());
+    }
+
+    private void add(char c) {
+        pending.append(c);
+        maybeFlush();
+    }
+
+    private void maybeFlush() {
+        if (pending.length() >= PENDING_FLUSH_SIZE) {
+            try {
+                flush();
+            } catch (IOException ex) {
+                //TODO throw the exception and catch it elsewhere
+                ex.printStackTrace();
             }
-            sb.getChars(0, nHave, charBuffer, 0);
-            this.streamWriter.write(charBuffer, 0, nHave);
-        } catch (IOException ex) {
-            //TODO throw the exception and catch it elsewhere
-            ex.printStackTrace();
         }
     }
 
     private void flush() throws IOException {
-        this.streamWriter.flush();
+        if (pending.length() > 0) {
+            pending.writeTo(this.data.getOutputStream());
+            pending.reset();
+        }
     }
 
     /**
@@ -140,9 +186,7 @@ public class PDFStream extends AbstractPDFStream {
      * @throws IOException In case of an I/O problem
      */
     public OutputStream getBufferOutputStream() throws IOException {
-        if (this.streamWriter != null) {
-            flush(); //Just to be sure
-        }
+        flush(); //Just to be sure
         return this.data.getOutputStream();
     }
 
@@ -249,6 +249,18 @@ public class PDFStructElem extends StructureHierarchyMember
         return this.kids;
     }
 
+    /**
+     * Drops the kids and attributes of this element once it has been written out, so that a
+     * subtree written ahead of the trailer can be garbage collected even while the root of the
+     * subtree is still referenced by its parent.
+     */
+    protected void releaseContent() {
+        kids = null;
+        attributes = null;
+        remove("K");
+        remove("A");
+    }
+
     public int output(OutputStream stream) throws IOException {
         if (getDocument() != null && getDocument().getProfile().getPDFUAMode().isEnabled()) {
             if (entries.containsKey("Alt") && "".equals(get("Alt"))) {
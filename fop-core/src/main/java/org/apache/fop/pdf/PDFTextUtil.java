@@ -52,7 +52,10 @@ public abstract class PDFTextUtil {
     private String endText;
     private boolean useMultiByte;
     private boolean useCid;
-    private StringBuffer bufTJ;
+    private PDFContentBuffer bufTJ;
+    /** reusable buffer for single operators */
+    private final PDFContentBuffer opBuffer = new PDFContentBuffer();
+    private final double[] matrix = new double[6];
     private int textRenderingMode = TR_FILL;
 
     private String currentFontName;
@@ -77,26 +80,32 @@ public abstract class PDFTextUtil {
      */
     protected abstract void write(StringBuffer code);
 
-    private void writeAffineTransform(AffineTransform at, StringBuffer sb) {
-        double[] lt = new double[6];
+    /**
+     * Writes PDF code. Subclasses writing to a {@link PDFStream} should override this method
+     * to pass the bytes on directly; the default implementation converts them to a string.
+     * The buffer is reused after this method returns.
+     * @param code the PDF code to write
+     */
+    protected void write(PDFContentBuffer code) {
+        write(code.toString());
+    }
+
+    private void writeAffineTransform(AffineTransform at, PDFContentBuffer sb) {
+        double[] lt = matrix;
         at.getMatrix(lt);
-        PDFNumber.doubleOut(lt[0], DEC, sb);
-        sb.append(' ');
-        PDFNumber.doubleOut(lt[1], DEC, sb);
-        sb.append(' ');
-        PDFNumber.doubleOut(lt[2], DEC, sb);
-        sb.append(' ');
-        PDFNumber.doubleOut(lt[3], DEC, sb);
-        sb.append(' ');
-        PDFNumber.doubleOut(lt[4], DEC, sb);
-        sb.append(' ');
-        PDFNumber.doubleOut(lt[5], DEC, sb);
+        sb.appendDouble(lt[0], DEC).append(' ');
+        sb.appendDouble(lt[1], DEC).append(' ');
+        sb.appendDouble(lt[2], DEC).append(' ');
+        sb.appendDouble(lt[3], DEC).append(' ');
+        sb.appendDouble(lt[4], DEC).append(' ');
+        sb.appendDouble(lt[5], DEC);
     }
 
-    private static void writeChar(int codePoint, StringBuffer sb, boolean multibyte, boolean cid) {
+    private static void writeChar(int codePoint, PDFContentBuffer sb, boolean multibyte,
+            boolean cid) {
         if (!multibyte) {
             if (cid || codePoint < 32 || codePoint > 127) {
-                sb.append("\\").append(Integer.toOctalString(codePoint));
+                sb.appendOctalEscape(codePoint);
             } else {
                 switch (codePoint) {
                 case '(':
@@ -106,17 +115,22 @@ public abstract class PDFTextUtil {
                     break;
                 default:
                 }
-                sb.appendCodePoint(codePoint);
+                sb.append((char) codePoint);
             }
         } else {
-            PDFText.toUnicodeHex(codePoint, sb);
+            sb.appendUnicodeHex(codePoint);
         }
     }
 
-    private void writeChar(int codePoint, StringBuffer sb) {
+    private void writeChar(int codePoint, PDFContentBuffer sb) {
         writeChar(codePoint, sb, useMultiByte, useCid);
     }
 
+    private PDFContentBuffer startOperator() {
+        opBuffer.reset();
+        return opBuffer;
+    }
+
     private void checkInTextObject() {
         if (!inTextObject) {
             throw new IllegalStateException("Not in text object");
@@ -169,7 +183,7 @@ public abstract class PDFTextUtil {
     public void concatMatrix(AffineTransform at) {
         if (!at.isIdentity()) {
             writeTJ();
-            StringBuffer sb = new StringBuffer();
+            PDFContentBuffer sb = startOperator();
             writeAffineTransform(at, sb);
             sb.append(" cm\n");
             write(sb);
@@ -183,11 +197,11 @@ public abstract class PDFTextUtil {
      */
     public void writeTf(String fontName, double fontSize) {
         checkInTextObject();
-        StringBuffer sb = new StringBuffer();
+        PDFContentBuffer sb = startOperator();
         sb.append('/');
         sb.append(fontName);
         sb.append(' ');
-        PDFNumber.doubleOut(fontSize, 6, sb);
+        sb.appendDouble(fontSize, 6);
         sb.append(" Tf\n");
         write(sb);
         this.startText = useMultiByte ? "<" : "(";
@@ -224,7 +238,7 @@ public abstract class PDFTextUtil {
         if (mode != this.textRenderingMode) {
             writeTJ();
             this.textRenderingMode = mode;
-            write(this.textRenderingMode + " Tr\n");
+            write(startOperator().append(mode).append(" Tr\n"));
         }
     }
 
@@ -252,7 +266,7 @@ public abstract class PDFTextUtil {
      * @param localTransform the new text transformation matrix
      */
     public void writeTextMatrix(AffineTransform localTransform) {
-        StringBuffer sb = new StringBuffer();
+        PDFContentBuffer sb = startOperator();
         writeAffineTransform(localTransform, sb);
         sb.append(" Tm ");
         write(sb);
@@ -272,7 +286,7 @@ public abstract class PDFTextUtil {
      */
     public void writeTJMappedCodePoint(int codePoint) {
         if (bufTJ == null) {
-            bufTJ = new StringBuffer();
+            bufTJ = new PDFContentBuffer(256);
         }
         if (bufTJ.length() == 0) {
             bufTJ.append('[');
@@ -300,7 +314,7 @@ public abstract class PDFTextUtil {
      */
     public void adjustGlyphTJ(double adjust) {
         if (bufTJ == null) {
-            bufTJ = new StringBuffer();
+            bufTJ = new PDFContentBuffer(256);
         }
         if (bufTJ.length() == 0) {
             bufTJ.append('[');
@@ -308,7 +322,7 @@ public abstract class PDFTextUtil {
             bufTJ.append(endText);
             bufTJ.append(' ');
         }
-        PDFNumber.doubleOut(adjust, DEC - 4, bufTJ);
+        bufTJ.appendDouble(adjust, DEC - 4);
         bufTJ.append(' ');
         bufTJ.append(startText);
     }
@@ -322,7 +336,7 @@ public abstract class PDFTextUtil {
             bufTJ.append(endText);
             bufTJ.append("] TJ\n");
             write(bufTJ);
-            bufTJ.setLength(0);
+            bufTJ.reset();
         }
     }
 
@@ -336,10 +350,10 @@ public abstract class PDFTextUtil {
      * @param y coordinate
      */
     public void writeTd(double x, double y) {
-        StringBuffer sb = new StringBuffer();
-        PDFNumber.doubleOut(x, DEC, sb);
+        PDFContentBuffer sb = startOperator();
+        sb.appendDouble(x, DEC);
         sb.append(' ');
-        PDFNumber.doubleOut(y, DEC, sb);
+        sb.appendDouble(y, DEC);
         sb.append(" Td\n");
         write(sb);
     }
@@ -349,7 +363,7 @@ public abstract class PDFTextUtil {
      * @param ch character code to write
      */
     public void writeTj(int ch, boolean multibyte, boolean cid) {
-        StringBuffer sb = new StringBuffer();
+        PDFContentBuffer sb = startOperator();
         sb.append(startText);
         writeChar(ch, sb, multibyte, cid);
         sb.append(endText);
@@ -232,6 +232,19 @@ public abstract class AbstractRenderer
         return false;
     }
 
+    /**
+     * Reports if page numbers that are not resolved yet can be painted as placeholders whose
+     * text is only supplied at the end of the document. If so, pages that only wait for such
+     * page numbers don't need to be held back (see
+     * {@link org.apache.fop.apps.FOUserAgent#setPageNumberPlaceholders(boolean)}).
+     * Default: False.
+     *
+     * @return   True if the renderer supports page number placeholders
+     */
+    public boolean supportsPageNumberPlaceholders() {
+        return false;
+    }
+
     /** {@inheritDoc} */
     public void setDocumentLocale(Locale locale) {
     }
@@ -45,6 +45,7 @@ import org.apache.xmlgraphics.image.loader.util.ImageUtil;
 
 import org.apache.fop.ResourceEventProducer;
 import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.RenderingProfiler;
 import org.apache.fop.fo.Constants;
 import org.apache.fop.fonts.Font;
 import org.apache.fop.fonts.FontInfo;
@@ -160,9 +161,14 @@ public abstract class AbstractIFPainter<T extends IFDocumentHandler> implements
 
         ImageFlavor[] flavors = imageHandlerRegistry.getSupportedFlavors(context);
         info.getCustomObjects().put("warningincustomobject", true);
-        org.apache.xmlgraphics.image.loader.Image img = manager.getImage(
-                    info, flavors,
-                    hints, sessionContext);
+        RenderingProfiler profiler = RenderingProfiler.getInstance(getUserAgent());
+        long start = profiler.startTimer();
+        org.apache.xmlgraphics.image.loader.Image img;
+        try {
+            img = manager.getImage(info, flavors, hints, sessionContext);
+        } finally {
+            profiler.stopTimer(RenderingProfiler.Phase.IMAGE_LOADING, start);
+        }
 
         if (info.getCustomObjects().get("warning") != null) {
             ResourceEventProducer eventProducer = ResourceEventProducer.Provider.get(
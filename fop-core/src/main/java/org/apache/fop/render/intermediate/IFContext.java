@@ -56,6 +56,8 @@ public class IFContext implements PageIndexContext {
 
     private boolean hyphenated;
 
+    private String pageNumberPlaceholder;
+
     private int pageIndex = -1;
 
     private int pageNumber = -1;
@@ -223,6 +225,24 @@ public class IFContext implements PageIndexContext {
         return hyphenated;
     }
 
+    /**
+     * Records that the text painted next is the placeholder for a page number that is not
+     * known yet. Painters of document handlers implementing {@link IFPageNumberPlaceholderHandler}
+     * then paint a reference to the placeholder instead of the text.
+     * @param key the key identifying the page number, or null if regular text is painted
+     */
+    public void setPageNumberPlaceholder(String key) {
+        this.pageNumberPlaceholder = key;
+    }
+
+    /**
+     * Returns the key of the page number placeholder to be painted instead of the next text.
+     * @return the key of the page number, or null if regular text is painted
+     */
+    public String getPageNumberPlaceholder() {
+        return pageNumberPlaceholder;
+    }
+
     /**
      * Record current page index.
      * @param pageIndex a zero based page index or -1 (no page)
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.intermediate;
+
+/**
+ * Interface to handle page number placeholders. This is an optional interface for document
+ * handler implementations which can paint page numbers before they are known, for example
+ * in "page N of M" footers: a reference to a shared placeholder object is painted on the page
+ * (see {@link IFContext#setPageNumberPlaceholder(String)}), and the page number itself is
+ * written into the placeholder at the end of the document.
+ */
+public interface IFPageNumberPlaceholderHandler {
+
+    /**
+     * Indicates whether page number placeholders can be used with the current settings.
+     * @return true if page number placeholders are supported
+     */
+    boolean supportsPageNumberPlaceholders();
+
+    /**
+     * Supplies the text of a page number placeholder. This is called once for each key
+     * after the last page has been painted and before the document trailer is started.
+     * @param key the key identifying the page number
+     * @param text the page number (an empty string if the page number could not be resolved)
+     * @throws IFException if an error occurs while handling this event
+     */
+    void fillPageNumberPlaceholder(String key, String text) throws IFException;
+
+}
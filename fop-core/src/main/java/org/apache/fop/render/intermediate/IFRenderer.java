@@ -28,6 +28,7 @@ import java.awt.geom.Rectangle2D;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -77,6 +78,7 @@ import org.apache.fop.area.inline.InlineViewport;
 import org.apache.fop.area.inline.Leader;
 import org.apache.fop.area.inline.SpaceArea;
 import org.apache.fop.area.inline.TextArea;
+import org.apache.fop.area.inline.UnresolvedPageNumber;
 import org.apache.fop.area.inline.WordArea;
 import org.apache.fop.datatypes.URISpecification;
 import org.apache.fop.fo.extensions.ExtensionAttachment;
@@ -157,6 +159,10 @@ public class IFRenderer extends AbstractPathOrientedRenderer {
 
     private Stack<String> ids = new Stack<String>();
 
+    /** Maps page number placeholder keys to one of the page number areas painted for them */
+    private Map<String, UnresolvedPageNumber> pageNumberPlaceholders
+            = new LinkedHashMap<String, UnresolvedPageNumber>();
+
     /**
      * Main constructor
      *
@@ -211,6 +217,14 @@ public class IFRenderer extends AbstractPathOrientedRenderer {
                 ? this.documentHandler.supportsPagesOutOfOrder() : false);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public boolean supportsPageNumberPlaceholders() {
+        return this.documentHandler instanceof IFPageNumberPlaceholderHandler
+                && ((IFPageNumberPlaceholderHandler) this.documentHandler)
+                        .supportsPageNumberPlaceholders();
+    }
+
     /**
      * Returns the document navigation handler if available/supported.
      * @return the document navigation handler or null if not supported
@@ -274,6 +288,7 @@ public class IFRenderer extends AbstractPathOrientedRenderer {
                 documentHandler.endPageSequence();
                 this.inPageSequence = false;
             }
+            fillPageNumberPlaceholders();
             documentHandler.startDocumentTrailer();
 
             //Wrap up document navigation
@@ -303,6 +318,15 @@ public class IFRenderer extends AbstractPathOrientedRenderer {
         log.debug("Rendering finished.");
     }
 
+    private void fillPageNumberPlaceholders() throws IFException {
+        for (Map.Entry<String, UnresolvedPageNumber> entry : pageNumberPlaceholders.entrySet()) {
+            UnresolvedPageNumber pageNumber = entry.getValue();
+            ((IFPageNumberPlaceholderHandler) documentHandler).fillPageNumberPlaceholder(
+                    entry.getKey(), pageNumber.isResolved() ? pageNumber.getText() : "");
+        }
+        pageNumberPlaceholders.clear();
+    }
+
     @Override
     public void setDocumentLocale(Locale locale) {
         documentHandler.setDocumentLocale(locale);
@@ -1064,7 +1088,11 @@ public class IFRenderer extends AbstractPathOrientedRenderer {
         textUtil.setStartPosition(rx, bl);
         textUtil.setSpacing(text.getTextLetterSpaceAdjust(), text.getTextWordSpaceAdjust());
         documentHandler.getContext().setHyphenated(text.isHyphenated());
-        super.renderText(text);
+        if (isPageNumberPlaceholder(text)) {
+            renderPageNumberPlaceholder((UnresolvedPageNumber) text, rx, bl);
+        } else {
+            super.renderText(text);
+        }
 
         textUtil.flush();
         renderTextDecoration(tf, size, text, bl, rx);
@@ -1072,6 +1100,32 @@ public class IFRenderer extends AbstractPathOrientedRenderer {
         resetStructurePointer();
     }
 
+    private boolean isPageNumberPlaceholder(TextArea text) {
+        if (text instanceof UnresolvedPageNumber) {
+            UnresolvedPageNumber pageNumber = (UnresolvedPageNumber) text;
+            return !pageNumber.isResolved() && pageNumber.isPlaceholder()
+                    && supportsPageNumberPlaceholders();
+        }
+        return false;
+    }
+
+    private void renderPageNumberPlaceholder(UnresolvedPageNumber pageNumber, int x, int y) {
+        String key = (pageNumber.getReferenceType() == UnresolvedPageNumber.FIRST ? "first:" : "last:")
+                + pageNumber.getIDRefs()[0];
+        if (!pageNumberPlaceholders.containsKey(key)) {
+            pageNumberPlaceholders.put(key, pageNumber);
+        }
+        IFContext context = documentHandler.getContext();
+        context.setPageNumberPlaceholder(key);
+        try {
+            painter.drawText(x, y, 0, 0, null, pageNumber.getText());
+        } catch (IFException e) {
+            handleIFException(e);
+        } finally {
+            context.setPageNumberPlaceholder(null);
+        }
+    }
+
     /** {@inheritDoc} */
     protected void renderWord(WordArea word) {
         Font font = getFontFromArea(word.getParentArea());
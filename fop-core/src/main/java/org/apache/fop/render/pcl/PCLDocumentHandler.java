@@ -121,6 +121,10 @@ public class PCLDocumentHandler extends AbstractBinaryWritingIFDocumentHandler
         return this.pclUtil;
     }
 
+    PCLPageDefinition getCurrentPageDefinition() {
+        return this.currentPageDefinition;
+    }
+
     PCLGenerator getPCLGenerator() {
         return this.gen;
     }
@@ -44,6 +44,7 @@ import org.apache.xmlgraphics.image.loader.impl.ImageGraphics2D;
 import org.apache.xmlgraphics.java2d.GraphicContext;
 import org.apache.xmlgraphics.java2d.Graphics2DImagePainter;
 
+import org.apache.fop.fo.Constants;
 import org.apache.fop.fonts.CIDFontType;
 import org.apache.fop.fonts.Font;
 import org.apache.fop.fonts.FontTriplet;
@@ -221,37 +222,55 @@ public class PCLPainter extends AbstractIFPainter<PCLDocumentHandler> implements
     /** {@inheritDoc} */
     public void drawBorderRect(final Rectangle rect,
             final BorderProps top, final BorderProps bottom,
-            final BorderProps left, final BorderProps right) throws IFException {
+            final BorderProps left, final BorderProps right, Color innerBackgroundColor) throws IFException {
         if (isSpeedOptimized()) {
-            super.drawBorderRect(rect, top, bottom, left, right, null);
+            super.drawBorderRect(rect, top, bottom, left, right, innerBackgroundColor);
+            return;
+        }
+        if (canFillBorders(top, bottom, left, right)) {
+            fillBorders(rect, top, bottom, left, right);
             return;
         }
         if (top != null || bottom != null || left != null || right != null) {
-            final Rectangle boundingBox = rect;
-            final Dimension dim = boundingBox.getSize();
+            paintBordersAsBitmap(rect, top, bottom, left, right);
+        }
+    }
 
-            Graphics2DImagePainter painter = new Graphics2DImagePainter() {
+    /**
+     * Paints borders through Java2D and sends them as a bitmap.
+     * @param rect the rectangle's coordinates and extent
+     * @param top the border segment on the top edge
+     * @param bottom the border segment on the bottom edge
+     * @param left the border segment on the left edge
+     * @param right the border segment on the right edge
+     * @throws IFException if an error occurs while painting the borders
+     */
+    void paintBordersAsBitmap(final Rectangle rect,
+            final BorderProps top, final BorderProps bottom,
+            final BorderProps left, final BorderProps right) throws IFException {
+        final Dimension dim = rect.getSize();
 
-                public void paint(Graphics2D g2d, Rectangle2D area) {
-                    g2d.translate(-rect.x, -rect.y);
+        Graphics2DImagePainter painter = new Graphics2DImagePainter() {
 
-                    Java2DPainter painter = new Java2DPainter(g2d,
-                            getContext(), getFontInfo(), state);
-                    try {
-                        painter.drawBorderRect(rect, top, bottom, left, right);
-                    } catch (IFException e) {
-                        //This should never happen with the Java2DPainter
-                        throw new RuntimeException("Unexpected error while painting borders", e);
-                    }
-                }
+            public void paint(Graphics2D g2d, Rectangle2D area) {
+                g2d.translate(-rect.x, -rect.y);
 
-                public Dimension getImageSize() {
-                    return dim.getSize();
+                Java2DPainter painter = new Java2DPainter(g2d,
+                        getContext(), getFontInfo(), state);
+                try {
+                    painter.drawBorderRect(rect, top, bottom, left, right);
+                } catch (IFException e) {
+                    //This should never happen with the Java2DPainter
+                    throw new RuntimeException("Unexpected error while painting borders", e);
                 }
+            }
 
-            };
-            paintMarksAsBitmap(painter, boundingBox);
-        }
+            public Dimension getImageSize() {
+                return dim.getSize();
+            }
+
+        };
+        paintMarksAsBitmap(painter, rect);
     }
 
     /** {@inheritDoc} */
@@ -262,6 +281,24 @@ public class PCLPainter extends AbstractIFPainter<PCLDocumentHandler> implements
             super.drawLine(start, end, width, color, style);
             return;
         }
+        if (fillRule(start, end, width, color, style)) {
+            return;
+        }
+        paintLineAsBitmap(start, end, width, color, style);
+    }
+
+    /**
+     * Paints a line through Java2D and sends it as a bitmap.
+     * @param start the start point of the line
+     * @param end the end point of the line
+     * @param width the line's thickness
+     * @param color the line's color
+     * @param style the line's style
+     * @throws IFException if an error occurs while painting the line
+     */
+    void paintLineAsBitmap(final Point start, final Point end,
+                final int width, final Color color, final RuleStyle style)
+            throws IFException {
         final Rectangle boundingBox = getLineBoundingBox(start, end, width);
         final Dimension dim = boundingBox.getSize();
 
@@ -288,6 +325,113 @@ public class PCLPainter extends AbstractIFPainter<PCLDocumentHandler> implements
         paintMarksAsBitmap(painter, boundingBox);
     }
 
+    /**
+     * Indicates whether the given border segments can be painted with PCL's rectangle fill
+     * without changing their appearance, i.e. they are solid, have square corners and share a
+     * single color so it doesn't matter how the segments meet at the corners.
+     * @param top the border segment on the top edge
+     * @param bottom the border segment on the bottom edge
+     * @param left the border segment on the left edge
+     * @param right the border segment on the right edge
+     * @return true if the borders can be painted as filled rectangles
+     */
+    private boolean canFillBorders(BorderProps top, BorderProps bottom,
+            BorderProps left, BorderProps right) {
+        if (!hasOnlySolidBorders(top, bottom, left, right)) {
+            return false;
+        }
+        Color color = null;
+        for (BorderProps bp : new BorderProps[] {top, bottom, left, right}) {
+            if (bp == null) {
+                continue;
+            }
+            if (bp.getRadiusStart() != 0 || bp.getRadiusEnd() != 0) {
+                return false;
+            }
+            if (color == null) {
+                color = bp.color;
+            } else if (!color.equals(bp.color)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Paints solid borders as filled rectangles. The part of collapsed table borders that
+     * belongs to the neighbouring cell is left out the same way the border painter does it.
+     */
+    private void fillBorders(Rectangle rect, BorderProps top, BorderProps bottom,
+            BorderProps left, BorderProps right) throws IFException {
+        int clipTop = BorderProps.getClippedWidth(top);
+        int clipBottom = BorderProps.getClippedWidth(bottom);
+        int clipLeft = BorderProps.getClippedWidth(left);
+        int clipRight = BorderProps.getClippedWidth(right);
+        Rectangle outer = new Rectangle(rect.x + clipLeft, rect.y + clipTop,
+                rect.width - clipLeft - clipRight, rect.height - clipTop - clipBottom);
+        if (top != null) {
+            fillRect(new Rectangle(outer.x, outer.y,
+                    outer.width, top.width - clipTop), top.color);
+        }
+        if (right != null) {
+            fillRect(new Rectangle(rect.x + rect.width - right.width, outer.y,
+                    right.width - clipRight, outer.height), right.color);
+        }
+        if (bottom != null) {
+            fillRect(new Rectangle(outer.x, rect.y + rect.height - bottom.width,
+                    outer.width, bottom.width - clipBottom), bottom.color);
+        }
+        if (left != null) {
+            fillRect(new Rectangle(outer.x, outer.y,
+                    left.width - clipLeft, outer.height), left.color);
+        }
+    }
+
+    /**
+     * Paints a horizontal rule with PCL's rectangle fill if its style can be expressed that way
+     * (solid, double and dashed rules).
+     * @param start the start point of the rule
+     * @param end the end point of the rule
+     * @param width the rule's thickness
+     * @param color the rule's color
+     * @param style the rule's style
+     * @return true if the rule has been painted, false if it has to be painted as a bitmap
+     * @throws IFException if an error occurs while painting the rule
+     */
+    private boolean fillRule(Point start, Point end, int width, Color color, RuleStyle style)
+            throws IFException {
+        if (start.y != end.y || end.x < start.x || width <= 0) {
+            return false;
+        }
+        Rectangle box = getLineBoundingBox(start, end, width);
+        switch (style.getEnumValue()) {
+        case Constants.EN_SOLID:
+            fillRect(box, color);
+            return true;
+        case Constants.EN_DOUBLE:
+            int third = width / 3;
+            fillRect(new Rectangle(box.x, box.y, box.width, third), color);
+            fillRect(new Rectangle(box.x, box.y + box.height - third, box.width, third), color);
+            return true;
+        case Constants.EN_DASHED:
+            //Same dash pattern as the Java2D painter: an odd number of dashes and gaps
+            //of equal length, starting and ending with a dash
+            int rep = box.width / (2 * width);
+            if (rep % 2 == 0) {
+                rep++;
+            }
+            double unit = (double) box.width / rep;
+            for (int i = 0; i < rep; i += 2) {
+                int x1 = box.x + (int) Math.round(i * unit);
+                int x2 = box.x + (int) Math.round((i + 1) * unit);
+                fillRect(new Rectangle(x1, box.y, x2 - x1, box.height), color);
+            }
+            return true;
+        default:
+            return false;
+        }
+    }
+
     private void paintMarksAsBitmap(Graphics2DImagePainter painter, Rectangle boundingBox)
             throws IFException {
         ImageInfo info = new ImageInfo(null, null);
@@ -26,6 +26,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 
 import org.apache.fop.pdf.PDFColorHandler;
+import org.apache.fop.pdf.PDFContentBuffer;
 import org.apache.fop.pdf.PDFDocument;
 import org.apache.fop.pdf.PDFFilterList;
 import org.apache.fop.pdf.PDFLinearization;
@@ -57,6 +58,10 @@ public class PDFContentGenerator {
 
     private PDFColorHandler colorHandler;
 
+    /** reusable buffer for assembling operators */
+    private final PDFContentBuffer opBuffer = new PDFContentBuffer();
+    private final double[] matrix = new double[6];
+
     /** drawing state */
     protected PDFPaintingState currentState;
     /** Text generation utility holding the current font status */
@@ -93,6 +98,9 @@ public class PDFContentGenerator {
             protected void write(StringBuffer code) {
                 currentStream.add(code);
             }
+            protected void write(PDFContentBuffer code) {
+                currentStream.add(code);
+            }
         };
 
         this.currentState = new PDFPaintingState();
@@ -136,6 +144,17 @@ public class PDFContentGenerator {
         return this.currentStream;
     }
 
+    /**
+     * Makes the generator write all further content to the given stream.
+     * @param stream the stream to write to
+     * @return the stream written to so far
+     */
+    PDFStream redirectTo(PDFStream stream) {
+        PDFStream previous = this.currentStream;
+        this.currentStream = stream;
+        return previous;
+    }
+
     /**
      * Returns the {@link PDFPaintingState} associated with this instance.
      * @return the PDF state
@@ -368,7 +387,12 @@ public class PDFContentGenerator {
         this.transform = transform;
         if (!transform.isIdentity()) {
             getState().concatenate(transform);
-            getStream().add(CTMHelper.toPDFString(transform, false) + " cm\n");
+            PDFContentBuffer sb = startOperator();
+            transform.getMatrix(matrix);
+            for (int i = 0; i < 6; i++) {
+                sb.appendDouble(matrix[i], 8).append(' ');
+            }
+            getStream().add(sb.append("cm\n"));
         }
     }
 
@@ -377,12 +401,17 @@ public class PDFContentGenerator {
      * @param rect the clip rectangle
      */
     public void clipRect(Rectangle rect) {
-        StringBuffer sb = new StringBuffer();
-        sb.append(format(rect.x / 1000f)).append(' ');
-        sb.append(format(rect.y / 1000f)).append(' ');
-        sb.append(format(rect.width / 1000f)).append(' ');
-        sb.append(format(rect.height / 1000f)).append(" re W n\n");
-        add(sb.toString());
+        PDFContentBuffer sb = startOperator();
+        sb.appendDouble(rect.x / 1000f, 6).append(' ');
+        sb.appendDouble(rect.y / 1000f, 6).append(' ');
+        sb.appendDouble(rect.width / 1000f, 6).append(' ');
+        sb.appendDouble(rect.height / 1000f, 6).append(" re W n\n");
+        getStream().add(sb);
+    }
+
+    private PDFContentBuffer startOperator() {
+        opBuffer.reset();
+        return opBuffer;
     }
 
     /**
@@ -409,7 +438,7 @@ public class PDFContentGenerator {
     public void updateLineWidth(float width) {
         if (getState().setLineWidth(width)) {
             //Only write if value has changed WRT the current line width
-            getStream().add(format(width) + " w\n");
+            getStream().add(startOperator().appendDouble(width, 6).append(" w\n"));
         }
     }
 
@@ -419,7 +448,7 @@ public class PDFContentGenerator {
      */
     public void updateCharacterSpacing(float value) {
         if (getState().setCharacterSpacing(value)) {
-            getStream().add(format(value) + " Tc\n");
+            getStream().add(startOperator().appendDouble(value, 6).append(" Tc\n"));
         }
     }
 
@@ -494,11 +523,35 @@ public class PDFContentGenerator {
      */
     public void placeImage(float x, float y, float w, float h, PDFXObject xobj) {
         saveGraphicsState();
-        add(format(w) + " 0 0 "
-                          + format(-h) + " "
-                          + format(x) + " "
-                          + format(y + h)
-                          + " cm\n" + xobj.getName() + " Do\n");
+        writeImagePlacement(x, y, w, h, xobj);
+        restoreGraphicsState();
+    }
+
+    private void writeImagePlacement(float x, float y, float w, float h, PDFXObject xobj) {
+        PDFContentBuffer sb = startOperator();
+        sb.appendDouble(w, 6).append(" 0 0 ");
+        sb.appendDouble(-h, 6).append(' ');
+        sb.appendDouble(x, 6).append(' ');
+        sb.appendDouble(y + h, 6);
+        sb.append(" cm\n").append(xobj.getName().toString()).append(" Do\n");
+        getStream().add(sb);
+    }
+
+    /**
+     * Places a previously registered form XObject at a certain place on the page, keeping the
+     * current scale and orientation.
+     * @param x X coordinate
+     * @param y Y coordinate
+     * @param xobj the form XObject
+     */
+    public void placeForm(float x, float y, PDFXObject xobj) {
+        saveGraphicsState();
+        PDFContentBuffer sb = startOperator();
+        sb.append("1 0 0 1 ");
+        sb.appendDouble(x, 6).append(' ');
+        sb.appendDouble(y, 6);
+        sb.append(" cm\n").append(xobj.getName().toString()).append(" Do\n");
+        getStream().add(sb);
         restoreGraphicsState();
     }
 
@@ -525,11 +578,7 @@ public class PDFContentGenerator {
     public void placeImage(float x, float y, float w, float h, PDFXObject xobj,
             String structElemType, int mcid) {
         saveGraphicsState(structElemType, mcid);
-        add(format(w) + " 0 0 "
-                          + format(-h) + " "
-                          + format(x) + " "
-                          + format(y + h)
-                          + " cm\n" + xobj.getName() + " Do\n");
+        writeImagePlacement(x, y, w, h, xobj);
         restoreGraphicsStateAccess();
     }
 
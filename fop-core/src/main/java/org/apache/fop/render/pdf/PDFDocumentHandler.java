@@ -19,15 +19,20 @@
 
 package org.apache.fop.render.pdf;
 
+import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -36,14 +41,21 @@ import org.apache.xmlgraphics.xmp.Metadata;
 
 import org.apache.fop.accessibility.StructureTreeEventHandler;
 import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.apps.RenderingProfiler;
 import org.apache.fop.fo.extensions.xmp.XMPMetadata;
+import org.apache.fop.fonts.Font;
+import org.apache.fop.fonts.FontTriplet;
 import org.apache.fop.pdf.PDFAnnotList;
 import org.apache.fop.pdf.PDFArray;
 import org.apache.fop.pdf.PDFDocument;
+import org.apache.fop.pdf.PDFFormXObject;
 import org.apache.fop.pdf.PDFPage;
 import org.apache.fop.pdf.PDFReference;
+import org.apache.fop.pdf.PDFResourceContext;
 import org.apache.fop.pdf.PDFResources;
 import org.apache.fop.pdf.PDFStream;
+import org.apache.fop.pdf.PDFStructElem;
+import org.apache.fop.pdf.PDFXObject;
 import org.apache.fop.render.extensions.prepress.PageBoundaries;
 import org.apache.fop.render.extensions.prepress.PageScale;
 import org.apache.fop.render.intermediate.AbstractBinaryWritingIFDocumentHandler;
@@ -51,6 +63,7 @@ import org.apache.fop.render.intermediate.IFContext;
 import org.apache.fop.render.intermediate.IFDocumentHandlerConfigurator;
 import org.apache.fop.render.intermediate.IFDocumentNavigationHandler;
 import org.apache.fop.render.intermediate.IFException;
+import org.apache.fop.render.intermediate.IFPageNumberPlaceholderHandler;
 import org.apache.fop.render.intermediate.IFPainter;
 import org.apache.fop.render.pdf.PDFRendererConfig.PDFRendererConfigParser;
 import org.apache.fop.render.pdf.extensions.PDFDictionaryAttachment;
@@ -59,7 +72,8 @@ import org.apache.fop.render.pdf.extensions.PDFEmbeddedFileAttachment;
 /**
  * {@link org.apache.fop.render.intermediate.IFDocumentHandler} implementation that produces PDF.
  */
-public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
+public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler
+        implements IFPageNumberPlaceholderHandler {
 
     /** logging instance */
     private static Log log = LogFactory.getLog(PDFDocumentHandler.class);
@@ -100,6 +114,22 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
     private Map<Integer, PDFArray> pageNumbers = new HashMap<Integer, PDFArray>();
     private Map<String, PDFReference> contents = new HashMap<String, PDFReference>();
 
+    /** the maximum number of header and footer contents remembered while waiting for a repetition */
+    private static final int MAX_REGION_CONTENTS = 256;
+
+    /** keys of header and footer contents painted once so far */
+    private Set<String> regionContents = new HashSet<String>();
+
+    /** the maximum size of the content of the forms SVG images are painted into and reused from */
+    private static final long MAX_SVG_FORM_BYTES = 16 * 1024 * 1024;
+
+    /** forms SVG images have been painted into, or null if not created yet */
+    private SVGFormCache svgFormCache;
+
+    /** Form XObjects painting page numbers which are only known at the end (key: page number key) */
+    private Map<String, List<PageNumberPlaceholder>> pageNumberPlaceholders
+            = new HashMap<String, List<PageNumberPlaceholder>>();
+
     /**
      * Default constructor.
      */
@@ -157,6 +187,12 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         super.startDocument();
         try {
             this.pdfDoc = pdfUtil.setupPDFDocument(this.outputStream);
+            if (RenderingProfiler.getInstance(getUserAgent()).isEnabled()) {
+                pdfDoc.setStreamByteCountsEnabled(true);
+            }
+            if (!pdfDoc.isLinearizationEnabled()) {
+                pdfDoc.setStreamEncodingExecutor(getUserAgent().getStreamEncodingExecutor());
+            }
             this.accessEnabled = getUserAgent().isAccessibilityEnabled();
             if (accessEnabled) {
                 setupAccessibility();
@@ -183,13 +219,28 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
 
     /** {@inheritDoc} */
     public void endDocument() throws IFException {
+        RenderingProfiler profiler = RenderingProfiler.getInstance(getUserAgent());
+        long start = profiler.startTimer();
         pdfDoc.getResources().addFonts(pdfDoc, fontInfo);
+        profiler.stopTimer(RenderingProfiler.Phase.FONT_EMBEDDING, start);
         try {
+            start = profiler.startTimer();
             if (pdfDoc.isLinearizationEnabled()) {
                 generator.flushPDFDoc();
             } else {
                 pdfDoc.outputTrailer(this.outputStream);
             }
+            profiler.stopTimer(RenderingProfiler.Phase.OUTPUT, start);
+            Map<String, Long> streamByteCounts = pdfDoc.getStreamByteCounts();
+            if (streamByteCounts != null) {
+                for (Map.Entry<String, Long> entry : streamByteCounts.entrySet()) {
+                    profiler.addStreamBytes(entry.getKey(), entry.getValue());
+                }
+            }
+            if (svgFormCache != null && log.isDebugEnabled()) {
+                log.debug(svgFormCache);
+            }
+            svgFormCache = null;
             this.pdfDoc = null;
 
             pdfResources = null;
@@ -208,7 +259,15 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
 
     /** {@inheritDoc} */
     public void endPageSequence() throws IFException {
-        //nop
+        if (accessEnabled && pdfDoc.isStructureTreeStreamingEnabled()) {
+            try {
+                for (PDFStructElem pageSequence : logicalStructureHandler.endPageSequence()) {
+                    pdfDoc.outputStructureTree(pageSequence, this.outputStream);
+                }
+            } catch (IOException ioe) {
+                throw new IFException("I/O error in endPageSequence()", ioe);
+            }
+        }
     }
 
     /** {@inheritDoc} */
@@ -296,7 +355,10 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
             this.pdfDoc.addObject(currentPage);
 
             if (!pdfDoc.isLinearizationEnabled()) {
-                this.generator.flushPDFDoc();
+                RenderingProfiler profiler = RenderingProfiler.getInstance(getUserAgent());
+                long start = profiler.startTimer();
+                this.pdfDoc.outputReadyObjects(this.outputStream);
+                profiler.stopTimer(RenderingProfiler.Phase.OUTPUT, start);
                 this.generator = null;
             }
         } catch (IOException ioe) {
@@ -345,6 +407,101 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         pdfDoc.getRoot().setLanguage(locale);
     }
 
+    /** {@inheritDoc} */
+    public boolean supportsPageNumberPlaceholders() {
+        //Tagged PDF needs the text in the page content, linearization writes all pages at the end
+        return pdfDoc != null && !accessEnabled && !pdfDoc.isLinearizationEnabled();
+    }
+
+    /**
+     * Paints a reference to the Form XObject which will contain the page number with the
+     * given key on the current page.
+     * @param key the key identifying the page number
+     * @param x the X coordinate of the baseline start
+     * @param y the Y coordinate of the baseline start
+     * @param triplet the font to use
+     * @param fontSize the font size (in mpt)
+     * @param color the text color
+     */
+    void drawPageNumberPlaceholder(String key, int x, int y, FontTriplet triplet, int fontSize,
+            Color color) {
+        List<PageNumberPlaceholder> placeholders = pageNumberPlaceholders.get(key);
+        if (placeholders == null) {
+            placeholders = new ArrayList<PageNumberPlaceholder>();
+            pageNumberPlaceholders.put(key, placeholders);
+        }
+        PageNumberPlaceholder placeholder = null;
+        for (PageNumberPlaceholder candidate : placeholders) {
+            if (candidate.matches(triplet, fontSize, color)) {
+                placeholder = candidate;
+                break;
+            }
+        }
+        if (placeholder == null) {
+            placeholder = new PageNumberPlaceholder(triplet, fontSize, color);
+            placeholders.add(placeholder);
+        }
+        generator.getResourceContext().addXObject(placeholder.form);
+        generator.placeForm(x / 1000f, y / 1000f, placeholder.form);
+    }
+
+    /** {@inheritDoc} */
+    public void fillPageNumberPlaceholder(String key, String text) throws IFException {
+        List<PageNumberPlaceholder> placeholders = pageNumberPlaceholders.remove(key);
+        if (placeholders != null) {
+            for (PageNumberPlaceholder placeholder : placeholders) {
+                placeholder.fill(text);
+            }
+        }
+    }
+
+    /**
+     * Returns the Form XObject that paints the recorded content of a header or footer. Content
+     * is only turned into a Form XObject once it is repeated on another page; the first time,
+     * null is returned and the content is to be painted inline.
+     * @param content the content of the region
+     * @param state a description of the painting state the content was generated in
+     * @return the Form XObject, or null if the content is to be painted inline
+     * @throws IOException if an I/O error occurs
+     */
+    PDFFormXObject getRegionForm(PDFStream content, String state) throws IOException {
+        Dimension pageSize = currentPageRef.getPageDimension();
+        String key = "RegionContent:" + content.streamHashCode() + ":" + pageSize.width + "x"
+                + pageSize.height + ":" + state;
+        PDFXObject form = pdfDoc.getXObject(key);
+        if (form == null) {
+            if (regionContents.remove(key)) {
+                PDFFormXObject newForm = pdfDoc.addFormXObject(null, content,
+                        pdfDoc.getResources().makeReference(), key);
+                //The form's coordinate system is the one of the page content: Y grows downwards
+                newForm.setBBox(new Rectangle2D.Double(0, 0,
+                        pageSize.width / 1000.0, pageSize.height / 1000.0));
+                form = newForm;
+            } else {
+                if (regionContents.size() >= MAX_REGION_CONTENTS) {
+                    regionContents.clear();
+                }
+                regionContents.add(key);
+                return null;
+            }
+        }
+        generator.getResourceContext().addXObject(form);
+        return (PDFFormXObject) form;
+    }
+
+    /**
+     * Returns the cache of the forms SVG images have been painted into, so they can be placed
+     * again without being painted again. SVG images are only painted into forms if Form XObjects
+     * are enabled.
+     * @return the cache or null if SVG images are to be painted inline
+     */
+    SVGFormCache getSVGFormCache() {
+        if (svgFormCache == null && pdfDoc != null && pdfDoc.isFormXObjectEnabled()) {
+            svgFormCache = new SVGFormCache(MAX_SVG_FORM_BYTES);
+        }
+        return svgFormCache;
+    }
+
     PageReference getPageReference(int pageIndex) {
         return this.pageReferences.get(pageIndex);
     }
@@ -368,6 +525,52 @@ public class PDFDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         }
     }
 
+    /**
+     * A Form XObject painting a page number in a particular font. The Form XObject is numbered
+     * when it is first referenced, but its content is only written once the page number is known.
+     */
+    private final class PageNumberPlaceholder {
+
+        private final FontTriplet triplet;
+        private final int fontSize;
+        private final Color color;
+        private final PDFContentGenerator formGenerator;
+        private final PDFFormXObject form;
+
+        private PageNumberPlaceholder(FontTriplet triplet, int fontSize, Color color) {
+            this.triplet = triplet;
+            this.fontSize = fontSize;
+            this.color = color;
+            this.formGenerator = new PDFContentGenerator(pdfDoc, outputStream,
+                    new PDFResourceContext(pdfDoc.getResources()));
+            this.form = pdfDoc.addDeferredFormXObject(null, formGenerator.getStream(),
+                    pdfDoc.getResources().makeReference());
+        }
+
+        private boolean matches(FontTriplet triplet, int fontSize, Color color) {
+            return this.triplet.equals(triplet) && this.fontSize == fontSize
+                    && (this.color == null ? color == null : this.color.equals(color));
+        }
+
+        private void fill(String text) throws IFException {
+            if (text.length() > 0) {
+                PDFPainter painter = new PDFPainter(PDFDocumentHandler.this, null, formGenerator);
+                painter.setFont(triplet.getName(), triplet.getStyle(), triplet.getWeight(),
+                        "normal", fontSize, color);
+                painter.drawText(0, 0, 0, 0, null, text);
+                formGenerator.endTextObject();
+            }
+            //The form's coordinate system is the one of the page content: Y grows downwards
+            Font font = fontInfo.getFontInstance(triplet, fontSize);
+            double ascender = font.getAscender() / 1000.0;
+            double descender = font.getDescender() / 1000.0;
+            double width = font.getWordWidth(text) / 1000.0;
+            form.setBBox(new Rectangle2D.Double(0, -ascender, width + ascender, ascender - descender));
+            pdfDoc.addObject(form);
+            form.registerChildren();
+        }
+    }
+
     @Override
     public StructureTreeEventHandler getStructureTreeEventHandler() {
         if (structureTreeBuilder == null) {
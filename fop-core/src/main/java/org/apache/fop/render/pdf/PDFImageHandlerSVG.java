@@ -22,6 +22,7 @@ package org.apache.fop.render.pdf;
 import java.awt.Color;
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 import java.io.IOException;
 
 import org.w3c.dom.Document;
@@ -41,9 +42,15 @@ import org.apache.xmlgraphics.image.loader.impl.ImageXMLDOM;
 import org.apache.xmlgraphics.util.UnitConv;
 
 import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.RenderingProfiler;
 import org.apache.fop.events.EventBroadcaster;
 import org.apache.fop.image.loader.batik.BatikImageFlavors;
 import org.apache.fop.image.loader.batik.BatikUtil;
+import org.apache.fop.pdf.PDFDocument;
+import org.apache.fop.pdf.PDFFilterList;
+import org.apache.fop.pdf.PDFFormXObject;
+import org.apache.fop.pdf.PDFPaintingState;
+import org.apache.fop.pdf.PDFStream;
 import org.apache.fop.pdf.TransparencyDisallowedException;
 import org.apache.fop.render.ImageHandler;
 import org.apache.fop.render.ImageHandlerUtil;
@@ -80,34 +87,7 @@ public class PDFImageHandlerSVG implements ImageHandler {
         }
 
         final float uaResolution = userAgent.getSourceResolution();
-        SVGUserAgent ua = new SVGUserAgent(userAgent, new FOPFontFamilyResolverImpl(pdfContext.getFontInfo()),
-                new AffineTransform());
-
-        GVTBuilder builder = new GVTBuilder();
-
-        //Controls whether text painted by Batik is generated using text or path operations
-        boolean strokeText = PSImageHandlerSVG.shouldStrokeText(imageSVG.getDocument().getChildNodes());
-        //TODO connect with configuration elsewhere.
 
-        BridgeContext ctx = new PDFBridgeContext(ua,
-                (strokeText ? null : pdfContext.getFontInfo()),
-                userAgent.getImageManager(),
-                userAgent.getImageSessionContext(),
-                new AffineTransform());
-
-        //Cloning SVG DOM as Batik attaches non-thread-safe facilities (like the CSS engine)
-        //to it.
-        Document clonedDoc = BatikUtil.cloneSVGDocument(imageSVG.getDocument());
-
-        GraphicsNode root;
-        try {
-            root = builder.build(ctx, clonedDoc);
-        } catch (Exception e) {
-            SVGEventProducer eventProducer = SVGEventProducer.Provider.get(
-                    context.getUserAgent().getEventBroadcaster());
-            eventProducer.svgNotBuilt(this, e, image.getInfo().getOriginalURI());
-            return;
-        }
         // get the 'width' and 'height' attributes of the SVG document
         float w = image.getSize().getWidthMpt();
         float h = image.getSize().getHeightMpt();
@@ -145,6 +125,43 @@ public class PDFImageHandlerSVG implements ImageHandler {
             log.trace("image transform: " + resolutionScaling);
         }
 
+        //An SVG that has been painted at the same size before is placed from its form
+        PDFFormXObject form = null;
+        SVGFormCache formCache = pdfContext.getSVGFormCache();
+        SVGFormCache.Entry cacheEntry = null;
+        if (formCache != null) {
+            cacheEntry = formCache.get(imageSVG.getDocument(), pos.width, pos.height);
+            if (cacheEntry != null) {
+                form = cacheEntry.getForm();
+            }
+            RenderingProfiler.getInstance(userAgent).increment(form != null
+                    ? RenderingProfiler.Counter.SVG_CACHE_HITS : RenderingProfiler.Counter.SVG_CACHE_MISSES);
+        }
+
+        BridgeContext ctx = null;
+        GraphicsNode root = null;
+        if (form == null) {
+            ctx = createBridgeContext(pdfContext, imageSVG);
+            //Cloning SVG DOM as Batik attaches non-thread-safe facilities (like the CSS engine)
+            //to it.
+            Document clonedDoc = BatikUtil.cloneSVGDocument(imageSVG.getDocument());
+            root = buildGraphicsNode(context, ctx, clonedDoc, imageSVG);
+            if (root == null) {
+                return;
+            }
+            if (formCache != null && cacheEntry == null) {
+                //Decided once per SVG and size, on the clone, as the check walks the whole DOM
+                if (SVGFormCache.isReusable(clonedDoc)) {
+                    form = createForm(pdfContext, imageSVG, pos, resolutionScaling, ctx, root, formCache);
+                    if (form == null) {
+                        return;
+                    }
+                } else {
+                    formCache.putNotReusable(imageSVG.getDocument(), pos.width, pos.height);
+                }
+            }
+        }
+
         /*
          * Clip to the svg area.
          * Note: To have the svg overlay (under) a text area then use
@@ -168,46 +185,96 @@ public class PDFImageHandlerSVG implements ImageHandler {
             generator.add(CTMHelper.toPDFString(scaling, false) + " cm\n");
         }
 
-        //SVGSVGElement svg = ((SVGDocument)doc).getRootElement();
-
-        PDFGraphics2D graphics = new PDFGraphics2D(true, pdfContext.getFontInfo(),
-                generator.getDocument(),
-                generator.getResourceContext(), pdfContext.getPage().makeReference(),
-                "", 0, new TransparencyIgnoredEventListener(pdfContext, imageSVG));
-        graphics.setGraphicContext(new org.apache.xmlgraphics.java2d.GraphicContext());
+        if (form != null) {
+            generator.getResourceContext().addXObject(form);
+            generator.add(form.getName() + " Do\n");
+        } else {
+            //SVGSVGElement svg = ((SVGDocument)doc).getRootElement();
+
+            PDFGraphics2D graphics = new PDFGraphics2D(true, pdfContext.getFontInfo(),
+                    generator.getDocument(),
+                    generator.getResourceContext(), pdfContext.getPage().makeReference(),
+                    "", 0, new TransparencyIgnoredEventListener(pdfContext, imageSVG));
+            graphics.setGraphicContext(new org.apache.xmlgraphics.java2d.GraphicContext());
+
+            if (!resolutionScaling.isIdentity()) {
+                if (log.isTraceEnabled()) {
+                    generator.comment("resolution scaling for " + uaResolution
+                            + " -> " + deviceResolution);
+                }
+                generator.add(
+                        CTMHelper.toPDFString(resolutionScaling, false) + " cm\n");
+                graphics.scale(
+                        1.0 / resolutionScaling.getScaleX(),
+                        1.0 / resolutionScaling.getScaleY());
+            }
 
-        if (!resolutionScaling.isIdentity()) {
             if (log.isTraceEnabled()) {
-                generator.comment("resolution scaling for " + uaResolution
-                        + " -> " + deviceResolution);
+                generator.comment("SVG start");
             }
-            generator.add(
-                    CTMHelper.toPDFString(resolutionScaling, false) + " cm\n");
-            graphics.scale(
-                    1.0 / resolutionScaling.getScaleX(),
-                    1.0 / resolutionScaling.getScaleY());
-        }
 
+            //Save state and update coordinate system for the SVG image
+            generator.getState().save();
+            generator.getState().concatenate(imageTransform);
+
+            //Now that we have the complete transformation matrix for the image, we can update the
+            //transformation matrix for the AElementBridge.
+            PDFAElementBridge aBridge = (PDFAElementBridge)ctx.getBridge(
+                    SVGDOMImplementation.SVG_NAMESPACE_URI, SVGConstants.SVG_A_TAG);
+            aBridge.getCurrentTransform().setTransform(generator.getState().getTransform());
+
+            graphics.setPaintingState(generator.getState());
+            graphics.setOutputStream(generator.getOutputStream());
+            if (paint(context, imageSVG, root, ctx, graphics)) {
+                generator.add(graphics.getString());
+            }
+            generator.getState().restore();
+        }
+        if (context.getUserAgent().isAccessibilityEnabled()) {
+            generator.restoreGraphicsStateAccess();
+        } else {
+            generator.restoreGraphicsState();
+        }
         if (log.isTraceEnabled()) {
-            generator.comment("SVG start");
+            generator.comment("SVG end");
         }
+    }
 
-        //Save state and update coordinate system for the SVG image
-        generator.getState().save();
-        generator.getState().concatenate(imageTransform);
+    private BridgeContext createBridgeContext(PDFRenderingContext pdfContext, ImageXMLDOM imageSVG) {
+        FOUserAgent userAgent = pdfContext.getUserAgent();
+        SVGUserAgent ua = new SVGUserAgent(userAgent, new FOPFontFamilyResolverImpl(pdfContext.getFontInfo()),
+                new AffineTransform());
 
-        //Now that we have the complete transformation matrix for the image, we can update the
-        //transformation matrix for the AElementBridge.
-        PDFAElementBridge aBridge = (PDFAElementBridge)ctx.getBridge(
-                SVGDOMImplementation.SVG_NAMESPACE_URI, SVGConstants.SVG_A_TAG);
-        aBridge.getCurrentTransform().setTransform(generator.getState().getTransform());
+        //Controls whether text painted by Batik is generated using text or path operations
+        boolean strokeText = PSImageHandlerSVG.shouldStrokeText(imageSVG.getDocument().getChildNodes());
+        //TODO connect with configuration elsewhere.
 
-        graphics.setPaintingState(generator.getState());
-        graphics.setOutputStream(generator.getOutputStream());
+        return new PDFBridgeContext(ua,
+                (strokeText ? null : pdfContext.getFontInfo()),
+                userAgent.getImageManager(),
+                userAgent.getImageSessionContext(),
+                new AffineTransform());
+    }
+
+    private GraphicsNode buildGraphicsNode(RenderingContext context, BridgeContext ctx, Document clonedDoc,
+            Image image) {
+        GVTBuilder builder = new GVTBuilder();
+        try {
+            return builder.build(ctx, clonedDoc);
+        } catch (Exception e) {
+            SVGEventProducer eventProducer = SVGEventProducer.Provider.get(
+                    context.getUserAgent().getEventBroadcaster());
+            eventProducer.svgNotBuilt(this, e, image.getInfo().getOriginalURI());
+            return null;
+        }
+    }
+
+    private boolean paint(RenderingContext context, Image image, GraphicsNode root, BridgeContext ctx,
+            PDFGraphics2D graphics) {
         try {
             root.paint(graphics);
             ctx.dispose();
-            generator.add(graphics.getString());
+            return true;
         } catch (TransparencyDisallowedException e) {
             SVGEventProducer eventProducer = SVGEventProducer.Provider.get(
                     context.getUserAgent().getEventBroadcaster());
@@ -217,15 +284,51 @@ public class PDFImageHandlerSVG implements ImageHandler {
                     context.getUserAgent().getEventBroadcaster());
             eventProducer.svgRenderingError(this, e, image.getInfo().getOriginalURI());
         }
-        generator.getState().restore();
-        if (context.getUserAgent().isAccessibilityEnabled()) {
-            generator.restoreGraphicsStateAccess();
-        } else {
-            generator.restoreGraphicsState();
+        return false;
+    }
+
+    /**
+     * Paints an SVG into a new Form XObject and adds it to the cache. The form's coordinate
+     * system is the one the SVG document's user space is mapped to on the page, so only the
+     * scaling for the target resolution is part of the form.
+     */
+    private PDFFormXObject createForm(PDFRenderingContext pdfContext, ImageXMLDOM imageSVG, Rectangle pos,
+            AffineTransform resolutionScaling, BridgeContext ctx, GraphicsNode root, SVGFormCache formCache)
+            throws IOException {
+        PDFContentGenerator generator = pdfContext.getGenerator();
+        PDFDocument pdfDoc = generator.getDocument();
+        PDFStream content = pdfDoc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+        PDFGraphics2D graphics = new PDFGraphics2D(true, pdfContext.getFontInfo(), pdfDoc,
+                generator.getResourceContext(), pdfContext.getPage().makeReference(),
+                "", 0, new TransparencyIgnoredEventListener(pdfContext, imageSVG));
+        graphics.setGraphicContext(new org.apache.xmlgraphics.java2d.GraphicContext());
+        if (!resolutionScaling.isIdentity()) {
+            content.add(CTMHelper.toPDFString(resolutionScaling, false) + " cm\n");
+            graphics.scale(
+                    1.0 / resolutionScaling.getScaleX(),
+                    1.0 / resolutionScaling.getScaleY());
         }
-        if (log.isTraceEnabled()) {
-            generator.comment("SVG end");
+        PDFPaintingState state = new PDFPaintingState();
+        state.concatenate(resolutionScaling);
+        graphics.setPaintingState(state);
+        graphics.setOutputStream(generator.getOutputStream());
+        if (!paint(pdfContext, imageSVG, root, ctx, graphics)) {
+            return null;
+        }
+        content.add(graphics.getString());
+
+        PDFFormXObject form = pdfDoc.addFormXObject(null, content,
+                pdfDoc.getResources().makeReference(), formCache.nextFormKey());
+        Rectangle2D bounds = root.getTransformedBounds(new AffineTransform());
+        if (bounds != null) {
+            //Leave some room for rounding and antialiasing
+            form.setBBox(new Rectangle2D.Double(bounds.getX() - 1, bounds.getY() - 1,
+                    bounds.getWidth() + 2, bounds.getHeight() + 2));
+        } else {
+            form.setBBox(new Rectangle2D.Double());
         }
+        formCache.put(imageSVG.getDocument(), pos.width, pos.height, form, content.getDataLength());
+        return form;
     }
 
     private static class TransparencyIgnoredEventListener
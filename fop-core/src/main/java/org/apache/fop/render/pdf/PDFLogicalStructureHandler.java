@@ -19,6 +19,11 @@
 
 package org.apache.fop.render.pdf;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 import org.apache.fop.pdf.PDFArray;
 import org.apache.fop.pdf.PDFDictionary;
 import org.apache.fop.pdf.PDFDocument;
@@ -42,7 +47,7 @@ public class PDFLogicalStructureHandler {
 
     private final PDFDocument pdfDoc;
 
-    private final PDFParentTree parentTree = new PDFParentTree();
+    private final PDFParentTree parentTree;
 
     private int parentTreeKey;
 
@@ -56,6 +61,16 @@ public class PDFLogicalStructureHandler {
      */
     private PDFArray pageParentTreeArray;
 
+    /**
+     * The top-level structure elements (below the document element) that content of the
+     * current page-sequence has been attached to. Only tracked when the structure tree is
+     * streamed, null otherwise.
+     */
+    private final Set<PDFStructElem> pageSequenceElements;
+
+    /** The structure element content was last attached to, and its top-level ancestor. */
+    private PDFStructElem lastContentParent;
+
     /**
      * Class providing the necessary information for bracketing content
      * associated to a structure element as a marked-content sequence.
@@ -90,6 +105,9 @@ public class PDFLogicalStructureHandler {
      */
     PDFLogicalStructureHandler(PDFDocument pdfDoc) {
         this.pdfDoc = pdfDoc;
+        boolean streaming = pdfDoc.isStructureTreeStreamingEnabled();
+        parentTree = new PDFParentTree(streaming);
+        pageSequenceElements = streaming ? new LinkedHashSet<PDFStructElem>() : null;
     }
 
     public PDFArray getPageParentTree() {
@@ -131,7 +149,39 @@ public class PDFLogicalStructureHandler {
         parentTree.addToNums(currentPage.getStructParents(), pageParentTreeArray);
     }
 
+    /**
+     * Receive notification of the end of the current page-sequence.
+     *
+     * @return the top-level structure elements that content of the page-sequence has been
+     * attached to. They are finished and may be written out if the structure tree is streamed.
+     */
+    List<PDFStructElem> endPageSequence() {
+        if (pageSequenceElements == null) {
+            return new ArrayList<PDFStructElem>();
+        }
+        List<PDFStructElem> finished = new ArrayList<PDFStructElem>(pageSequenceElements);
+        pageSequenceElements.clear();
+        lastContentParent = null;
+        return finished;
+    }
+
+    private void recordPageSequenceElement(PDFStructElem structElem) {
+        if (pageSequenceElements == null || structElem == lastContentParent) {
+            return;
+        }
+        lastContentParent = structElem;
+        PDFStructElem topLevel = structElem;
+        while (topLevel.getParentStructElem() != null
+                && topLevel.getParentStructElem().getParentStructElem() != null) {
+            topLevel = topLevel.getParentStructElem();
+        }
+        if (topLevel.getParentStructElem() != null) {
+            pageSequenceElements.add(topLevel);
+        }
+    }
+
     private MarkedContentInfo addToParentTree(PDFStructElem structureTreeElement) {
+        recordPageSequenceElement(structureTreeElement);
         PDFStructElem parent = structureTreeElement;
         while (parent instanceof PDFStructElem.Placeholder) {
             parent = parent.getParentStructElem();
@@ -207,6 +257,7 @@ public class PDFLogicalStructureHandler {
         contentItem.put("Pg", this.currentPage);
         contentItem.put("Obj", link);
         parentTree.addToNums(structParent, structureTreeElement);
+        recordPageSequenceElement(structureTreeElement);
         structureTreeElement.addKid(contentItem);
     }
 
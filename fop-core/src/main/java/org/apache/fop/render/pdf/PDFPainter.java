@@ -48,8 +48,11 @@ import org.apache.fop.fonts.SingleByteFont;
 import org.apache.fop.fonts.Typeface;
 import org.apache.fop.pdf.PDFArray;
 import org.apache.fop.pdf.PDFDictionary;
+import org.apache.fop.pdf.PDFFilterList;
+import org.apache.fop.pdf.PDFFormXObject;
 import org.apache.fop.pdf.PDFName;
 import org.apache.fop.pdf.PDFNumber;
+import org.apache.fop.pdf.PDFStream;
 import org.apache.fop.pdf.PDFStructElem;
 import org.apache.fop.pdf.PDFTextUtil;
 import org.apache.fop.pdf.PDFXObject;
@@ -87,6 +90,15 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
 
     private final LanguageAvailabilityChecker languageAvailabilityChecker;
 
+    /** the number of viewports and groups currently open */
+    private int groupDepth;
+
+    /** the page's content stream while the content of a header or footer is being recorded */
+    private PDFStream pageStream;
+
+    /** the painting state the recorded content is generated in */
+    private String recordedState;
+
     private static class LanguageAvailabilityChecker {
 
         private final IFContext context;
@@ -127,9 +139,20 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
      */
     public PDFPainter(PDFDocumentHandler documentHandler,
             PDFLogicalStructureHandler logicalStructureHandler) {
+        this(documentHandler, logicalStructureHandler, documentHandler.getGenerator());
+    }
+
+    /**
+     * Creates a painter for the given content generator.
+     * @param documentHandler the parent document handler
+     * @param logicalStructureHandler the logical structure handler
+     * @param generator the content generator to paint to
+     */
+    PDFPainter(PDFDocumentHandler documentHandler,
+            PDFLogicalStructureHandler logicalStructureHandler, PDFContentGenerator generator) {
         super(documentHandler);
         this.logicalStructureHandler = logicalStructureHandler;
-        this.generator = documentHandler.getGenerator();
+        this.generator = generator;
         this.graphicsPainter = new PDFGraphicsPainter(this.generator);
         this.borderPainter = new BorderPainter(this.graphicsPainter);
         this.state = IFState.create();
@@ -142,6 +165,10 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
     /** {@inheritDoc} */
     public void startViewport(AffineTransform transform, Dimension size, Rectangle clipRect)
             throws IFException {
+        if (groupDepth == 0 && isRegionContentReusable()) {
+            startRecording();
+        }
+        groupDepth++;
         generator.saveGraphicsState();
         generator.concatenate(toPoints(transform));
         if (clipRect != null) {
@@ -152,10 +179,15 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
     /** {@inheritDoc} */
     public void endViewport() throws IFException {
         generator.restoreGraphicsState();
+        groupDepth--;
+        if (groupDepth == 0 && pageStream != null) {
+            endRecording();
+        }
     }
 
     /** {@inheritDoc} */
     public void startGroup(AffineTransform transform, String layer) throws IFException {
+        groupDepth++;
         generator.saveGraphicsState(layer);
         generator.concatenate(toPoints(transform));
     }
@@ -163,6 +195,42 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
     /** {@inheritDoc} */
     public void endGroup() throws IFException {
         generator.restoreGraphicsState();
+        groupDepth--;
+    }
+
+    /**
+     * Indicates whether the viewport about to be started is a header or footer whose content may
+     * be painted through a Form XObject shared with other pages.
+     */
+    private boolean isRegionContentReusable() {
+        return getDocumentHandler().getPDFDocument().isFormXObjectEnabled() && !accessEnabled
+                && getContext().getRegionType() != null;
+    }
+
+    private void startRecording() {
+        generator.endTextObject();
+        //The content generated depends on the current painting state (for example, a color is
+        //not set again if it is already the current one), so the state is part of the key
+        recordedState = generator.getState().getData().toString();
+        PDFStream content = getDocumentHandler().getPDFDocument().getFactory()
+                .makeStream(PDFFilterList.CONTENT_FILTER, false);
+        pageStream = generator.redirectTo(content);
+    }
+
+    private void endRecording() throws IFException {
+        generator.endTextObject();
+        PDFStream content = generator.redirectTo(pageStream);
+        pageStream = null;
+        try {
+            PDFFormXObject form = getDocumentHandler().getRegionForm(content, recordedState);
+            if (form != null) {
+                generator.add(form.getName() + " Do\n");
+            } else {
+                generator.getStream().add(content);
+            }
+        } catch (IOException ioe) {
+            throw new IFException("I/O error while painting region content", ioe);
+        }
     }
 
     /** {@inheritDoc} */
@@ -245,6 +313,7 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
         PDFRenderingContext pdfContext = new PDFRenderingContext(
                 getUserAgent(), generator, getDocumentHandler().getCurrentPage(), getFontInfo());
         pdfContext.setMarkedContentInfo(imageMCI);
+        pdfContext.setSVGFormCache(getDocumentHandler().getSVGFormCache());
         pdfContext.setPageNumbers(getDocumentHandler().getPageNumbers());
         pdfContext.setPdfLogicalStructureHandler(logicalStructureHandler);
         pdfContext.setCurrentSessionStructElem((PDFStructElem) getContext().getStructureTreeElement());
@@ -417,6 +486,13 @@ public class PDFPainter extends AbstractIFPainter<PDFDocumentHandler> {
     public void drawText(int x, int y, int letterSpacing, int wordSpacing, int[][] dp,
             String text)
             throws IFException {
+        String placeholder = getContext().getPageNumberPlaceholder();
+        if (placeholder != null) {
+            getDocumentHandler().drawPageNumberPlaceholder(placeholder, x, y,
+                    new FontTriplet(state.getFontFamily(), state.getFontStyle(), state.getFontWeight()),
+                    state.getFontSize(), state.getTextColor());
+            return;
+        }
         if (accessEnabled) {
             PDFStructElem structElem = (PDFStructElem) getContext().getStructureTreeElement();
             languageAvailabilityChecker.checkLanguageAvailability(text);
@@ -99,6 +99,13 @@ public enum PDFRendererOption implements RendererConfigOption {
             return Boolean.valueOf(value);
         }
     },
+    /** Rendering Options key for writing the structure tree page-sequence by page-sequence. */
+    STREAM_STRUCTURE_TREE("stream-structure-tree", false) {
+        @Override
+        Boolean deserialize(String value) {
+            return Boolean.valueOf(value);
+        }
+    },
     /** Rendering Options key for the ICC profile for the output intent. */
     OUTPUT_PROFILE("output-profile") {
         @Override
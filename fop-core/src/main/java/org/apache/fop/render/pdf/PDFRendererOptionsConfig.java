@@ -41,6 +41,7 @@ import static org.apache.fop.render.pdf.PDFRendererOption.PDF_A_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_UA_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_VT_MODE;
 import static org.apache.fop.render.pdf.PDFRendererOption.PDF_X_MODE;
+import static org.apache.fop.render.pdf.PDFRendererOption.STREAM_STRUCTURE_TREE;
 import static org.apache.fop.render.pdf.PDFRendererOption.VERSION;
 
 /**
@@ -147,4 +148,8 @@ public final class PDFRendererOptionsConfig {
     public Boolean getFormXObjectEnabled() {
         return (Boolean)properties.get(FORM_XOBJECT);
     }
+
+    public Boolean getStructureTreeStreamingEnabled() {
+        return (Boolean)properties.get(STREAM_STRUCTURE_TREE);
+    }
 }
@@ -43,6 +43,7 @@ public class PDFRenderingContext extends AbstractRenderingContext {
     private Map<Integer, PDFArray> pageNumbers;
     private PDFLogicalStructureHandler pdfLogicalStructureHandler;
     private PDFStructElem currentSessionStructElem;
+    private SVGFormCache svgFormCache;
 
     /**
      * Main constructor.
@@ -96,6 +97,15 @@ public class PDFRenderingContext extends AbstractRenderingContext {
         return mci;
     }
 
+    void setSVGFormCache(SVGFormCache svgFormCache) {
+        this.svgFormCache = svgFormCache;
+    }
+
+    /** @return the cache of forms SVG images have been painted into, or null if they are not reused */
+    SVGFormCache getSVGFormCache() {
+        return svgFormCache;
+    }
+
     public Map<Integer, PDFArray> getPageNumbers() {
         return pageNumbers;
     }
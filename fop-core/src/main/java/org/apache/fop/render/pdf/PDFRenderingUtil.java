@@ -595,6 +595,7 @@ class PDFRenderingUtil {
         updateInfo();
         updatePDFProfiles();
         pdfDoc.setFilterMap(rendererConfig.getFilterMap());
+        pdfDoc.setImageXObjectCache(userAgent.getImageXObjectCache());
         pdfDoc.outputHeader(out);
 
         //Setup encryption if necessary
@@ -621,6 +622,7 @@ class PDFRenderingUtil {
         pdfDoc.setMergeFontsEnabled(rendererConfig.getMergeFontsEnabled());
         pdfDoc.setLinearizationEnabled(rendererConfig.getLinearizationEnabled());
         pdfDoc.setFormXObjectEnabled(rendererConfig.getFormXObjectEnabled());
+        pdfDoc.setStructureTreeStreamingEnabled(rendererConfig.getStructureTreeStreamingEnabled());
 
         return this.pdfDoc;
     }
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.pdf;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.w3c.dom.Document;
+
+import org.apache.batik.anim.dom.SVGDOMImplementation;
+import org.apache.batik.util.SVGConstants;
+
+import org.apache.fop.pdf.PDFFormXObject;
+
+/**
+ * Remembers the Form XObjects SVG images have been painted into within a PDF document, so an
+ * SVG that appears again (a logo or chart on many pages) is placed with a single Do operator
+ * instead of being built and painted again.
+ * <p>
+ * A form is identified by the SVG document (by identity; the image cache hands out the same
+ * instance for the same URI, as does an instream-foreign-object whose layout is reused) and
+ * the size it is painted at, which determines the resolution of any bitmaps Batik generates.
+ * The cache is bounded by the size of the content of the cached forms, which is roughly
+ * proportional to the size of the SVG documents it keeps referenced. Least recently used
+ * entries are evicted first; evicted forms stay valid but are no longer reused.
+ * <p>
+ * Whether an SVG document can be shared at all is only checked the first time it is painted
+ * at a size; SVG documents that cannot be shared are remembered, too, so they are painted
+ * inline afterwards without being inspected again.
+ * <p>
+ * This class is not thread-safe; an instance belongs to a single document.
+ */
+class SVGFormCache {
+
+    /** the size charged for an entry of an SVG document that is not painted into a form */
+    private static final long NOT_REUSABLE_ENTRY_SIZE = 1024;
+
+    private final long maxBytes;
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+
+    private long currentBytes;
+
+    private int formCount;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    /**
+     * Creates a new cache.
+     * @param maxBytes the maximum size of the content of the cached forms
+     */
+    SVGFormCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be greater than 0: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Checks whether an SVG document can be painted into a form that is shared between
+     * pages. Links cannot be shared as they create annotations on the page they are painted on.
+     * This walks the whole document, so it must only be called on a document that isn't shared
+     * between threads, i.e. a clone.
+     * @param svg the SVG document
+     * @return true if the SVG document can be painted into a shared form
+     */
+    static boolean isReusable(Document svg) {
+        return svg.getElementsByTagNameNS(SVGDOMImplementation.SVG_NAMESPACE_URI,
+                SVGConstants.SVG_A_TAG).getLength() == 0;
+    }
+
+    /**
+     * Returns the entry for an SVG document painted at a certain size.
+     * @param svg the SVG document
+     * @param width the width the SVG is painted at (in millipoints)
+     * @param height the height the SVG is painted at (in millipoints)
+     * @return the entry or null if the SVG document has not been painted at this size before
+     */
+    Entry get(Document svg, int width, int height) {
+        Entry entry = entries.get(new Key(svg, width, height));
+        if (entry != null && entry.form != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return entry;
+    }
+
+    /**
+     * Adds a form to the cache, evicting least recently used entries if necessary. Forms larger
+     * than the cache's capacity are not cached.
+     * @param svg the SVG document
+     * @param width the width the SVG is painted at (in millipoints)
+     * @param height the height the SVG is painted at (in millipoints)
+     * @param form the form the SVG document has been painted into
+     * @param size the size of the content of the form
+     */
+    void put(Document svg, int width, int height, PDFFormXObject form, long size) {
+        if (size > maxBytes) {
+            return;
+        }
+        add(new Key(svg, width, height), new Entry(form, size));
+    }
+
+    /**
+     * Remembers that an SVG document cannot be painted into a shared form.
+     * @param svg the SVG document
+     * @param width the width the SVG is painted at (in millipoints)
+     * @param height the height the SVG is painted at (in millipoints)
+     */
+    void putNotReusable(Document svg, int width, int height) {
+        add(new Key(svg, width, height), new Entry(null, Math.min(NOT_REUSABLE_ENTRY_SIZE, maxBytes)));
+    }
+
+    private void add(Key key, Entry entry) {
+        Entry old = entries.put(key, entry);
+        if (old != null) {
+            currentBytes -= old.size;
+        }
+        currentBytes += entry.size;
+        Iterator<Entry> iter = entries.values().iterator();
+        while (currentBytes > maxBytes && iter.hasNext()) {
+            Entry eldest = iter.next();
+            if (eldest == entry) {
+                continue;
+            }
+            iter.remove();
+            currentBytes -= eldest.size;
+            evictions++;
+        }
+    }
+
+    /** @return a key to register a new form under in the document */
+    String nextFormKey() {
+        return "SVGForm" + (++formCount);
+    }
+
+    /** @return the number of bytes currently held by the cache */
+    long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    /** @return the number of entries currently held by the cache */
+    int getEntryCount() {
+        return entries.size();
+    }
+
+    /** @return the number of cache hits */
+    long getHitCount() {
+        return hits;
+    }
+
+    /** @return the number of cache misses */
+    long getMissCount() {
+        return misses;
+    }
+
+    /** @return the number of entries evicted because of the byte budget */
+    long getEvictionCount() {
+        return evictions;
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return "SVGFormCache[entries=" + entries.size() + ", bytes=" + currentBytes
+                + "/" + maxBytes + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + "]";
+    }
+
+    private static final class Key {
+
+        private final Document svg;
+
+        private final int width;
+
+        private final int height;
+
+        Key(Document svg, int width, int height) {
+            this.svg = svg;
+            this.width = width;
+            this.height = height;
+        }
+
+        public int hashCode() {
+            return (31 * System.identityHashCode(svg) + width) * 31 + height;
+        }
+
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return svg == other.svg && width == other.width && height == other.height;
+        }
+    }
+
+    /** An SVG document painted at a certain size. */
+    static final class Entry {
+
+        private final PDFFormXObject form;
+
+        private final long size;
+
+        Entry(PDFFormXObject form, long size) {
+            this.form = form;
+            this.size = size;
+        }
+
+        /** @return the form the SVG document has been painted into, or null if it cannot be shared */
+        PDFFormXObject getForm() {
+            return form;
+        }
+    }
+}
@@ -19,18 +19,23 @@
 
 package org.apache.fop.render.ps;
 
+import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.geom.Dimension2D;
 import java.awt.geom.Rectangle2D;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -40,6 +45,7 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.apache.xmlgraphics.io.Resource;
 import org.apache.xmlgraphics.io.TempResourceURIGenerator;
 import org.apache.xmlgraphics.java2d.Dimension2DDouble;
 import org.apache.xmlgraphics.ps.DSCConstants;
@@ -55,10 +61,13 @@ import org.apache.xmlgraphics.ps.dsc.events.DSCCommentBoundingBox;
 import org.apache.xmlgraphics.ps.dsc.events.DSCCommentHiResBoundingBox;
 
 import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.apps.io.TempFileResource;
+import org.apache.fop.fonts.FontTriplet;
 import org.apache.fop.render.intermediate.AbstractBinaryWritingIFDocumentHandler;
 import org.apache.fop.render.intermediate.IFContext;
 import org.apache.fop.render.intermediate.IFDocumentHandlerConfigurator;
 import org.apache.fop.render.intermediate.IFException;
+import org.apache.fop.render.intermediate.IFPageNumberPlaceholderHandler;
 import org.apache.fop.render.intermediate.IFPainter;
 import org.apache.fop.render.ps.PSRendererConfig.PSRendererConfigParser;
 import org.apache.fop.render.ps.extensions.PSCommentAfter;
@@ -71,7 +80,8 @@ import org.apache.fop.render.ps.extensions.PSSetupCode;
  * {@link org.apache.fop.render.intermediate.IFDocumentHandler} implementation
  * that produces PostScript.
  */
-public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
+public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler
+        implements IFPageNumberPlaceholderHandler {
 
     /** logging instance */
     private static Log log = LogFactory.getLog(PSDocumentHandler.class);
@@ -85,11 +95,17 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
     /** The PostScript generator used to output the PostScript */
     PSGenerator gen;
 
-    /** the temporary file in case of two-pass processing */
+    /**
+     * the temporary resource holding the document in case of two-pass processing, or the
+     * pages in case of single-pass resource optimization
+     */
     private URI tempURI;
     private static final TempResourceURIGenerator TEMP_URI_GENERATOR
             = new TempResourceURIGenerator("ps-optimize");
 
+    /** the header, prolog and setup in case of single-pass resource optimization */
+    private ByteArrayOutputStream prologue;
+
     private int currentPageNumber;
     private PageDefinition currentPageDefinition;
 
@@ -116,6 +132,12 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
 
     private PSEventProducer eventProducer;
 
+    /** Procedures painting page numbers which are only known at the end (key: page number key) */
+    private Map<String, List<PageNumberPlaceholder>> pageNumberPlaceholders
+            = new HashMap<String, List<PageNumberPlaceholder>>();
+    /** The bodies of the page number procedures (key: procedure name) */
+    private Map<String, String> pageNumberProcedures = new LinkedHashMap<String, String>();
+
     /**
      * Default constructor.
      */
@@ -239,16 +261,35 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         PSRenderingUtil.writeSetupCodeList(gen, setupCodeList, "SetupCode");
         if (!psUtil.isOptimizeResources()) {
             this.fontResources.addAll(PSFontUtils.writeFontDict(gen, fontInfo, eventProducer));
+        } else if (isSinglePassOptimization()) {
+            return; //The setup is completed at the end of the document, see writePrologue()
         } else {
             gen.commentln("%FOPFontSetup"); //Place-holder, will be replaced in the second pass
         }
         gen.writeDSCComment(DSCConstants.END_SETUP);
     }
 
+    private boolean isSinglePassOptimization() {
+        return psUtil.isOptimizeResources() && psUtil.isSinglePassResources();
+    }
+
     /** {@inheritDoc} */
     public void endDocumentHeader() throws IFException {
         try {
-            writeHeader();
+            if (isSinglePassOptimization()) {
+                //The header goes to a separate buffer while the pages are written
+                PSGenerator documentGenerator = this.gen;
+                prologue = new ByteArrayOutputStream();
+                this.gen = createPrologueGenerator(documentGenerator);
+                try {
+                    writeHeader();
+                } finally {
+                    this.gen.flush();
+                    this.gen = documentGenerator;
+                }
+            } else {
+                writeHeader();
+            }
         } catch (IOException ioe) {
             throw new IFException("I/O error writing the PostScript header", ioe);
         }
@@ -256,7 +297,11 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
 
     /** {@inheritDoc} */
     public void endDocument() throws IFException {
+        boolean complete = false;
         try {
+            if (isSinglePassOptimization()) {
+                writePrologue();
+            }
             //Write trailer
             gen.writeDSCComment(DSCConstants.TRAILER);
             writeExtensions(COMMENT_DOCUMENT_TRAILER);
@@ -267,19 +312,54 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
             gen.writeDSCComment(DSCConstants.EOF);
             gen.flush();
             log.debug("Rendering to PostScript complete.");
-            if (psUtil.isOptimizeResources()) {
+            if (isSinglePassOptimization()) {
+                IOUtils.closeQuietly(gen.getOutputStream());
+                joinPrologueAndBody();
+            } else if (psUtil.isOptimizeResources()) {
                 IOUtils.closeQuietly(gen.getOutputStream());
                 rewritePostScriptFile();
             }
             if (pageDeviceDictionary != null) {
                 pageDeviceDictionary.clear();
             }
+            complete = true;
         } catch (IOException ioe) {
             throw new IFException("I/O error in endDocument()", ioe);
+        } finally {
+            if (!complete) {
+                discardTempResource();
+            }
         }
         super.endDocument();
     }
 
+    /**
+     * Opens the temporary resource for reading. The resource is given up to the resource
+     * resolver once it is closed.
+     * @return the temporary resource
+     * @throws IOException In case of an I/O error.
+     */
+    private Resource openTempResource() throws IOException {
+        URI uri = tempURI;
+        tempURI = null;
+        return getUserAgent().getResourceResolver().getResource(uri);
+    }
+
+    /**
+     * Releases the temporary resource if it hasn't been processed, so the resource resolver
+     * can delete it.
+     */
+    private void discardTempResource() {
+        if (tempURI != null) {
+            IOUtils.closeQuietly(gen.getOutputStream());
+            try {
+                IOUtils.closeQuietly(openTempResource());
+            } catch (IOException ioe) {
+                log.debug("Temporary resource could not be released", ioe);
+            }
+        }
+    }
+
     /**
      * Used for two-pass production. This will rewrite the PostScript file from the temporary
      * file while adding all needed resources.
@@ -289,11 +369,12 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         log.debug("Processing PostScript resources...");
         long startTime = System.currentTimeMillis();
         ResourceTracker resTracker = gen.getResourceTracker();
-        InputStream in = new BufferedInputStream(getUserAgent().getResourceResolver().getResource(tempURI));
+        InputStream in = new BufferedInputStream(openTempResource());
         try {
             try {
                 ResourceHandler handler = new ResourceHandler(getUserAgent(), eventProducer,
                         this.fontInfo, resTracker, this.formResources);
+                handler.setPageNumberPlaceholders(pageNumberProcedures);
                 handler.process(in, this.outputStream,
                         this.currentPageNumber, this.documentBoundingBox, psUtil);
                 this.outputStream.flush();
@@ -309,6 +390,73 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         }
     }
 
+    private PSGenerator createPrologueGenerator(PSGenerator documentGenerator) {
+        PSGenerator prologueGenerator = new FOPPSGeneratorImpl(prologue);
+        prologueGenerator.setPSLevel(documentGenerator.getPSLevel());
+        prologueGenerator.setAcrobatDownsample(documentGenerator.isAcrobatDownsample());
+        prologueGenerator.setResourceTracker(documentGenerator.getResourceTracker());
+        return prologueGenerator;
+    }
+
+    /**
+     * Used for single-pass production. This completes the document setup with all needed
+     * resources, after the pages have been written. The resources are registered as supplied
+     * before the trailer lists them.
+     * @throws IOException In case of an I/O error.
+     */
+    private void writePrologue() throws IOException {
+        PSGenerator prologueGenerator = createPrologueGenerator(gen);
+        ResourceHandler handler = new ResourceHandler(getUserAgent(), eventProducer,
+                this.fontInfo, gen.getResourceTracker(), this.formResources, false);
+        handler.setPageNumberPlaceholders(pageNumberProcedures);
+        handler.writeSetupResources(prologueGenerator);
+        prologueGenerator.writeDSCComment(DSCConstants.END_SETUP);
+        prologueGenerator.flush();
+    }
+
+    /**
+     * Used for single-pass production. This writes the buffered prologue to the output,
+     * followed by the pages, which are copied from the temporary resource without being
+     * parsed again. If the temporary resource is a file and the output is a file, too, the
+     * pages are transferred between the files' channels, so they don't pass through the heap.
+     * @throws IOException In case of an I/O error.
+     */
+    private void joinPrologueAndBody() throws IOException {
+        long startTime = System.currentTimeMillis();
+        long bodyLength;
+        boolean transferred = false;
+        Resource body = openTempResource();
+        try {
+            prologue.writeTo(this.outputStream);
+            if (body instanceof TempFileResource && this.outputStream instanceof FileOutputStream) {
+                bodyLength = transfer(((TempFileResource) body).getChannel(),
+                        ((FileOutputStream) this.outputStream).getChannel());
+                transferred = true;
+            } else {
+                bodyLength = IOUtils.copyLarge(body, this.outputStream);
+            }
+            this.outputStream.flush();
+        } finally {
+            IOUtils.closeQuietly(body);
+        }
+        if (log.isDebugEnabled()) {
+            long duration = System.currentTimeMillis() - startTime;
+            log.debug("Joined " + prologue.size() + " bytes of resources and " + bodyLength
+                    + " bytes of pages (" + (transferred ? "transferred between files" : "copied")
+                    + ") in " + duration + " ms.");
+        }
+        prologue = null;
+    }
+
+    private static long transfer(FileChannel source, FileChannel target) throws IOException {
+        long size = source.size();
+        long position = 0;
+        while (position < size) {
+            position += source.transferTo(position, size - position, target);
+        }
+        return size;
+    }
+
     /** {@inheritDoc} */
     public void startPageSequence(String id) throws IFException {
         //nop
@@ -581,6 +729,102 @@ public class PSDocumentHandler extends AbstractBinaryWritingIFDocumentHandler {
         return this.fontResources.getFontResourceForFontKey(key);
     }
 
+    /** {@inheritDoc} */
+    public boolean supportsPageNumberPlaceholders() {
+        //Only in two-pass mode can procedures be defined in the setup after the pages are written
+        return psUtil.isOptimizeResources();
+    }
+
+    /**
+     * Paints a call to the procedure which will paint the page number with the given key
+     * on the current page.
+     * @param key the key identifying the page number
+     * @param x the X coordinate of the baseline start
+     * @param y the Y coordinate of the baseline start
+     * @param triplet the font to use
+     * @param fontSize the font size (in mpt)
+     * @param color the text color
+     * @throws IOException if an I/O error occurs
+     */
+    void drawPageNumberPlaceholder(String key, int x, int y, FontTriplet triplet, int fontSize,
+            Color color) throws IOException {
+        List<PageNumberPlaceholder> placeholders = pageNumberPlaceholders.get(key);
+        if (placeholders == null) {
+            placeholders = new ArrayList<PageNumberPlaceholder>();
+            pageNumberPlaceholders.put(key, placeholders);
+        }
+        PageNumberPlaceholder placeholder = null;
+        for (PageNumberPlaceholder candidate : placeholders) {
+            if (candidate.matches(triplet, fontSize, color)) {
+                placeholder = candidate;
+                break;
+            }
+        }
+        if (placeholder == null) {
+            placeholder = new PageNumberPlaceholder("FOPPN" + (pageNumberProcedures.size() + 1),
+                    triplet, fontSize, color);
+            placeholders.add(placeholder);
+            //Defined as empty procedure in case it is never filled
+            pageNumberProcedures.put(placeholder.name, "");
+        }
+        getPSResourceForFontKey(fontInfo.getInternalFontKey(triplet))
+                .notifyResourceUsageOnPage(gen.getResourceTracker());
+        gen.saveGraphicsState();
+        gen.writeln(gen.formatDouble(x / 1000.0) + " " + gen.formatDouble(y / 1000.0)
+                + " translate " + placeholder.name);
+        gen.restoreGraphicsState();
+    }
+
+    /** {@inheritDoc} */
+    public void fillPageNumberPlaceholder(String key, String text) throws IFException {
+        List<PageNumberPlaceholder> placeholders = pageNumberPlaceholders.remove(key);
+        if (placeholders == null || text.length() == 0) {
+            return;
+        }
+        PSGenerator documentGenerator = this.gen;
+        try {
+            for (PageNumberPlaceholder placeholder : placeholders) {
+                //Let a regular painter write the procedure body
+                ByteArrayOutputStream body = new ByteArrayOutputStream();
+                this.gen = new FOPPSGeneratorImpl(body);
+                this.gen.setPSLevel(documentGenerator.getPSLevel());
+                PSPainter painter = new PSPainter(this);
+                painter.setFont(placeholder.triplet.getName(), placeholder.triplet.getStyle(),
+                        placeholder.triplet.getWeight(), "normal", placeholder.fontSize,
+                        placeholder.color);
+                painter.drawText(0, 0, 0, 0, null, text);
+                painter.endTextObject();
+                this.gen.flush();
+                pageNumberProcedures.put(placeholder.name, body.toString("US-ASCII"));
+            }
+        } catch (IOException ioe) {
+            throw new IFException("I/O error while filling in a page number", ioe);
+        } finally {
+            this.gen = documentGenerator;
+        }
+    }
+
+    /** A procedure painting a page number in a particular font, defined at the end. */
+    private static final class PageNumberPlaceholder {
+
+        private final String name;
+        private final FontTriplet triplet;
+        private final int fontSize;
+        private final Color color;
+
+        private PageNumberPlaceholder(String name, FontTriplet triplet, int fontSize, Color color) {
+            this.name = name;
+            this.triplet = triplet;
+            this.fontSize = fontSize;
+            this.color = color;
+        }
+
+        private boolean matches(FontTriplet triplet, int fontSize, Color color) {
+            return this.triplet.equals(triplet) && this.fontSize == fontSize
+                    && (this.color == null ? color == null : this.color.equals(color));
+        }
+    }
+
     /**
      * Returns a PSResource instance representing a image as a PostScript form.
      * @param uri the image URI
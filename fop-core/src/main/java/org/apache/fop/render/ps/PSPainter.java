@@ -361,9 +361,16 @@ public class PSPainter extends AbstractIFPainter<PSDocumentHandler> {
             if (state.getFontSize() == 0) {
                 return;
             }
+            FontTriplet triplet = new FontTriplet(state.getFontFamily(), state.getFontStyle(), state.getFontWeight());
+            String placeholder = getContext().getPageNumberPlaceholder();
+            if (placeholder != null) {
+                endTextObject();
+                getDocumentHandler().drawPageNumberPlaceholder(placeholder, x, y, triplet,
+                        state.getFontSize(), state.getTextColor());
+                return;
+            }
             PSGenerator generator = getGenerator();
             generator.useColor(state.getTextColor());
-            FontTriplet triplet = new FontTriplet(state.getFontFamily(), state.getFontStyle(), state.getFontWeight());
             String fontKey = getFontKey(triplet);
             Typeface typeface = getTypeface(fontKey);
             if (typeface instanceof MultiByteFont && ((MultiByteFont) typeface).hasSVG()) {
@@ -43,6 +43,7 @@ import static org.apache.fop.render.ps.PSRendererOption.LANGUAGE_LEVEL;
 import static org.apache.fop.render.ps.PSRendererOption.OPTIMIZE_RESOURCES;
 import static org.apache.fop.render.ps.PSRendererOption.RENDERING_MODE;
 import static org.apache.fop.render.ps.PSRendererOption.SAFE_SET_PAGE_DEVICE;
+import static org.apache.fop.render.ps.PSRendererOption.SINGLE_PASS_RESOURCES;
 
 /**
  * The PostScript renderer configuration data object.
@@ -74,6 +75,10 @@ public final class PSRendererConfig implements RendererConfig {
         return (Boolean) params.get(OPTIMIZE_RESOURCES);
     }
 
+    public Boolean isSinglePassResources() {
+        return (Boolean) params.get(SINGLE_PASS_RESOURCES);
+    }
+
     public Boolean isSafeSetPageDevice() {
         return (Boolean) params.get(SAFE_SET_PAGE_DEVICE);
     }
@@ -127,6 +132,7 @@ public final class PSRendererConfig implements RendererConfig {
                         cfg.getChild(LANGUAGE_LEVEL.getName())
                            .getValueAsInteger((Integer) LANGUAGE_LEVEL.getDefaultValue()));
                 setBoolConfigParam(cfg, OPTIMIZE_RESOURCES);
+                setBoolConfigParam(cfg, SINGLE_PASS_RESOURCES);
                 setBoolConfigParam(cfg, SAFE_SET_PAGE_DEVICE);
                 setBoolConfigParam(cfg, DSC_COMPLIANT);
                 setBoolConfigParam(cfg, ACROBAT_DOWNSAMPLE);
@@ -37,6 +37,7 @@ import static org.apache.fop.render.ps.PSRendererOption.ACROBAT_DOWNSAMPLE;
 import static org.apache.fop.render.ps.PSRendererOption.AUTO_ROTATE_LANDSCAPE;
 import static org.apache.fop.render.ps.PSRendererOption.LANGUAGE_LEVEL;
 import static org.apache.fop.render.ps.PSRendererOption.OPTIMIZE_RESOURCES;
+import static org.apache.fop.render.ps.PSRendererOption.SINGLE_PASS_RESOURCES;
 
 /**
  * Utility class which enables all sorts of features that are not directly connected to the
@@ -62,6 +63,9 @@ public class PSRenderingUtil {
     /** Determines whether the PS file is generated in two passes to minimize file size */
     private boolean optimizeResources;
 
+    /** Determines whether optimized resources are added without rewriting the pages */
+    private boolean singlePassResources;
+
     /**
      * Determines whether the generated PostScript code is optimized for minimum file size
      * of best quality.
@@ -88,6 +92,10 @@ public class PSRenderingUtil {
         if (obj != null) {
             setOptimizeResources(booleanValueOf(obj));
         }
+        obj = userAgent.getRendererOptions().get(SINGLE_PASS_RESOURCES.getName());
+        if (obj != null) {
+            setSinglePassResources(booleanValueOf(obj));
+        }
         obj = userAgent.getRendererOptions().get(ACROBAT_DOWNSAMPLE.getName());
         if (obj != null) {
             setAcrobatDownsample(booleanValueOf(obj));
@@ -312,6 +320,25 @@ public class PSRenderingUtil {
         return optimizeResources;
     }
 
+    /**
+     * Controls how optimized resources are added (only applies if resource optimization is
+     * enabled). In single-pass mode, the pages are written once to a temporary resource and
+     * then appended as is to the header and setup, which are generated at the end. This avoids
+     * parsing the whole document again, but forms used only once are not inlined.
+     * @param value true to add the resources without a second pass over the pages
+     */
+    public void setSinglePassResources(boolean value) {
+        this.singlePassResources = value;
+    }
+
+    /**
+     * Indicates whether optimized resources are added without a second pass over the pages.
+     * @return true if single-pass resource optimization is enabled
+     */
+    public boolean isSinglePassResources() {
+        return singlePassResources;
+    }
+
     /**
      * Sets the rendering mode.
      * @param renderingMode the rendering mode
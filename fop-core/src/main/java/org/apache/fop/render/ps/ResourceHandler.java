@@ -89,6 +89,9 @@ public class ResourceHandler implements DSCParserConstants, PSSupportedFlavors {
     //key: PSResource, values PSImageFormResource
     private Map inlineFormResources = new java.util.HashMap();
 
+    //key: procedure name, values: procedure body
+    private Map<String, String> pageNumberPlaceholders;
+
     /**
      * Main constructor.
      * @param userAgent the FO user agent
@@ -99,11 +102,37 @@ public class ResourceHandler implements DSCParserConstants, PSSupportedFlavors {
      */
     public ResourceHandler(FOUserAgent userAgent, PSEventProducer eventProducer,
             FontInfo fontInfo, ResourceTracker resTracker, Map formResources) {
+        this(userAgent, eventProducer, fontInfo, resTracker, formResources, true);
+    }
+
+    /**
+     * Creates a new resource handler.
+     * @param userAgent the FO user agent
+     * @param eventProducer the event producer
+     * @param fontInfo the font information
+     * @param resTracker the resource tracker to use
+     * @param formResources Contains all forms used by this document (maintained by PSRenderer)
+     * @param inlineForms true if forms used only once are to be inlined in the pages (only
+     *          possible when the pages are rewritten by {@link #process}), false if all forms
+     *          are to be defined in the document setup
+     */
+    public ResourceHandler(FOUserAgent userAgent, PSEventProducer eventProducer,
+            FontInfo fontInfo, ResourceTracker resTracker, Map formResources,
+            boolean inlineForms) {
         this.userAgent = userAgent;
         this.eventProducer = eventProducer;
         this.fontInfo = fontInfo;
         this.resTracker = resTracker;
-        determineInlineForms(formResources);
+        determineInlineForms(formResources, inlineForms);
+    }
+
+    /**
+     * Sets the procedures painting the page numbers which were only known at the end of the
+     * document. They are defined in the document setup, after the fonts.
+     * @param pageNumberPlaceholders the procedure bodies (key: procedure name)
+     */
+    public void setPageNumberPlaceholders(Map<String, String> pageNumberPlaceholders) {
+        this.pageNumberPlaceholders = pageNumberPlaceholders;
     }
 
     /**
@@ -111,8 +140,9 @@ public class ResourceHandler implements DSCParserConstants, PSSupportedFlavors {
      * have been referenced more than once, and one for inline forms which have only been
      * used once. The latter is to conserve memory in the PostScript interpreter.
      * @param formResources the original form resources map
+     * @param inlineForms false if no form is to be inlined
      */
-    private void determineInlineForms(Map formResources) {
+    private void determineInlineForms(Map formResources, boolean inlineForms) {
         if (formResources == null) {
             return;
         }
@@ -120,7 +150,7 @@ public class ResourceHandler implements DSCParserConstants, PSSupportedFlavors {
             Map.Entry entry = (Map.Entry) o;
             PSResource res = (PSResource) entry.getValue();
             long count = resTracker.getUsageCount(res);
-            if (count > 1) {
+            if (count > 1 || !inlineForms) {
                 //Make global form
                 this.globalFormResources.put(entry.getKey(), res);
             } else {
@@ -191,8 +221,7 @@ public class ResourceHandler implements DSCParserConstants, PSSupportedFlavors {
                 new DSCCommentBoundingBox(documentBoundingBox).generate(gen);
                 new DSCCommentHiResBoundingBox(documentBoundingBox).generate(gen);
 
-                PSFontUtils.determineSuppliedFonts(resTracker, fontInfo, fontInfo.getUsedFonts());
-                registerSuppliedForms(resTracker, globalFormResources);
+                registerSuppliedResources();
 
                 //Supplied Resources
                 DSCCommentDocumentSuppliedResources supplied
@@ -225,8 +254,7 @@ public class ResourceHandler implements DSCParserConstants, PSSupportedFlavors {
         if (fontSetupPlaceholder == null) {
             throw new DSCException("Didn't find %FOPFontSetup comment in stream");
         }
-        PSFontUtils.writeFontDict(gen, fontInfo, fontInfo.getUsedFonts(), eventProducer);
-        generateForms(globalFormResources, gen);
+        writeSetupResourceDefinitions(gen);
 
         //Skip the prolog and to the first page
         DSCComment pageOrTrailer = parser.nextDSCComment(DSCConstants.PAGE, gen);
@@ -255,6 +283,30 @@ public class ResourceHandler implements DSCParserConstants, PSSupportedFlavors {
         gen.flush();
     }
 
+    /**
+     * Writes the resources needed by the document (fonts, forms and the page number
+     * procedures) into the document setup and registers them as supplied with the resource
+     * tracker. This is used for single-pass production where the pages are not rewritten,
+     * so the handler should have been created without inlining forms.
+     * @param gen the PostScript generator for the document setup
+     * @throws IOException In case of an I/O error
+     */
+    public void writeSetupResources(PSGenerator gen) throws IOException {
+        registerSuppliedResources();
+        writeSetupResourceDefinitions(gen);
+    }
+
+    private void registerSuppliedResources() throws IOException {
+        PSFontUtils.determineSuppliedFonts(resTracker, fontInfo, fontInfo.getUsedFonts());
+        registerSuppliedForms(resTracker, globalFormResources);
+    }
+
+    private void writeSetupResourceDefinitions(PSGenerator gen) throws IOException {
+        PSFontUtils.writeFontDict(gen, fontInfo, fontInfo.getUsedFonts(), eventProducer);
+        generateForms(globalFormResources, gen);
+        generatePageNumberPlaceholders(gen);
+    }
+
     private static void reportInvalidDSC() throws DSCException {
         throw new DSCException("File is not DSC-compliant: Unexpected end of file");
     }
@@ -270,6 +322,17 @@ public class ResourceHandler implements DSCParserConstants, PSSupportedFlavors {
         }
     }
 
+    private void generatePageNumberPlaceholders(PSGenerator gen) throws IOException {
+        if (pageNumberPlaceholders == null) {
+            return;
+        }
+        for (Map.Entry<String, String> entry : pageNumberPlaceholders.entrySet()) {
+            gen.writeln("/" + entry.getKey() + " {");
+            gen.write(entry.getValue());
+            gen.writeln("} bind def");
+        }
+    }
+
     private void generateForms(Map formResources, PSGenerator gen) throws IOException {
         if (formResources == null) {
             return;
@@ -23,11 +23,18 @@ package org.apache.fop.render.rtf;
 import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.awt.geom.Point2D;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -48,10 +55,12 @@ import org.apache.xmlgraphics.image.loader.ImageSize;
 import org.apache.xmlgraphics.image.loader.impl.ImageRawStream;
 import org.apache.xmlgraphics.image.loader.impl.ImageXMLDOM;
 import org.apache.xmlgraphics.image.loader.util.ImageUtil;
+import org.apache.xmlgraphics.io.TempResourceURIGenerator;
 
 import org.apache.fop.ResourceEventProducer;
 import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.io.InternalResourceResolver;
 import org.apache.fop.datatypes.LengthBase;
 import org.apache.fop.datatypes.PercentBaseContext;
 import org.apache.fop.fo.Constants;
@@ -101,6 +110,7 @@ import org.apache.fop.render.RendererEventProducer;
 import org.apache.fop.render.rtf.rtflib.exceptions.RtfException;
 import org.apache.fop.render.rtf.rtflib.rtfdoc.IRtfAfterContainer;
 import org.apache.fop.render.rtf.rtflib.rtfdoc.IRtfBeforeContainer;
+import org.apache.fop.render.rtf.rtflib.rtfdoc.IRtfBodySpool;
 import org.apache.fop.render.rtf.rtflib.rtfdoc.IRtfListContainer;
 import org.apache.fop.render.rtf.rtflib.rtfdoc.IRtfTableContainer;
 import org.apache.fop.render.rtf.rtflib.rtfdoc.IRtfTextrunContainer;
@@ -134,7 +144,20 @@ import org.apache.fop.render.rtf.rtflib.tools.TableContext;
  */
 public class RTFHandler extends FOEventHandler {
 
+    /**
+     * Renderer option (a Boolean) that makes the handler write each page-sequence as soon as
+     * the next one starts, instead of keeping the whole RTF document in memory until the end.
+     * The page-sequences are written to a temporary resource of the user agent's resource
+     * resolver, which is copied to the output after the header.
+     */
+    public static final String STREAMING = "rtf-streaming";
+
+    private static final TempResourceURIGenerator TEMP_URI_GENERATOR
+            = new TempResourceURIGenerator("rtf-streaming");
+
     private RtfFile rtfFile;
+    /** the temporary resource page-sequences are written to in streaming mode, or null */
+    private TempResourceBodySpool bodySpool;
     private final OutputStream os;
     private static Log log = LogFactory.getLog(RTFHandler.class);
     private RtfSection sect;
@@ -187,8 +210,14 @@ public class RTFHandler extends FOEventHandler {
         // TODO sections should be created
         try {
             rtfFile = new RtfFile(new OutputStreamWriter(os));
-            docArea = rtfFile.startDocumentArea();
+            if (Boolean.TRUE.equals(getUserAgent().getRendererOptions().get(STREAMING))) {
+                bodySpool = new TempResourceBodySpool(getUserAgent().getResourceResolver());
+                docArea = rtfFile.startDocumentArea(bodySpool);
+            } else {
+                docArea = rtfFile.startDocumentArea();
+            }
         } catch (IOException ioe) {
+            disposeBodySpool();
             // TODO could we throw Exception in all FOEventHandler events?
             throw new SAXException(ioe);
         }
@@ -201,6 +230,70 @@ public class RTFHandler extends FOEventHandler {
         } catch (IOException ioe) {
             // TODO could we throw Exception in all FOEventHandler events?
             throw new SAXException(ioe);
+        } finally {
+            disposeBodySpool();
+        }
+    }
+
+    private void disposeBodySpool() {
+        if (bodySpool != null) {
+            bodySpool.dispose();
+            bodySpool = null;
+        }
+    }
+
+    /**
+     * Holds the page-sequences written in streaming mode in a temporary resource. The
+     * resource is released when it has been read or, if the document fails, by
+     * {@link #dispose()}.
+     */
+    private static final class TempResourceBodySpool implements IRtfBodySpool {
+
+        private final InternalResourceResolver resourceResolver;
+
+        /** the URI of the temporary resource, or null once it has been released */
+        private URI tempURI;
+
+        private final Writer writer;
+
+        TempResourceBodySpool(InternalResourceResolver resourceResolver) throws IOException {
+            this.resourceResolver = resourceResolver;
+            tempURI = TEMP_URI_GENERATOR.generate();
+            writer = new BufferedWriter(new OutputStreamWriter(
+                    new BufferedOutputStream(resourceResolver.getOutputStream(tempURI))));
+        }
+
+        public Writer getWriter() {
+            return writer;
+        }
+
+        public void transferTo(Writer out) throws IOException {
+            writer.close();
+            Reader in = new InputStreamReader(openTempResource());
+            try {
+                IOUtils.copy(in, out);
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+        }
+
+        private InputStream openTempResource() throws IOException {
+            URI uri = tempURI;
+            tempURI = null;
+            return new BufferedInputStream(resourceResolver.getResource(uri));
+        }
+
+        /** Closes the spool and releases the temporary resource unless it has been read. */
+        void dispose() {
+            IOUtils.closeQuietly(writer);
+            if (tempURI != null) {
+                try {
+                    //the temporary resource is released by reading it
+                    IOUtils.closeQuietly(openTempResource());
+                } catch (IOException ioe) {
+                    log.debug("Temporary resource could not be released", ioe);
+                }
+            }
         }
     }
 
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.rtf.rtflib.rtfdoc;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Interface for the storage that holds the RTF code of the completed sections of a
+ * document area until the header, which depends on the whole document, has been written.
+ */
+public interface IRtfBodySpool {
+
+    /**
+     * @return the writer the sections are written to
+     */
+    Writer getWriter();
+
+    /**
+     * Copies everything written to the spool to the given writer. Called once, after the last
+     * section has been written to the spool.
+     * @param out the writer to copy the RTF code to
+     * @throws IOException for I/O problems
+     */
+    void transferTo(Writer out) throws IOException;
+}
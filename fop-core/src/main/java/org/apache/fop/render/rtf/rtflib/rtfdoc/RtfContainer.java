@@ -97,6 +97,17 @@ public class RtfContainer extends RtfElement {
         lastChild = e;
     }
 
+    /**
+     * remove a child element from this
+     * @param e child element to remove
+     */
+    void removeChild(RtfElement e) {
+        children.remove(e);
+        if (lastChild == e) {
+            lastChild = children.isEmpty() ? null : (RtfElement) children.getLast();
+        }
+    }
+
     /**
      * @return a copy of our children's list
      */
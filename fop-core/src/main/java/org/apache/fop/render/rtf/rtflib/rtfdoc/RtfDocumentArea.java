@@ -39,9 +39,28 @@ public class RtfDocumentArea
 extends RtfContainer {
     private RtfSection currentSection;
 
+    /** the spool completed sections are written to, or null if they are kept until the end */
+    private final IRtfBodySpool bodySpool;
+
+    /** the writer of the RTF file, which the spool is copied to */
+    private final Writer fileWriter;
+
+    /** true if a section with content has been written to the spool */
+    private boolean sectionsSpooled;
+
     /** Create an RTF element as a child of given container */
     RtfDocumentArea(RtfFile f, Writer w) throws IOException {
-        super(f, w);
+        this(f, w, null);
+    }
+
+    /**
+     * Create an RTF element as a child of given container, which writes each section to the
+     * given spool as soon as it is complete.
+     */
+    RtfDocumentArea(RtfFile f, Writer w, IRtfBodySpool bodySpool) throws IOException {
+        super(f, bodySpool != null ? bodySpool.getWriter() : w);
+        this.bodySpool = bodySpool;
+        this.fileWriter = w;
     }
 
     /**
@@ -50,10 +69,37 @@ extends RtfContainer {
      * @return the new RtfSection
      */
     public RtfSection newSection() throws IOException {
-        if (currentSection != null) {
-            currentSection.close();
+        RtfSection previousSection = currentSection;
+        if (previousSection != null) {
+            previousSection.close();
         }
         currentSection = new RtfSection(this, writer);
+        if (bodySpool != null && previousSection != null) {
+            //The previous section is complete and now known not to be the last one (which
+            //decides on its suffix), so it can be written and released
+            sectionsSpooled |= !previousSection.isEmpty();
+            previousSection.writeRtf();
+            removeChild(previousSection);
+        }
         return currentSection;
     }
+
+    /**
+     * Overridden to copy the sections written to the spool before the remaining ones
+     * @throws IOException for I/O problems
+     */
+    protected void writeRtfContent() throws IOException {
+        super.writeRtfContent();
+        if (bodySpool != null) {
+            writer.flush();
+            bodySpool.transferTo(fileWriter);
+        }
+    }
+
+    /**
+     * @return true if this element would generate no "useful" RTF content
+     */
+    public boolean isEmpty() {
+        return !sectionsSpooled && super.isEmpty();
+    }
 }
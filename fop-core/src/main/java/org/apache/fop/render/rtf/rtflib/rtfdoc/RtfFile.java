@@ -181,6 +181,33 @@ extends RtfContainer {
         return docArea;
     }
 
+    /**
+     * Closes the RtfHeader if not done yet, and starts a document area that writes each
+     * section to the given spool as soon as it is complete, instead of keeping the whole
+     * document in memory until {@link #flush()}. The header must precede the sections but
+     * depends on the whole document (font, color and list tables), so it is still written
+     * by flush(), followed by the content of the spool.
+     * Must be called once only, instead of {@link #startDocumentArea()}.
+     * @param bodySpool the spool to write completed sections to
+     * @return the RtfDocumentArea
+     * @throws IOException for I/O problems
+     * @throws RtfStructureException for illegal RTF structure
+     */
+    public RtfDocumentArea startDocumentArea(IRtfBodySpool bodySpool)
+        throws IOException, RtfStructureException {
+        if (docArea != null) {
+            throw new RtfStructureException("startDocumentArea called more than once");
+        }
+        // create an empty header if there was none
+        if (header == null) {
+            startHeader();
+        }
+        header.close();
+        docArea = new RtfDocumentArea(this, writer, bodySpool);
+        addChild(docArea);
+        return docArea;
+    }
+
 
 
     /**
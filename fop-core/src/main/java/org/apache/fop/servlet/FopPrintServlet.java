@@ -33,6 +33,7 @@ import org.apache.fop.apps.FOPException;
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.apps.Fop;
 import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.apps.service.RenderingJob;
 
 
 /**
@@ -67,6 +68,15 @@ public class FopPrintServlet extends FopServlet {
 
         FOUserAgent foUserAgent = getFOUserAgent();
 
+        if (renderingService != null) {
+            RenderingJob job = new RenderingJob(MimeConstants.MIME_FOP_PRINT, src, transformer, null);
+            job.setUserAgent(foUserAgent);
+            if (submitJob(job, response)) {
+                reportOK(response);
+            }
+            return;
+        }
+
         //Setup FOP
         Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_PRINT, foUserAgent);
 
@@ -25,6 +25,8 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.URI;
 import java.net.URL;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -50,6 +52,10 @@ import org.apache.fop.apps.Fop;
 import org.apache.fop.apps.FopFactory;
 import org.apache.fop.apps.FopFactoryBuilder;
 import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.apps.service.RenderingJob;
+import org.apache.fop.apps.service.RenderingService;
+import org.apache.fop.apps.service.RenderingServiceOverloadedException;
+import org.apache.fop.apps.service.RenderingServiceBuilder;
 
 /**
  * Example servlet to generate a PDF from a servlet.
@@ -70,6 +76,17 @@ import org.apache.fop.apps.MimeConstants;
  * <br>
  * For this to work with Internet Explorer, you might need to append "ext=.pdf"
  * to the URL.
+ * <br>
+ * Servlet init-params (all optional) enabling a bounded {@link RenderingService}:
+ * <ul>
+ *   <li>max-concurrent-jobs: the maximum number of documents rendered at the same time</li>
+ *   <li>max-queued-jobs: the maximum number of requests waiting for rendering</li>
+ *   <li>memory-budget: the memory (in MB) shared by all concurrently rendered documents</li>
+ *   <li>job-memory: the estimated memory (in MB) of a single document</li>
+ *   <li>job-timeout: the maximum time (in seconds) to render a document</li>
+ *   <li>max-output-size: the maximum size (in MB) of a rendered document</li>
+ * </ul>
+ * Requests exceeding the limits of the service are answered with status 503.
  * (todo) Ev. add caching mechanism for Templates objects
  */
 public class FopServlet extends HttpServlet {
@@ -83,12 +100,29 @@ public class FopServlet extends HttpServlet {
     /** Name of the parameter used for the XSLT file */
     protected static final String XSLT_REQUEST_PARAM = "xslt";
 
+    /** Name of the init-param enabling the rendering service */
+    protected static final String MAX_CONCURRENT_JOBS_PARAM = "max-concurrent-jobs";
+    /** Name of the init-param for the rendering service's queue size */
+    protected static final String MAX_QUEUED_JOBS_PARAM = "max-queued-jobs";
+    /** Name of the init-param for the rendering service's memory budget in MB */
+    protected static final String MEMORY_BUDGET_PARAM = "memory-budget";
+    /** Name of the init-param for the estimated memory of a job in MB */
+    protected static final String JOB_MEMORY_PARAM = "job-memory";
+    /** Name of the init-param for the job timeout in seconds */
+    protected static final String JOB_TIMEOUT_PARAM = "job-timeout";
+    /** Name of the init-param for the maximum output size in MB */
+    protected static final String MAX_OUTPUT_SIZE_PARAM = "max-output-size";
+
+    private static final long MB = 1024 * 1024;
+
     /** The TransformerFactory used to create Transformer instances */
     protected TransformerFactory transFactory;
     /** The FopFactory used to create Fop instances */
     protected FopFactory fopFactory;
     /** URIResolver for use by this servlet */
     protected transient URIResolver uriResolver;
+    /** The RenderingService processing the requests, or null to render on the request thread */
+    protected transient RenderingService renderingService;
 
     /**
      * {@inheritDoc}
@@ -114,6 +148,54 @@ public class FopServlet extends HttpServlet {
         FopFactoryBuilder builder = new FopFactoryBuilder(new File(".").toURI(), resolver);
         configureFopFactory(builder);
         fopFactory = builder.build();
+        renderingService = createRenderingService(fopFactory);
+    }
+
+    /**
+     * Creates the rendering service used to process requests. The default implementation
+     * creates one if the "max-concurrent-jobs" init-param is set. Subclasses can override
+     * this method to provide a differently configured service.
+     * @param fopFactory the FopFactory to use
+     * @return the rendering service, or null to render on the request thread
+     */
+    protected RenderingService createRenderingService(FopFactory fopFactory) {
+        String maxJobs = getInitParameter(MAX_CONCURRENT_JOBS_PARAM);
+        if (maxJobs == null) {
+            return null;
+        }
+        RenderingServiceBuilder builder = new RenderingServiceBuilder(fopFactory);
+        builder.setMaxConcurrentJobs(Integer.parseInt(maxJobs.trim()));
+        String value = getInitParameter(MAX_QUEUED_JOBS_PARAM);
+        if (value != null) {
+            builder.setMaxQueuedJobs(Integer.parseInt(value.trim()));
+        }
+        value = getInitParameter(MEMORY_BUDGET_PARAM);
+        if (value != null) {
+            builder.setMemoryBudget(Long.parseLong(value.trim()) * MB);
+        }
+        value = getInitParameter(JOB_MEMORY_PARAM);
+        if (value != null) {
+            builder.setDefaultJobMemory(Long.parseLong(value.trim()) * MB);
+        }
+        value = getInitParameter(JOB_TIMEOUT_PARAM);
+        if (value != null) {
+            builder.setJobTimeout(Long.parseLong(value.trim()), TimeUnit.SECONDS);
+        }
+        value = getInitParameter(MAX_OUTPUT_SIZE_PARAM);
+        if (value != null) {
+            builder.setMaxOutputBytes(Long.parseLong(value.trim()) * MB);
+        }
+        return builder.build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void destroy() {
+        if (renderingService != null) {
+            renderingService.shutdown();
+        }
+        super.destroy();
     }
 
     /**
@@ -254,6 +336,15 @@ public class FopServlet extends HttpServlet {
         //Setup output
         ByteArrayOutputStream out = new ByteArrayOutputStream();
 
+        if (renderingService != null) {
+            RenderingJob job = new RenderingJob(MimeConstants.MIME_PDF, src, transformer, out);
+            job.setUserAgent(foUserAgent);
+            if (submitJob(job, response)) {
+                sendPDF(out.toByteArray(), response);
+            }
+            return;
+        }
+
         //Setup FOP
         Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, foUserAgent, out);
 
@@ -267,6 +358,31 @@ public class FopServlet extends HttpServlet {
         sendPDF(out.toByteArray(), response);
     }
 
+    /**
+     * Processes a job through the rendering service.
+     * @param job the rendering job
+     * @param response HTTP response object
+     * @return true if the job has been processed, false if the service rejected it (in which
+     * case status 503 has been sent)
+     * @throws FOPException If an error occurs during the rendering of the XSL-FO
+     * @throws IOException In case of an I/O problem
+     */
+    protected boolean submitJob(RenderingJob job, HttpServletResponse response)
+                throws FOPException, IOException {
+        try {
+            renderingService.render(job);
+            return true;
+        } catch (RenderingServiceOverloadedException rsoe) {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                    "Not enough memory available for the rendering request");
+            return false;
+        } catch (RejectedExecutionException ree) {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                    "Too many concurrent rendering requests");
+            return false;
+        }
+    }
+
     /** @return a new FOUserAgent for FOP */
     protected FOUserAgent getFOUserAgent() {
         FOUserAgent userAgent = fopFactory.newFOUserAgent();
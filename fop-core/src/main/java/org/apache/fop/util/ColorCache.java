@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.awt.Color;
+import java.lang.ref.WeakReference;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A size-bounded cache of parsed color specifications. Entries are keyed by the color
+ * specification and, for specifications that refer to color profiles, by the context the
+ * profiles are resolved in (the color space cache of a <code>FopFactory</code>). The context is
+ * only weakly referenced. When the cache is full, the oldest entries are evicted first.
+ * <p>
+ * This class is thread-safe. The use of this cache assumes that all Color instances are
+ * immutable.
+ */
+public final class ColorCache {
+
+    private final int maxEntries;
+
+    private final ConcurrentMap<Key, Color> entries = new ConcurrentHashMap<Key, Color>();
+
+    /** keys in insertion order, for eviction */
+    private final Queue<Key> insertionOrder = new ConcurrentLinkedQueue<Key>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a new cache.
+     * @param maxEntries the maximum number of entries held by the cache
+     */
+    public ColorCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be greater than 0: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the cached color for the given specification.
+     * @param spec the color specification
+     * @param context the context color profiles are resolved in, or null if the specification
+     * does not depend on one
+     * @return the color or null if there is no such entry
+     */
+    public Color get(String spec, Object context) {
+        Color color = entries.get(new Key(spec, context));
+        if (color != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return color;
+    }
+
+    /**
+     * Adds a parsed color to the cache, evicting the oldest entries if necessary.
+     * @param spec the color specification
+     * @param context the context color profiles are resolved in, or null if the specification
+     * does not depend on one
+     * @param color the parsed color
+     */
+    public void put(String spec, Object context, Color color) {
+        Key key = new Key(spec, context);
+        if (entries.putIfAbsent(key, color) == null) {
+            insertionOrder.add(key);
+            while (entries.size() > maxEntries) {
+                Key eldest = insertionOrder.poll();
+                if (eldest == null) {
+                    break;
+                }
+                if (entries.remove(eldest) != null) {
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /** Removes all entries from the cache. */
+    public void clear() {
+        insertionOrder.clear();
+        entries.clear();
+    }
+
+    /** @return the maximum number of entries held by the cache */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /** @return the number of entries currently held by the cache */
+    public int getEntryCount() {
+        return entries.size();
+    }
+
+    /** @return the number of cache hits */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /** @return the number of cache misses */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /** @return the number of entries evicted because the cache was full */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /** {@inheritDoc} */
+    public String toString() {
+        return "ColorCache[entries=" + entries.size() + "/" + maxEntries + ", hits=" + hits
+                + ", misses=" + misses + ", evictions=" + evictions + "]";
+    }
+
+    private static final class Key {
+
+        private final String spec;
+
+        private final WeakReference<Object> context;
+
+        private final int hash;
+
+        Key(String spec, Object context) {
+            this.spec = spec;
+            this.context = (context != null) ? new WeakReference<Object>(context) : null;
+            this.hash = 31 * spec.hashCode() + System.identityHashCode(context);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            if (hash != other.hash || !spec.equals(other.spec)) {
+                return false;
+            }
+            if (context == null || other.context == null) {
+                return context == other.context;
+            }
+            Object ctx = context.get();
+            //keys whose context has been collected only match themselves
+            return ctx != null && ctx == other.context.get();
+        }
+    }
+}
@@ -67,23 +67,22 @@ public final class ColorUtil {
 
     public static final String ALPHA_PSEUDO_PROFILE = "#alpha";
 
+    /** The maximum number of parsed colors kept in the cache */
+    private static final int MAX_CACHED_COLORS = 1024;
+
     /**
-     * Keeps all the predefined and parsed colors.
-     * <p>
-     * This map is used to predefine given colors, as well as speeding up
-     * parsing of already parsed colors.
+     * The predefined named colors (immutable).
      * <p>
-     * Important: The use of this color map assumes that all Color instances are immutable!
+     * Important: The use of this map assumes that all Color instances are immutable!
      */
-    private static Map<String, Color> colorMap;
+    private static final Map<String, Color> NAMED_COLORS = createNamedColors();
+
+    /** Speeds up parsing of already parsed colors. */
+    private static final ColorCache COLOR_CACHE = new ColorCache(MAX_CACHED_COLORS);
 
     /** Logger instance */
     private static final Log log = LogFactory.getLog(ColorUtil.class);
 
-    static {
-        initializeColorMap();
-    }
-
     /**
      * Private constructor since this is an utility class.
      */
@@ -122,8 +121,13 @@ public final class ColorUtil {
             return null;
         }
 
-        Color parsedColor = colorMap.get(value.toLowerCase());
+        Color parsedColor = NAMED_COLORS.get(value.toLowerCase());
+        if (parsedColor != null) {
+            return parsedColor;
+        }
 
+        Object profileContext = getProfileContext(foUserAgent, value);
+        parsedColor = COLOR_CACHE.get(value, profileContext);
         if (parsedColor == null) {
             if (value.startsWith("#")) {
                 parsedColor = parseWithHash(value);
@@ -152,12 +156,35 @@ public final class ColorUtil {
                 throw new PropertyException("Unknown Color: " + value);
             }
 
-            colorMap.put(value, parsedColor);
+            COLOR_CACHE.put(value, profileContext, parsedColor);
         }
 
         return parsedColor;
     }
 
+    /**
+     * Returns the context the color profiles referenced by a color specification are resolved
+     * in. Colors parsed in different contexts may differ, so they are cached separately.
+     * @param foUserAgent the user agent (may be null)
+     * @param value the color specification
+     * @return the context, or null if the specification does not reference color profiles
+     */
+    private static Object getProfileContext(FOUserAgent foUserAgent, String value) {
+        if (foUserAgent != null
+                && (value.startsWith("fop-rgb-icc") || value.startsWith("fop-rgb-named-color"))) {
+            return foUserAgent.getColorSpaceCache();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the cache of parsed colors, for example to obtain its statistics.
+     * @return the color cache
+     */
+    public static ColorCache getColorCache() {
+        return COLOR_CACHE;
+    }
+
     /**
      * Tries to parse a color given with the system-color() function.
      *
@@ -177,7 +204,7 @@ public final class ColorUtil {
             throw new PropertyException("Unknown color format: " + value
                     + ". Must be system-color(x)");
         }
-        return colorMap.get(value);
+        return NAMED_COLORS.get(value);
     }
 
     /**
@@ -849,10 +876,10 @@ public final class ColorUtil {
     }
 
     /**
-     * Initializes the colorMap with some predefined values.
+     * Creates the map of predefined named colors.
      */
-    private static void initializeColorMap() {
-        colorMap = Collections.synchronizedMap(new java.util.HashMap<String, Color>());
+    private static Map<String, Color> createNamedColors() {
+        Map<String, Color> colorMap = new java.util.HashMap<String, Color>();
 
         colorMap.put("aliceblue", createColor(240, 248, 255));
         colorMap.put("antiquewhite", createColor(250, 235, 215));
@@ -1003,6 +1030,7 @@ public final class ColorUtil {
         colorMap.put("yellow", createColor(255, 255, 0));
         colorMap.put("yellowgreen", createColor(154, 205, 50));
         colorMap.put("transparent", new ColorWithAlternatives(0, 0, 0, 0, null));
+        return Collections.unmodifiableMap(colorMap);
     }
 
     /**
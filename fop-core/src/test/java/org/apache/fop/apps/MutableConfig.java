@@ -141,6 +141,22 @@ public final class MutableConfig implements FopFactoryConfig {
         return delegate.isSimpleLineBreaking();
     }
 
+    public long getImageXObjectCacheSize() {
+        return delegate.getImageXObjectCacheSize();
+    }
+
+    public int getImagePreloadThreads() {
+        return delegate.getImagePreloadThreads();
+    }
+
+    public int getLayoutThreads() {
+        return delegate.getLayoutThreads();
+    }
+
+    public int getStreamEncodingThreads() {
+        return delegate.getStreamEncodingThreads();
+    }
+
     public Map<String, String> getHyphenationPatternNames() {
         return delegate.getHyphenationPatternNames();
     }
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.apps;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.apache.xmlgraphics.image.loader.cache.ImageCacheListener;
+
+import org.apache.fop.apps.RenderingProfiler.Counter;
+import org.apache.fop.apps.RenderingProfiler.Phase;
+
+public class RenderingProfilerTestCase {
+
+    @Test
+    public void testCountersAndTimers() {
+        RenderingProfiler profiler = new RenderingProfiler();
+        profiler.increment(Counter.ELEMENTS_PARSED);
+        profiler.increment(Counter.ELEMENTS_PARSED);
+        profiler.add(Counter.KNUTH_NODES, 42);
+        profiler.stopTimer(Phase.LINE_BREAKING, profiler.startTimer());
+        profiler.stopTimer(Phase.LINE_BREAKING, profiler.startTimer());
+        profiler.addStreamBytes("PDFStream", 100);
+        profiler.addStreamBytes("PDFStream", 50);
+
+        ProfilingReport report = profiler.getReport();
+        assertEquals(2, report.getCount(Counter.ELEMENTS_PARSED));
+        assertEquals(42, report.getCount(Counter.KNUTH_NODES));
+        assertEquals(0, report.getCount(Counter.BREAKING_RESTARTS));
+        assertEquals(2, report.getInvocationCount(Phase.LINE_BREAKING));
+        assertTrue(report.getTime(Phase.LINE_BREAKING) >= 0);
+        assertEquals(0, report.getInvocationCount(Phase.PAGE_BREAKING));
+        assertEquals(Long.valueOf(150), report.getStreamBytes().get("PDFStream"));
+    }
+
+    @Test
+    public void testDisabledProfilerCollectsNothing() {
+        RenderingProfiler profiler = RenderingProfiler.DISABLED;
+        assertFalse(profiler.isEnabled());
+        assertEquals(0, profiler.startTimer());
+        profiler.increment(Counter.ELEMENTS_PARSED);
+        profiler.stopTimer(Phase.OUTPUT, 0);
+        profiler.addStreamBytes("PDFStream", 100);
+
+        ProfilingReport report = profiler.getReport();
+        assertEquals(0, report.getCount(Counter.ELEMENTS_PARSED));
+        assertEquals(0, report.getInvocationCount(Phase.OUTPUT));
+        assertTrue(report.getStreamBytes().isEmpty());
+    }
+
+    @Test
+    public void testGetInstance() {
+        assertSame(RenderingProfiler.DISABLED, RenderingProfiler.getInstance(null));
+        assertSame(RenderingProfiler.DISABLED, RenderingProfiler.getInstance(mock(FOUserAgent.class)));
+    }
+
+    @Test
+    public void testImageCacheListenerReportsToAttachedProfiler() {
+        ImageCacheListener listener = RenderingProfiler.createImageCacheListener();
+        RenderingProfiler profiler = new RenderingProfiler();
+        listener.cacheHitImageInfo("unattached.png");
+
+        RenderingProfiler previous = profiler.attach();
+        try {
+            listener.cacheHitImageInfo("a.png");
+            listener.cacheMissImageInfo("b.png");
+            listener.cacheMissImage(null);
+        } finally {
+            profiler.detach(previous);
+        }
+        listener.cacheHitImageInfo("detached.png");
+
+        ProfilingReport report = profiler.getReport();
+        assertEquals(1, report.getCount(Counter.IMAGE_CACHE_HITS));
+        assertEquals(2, report.getCount(Counter.IMAGE_CACHE_MISSES));
+    }
+
+    @Test
+    public void testPublishTo() {
+        RenderingProfiler profiler = new RenderingProfiler();
+        profiler.add(Counter.BREAKING_PASSES, 3);
+        profiler.stopTimer(Phase.FO_TREE, profiler.startTimer());
+        profiler.addStreamBytes("PDFImageXObject", 1024);
+
+        final Map<String, Long> counters = new HashMap<String, Long>();
+        final Map<String, Long> timerCounts = new HashMap<String, Long>();
+        profiler.getReport().publishTo(new ProfilingReport.MetricsSink() {
+            public void timer(String name, long count, long totalNanos) {
+                timerCounts.put(name, count);
+            }
+
+            public void counter(String name, long value) {
+                counters.put(name, value);
+            }
+        });
+        assertEquals(Phase.values().length, timerCounts.size());
+        assertEquals(Long.valueOf(1), timerCounts.get("fo-tree"));
+        assertEquals(Long.valueOf(3), counters.get("breaking-passes"));
+        assertEquals(Long.valueOf(1024), counters.get("stream-bytes.PDFImageXObject"));
+    }
+}
@@ -26,11 +26,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.nio.channels.FileChannel;
 
 import org.junit.Test;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -39,6 +41,7 @@ import static org.mockito.Mockito.verify;
 import org.apache.xmlgraphics.io.Resource;
 import org.apache.xmlgraphics.io.ResourceResolver;
 import org.apache.xmlgraphics.io.TempResourceResolver;
+import org.apache.xmlgraphics.io.TempResourceURIGenerator;
 
 public class ResourceResolverFactoryTestCase {
 
@@ -93,6 +96,31 @@ public class ResourceResolverFactoryTestCase {
         }
     }
 
+    @Test
+    public void testDefaultTempResourceCanBeTransferredFromItsFile() throws Exception {
+        ResourceResolver resolver = ResourceResolverFactory.createDefaultResourceResolver();
+        URI uri = new TempResourceURIGenerator("test").generate();
+        writeDataTo(resolver.getOutputStream(uri));
+        Resource resource = resolver.getResource(uri);
+        assertTrue(resource instanceof TempFileResource);
+        File outputFile = File.createTempFile("prefix", "suffix");
+        FileOutputStream out = new FileOutputStream(outputFile);
+        try {
+            FileChannel channel = ((TempFileResource) resource).getChannel();
+            assertEquals(DATA.length, channel.transferTo(0, channel.size(), out.getChannel()));
+        } finally {
+            out.close();
+            resource.close();
+        }
+        InputStream in = new FileInputStream(outputFile);
+        try {
+            checkStream(in);
+        } finally {
+            in.close();
+            outputFile.delete();
+        }
+    }
+
     private static class TestCreateTempAwareResourceResolverHelper implements ResourceResolver {
 
         final TempResourceResolver tempResourceResolver = mock(TempResourceResolver.class);
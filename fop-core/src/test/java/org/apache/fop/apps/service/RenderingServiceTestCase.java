@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.apps.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+
+public class RenderingServiceTestCase {
+
+    private static final String FO = "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+            + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\">"
+            + "<fo:region-body/></fo:simple-page-master></fo:layout-master-set>"
+            + "<fo:page-sequence master-reference=\"page\"><fo:flow flow-name=\"xsl-region-body\">"
+            + "<fo:block>Hello World!</fo:block>"
+            + "<fo:block break-before=\"page\">Second page</fo:block>"
+            + "</fo:flow></fo:page-sequence></fo:root>";
+
+    private FopFactory fopFactory;
+
+    private RenderingService service;
+
+    @Before
+    public void setUp() {
+        fopFactory = FopFactory.newInstance(new File(".").toURI());
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (service != null) {
+            service.shutdown();
+            service.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private RenderingJob createJob(ByteArrayOutputStream out) {
+        return new RenderingJob(MimeConstants.MIME_PDF, new StreamSource(new StringReader(FO)),
+                null, out);
+    }
+
+    @Test
+    public void testRender() throws Exception {
+        service = new RenderingServiceBuilder(fopFactory).setMaxConcurrentJobs(2).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RenderingJobMetrics metrics = service.render(createJob(out));
+        assertEquals(2, metrics.getPageCount());
+        assertTrue(out.size() > 0);
+        assertEquals(out.size(), metrics.getOutputBytes());
+        assertTrue(metrics.getProcessingTime() >= 0);
+        assertTrue(metrics.getQueueTime() >= 0);
+    }
+
+    @Test
+    public void testOutputLimit() throws Exception {
+        service = new RenderingServiceBuilder(fopFactory).setMaxOutputBytes(100).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            service.render(createJob(out));
+            fail("Output limit not enforced");
+        } catch (FOPException e) {
+            //expected
+        }
+        //the write that would have exceeded the limit never reached the output
+        assertTrue(out.size() <= 100);
+    }
+
+    @Test
+    public void testMemoryBudgetLargerThanJob() throws Exception {
+        service = new RenderingServiceBuilder(fopFactory).setMemoryBudget(1024 * 1024)
+                .setDefaultJobMemory(10 * 1024 * 1024).build();
+        //a job exceeding the whole budget must still run
+        RenderingJobMetrics metrics = service.render(createJob(new ByteArrayOutputStream()));
+        assertEquals(2, metrics.getPageCount());
+    }
+
+    @Test
+    public void testAdmissionControl() throws Exception {
+        service = new RenderingServiceBuilder(fopFactory).setMaxConcurrentJobs(1)
+                .setMaxQueuedJobs(1).build();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        InputStream blocking = new InputStream() {
+            private final InputStream in = new ByteArrayInputStream(FO.getBytes("UTF-8"));
+
+            public int read() throws IOException {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return in.read();
+            }
+        };
+        Future<RenderingJobMetrics> first = service.submit(new RenderingJob(MimeConstants.MIME_PDF,
+                new StreamSource(blocking), null, new ByteArrayOutputStream()));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        Future<RenderingJobMetrics> second = service.submit(createJob(new ByteArrayOutputStream()));
+        assertEquals(1, service.getQueuedJobCount());
+        try {
+            service.submit(createJob(new ByteArrayOutputStream()));
+            fail("Job should have been rejected");
+        } catch (RejectedExecutionException e) {
+            //expected
+        }
+        release.countDown();
+        assertEquals(2, first.get().getPageCount());
+        assertEquals(2, second.get().getPageCount());
+    }
+
+    @Test
+    public void testMemoryIsReservedBeforeSubmission() throws Exception {
+        service = new RenderingServiceBuilder(fopFactory).setMaxConcurrentJobs(2)
+                .setMemoryBudget(1024 * 1024).setDefaultJobMemory(1024 * 1024)
+                .setJobTimeout(200, TimeUnit.MILLISECONDS).build();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        InputStream blocking = new InputStream() {
+            private final InputStream in = new ByteArrayInputStream(FO.getBytes("UTF-8"));
+
+            public int read() throws IOException {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return in.read();
+            }
+        };
+        Future<RenderingJobMetrics> first = service.submit(new RenderingJob(MimeConstants.MIME_PDF,
+                new StreamSource(blocking), null, new ByteArrayOutputStream()));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        try {
+            //the budget is used up: the caller waits, no worker is occupied
+            service.submit(createJob(new ByteArrayOutputStream()));
+            fail("Job should have timed out waiting for memory");
+        } catch (RenderingServiceOverloadedException e) {
+            //expected
+        }
+        assertEquals(1, service.getActiveJobCount());
+        assertEquals(0, service.getQueuedJobCount());
+        release.countDown();
+        first.get();
+        //the memory of the first job has been released
+        assertEquals(2, service.render(createJob(new ByteArrayOutputStream())).getPageCount());
+    }
+}
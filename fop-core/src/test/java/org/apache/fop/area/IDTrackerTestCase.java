@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.fop.area;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IDTrackerTestCase {
+
+    private IDTracker tracker;
+
+    @Before
+    public void setUp() {
+        tracker = new IDTracker();
+    }
+
+    @Test
+    public void testForwardReferenceIsResolvedWhenIDIsLocated() {
+        Resolvable res = mock(Resolvable.class);
+        PageViewport pv = mock(PageViewport.class);
+        tracker.addUnresolvedIDRef("target", res);
+        assertEquals(1, tracker.getUnresolvedIDRefCount());
+
+        tracker.associateIDWithPageViewport("target", pv);
+        verify(res).resolveIDRef("target", Arrays.asList(pv));
+        verify(pv).setFirstWithID("target");
+        assertEquals(0, tracker.getUnresolvedIDRefCount());
+        assertEquals(1, tracker.getLocatedIDCount());
+        assertTrue(tracker.alreadyResolvedID("target"));
+        assertTrue(tracker.getResolutionCount() > 0);
+    }
+
+    @Test
+    public void testPendingIDIsResolvedWhenProcessed() {
+        Resolvable res = mock(Resolvable.class);
+        PageViewport pv1 = mock(PageViewport.class);
+        PageViewport pv2 = mock(PageViewport.class);
+        tracker.signalPendingID("chapter");
+        tracker.addUnresolvedIDRef("chapter", res);
+        tracker.associateIDWithPageViewport("chapter", pv1);
+        tracker.associateIDWithPageViewport("chapter", pv2);
+        verify(res, never()).resolveIDRef(anyString(), anyList());
+        assertFalse(tracker.alreadyResolvedID("chapter"));
+
+        tracker.signalIDProcessed("chapter");
+        verify(res).resolveIDRef("chapter", Arrays.asList(pv1, pv2));
+        assertTrue(tracker.alreadyResolvedID("chapter"));
+        assertSame(pv2, tracker.getLastPageViewportContaining("chapter"));
+    }
+
+    @Test
+    public void testBackwardReferenceIsResolvedForPage() {
+        PageViewport target = mock(PageViewport.class);
+        PageViewport pv = mock(PageViewport.class);
+        tracker.associateIDWithPageViewport("intro", target);
+        when(pv.getIDRefs()).thenReturn(new String[] {"intro"});
+        tracker.addUnresolvedIDRef("intro", pv);
+
+        tracker.tryIDResolution(pv);
+        verify(pv).resolveIDRef("intro", Arrays.asList(target));
+        assertEquals(0, tracker.getUnresolvedIDRefCount());
+    }
+
+    @Test
+    public void testReplacePageViewPort() {
+        PageViewport oldPV = mock(PageViewport.class);
+        PageViewport newPV = mock(PageViewport.class);
+        PageViewport other = mock(PageViewport.class);
+        tracker.associateIDWithPageViewport("a", other);
+        tracker.associateIDWithPageViewport("a", oldPV);
+        tracker.associateIDWithPageViewport("b", oldPV);
+        tracker.associateIDWithPageViewport("c", other);
+
+        tracker.replacePageViewPort(oldPV, newPV);
+        assertEquals(Arrays.asList(other, newPV), tracker.getPageViewportsContainingID("a"));
+        assertEquals(Arrays.asList(newPV), tracker.getPageViewportsContainingID("b"));
+        assertEquals(Arrays.asList(other), tracker.getPageViewportsContainingID("c"));
+
+        //the replacement is tracked like the original page
+        PageViewport newest = mock(PageViewport.class);
+        tracker.replacePageViewPort(newPV, newest);
+        assertEquals(Arrays.asList(newest), tracker.getPageViewportsContainingID("b"));
+    }
+
+    @Test
+    public void testUnknownID() {
+        List<PageViewport> pages = tracker.getPageViewportsContainingID("missing");
+        assertTrue(pages.isEmpty());
+        assertFalse(tracker.alreadyResolvedID("missing"));
+        assertEquals(0, tracker.getLocatedIDCount());
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.fop.area;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FopFactoryBuilder;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Tests that concurrent layout of page-sequences produces the same area tree as sequential
+ * layout.
+ */
+public class PageSequenceLayoutQueueTestCase {
+
+    private static final Pattern KEY = Pattern.compile("key=\"([^\"]+)\"");
+
+    @Test
+    public void testConcurrentLayoutMatchesSequentialLayout() throws Exception {
+        String fo = createDocument(12);
+        String sequential = normalizeKeys(format(fo, 0));
+        String concurrent = normalizeKeys(format(fo, 3));
+        assertTrue(sequential.contains("<pageSequence"));
+        assertEquals(sequential, concurrent);
+    }
+
+    @Test
+    public void testAutoPageNumbersFollowConcurrentPageSequences() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append(pageSequence(1, "1", 2));
+        sb.append(pageSequence(2, "1", 3));
+        sb.append(pageSequence(3, "auto", 2));
+        String fo = wrap(sb.toString());
+        assertEquals(normalizeKeys(format(fo, 0)), normalizeKeys(format(fo, 2)));
+    }
+
+    @Test
+    public void testMarkersRetrievedFromPrecedingPageSequences() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">")
+                .append("<fo:layout-master-set>")
+                .append("<fo:simple-page-master master-name=\"page\" page-width=\"210mm\"")
+                .append(" page-height=\"100mm\"><fo:region-body margin=\"20mm\"/>")
+                .append("<fo:region-before extent=\"15mm\"/></fo:simple-page-master>")
+                .append("</fo:layout-master-set>");
+        for (int i = 1; i <= 4; i++) {
+            sb.append("<fo:page-sequence master-reference=\"page\" initial-page-number=\"1\">")
+                    .append("<fo:static-content flow-name=\"xsl-region-before\"><fo:block>")
+                    .append("<fo:retrieve-marker retrieve-class-name=\"chapter\"")
+                    .append(" retrieve-boundary=\"document\"/></fo:block></fo:static-content>")
+                    .append("<fo:flow flow-name=\"xsl-region-body\"><fo:block>");
+            //only the first page-sequence defines the marker, the others retrieve it from there
+            if (i == 1) {
+                sb.append("<fo:marker marker-class-name=\"chapter\">Carried</fo:marker>");
+            }
+            sb.append("Sequence ").append(i).append("</fo:block>")
+                    .append("<fo:block break-before=\"page\">Second page</fo:block>")
+                    .append("</fo:flow></fo:page-sequence>");
+        }
+        sb.append("</fo:root>");
+        String fo = sb.toString();
+        String sequential = normalizeKeys(format(fo, 0));
+        assertEquals(8, sequential.split(">Carried</word>", -1).length - 1);
+        assertEquals(sequential, normalizeKeys(format(fo, 3)));
+    }
+
+    private String format(String fo, int layoutThreads) throws Exception {
+        FopFactory fopFactory = new FopFactoryBuilder(new File(".").toURI())
+                .setLayoutThreads(layoutThreads).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new StringReader(fo));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        return out.toString("UTF-8");
+    }
+
+    /** Replaces the page keys, which differ between both modes, by their order of appearance. */
+    private String normalizeKeys(String areaTree) {
+        Map<String, String> keys = new LinkedHashMap<String, String>();
+        Matcher m = KEY.matcher(areaTree);
+        while (m.find()) {
+            if (!keys.containsKey(m.group(1))) {
+                keys.put(m.group(1), "#" + (keys.size() + 1));
+            }
+        }
+        String result = areaTree;
+        for (Map.Entry<String, String> entry : keys.entrySet()) {
+            result = result.replaceAll("\\b" + Pattern.quote(entry.getKey()) + "\\b", entry.getValue());
+        }
+        return result;
+    }
+
+    private String createDocument(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            sb.append(pageSequence(i, "1", 1 + (i % 3)));
+        }
+        return wrap(sb.toString());
+    }
+
+    private String wrap(String pageSequences) {
+        return "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set>"
+                + "<fo:simple-page-master master-name=\"page\" page-width=\"210mm\" page-height=\"100mm\">"
+                + "<fo:region-body margin=\"10mm\"/>"
+                + "</fo:simple-page-master>"
+                + "</fo:layout-master-set>"
+                + pageSequences
+                + "</fo:root>";
+    }
+
+    private String pageSequence(int index, String initialPageNumber, int pages) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<fo:page-sequence master-reference=\"page\" force-page-count=\"even\"")
+                .append(" initial-page-number=\"").append(initialPageNumber).append("\">")
+                .append("<fo:flow flow-name=\"xsl-region-body\">");
+        sb.append("<fo:block id=\"seq").append(index).append("\">Customer ").append(index)
+                .append(", page <fo:page-number/></fo:block>");
+        //forward and backward citations to other page-sequences
+        sb.append("<fo:block>Next: <fo:page-number-citation ref-id=\"end").append(index + 1)
+                .append("\"/>, previous: <fo:page-number-citation-last ref-id=\"seq")
+                .append(Math.max(1, index - 1)).append("\"/></fo:block>");
+        for (int p = 1; p < pages; p++) {
+            sb.append("<fo:block break-before=\"page\">Page <fo:page-number/></fo:block>");
+        }
+        sb.append("<fo:block id=\"end").append(index).append("\">End</fo:block>");
+        sb.append("</fo:flow></fo:page-sequence>");
+        return sb.toString();
+    }
+}
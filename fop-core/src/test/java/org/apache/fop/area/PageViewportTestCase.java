@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.area;
+
+import java.awt.Rectangle;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.fop.area.inline.UnresolvedPageNumber;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PageViewportTestCase {
+
+    private PageViewport pageViewport;
+
+    @Before
+    public void setUp() {
+        pageViewport = new PageViewport(new Rectangle(0, 0, 100000, 100000), 1, "1", "master", false);
+    }
+
+    private UnresolvedPageNumber createPageNumber(String idref, boolean placeholder) {
+        UnresolvedPageNumber pageNumber = new UnresolvedPageNumber(idref, null, UnresolvedPageNumber.LAST);
+        pageNumber.setPlaceholder(placeholder);
+        pageNumber.setIPD(30000);
+        return pageNumber;
+    }
+
+    @Test
+    public void testOnlyPlaceholderPageNumbers() {
+        pageViewport.addUnresolvedIDRef("last", createPageNumber("last", true));
+        assertFalse(pageViewport.isResolved());
+        assertTrue(pageViewport.hasOnlyPageNumberPlaceholders());
+    }
+
+    @Test
+    public void testRegularPageNumberIsNoPlaceholder() {
+        pageViewport.addUnresolvedIDRef("last", createPageNumber("last", true));
+        pageViewport.addUnresolvedIDRef("chapter", createPageNumber("chapter", false));
+        assertFalse(pageViewport.hasOnlyPageNumberPlaceholders());
+    }
+
+    @Test
+    public void testOtherReferenceIsNoPlaceholder() {
+        pageViewport.addUnresolvedIDRef("last", createPageNumber("last", true));
+        pageViewport.addUnresolvedIDRef("link", mock(Resolvable.class));
+        assertFalse(pageViewport.hasOnlyPageNumberPlaceholders());
+    }
+
+    @Test
+    public void testPlaceholderIsResolvedAfterPageWasCleared() {
+        UnresolvedPageNumber pageNumber = createPageNumber("last", true);
+        pageViewport.addUnresolvedIDRef("last", pageNumber);
+        pageViewport.clear();
+
+        PageViewport target = mock(PageViewport.class);
+        when(target.getPageNumberString()).thenReturn("12");
+        pageViewport.resolveIDRef("last", Collections.singletonList(target));
+        assertTrue(pageViewport.isResolved());
+        assertTrue(pageNumber.isResolved());
+        assertEquals("12", pageNumber.getText());
+        //the space reserved during layout is kept as the placeholder may have been painted
+        assertEquals(30000, pageNumber.getIPD());
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.apache.commons.io.FileUtils;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.cli.BatchProcessor.BatchJob;
+
+public class BatchProcessorTestCase {
+
+    private final File baseDir = new File("base").getAbsoluteFile();
+
+    @Test
+    public void testIgnoredLines() throws FOPException {
+        assertNull(BatchProcessor.parseJob("", baseDir, 1));
+        assertNull(BatchProcessor.parseJob("   ", baseDir, 2));
+        assertNull(BatchProcessor.parseJob("# input\tstylesheet\tformat\toutput", baseDir, 3));
+    }
+
+    @Test
+    public void testFOJob() throws FOPException {
+        BatchJob job = BatchProcessor.parseJob("in/doc.fo\t-\tpdf\tout/doc.pdf", baseDir, 7);
+        assertEquals(7, job.getLineNumber());
+        assertEquals(new File(baseDir, "in/doc.fo"), job.getInput());
+        assertNull(job.getStylesheet());
+        assertEquals(MimeConstants.MIME_PDF, job.getOutputFormat());
+        assertEquals(new File(baseDir, "out/doc.pdf"), job.getOutput());
+        assertEquals(0, job.getParameters().size());
+    }
+
+    @Test
+    public void testXSLTJobWithParameters() throws FOPException {
+        File abs = new File("abs.xsl").getAbsoluteFile();
+        BatchJob job = BatchProcessor.parseJob("data.xml\t" + abs.getPath()
+                + "\tapplication/postscript\tdata.ps\tlang=en\ttitle=a=b", baseDir, 1);
+        assertEquals(abs, job.getStylesheet());
+        assertEquals(MimeConstants.MIME_POSTSCRIPT, job.getOutputFormat());
+        assertEquals(4, job.getParameters().size());
+        assertEquals("lang", job.getParameters().get(0));
+        assertEquals("en", job.getParameters().get(1));
+        assertEquals("title", job.getParameters().get(2));
+        assertEquals("a=b", job.getParameters().get(3));
+    }
+
+    @Test
+    public void testOutputFormatIsPassedToStylesheet() throws Exception {
+        File dir = File.createTempFile("fop-batch", "");
+        assertTrue(dir.delete() && dir.mkdir());
+        try {
+            FileUtils.writeStringToFile(new File(dir, "data.xml"), "<data/>", "UTF-8");
+            FileUtils.writeStringToFile(new File(dir, "style.xsl"),
+                    "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+                    + "<xsl:param name=\"fop-output-format\"/><xsl:param name=\"lang\"/>"
+                    + "<xsl:template match=\"/\">"
+                    + "<result format=\"{$fop-output-format}\" lang=\"{$lang}\"/>"
+                    + "</xsl:template></xsl:stylesheet>", "UTF-8");
+            File manifest = new File(dir, "jobs.txt");
+            FileUtils.writeStringToFile(manifest, "data.xml\tstyle.xsl\tfo\tout.fo\tlang=en\n", "UTF-8");
+
+            CommandLineOptions options = new CommandLineOptions();
+            options.parse(new String[] {"-batch", manifest.getPath()});
+            PrintStream out = new PrintStream(new ByteArrayOutputStream(), true, "UTF-8");
+            BatchProcessor processor = new BatchProcessor(options, 1);
+            assertEquals(0, processor.process(BatchProcessor.readManifest(manifest), out));
+
+            String result = FileUtils.readFileToString(new File(dir, "out.fo"), "UTF-8");
+            assertTrue(result, result.contains("format=\"" + MimeConstants.MIME_XSL_FO + "\""));
+            assertTrue(result, result.contains("lang=\"en\""));
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test
+    public void testInvalidLines() {
+        assertInvalid("doc.fo\t-\tpdf");
+        assertInvalid("doc.fo\t-\tfo\tdoc2.fo");
+        assertInvalid("doc.fo\t-\tunknown\tdoc.pdf");
+        assertInvalid("doc.xml\tdoc.xsl\tpdf\tdoc.pdf\tnovalue");
+    }
+
+    private void assertInvalid(String line) {
+        try {
+            BatchProcessor.parseJob(line, baseDir, 1);
+            fail("Line should have been rejected: " + line);
+        } catch (FOPException e) {
+            //expected
+        }
+    }
+}
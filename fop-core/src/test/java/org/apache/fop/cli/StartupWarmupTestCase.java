@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.MimeConstants;
+
+public class StartupWarmupTestCase {
+
+    @Test
+    public void testWarmupOptionNeedsNoInput() throws Exception {
+        CommandLineOptions options = new CommandLineOptions();
+        assertTrue(options.parse(new String[] {"-warmup"}));
+        assertTrue(options.isWarmupMode());
+    }
+
+    @Test
+    public void testDocumentIsRenderedToEachFormat() throws Exception {
+        CommandLineOptions options = new CommandLineOptions();
+        options.parse(new String[] {"-warmup"});
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bout, true, "UTF-8");
+        int failed = new StartupWarmup(options).process(
+                new String[] {MimeConstants.MIME_PDF, MimeConstants.MIME_FOP_IF}, out);
+        String report = bout.toString("UTF-8");
+        assertEquals(report, 0, failed);
+        assertTrue(report, report.contains(MimeConstants.MIME_PDF + ": 1 page(s)"));
+        assertTrue(report, report.contains(MimeConstants.MIME_FOP_IF + ": 1 page(s)"));
+        assertTrue(report, report.contains("Time to first page: "));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.complexscripts.util;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test packed character association list and its use by glyph sequences.
+ */
+public class CharAssociationListTestCase {
+
+    @Test
+    public void testIdentityAssociations() {
+        CharAssociationList l = CharAssociationList.makeIdentity(3, 4);
+        assertEquals(4, l.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, l.getOffset(i));
+            assertEquals(1, l.getCount(i));
+            assertEquals(i, l.get(i).getOffset());
+            assertEquals(1, l.get(i).getCount());
+        }
+        assertEquals(0, l.getCount(3));
+    }
+
+    @Test
+    public void testMaterializedIdentityIsPreserved() {
+        CharAssociationList l = CharAssociationList.makeIdentity(2, 2);
+        CharAssociation a = l.get(1);
+        a.setPredication("feature", "value");
+        assertSame(a, l.get(1));
+        CharAssociationList c = new CharAssociationList(l);
+        assertSame(a, c.get(1));
+        assertEquals("value", c.get(1).getPredication("feature"));
+    }
+
+    @Test
+    public void testCopySharesAssociations() {
+        CharAssociationList l = CharAssociationList.makeIdentity(2, 2);
+        CharAssociationList c = new CharAssociationList(l);
+        c.get(0).setPredication("feature", "value");
+        assertSame(l.get(0), c.get(0));
+        assertEquals("value", l.get(0).getPredication("feature"));
+    }
+
+    @Test
+    public void testAddAndGrow() {
+        CharAssociationList l = new CharAssociationList(1);
+        CharAssociation d = new CharAssociation(new int[] {0, 1, 3, 4});
+        l.add(5, 2);
+        l.add(d);
+        l.add(7, 1);
+        assertEquals(3, l.size());
+        assertEquals(5, l.getOffset(0));
+        assertEquals(2, l.getCount(0));
+        assertSame(d, l.get(1));
+        assertEquals(7, l.get(2).getOffset());
+        l.clear();
+        assertEquals(0, l.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGlyphsOutOfBounds() {
+        IntBuffer cb = IntBuffer.wrap(new int[] {'a', 'b'});
+        IntBuffer gb = IntBuffer.wrap(new int[] {10, 11});
+        new GlyphSequence(cb, gb, null).getGlyphs(1, 2, new int [ 2 ]);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfBounds() {
+        CharAssociationList.makeIdentity(1, 1).getOffset(1);
+    }
+
+    @Test
+    public void testGlyphSequence() {
+        IntBuffer cb = IntBuffer.wrap(new int[] {'a', 'b', 'c'});
+        IntBuffer gb = IntBuffer.wrap(new int[] {10, 11, 12});
+        GlyphSequence gs = new GlyphSequence(cb, gb, null);
+        assertEquals(2, gs.getAssociation(2).getOffset());
+        assertEquals(1, gs.getAssociation(2).getCount());
+        int[] ga = new int [ 4 ];
+        assertSame(ga, gs.getGlyphs(1, 2, ga));
+        assertArrayEquals(new int[] {11, 12, 0, 0}, ga);
+        assertArrayEquals(new int[] {10, 11, 12}, gs.getGlyphs(0, -1));
+        GlyphSequence copy = new GlyphSequence(gs);
+        assertEquals(gs.getAssociations().size(), copy.getAssociations().size());
+        assertSame(gs.getAssociation(1), copy.getAssociation(1));
+        List<CharAssociation> al = new ArrayList<CharAssociation>();
+        al.add(new CharAssociation(0, 3));
+        GlyphSequence lig = new GlyphSequence(cb, IntBuffer.wrap(new int[] {20}), al);
+        assertEquals(3, lig.getAssociation(0).getCount());
+        IntBuffer cgb = GlyphSequence.concatGlyphs(new int[] {1}, new int[] {2, 3}, null);
+        assertArrayEquals(new int[] {1, 2, 3}, cgb.array());
+        assertEquals(3, cgb.limit());
+    }
+
+}
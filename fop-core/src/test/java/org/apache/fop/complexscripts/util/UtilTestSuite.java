@@ -27,6 +27,9 @@ import org.junit.runners.Suite.SuiteClasses;
  * Test suite for bidirectional functionality.
  */
 @RunWith(Suite.class)
-@SuiteClasses(NumberConverterTestCase.class)
+@SuiteClasses({
+    NumberConverterTestCase.class,
+    CharAssociationListTestCase.class
+})
 public class UtilTestSuite {
 }
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo.expr;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.apache.fop.datatypes.PercentBase;
+import org.apache.fop.fo.properties.FixedLength;
+import org.apache.fop.fo.properties.ListProperty;
+import org.apache.fop.fo.properties.Property;
+
+public class PropertyParserTestCase {
+
+    @Test
+    public void testCompiledExpressionsAreCached() throws PropertyException {
+        String expr = "(3 + 4) * 2pt";
+        assertSame(PropertyParser.compile(expr), PropertyParser.compile(expr));
+        PropertyInfo propInfo = mock(PropertyInfo.class);
+        assertEquals(14000, PropertyParser.parse(expr, propInfo).getLength().getValue());
+        assertEquals(14000, PropertyParser.parse(expr, propInfo).getLength().getValue());
+    }
+
+    @Test
+    public void testPercentagesAreEvaluatedInContext() throws PropertyException {
+        PercentBase base = mock(PercentBase.class);
+        when(base.getDimension()).thenReturn(0);
+        when(base.getBaseValue()).thenReturn(200.0);
+        PropertyInfo withBase = mock(PropertyInfo.class);
+        when(withBase.getPercentBase()).thenReturn(base);
+        PropertyInfo withoutBase = mock(PropertyInfo.class);
+
+        assertEquals(100.0, PropertyParser.parse("50%", withBase).getNumber().doubleValue(), 0.0);
+        assertEquals(0.5, PropertyParser.parse("50%", withoutBase).getNumber().doubleValue(), 0.0);
+    }
+
+    @Test
+    public void testRelativeLengthsAreEvaluatedInContext() throws PropertyException {
+        PropertyInfo small = mock(PropertyInfo.class);
+        when(small.currentFontSize()).thenReturn(FixedLength.getInstance(10000));
+        PropertyInfo large = mock(PropertyInfo.class);
+        when(large.currentFontSize()).thenReturn(FixedLength.getInstance(20000));
+
+        assertEquals(15000, PropertyParser.parse("1.5em", small).getLength().getValue());
+        assertEquals(30000, PropertyParser.parse("1.5em", large).getLength().getValue());
+    }
+
+    @Test
+    public void testListsAreNotShared() throws PropertyException {
+        PropertyInfo propInfo = mock(PropertyInfo.class);
+        Property first = PropertyParser.parse("Helvetica, sans-serif", propInfo);
+        Property second = PropertyParser.parse("Helvetica, sans-serif", propInfo);
+        assertTrue(first instanceof ListProperty);
+        assertEquals(2, first.getList().size());
+        assertNotSame(first, second);
+    }
+
+    @Test(expected = PropertyException.class)
+    public void testSyntaxError() throws PropertyException {
+        PropertyParser.parse("3 +", mock(PropertyInfo.class));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fo.flow;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Tests that a retrieve-marker that keeps the content cloned for the marker bound on the
+ * previous page produces the same areas as cloning the content for each page.
+ */
+public class RetrieveMarkerReuseTestCase {
+
+    private final FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+
+    @Test
+    public void testSameMarkerOnConsecutivePages() throws Exception {
+        String[] sections = {"A", "A", "A", "B", "B", "A", "A"};
+        //only the first page of a section declares the marker, so the following pages retrieve
+        //the same marker as a carry-over and reuse its content
+        String reused = format(createDocument(sections, false));
+        //each page declares its own marker, whose content is cloned
+        String cloned = format(createDocument(sections, true));
+        assertTrue(reused.contains("<regionBefore"));
+        assertTrue(reused.contains(">Running</word>"));
+        assertEquals(cloned, reused);
+    }
+
+    private String format(String fo) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new StringReader(fo));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        return out.toString("UTF-8");
+    }
+
+    private String createDocument(String[] sections, boolean markerOnEveryPage) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">")
+                .append("<fo:layout-master-set>")
+                .append("<fo:simple-page-master master-name=\"page\" page-width=\"120mm\"")
+                .append(" page-height=\"80mm\" margin=\"5mm\">")
+                .append("<fo:region-body margin-top=\"25mm\" margin-bottom=\"15mm\"/>")
+                .append("<fo:region-before extent=\"25mm\"/><fo:region-after extent=\"15mm\"/>")
+                .append("</fo:simple-page-master></fo:layout-master-set>")
+                .append("<fo:page-sequence master-reference=\"page\">")
+                .append("<fo:static-content flow-name=\"xsl-region-before\">")
+                .append("<fo:retrieve-marker retrieve-class-name=\"section\"/>")
+                .append("</fo:static-content>")
+                .append("<fo:static-content flow-name=\"xsl-region-after\"><fo:block>")
+                .append("<fo:retrieve-marker retrieve-class-name=\"footer\"/>")
+                .append("</fo:block></fo:static-content>")
+                .append("<fo:flow flow-name=\"xsl-region-body\">");
+        for (int i = 0; i < sections.length; i++) {
+            sb.append("<fo:block");
+            if (i > 0) {
+                sb.append(" break-before=\"page\"");
+            }
+            sb.append(">");
+            if (markerOnEveryPage || i == 0 || !sections[i].equals(sections[i - 1])) {
+                sb.append(createMarkers(sections[i]));
+            }
+            sb.append("Body of page ").append(i + 1).append("</fo:block>");
+        }
+        sb.append("</fo:flow></fo:page-sequence></fo:root>");
+        return sb.toString();
+    }
+
+    private String createMarkers(String section) {
+        return "<fo:marker marker-class-name=\"section\">\n"
+                + "  <fo:block font-weight=\"bold\">  Section " + section
+                + ", page <fo:page-number/>  </fo:block>\n"
+                + "  <fo:table table-layout=\"fixed\" width=\"100%\" border-collapse=\"collapse\">"
+                + "<fo:table-column column-width=\"30%\"/><fo:table-column column-width=\"70%\"/>"
+                + "<fo:table-body><fo:table-row>"
+                + "<fo:table-cell border=\"0.5pt solid black\"><fo:block>" + section
+                + "</fo:block></fo:table-cell>"
+                + "<fo:table-cell border=\"0.5pt solid black\"><fo:block text-align=\"justify\">"
+                + "Running header of section " + section + " that is long enough to wrap over"
+                + " several lines in the narrow cell</fo:block></fo:table-cell>"
+                + "</fo:table-row></fo:table-body></fo:table>\n"
+                + "</fo:marker>"
+                + "<fo:marker marker-class-name=\"footer\">Footer <fo:inline font-style=\"italic\">"
+                + section + "</fo:inline>, page <fo:page-number/></fo:marker>";
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.fonts;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SubsetRecorderTestCase {
+
+    private MultiByteFont createFont() {
+        MultiByteFont font = new MultiByteFont(null, EmbeddingMode.SUBSET);
+        font.setEmbedResourceName("test");
+        //'a' to 'z' map to the glyphs 1 to 26, glyph n is n * 10 wide
+        font.setCMap(new CMapSegment[] {new CMapSegment('a', 'z', 1)});
+        int[] widths = new int[27];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = i * 10;
+        }
+        font.setWidthArray(widths);
+        return font;
+    }
+
+    private void map(MultiByteFont font, SubsetRecorder recorder, String text) {
+        recorder.activate();
+        try {
+            for (int i = 0; i < text.length(); i++) {
+                font.mapChar(text.charAt(i));
+            }
+        } finally {
+            recorder.deactivate();
+        }
+    }
+
+    @Test
+    public void testRecordingLeavesSharedSubsetAlone() {
+        MultiByteFont font = createFont();
+        SubsetRecorder recorder = new SubsetRecorder();
+        recorder.activate();
+        try {
+            assertEquals(1, font.mapChar('c'));
+            assertEquals(2, font.mapChar('a'));
+            assertEquals(1, font.mapChar('c'));
+            //selectors are resolved against the recorded subset
+            assertEquals(30 * 100, font.getWidth(1, 100));
+            assertEquals(10 * 100, font.getWidth(2, 100));
+        } finally {
+            recorder.deactivate();
+        }
+        assertEquals(1, font.getUsedGlyphs().size());
+        recorder.replay();
+        Map<Integer, Integer> used = font.getUsedGlyphs();
+        assertEquals(3, used.size());
+        assertEquals(Integer.valueOf(1), used.get(3));
+        assertEquals(Integer.valueOf(2), used.get(1));
+    }
+
+    @Test
+    public void testNumberingFollowsReplayOrder() throws Exception {
+        final MultiByteFont font = createFont();
+        final SubsetRecorder first = new SubsetRecorder();
+        final SubsetRecorder second = new SubsetRecorder();
+        //the second page-sequence is laid out before the first one
+        Thread thread = new Thread() {
+            public void run() {
+                map(font, second, "zyx");
+            }
+        };
+        thread.start();
+        thread.join();
+        map(font, first, "abz");
+
+        first.replay();
+        second.replay();
+        List<Integer> glyphs = new ArrayList<Integer>(font.getUsedGlyphs().keySet());
+        //.notdef, a, b, z from the first page-sequence, then y, x from the second one
+        assertEquals("[0, 1, 2, 26, 25, 24]", glyphs.toString());
+        assertEquals('z', font.getUnicodeFromGID(26));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.image;
+
+import java.io.FileNotFoundException;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.ImageManager;
+import org.apache.xmlgraphics.image.loader.ImageSessionContext;
+
+import org.apache.fop.apps.FOUserAgent;
+
+public class ImagePreloaderTestCase {
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private FOUserAgent userAgent;
+
+    private ImageManager imageManager;
+
+    @Before
+    public void setUp() {
+        userAgent = mock(FOUserAgent.class);
+        imageManager = mock(ImageManager.class);
+        when(userAgent.getImageManager()).thenReturn(imageManager);
+        when(userAgent.createImageSessionContext()).thenReturn(mock(ImageSessionContext.class));
+    }
+
+    @Test
+    public void testImageIsPreloadedOnce() throws Exception {
+        ImageInfo info = new ImageInfo("logo.png", "image/png");
+        when(imageManager.getImageInfo(eq("logo.png"), any(ImageSessionContext.class))).thenReturn(info);
+        ImagePreloader preloader = new ImagePreloader(userAgent, DIRECT_EXECUTOR);
+        preloader.preload("logo.png");
+        preloader.preload("logo.png");
+        assertSame(info, preloader.getImageInfo("logo.png"));
+        assertEquals(1, preloader.getRequestCount());
+        verify(imageManager, times(1)).getImageInfo(eq("logo.png"), any(ImageSessionContext.class));
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void testExceptionIsReportedOnAccess() throws Exception {
+        when(imageManager.getImageInfo(eq("missing.png"), any(ImageSessionContext.class)))
+                .thenThrow(new FileNotFoundException("missing.png"));
+        ImagePreloader preloader = new ImagePreloader(userAgent, DIRECT_EXECUTOR);
+        preloader.preload("missing.png");
+        preloader.getImageInfo("missing.png");
+    }
+}
@@ -26,6 +26,7 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.area.AreaTreeHandler;
 import org.apache.fop.area.PageViewport;
 import org.apache.fop.fo.pagination.Flow;
@@ -76,6 +77,7 @@ public class PageSequenceLayoutManagerTestCase {
         final PageSequence pseq = mock(PageSequence.class);
         final Root root = mock(Root.class);
         final AreaTreeHandler ath = mock(AreaTreeHandler.class);
+        when(ath.getUserAgent()).thenReturn(mock(FOUserAgent.class));
 
         when(flow.getFlowName()).thenReturn(MAIN_FLOW_NAME);
         when(pseq.getMainFlow()).thenReturn(flow);
@@ -122,6 +124,7 @@ public class PageSequenceLayoutManagerTestCase {
     public void testRegionNameNotFound() {
         final PageSequence pseq = mock(PageSequence.class);
         final AreaTreeHandler ath = mock(AreaTreeHandler.class);
+        when(ath.getUserAgent()).thenReturn(mock(FOUserAgent.class));
         final Flow flow = mock(Flow.class);
         final Root root = mock(Root.class);
 
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.FOElementMapping;
+import org.apache.fop.fo.FObj;
+import org.apache.fop.fo.flow.Marker;
+import org.apache.fop.fo.flow.RetrieveMarker;
+import org.apache.fop.fo.pagination.SideRegion;
+import org.apache.fop.fo.pagination.StaticContent;
+
+public class StaticContentLayoutCacheTestCase {
+
+    @Test
+    public void testPlainContentIsPageIndependent() {
+        List<RetrieveMarker> rms = new ArrayList<RetrieveMarker>();
+        assertTrue(StaticContentLayoutCache.isPageIndependent(
+                mockFObj(FObj.class, Constants.FO_BLOCK), rms));
+        assertTrue(rms.isEmpty());
+    }
+
+    @Test
+    public void testPageDependentContent() {
+        List<RetrieveMarker> rms = new ArrayList<RetrieveMarker>();
+        assertFalse(StaticContentLayoutCache.isPageIndependent(
+                mockFObj(FObj.class, Constants.FO_PAGE_NUMBER), rms));
+        assertFalse(StaticContentLayoutCache.isPageIndependent(
+                mockFObj(FObj.class, Constants.FO_BASIC_LINK), rms));
+
+        FObj withId = mockFObj(FObj.class, Constants.FO_BLOCK);
+        when(withId.hasId()).thenReturn(true);
+        assertFalse(StaticContentLayoutCache.isPageIndependent(withId, rms));
+
+        FObj extension = mockFObj(FObj.class, Constants.FO_UNKNOWN_NODE);
+        when(extension.getNamespaceURI()).thenReturn("http://xmlgraphics.apache.org/fop/extensions");
+        assertFalse(StaticContentLayoutCache.isPageIndependent(extension, rms));
+    }
+
+    @Test
+    public void testRetrieveMarkersAreCollected() {
+        List<RetrieveMarker> rms = new ArrayList<RetrieveMarker>();
+        RetrieveMarker rm = mockFObj(RetrieveMarker.class, Constants.FO_RETRIEVE_MARKER);
+        assertTrue(StaticContentLayoutCache.isPageIndependent(rm, rms));
+        assertEquals(1, rms.size());
+        assertSame(rm, rms.get(0));
+    }
+
+    @Test
+    public void testKeysCompareMarkersByIdentity() {
+        SideRegion region = mock(SideRegion.class);
+        StaticContent sc = mock(StaticContent.class);
+        Marker marker1 = mock(Marker.class);
+        Marker marker2 = mock(Marker.class);
+        StaticContentLayoutCache.Key key = new StaticContentLayoutCache.Key(region, sc, 100, 20, true,
+                Collections.singletonList(marker1));
+        assertEquals(key, new StaticContentLayoutCache.Key(region, sc, 100, 20, true,
+                Collections.singletonList(marker1)));
+        assertEquals(key.hashCode(), new StaticContentLayoutCache.Key(region, sc, 100, 20, true,
+                Collections.singletonList(marker1)).hashCode());
+        assertNotEquals(key, new StaticContentLayoutCache.Key(region, sc, 100, 20, true,
+                Collections.singletonList(marker2)));
+        assertNotEquals(key, new StaticContentLayoutCache.Key(region, sc, 100, 20, false,
+                Collections.singletonList(marker1)));
+        assertNotEquals(key, new StaticContentLayoutCache.Key(region, sc, 100, 30, true,
+                Collections.singletonList(marker1)));
+    }
+
+    private static <T extends FObj> T mockFObj(Class<T> clazz, int nameId) {
+        T fobj = mock(clazz);
+        when(fobj.getNameId()).thenReturn(nameId);
+        when(fobj.getNamespaceURI()).thenReturn(FOElementMapping.URI);
+        return fobj;
+    }
+}
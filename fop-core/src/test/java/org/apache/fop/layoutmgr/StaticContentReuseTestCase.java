@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.events.Event;
+import org.apache.fop.events.EventListener;
+
+/**
+ * Tests that reusing the layout of static content produces the same area tree and the same
+ * events as laying out the static content on every page.
+ */
+public class StaticContentReuseTestCase {
+
+    private final FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+
+    @Test
+    public void testSameAreasAndEvents() throws Exception {
+        String fo = createDocument(new String[] {"A", "A", "A", "B", "B", "B", "B", "A", "C"});
+        List<String> eventsOff = new ArrayList<String>();
+        String areasOff = format(fo, false, eventsOff);
+        List<String> eventsOn = new ArrayList<String>();
+        String areasOn = format(fo, true, eventsOn);
+
+        assertTrue(areasOff.contains("<regionBefore"));
+        assertTrue(areasOff.contains("<regionAfter"));
+        assertEquals(areasOff, areasOn);
+        //only the footer overflows its region, on every page
+        int overflows = 0;
+        for (String event : eventsOff) {
+            if (event.startsWith(BlockLevelEventProducer.class.getName() + ".staticRegionOverflow")) {
+                assertTrue(event, event.contains("region-after"));
+                overflows++;
+            }
+        }
+        assertEquals(9, overflows);
+        assertEquals(eventsOff, eventsOn);
+    }
+
+    private String format(String fo, boolean reuse, final List<String> events) throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setStaticContentReuse(reuse);
+        userAgent.getEventBroadcaster().addEventListener(new EventListener() {
+            public void processEvent(Event event) {
+                events.add(event.getEventID() + " " + event.getParam("elementName")
+                        + " page=" + event.getParam("page") + " amount=" + event.getParam("amount"));
+            }
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new StringReader(fo));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        return out.toString("UTF-8");
+    }
+
+    private String createDocument(String[] chapters) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">")
+                .append("<fo:layout-master-set>")
+                //odd and even pages have regions of different dimensions
+                .append("<fo:simple-page-master master-name=\"odd\" page-width=\"120mm\"")
+                .append(" page-height=\"80mm\" margin=\"5mm\">")
+                .append("<fo:region-body margin-top=\"24mm\" margin-bottom=\"8mm\" margin-left=\"15mm\"/>")
+                .append("<fo:region-before extent=\"24mm\"/><fo:region-after extent=\"8mm\"/>")
+                .append("<fo:region-start extent=\"15mm\"/></fo:simple-page-master>")
+                .append("<fo:simple-page-master master-name=\"even\" page-width=\"120mm\"")
+                .append(" page-height=\"80mm\" margin=\"5mm\" margin-left=\"10mm\">")
+                .append("<fo:region-body margin-top=\"20mm\" margin-bottom=\"8mm\" margin-left=\"15mm\"/>")
+                .append("<fo:region-before extent=\"20mm\"/><fo:region-after extent=\"8mm\"/>")
+                .append("<fo:region-start extent=\"15mm\"/></fo:simple-page-master>")
+                .append("<fo:page-sequence-master master-name=\"pages\">")
+                .append("<fo:repeatable-page-master-alternatives>")
+                .append("<fo:conditional-page-master-reference odd-or-even=\"odd\" master-reference=\"odd\"/>")
+                .append("<fo:conditional-page-master-reference odd-or-even=\"even\" master-reference=\"even\"/>")
+                .append("</fo:repeatable-page-master-alternatives></fo:page-sequence-master>")
+                .append("</fo:layout-master-set>")
+                .append("<fo:page-sequence master-reference=\"pages\">")
+                //the header only changes with the retrieved marker and the parity of the page
+                .append("<fo:static-content flow-name=\"xsl-region-before\">")
+                .append("<fo:block text-align=\"outside\">Running header</fo:block>")
+                .append("<fo:retrieve-marker retrieve-class-name=\"chapter\"/>")
+                .append("</fo:static-content>")
+                //the footer is the same on every page and doesn't fit into its region
+                .append("<fo:static-content flow-name=\"xsl-region-after\">")
+                .append("<fo:block>Footer line one</fo:block><fo:block>Footer line two</fo:block>")
+                .append("<fo:block>Footer line three</fo:block>")
+                .append("</fo:static-content>")
+                //the side region shows the page number and is laid out on every page
+                .append("<fo:static-content flow-name=\"xsl-region-start\">")
+                .append("<fo:block>p. <fo:page-number/></fo:block>")
+                .append("</fo:static-content>")
+                .append("<fo:flow flow-name=\"xsl-region-body\">");
+        for (int i = 0; i < chapters.length; i++) {
+            sb.append("<fo:block");
+            if (i > 0) {
+                sb.append(" break-before=\"page\"");
+            }
+            sb.append(">");
+            if (i == 0 || !chapters[i].equals(chapters[i - 1])) {
+                sb.append("<fo:marker marker-class-name=\"chapter\">")
+                        .append("<fo:block font-weight=\"bold\">Chapter ").append(chapters[i])
+                        .append("</fo:block>")
+                        .append("<fo:table table-layout=\"fixed\" width=\"100%\">")
+                        .append("<fo:table-column column-width=\"40%\"/>")
+                        .append("<fo:table-column column-width=\"60%\"/><fo:table-body><fo:table-row>")
+                        .append("<fo:table-cell border=\"0.5pt solid black\"><fo:block>")
+                        .append(chapters[i]).append("</fo:block></fo:table-cell>")
+                        .append("<fo:table-cell><fo:block>Title of chapter ").append(chapters[i])
+                        .append("</fo:block></fo:table-cell></fo:table-row></fo:table-body></fo:table>")
+                        .append("</fo:marker>");
+            }
+            sb.append("Body of page ").append(i + 1).append("</fo:block>");
+        }
+        sb.append("</fo:flow></fo:page-sequence></fo:root>");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id:$ */
+
+package org.apache.fop.layoutmgr.table;
+
+import java.awt.Color;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.apache.fop.fo.Constants;
+import org.apache.fop.fo.flow.table.BorderSpecification;
+import org.apache.fop.fo.properties.CommonBorderPaddingBackground.BorderInfo;
+import org.apache.fop.fo.properties.CondLengthProperty;
+
+public class CollapsingBorderModelEyeCatchingTestCase {
+
+    private static BorderInfo createBorderInfo(int width, Color color) {
+        CondLengthProperty clp = mock(CondLengthProperty.class);
+        when(clp.getLengthValue()).thenReturn(width);
+        return BorderInfo.getInstance(Constants.EN_SOLID, clp, color, clp, clp);
+    }
+
+    @Test
+    public void testBorderSpecificationsAreShared() {
+        BorderInfo bi = createBorderInfo(1000, Color.BLACK);
+        BorderSpecification spec = BorderSpecification.getInstance(bi, Constants.FO_TABLE_CELL);
+        assertSame(spec, BorderSpecification.getInstance(bi, Constants.FO_TABLE_CELL));
+        assertEquals(spec, new BorderSpecification(bi, Constants.FO_TABLE_CELL));
+    }
+
+    @Test
+    public void testOutcomesAreMemoized() {
+        CollapsingBorderModelEyeCatching model = new CollapsingBorderModelEyeCatching();
+        BorderSpecification thin = BorderSpecification.getInstance(
+                createBorderInfo(1000, Color.RED), Constants.FO_TABLE_CELL);
+        BorderSpecification thick = BorderSpecification.getInstance(
+                createBorderInfo(3000, Color.BLUE), Constants.FO_TABLE_ROW);
+        assertSame(thick, model.determineWinner(thin, thick));
+        assertSame(thick, model.determineWinner(thick, thin));
+        assertEquals(2, model.getMemoizedPairCount());
+        for (int i = 0; i < 10; i++) {
+            assertSame(thick, model.determineWinner(thin, thick));
+        }
+        assertEquals(2, model.getMemoizedPairCount());
+
+        // The outcome applies to the given arguments, not to those it was computed from;
+        // specifications that are not shared get outcomes of their own
+        BorderSpecification otherThin = new BorderSpecification(thin.getBorderInfo(),
+                Constants.FO_TABLE_CELL);
+        BorderSpecification otherThick = new BorderSpecification(thick.getBorderInfo(),
+                Constants.FO_TABLE_ROW);
+        assertSame(otherThick, model.determineWinner(otherThin, otherThick));
+        assertEquals(3, model.getMemoizedPairCount());
+    }
+
+    @Test
+    public void testMemoIsBounded() {
+        CollapsingBorderModelEyeCatching model = new CollapsingBorderModelEyeCatching();
+        BorderSpecification thick = BorderSpecification.getInstance(
+                createBorderInfo(3000, Color.BLUE), Constants.FO_TABLE_ROW);
+        BorderInfo thinInfo = createBorderInfo(1000, Color.RED);
+        for (int i = 0; i < CollapsingBorderModelEyeCatching.MAX_OUTCOMES_PER_BORDER + 1; i++) {
+            BorderSpecification thin = new BorderSpecification(thinInfo, Constants.FO_TABLE_CELL);
+            assertSame(thick, model.determineWinner(thick, thin));
+        }
+        assertEquals(1, model.getMemoizedPairCount());
+    }
+
+    @Test
+    public void testEquivalentBordersHaveNoWinner() {
+        CollapsingBorderModelEyeCatching model = new CollapsingBorderModelEyeCatching();
+        BorderSpecification spec = BorderSpecification.getInstance(
+                createBorderInfo(1000, Color.BLACK), Constants.FO_TABLE_CELL);
+        assertNull(model.determineWinner(spec, spec));
+        assertNull(model.determineWinner(spec, spec));
+        assertEquals(1, model.getMemoizedPairCount());
+    }
+}
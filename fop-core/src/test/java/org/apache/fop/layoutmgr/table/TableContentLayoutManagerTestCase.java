@@ -19,12 +19,17 @@
 
 package org.apache.fop.layoutmgr.table;
 
+import java.util.List;
+
 import org.junit.Test;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.apache.fop.fo.Constants;
 import org.apache.fop.fo.FONode.FONodeIterator;
 import org.apache.fop.fo.flow.table.Table;
 import org.apache.fop.layoutmgr.LayoutContext;
@@ -61,4 +66,20 @@ public class TableContentLayoutManagerTestCase {
         verify(tlm).repeatAddAreasForSavedTableHeaderTableCellLayoutManagers();
     }
 
+    @Test
+    public void testStreamingWindowWithEmptyBody() {
+        FONodeIterator foni = mock(FONodeIterator.class);
+        when(foni.hasNext()).thenReturn(false);
+        Table t = mock(Table.class);
+        when(t.getChildNodes()).thenReturn(foni);
+        TableLayoutManager tlm = mock(TableLayoutManager.class);
+        when(tlm.getTable()).thenReturn(t);
+        TableContentLayoutManager tclm = new TableContentLayoutManager(tlm);
+        tclm.setStreamingWindow(10);
+        assertTrue(tclm.isStreaming());
+        List elements = tclm.getNextKnuthElements(LayoutContext.newInstance(), Constants.EN_START);
+        assertTrue(elements.isEmpty());
+        assertFalse(tclm.isWindowPending());
+    }
+
 }
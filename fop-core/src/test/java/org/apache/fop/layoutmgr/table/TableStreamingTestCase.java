@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.layoutmgr.table;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+
+/**
+ * Tests that the streaming table mode produces the same area tree as laying out the table
+ * at once.
+ */
+public class TableStreamingTestCase {
+
+    private final FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+
+    @Test
+    public void testTableSpanningSeveralWindows() throws Exception {
+        String fo = createDocument(80, null, "collapse");
+        assertSameAreaTree(fo, 3);
+        assertSameAreaTree(fo, 7);
+    }
+
+    @Test
+    public void testSeparateBorderModel() throws Exception {
+        assertSameAreaTree(createDocument(60, null, "separate"), 4);
+    }
+
+    @Test
+    public void testFootnotes() throws Exception {
+        //the first windows have no footnotes, the rest of the table is laid out at once
+        assertSameAreaTree(createDocument(80, "footnote", "collapse"), 4);
+    }
+
+    @Test
+    public void testBreaksAndKeeps() throws Exception {
+        assertSameAreaTree(createDocument(80, "break", "collapse"), 3);
+        assertSameAreaTree(createDocument(80, "keep", "collapse"), 5);
+    }
+
+    private void assertSameAreaTree(String fo, int window) throws Exception {
+        String atOnce = format(fo, 0);
+        assertTrue(atOnce.contains("<pageViewport"));
+        assertEquals(atOnce, format(fo, window));
+    }
+
+    private String format(String fo, int window) throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.setTableStreamingWindow(window);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_FOP_AREA_TREE, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new StringReader(fo));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        return out.toString("UTF-8");
+    }
+
+    private String createDocument(int rows, String variant, String borderCollapse) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">")
+                .append("<fo:layout-master-set>")
+                .append("<fo:simple-page-master master-name=\"page\" page-width=\"210mm\"")
+                .append(" page-height=\"100mm\"><fo:region-body margin=\"10mm\"/>")
+                .append("</fo:simple-page-master></fo:layout-master-set>")
+                .append("<fo:page-sequence master-reference=\"page\">")
+                .append("<fo:flow flow-name=\"xsl-region-body\">")
+                .append("<fo:block>Before the table</fo:block>")
+                .append("<fo:table table-layout=\"fixed\" width=\"100%\" border-collapse=\"")
+                .append(borderCollapse).append("\" border=\"0.5pt solid black\">")
+                .append("<fo:table-column column-width=\"30%\"/>")
+                .append("<fo:table-column column-width=\"70%\"/>")
+                .append("<fo:table-header><fo:table-row><fo:table-cell><fo:block>No.</fo:block>")
+                .append("</fo:table-cell><fo:table-cell><fo:block>Text</fo:block></fo:table-cell>")
+                .append("</fo:table-row></fo:table-header>")
+                .append("<fo:table-footer><fo:table-row><fo:table-cell number-columns-spanned=\"2\">")
+                .append("<fo:block>Continued</fo:block></fo:table-cell></fo:table-row>")
+                .append("</fo:table-footer><fo:table-body>");
+        for (int i = 1; i <= rows; i++) {
+            sb.append("<fo:table-row");
+            if ("break".equals(variant) && i % 17 == 0) {
+                sb.append(" break-before=\"page\"");
+            } else if ("keep".equals(variant) && i % 5 == 0) {
+                sb.append(" keep-with-next=\"always\"");
+            }
+            sb.append(">");
+            //row spans stay within a row group
+            if (i % 11 == 0) {
+                sb.append("<fo:table-cell number-rows-spanned=\"2\" border=\"1pt solid red\">")
+                        .append("<fo:block>Rows ").append(i).append("</fo:block></fo:table-cell>");
+            } else if (i % 11 != 1 || i == 1) {
+                sb.append("<fo:table-cell border=\"0.5pt solid black\"><fo:block>Row ").append(i)
+                        .append("</fo:block></fo:table-cell>");
+            }
+            sb.append("<fo:table-cell><fo:block>Cell ").append(i);
+            if ("footnote".equals(variant) && i > 20 && i % 6 == 0) {
+                sb.append("<fo:footnote><fo:inline>*</fo:inline><fo:footnote-body><fo:block>")
+                        .append("Footnote ").append(i).append("</fo:block></fo:footnote-body>")
+                        .append("</fo:footnote>");
+            }
+            sb.append("</fo:block></fo:table-cell></fo:table-row>");
+        }
+        sb.append("</fo:table-body></fo:table>")
+                .append("<fo:block>After the table</fo:block>")
+                .append("</fo:flow></fo:page-sequence></fo:root>");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PDFContentBufferTestCase {
+
+    private final PDFContentBuffer buffer = new PDFContentBuffer(16);
+
+    @Test
+    public void testAppendText() {
+        buffer.append("BT\n").append('/').append(new StringBuffer("F1")).append('\u20AC');
+        assertEquals("BT\n/F1?", buffer.toString());
+        assertEquals(7, buffer.length());
+        buffer.reset();
+        assertEquals("", buffer.toString());
+    }
+
+    @Test
+    public void testAppendInt() {
+        int[] values = {0, 7, -7, 10, 99, 100, 123456789, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (int value : values) {
+            buffer.reset();
+            assertEquals(Integer.toString(value), buffer.append(value).toString());
+        }
+    }
+
+    @Test
+    public void testAppendDoubleMatchesDoubleOut() {
+        Random random = new Random(42);
+        double[] values = {0.0, -0.0, 1.0, -1.0, 0.1, 100.12345611111111, 1e-9, 123456789.5,
+                1e12, -0.5, 0.3333333333, 790.866};
+        for (double value : values) {
+            for (int dec = 0; dec <= 8; dec++) {
+                assertDoubleOut(value, dec);
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertDoubleOut((random.nextDouble() - 0.5) * 2000, 6);
+            assertDoubleOut((random.nextFloat() - 0.5f) * 100, 8);
+            assertDoubleOut((double) random.nextInt(100000), 4);
+        }
+    }
+
+    private void assertDoubleOut(double value, int dec) {
+        buffer.reset();
+        assertEquals(PDFNumber.doubleOut(value, dec), buffer.appendDouble(value, dec).toString());
+    }
+
+    @Test
+    public void testAppendOctalEscape() {
+        int[] codes = {0, 1, 7, 8, 31, 128, 255, 0x3FF};
+        for (int code : codes) {
+            buffer.reset();
+            assertEquals("\\" + Integer.toOctalString(code),
+                    buffer.appendOctalEscape(code).toString());
+        }
+    }
+
+    @Test
+    public void testAppendUnicodeHex() {
+        int[] codePoints = {0, 0x41, 0xABC, 0xFFFF, 0x10000, 0x1F600, 0x10FFFF};
+        for (int codePoint : codePoints) {
+            buffer.reset();
+            StringBuffer expected = new StringBuffer();
+            PDFText.toUnicodeHex(codePoint, expected);
+            assertEquals(expected.toString(), buffer.appendUnicodeHex(codePoint).toString());
+        }
+    }
+
+    @Test
+    public void testStreamAdd() throws IOException {
+        PDFStream stream = new PDFStream();
+        PDFContentBuffer op = new PDFContentBuffer();
+        stream.add("q\n");
+        stream.add(op.appendDouble(1.5, 6).append(" w\n"));
+        stream.add(new StringBuffer("Q\n"));
+        stream.getBufferWriter().write("% comment\n");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        stream.outputRawStreamData(out);
+        assertArrayEquals("q\n1.5 w\nQ\n% comment\n".getBytes("US-ASCII"), out.toByteArray());
+    }
+
+    @Test
+    public void testStreamAddLargeContent() throws IOException {
+        PDFStream stream = new PDFStream();
+        StringBuffer expected = new StringBuffer();
+        for (int i = 0; i < 5000; i++) {
+            String line = i + " 0 m\n";
+            stream.add(line);
+            expected.append(line);
+        }
+        assertEquals(expected.length(), stream.getDataLength());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        stream.outputRawStreamData(out);
+        assertEquals(expected.toString(), out.toString("US-ASCII"));
+    }
+}
@@ -21,10 +21,20 @@ package org.apache.fop.pdf;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.fop.pdf.StandardStructureTypes.Grouping;
+import org.apache.fop.pdf.StandardStructureTypes.Paragraphlike;
 
 /**
  * Test case for {@link PDFDocument}
@@ -59,4 +69,120 @@ public class PDFDocumentTestCase {
         PDFDocument.flushTextBuffer(textBuffer, out);
         assertEquals(fullString, out.toString());
     }
+
+    @Test
+    public void testOutputStructureTree() throws IOException {
+        PDFDocument pdfDoc = new PDFDocument("test");
+        pdfDoc.enableAccessibility(true);
+        StructureTree tree = new StructureTree(pdfDoc);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pdfDoc.outputHeader(out);
+
+        pdfDoc.outputStructureTree(tree.pageSequence, out);
+        assertEquals(Arrays.asList(tree.document, tree.nextPageSequence), pdfDoc.getStructureTreeElements());
+        String written = out.toString("ISO-8859-1");
+        assertTrue(written.contains(tree.pageSequence.getObjectID()));
+        assertTrue(written.contains(tree.paragraph.getObjectID()));
+        assertFalse(written.contains(tree.nextPageSequence.getObjectID()));
+        assertNull(tree.pageSequence.getKids());
+
+        pdfDoc.outputTrailer(out);
+        written = out.toString("ISO-8859-1");
+        assertTrue(written.contains(tree.nextPageSequence.getObjectID()));
+        assertTrue(written.contains(tree.document.getObjectID()));
+    }
+
+    @Test
+    public void testOutputStructureTreeToObjectStreams() throws IOException {
+        PDFDocument pdfDoc = new PDFDocument("test");
+        pdfDoc.setPDFVersion(Version.V1_5);
+        pdfDoc.enableAccessibility(true);
+        StructureTree tree = new StructureTree(pdfDoc);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pdfDoc.outputHeader(out);
+
+        pdfDoc.outputStructureTree(tree.pageSequence, out);
+        assertEquals(1, countOccurrences(out.toString("ISO-8859-1"), "/ObjStm"));
+        assertNull(tree.pageSequence.getKids());
+
+        pdfDoc.outputTrailer(out);
+        String written = out.toString("ISO-8859-1");
+        assertEquals(2, countOccurrences(written, "/ObjStm"));
+        assertFalse(written.contains(tree.paragraph.getObjectID()));
+    }
+
+    @Test
+    public void testStreamsEncodedAheadAreWrittenInOrder() throws IOException {
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        PDFDocument pdfDoc = createDocumentWithContentStream();
+        pdfDoc.setStreamEncodingExecutor(new Executor() {
+            public void execute(Runnable task) {
+                tasks.add(task);
+            }
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pdfDoc.outputReadyObjects(out);
+        assertEquals(1, tasks.size());
+        String written = out.toString("ISO-8859-1");
+        assertTrue(written.contains("(before)"));
+        assertFalse(written.contains("(after)"));
+
+        tasks.get(0).run();
+        pdfDoc.outputReadyObjects(out);
+        written = out.toString("ISO-8859-1");
+        assertEquals(1, tasks.size());
+        assertTrue(written.indexOf("(before)") < written.indexOf("stream"));
+        assertTrue(written.indexOf("endstream") < written.indexOf("(after)"));
+    }
+
+    private static PDFDocument createDocumentWithContentStream() {
+        PDFDocument pdfDoc = new PDFDocument("test");
+        pdfDoc.registerObject(createText("before"));
+        PDFStream stream = pdfDoc.getFactory().makeStream(PDFFilterList.CONTENT_FILTER, false);
+        stream.add("BT /F1 12 Tf (content) Tj ET\n");
+        pdfDoc.registerObject(stream);
+        pdfDoc.registerObject(createText("after"));
+        return pdfDoc;
+    }
+
+    private static PDFText createText(String text) {
+        PDFText pdfText = new PDFText();
+        pdfText.setText(text);
+        return pdfText;
+    }
+
+    private static int countOccurrences(String s, String sub) {
+        int count = 0;
+        for (int i = s.indexOf(sub); i >= 0; i = s.indexOf(sub, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    private static final class StructureTree {
+
+        private final PDFStructElem document;
+
+        private final PDFStructElem pageSequence;
+
+        private final PDFStructElem paragraph;
+
+        private final PDFStructElem nextPageSequence;
+
+        StructureTree(PDFDocument pdfDoc) {
+            PDFStructTreeRoot treeRoot = pdfDoc.makeStructTreeRoot(new PDFParentTree(true));
+            document = createElement(pdfDoc, treeRoot, Grouping.DOCUMENT);
+            pageSequence = createElement(pdfDoc, document, Grouping.PART);
+            paragraph = createElement(pdfDoc, pageSequence, Paragraphlike.P);
+            nextPageSequence = createElement(pdfDoc, document, Grouping.PART);
+        }
+
+        private static PDFStructElem createElement(PDFDocument pdfDoc, StructureHierarchyMember parent,
+                StructureType type) {
+            PDFStructElem structElem = new PDFStructElem(parent, type);
+            pdfDoc.registerStructureElement(structElem);
+            parent.addKid(structElem);
+            return structElem;
+        }
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.pdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class PDFImageXObjectCacheTestCase {
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() {
+        PDFImageXObjectCache cache = new PDFImageXObjectCache(10);
+        cache.put("a", new byte[4]);
+        cache.put("b", new byte[4]);
+        assertNotNull(cache.get("a"));
+        cache.put("c", new byte[4]);
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertEquals(8, cache.getCurrentBytes());
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testOversizedEntriesAreNotCached() {
+        PDFImageXObjectCache cache = new PDFImageXObjectCache(10);
+        cache.put("a", new byte[11]);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.getCurrentBytes());
+    }
+
+    @Test
+    public void testStreamDataIsSharedBetweenDocuments() throws IOException {
+        PDFImageXObjectCache cache = new PDFImageXObjectCache(1024 * 1024);
+        byte[] first = outputImage(cache);
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(0, cache.getHitCount());
+        byte[] second = outputImage(cache);
+        assertEquals(1, cache.getHitCount());
+        assertArrayEquals(first, second);
+        assertArrayEquals(first, outputImage(null));
+    }
+
+    @Test
+    public void testImageLargerThanCacheIsWrittenButNotCached() throws IOException {
+        PDFImageXObjectCache cache = new PDFImageXObjectCache(4);
+        byte[] uncached = outputImage(cache);
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0, cache.getCurrentBytes());
+        assertEquals(1, cache.getMissCount());
+        assertArrayEquals(outputImage(null), uncached);
+    }
+
+    private byte[] outputImage(PDFImageXObjectCache cache) throws IOException {
+        PDFDocument doc = new PDFDocument("Apache FOP");
+        doc.setImageXObjectCache(cache);
+        byte[] data = new byte[3 * 4 * 4];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        BitmapImage image = new BitmapImage("logo.png", 4, 4, data, null);
+        PDFImageXObject xobj = doc.addImage(null, image);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        xobj.output(out);
+        return out.toByteArray();
+    }
+}
@@ -19,6 +19,8 @@
 
 package org.apache.fop.pdf;
 
+import java.io.ByteArrayOutputStream;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -91,6 +93,47 @@ public class PDFParentTreeTestCase {
         }
     }
 
+    /**
+     * Ensures that a parent tree keeping only object numbers writes the same nums arrays
+     * @throws Exception
+     */
+    @Test
+    public void testObjectNumbersOnly() throws Exception {
+        PDFDocument pdfDocument = new PDFDocument("test");
+        PDFParentTree objectNumbersTree = new PDFParentTree(true);
+        pdfDocument.makeStructTreeRoot(objectNumbersTree);
+        PDFArray first = new PDFArray();
+        PDFArray second = new PDFArray();
+        pdfDocument.registerObject(first);
+        pdfDocument.registerObject(second);
+        for (PDFParentTree tree : new PDFParentTree[] {parentTree, objectNumbersTree}) {
+            tree.addToNums(53, second);
+            tree.addToNums(51, first);
+            tree.addToNums(7, first);
+        }
+        for (int i = 0; i < 2; i++) {
+            PDFNumsArray expected = ((PDFNumberTreeNode) parentTree.getKids().get(i)).getNums();
+            PDFNumsArray actual = ((PDFNumberTreeNode) objectNumbersTree.getKids().get(i)).getNums();
+            assertEquals(expected.length(), actual.length());
+            assertEquals(toString(expected), toString(actual));
+        }
+        assertEquals("[51 " + first.referencePDF() + " 53 " + second.referencePDF() + "]",
+                toString(((PDFNumberTreeNode) objectNumbersTree.getKids().get(1)).getNums()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testObjectNumbersOnlyRequiresIndirectObjects() {
+        PDFParentTree objectNumbersTree = new PDFParentTree(true);
+        new PDFDocument("test").makeStructTreeRoot(objectNumbersTree);
+        objectNumbersTree.addToNums(0, new PDFArray());
+    }
+
+    private static String toString(PDFNumsArray nums) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        nums.output(out);
+        return out.toString("US-ASCII");
+    }
+
     /**
      * Gets the number of arrays created for a given number of elements
      * @param elementNumber The number of elements to be added to the nums array
@@ -22,16 +22,22 @@ import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.FontFormatException;
 import java.awt.Graphics2D;
+import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
 import java.net.URI;
 import java.net.URISyntaxException;
 
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
 import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -42,14 +48,20 @@ import org.apache.xmlgraphics.image.loader.impl.ImageGraphics2D;
 import org.apache.xmlgraphics.java2d.Graphics2DImagePainter;
 
 import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
 import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.fo.Constants;
 import org.apache.fop.fonts.EmbeddingMode;
 import org.apache.fop.fonts.FontInfo;
 import org.apache.fop.fonts.FontType;
 import org.apache.fop.fonts.MultiByteFont;
 import org.apache.fop.render.intermediate.IFContext;
 import org.apache.fop.render.intermediate.IFException;
+import org.apache.fop.render.intermediate.IFPainter;
 import org.apache.fop.render.java2d.CustomFontMetricsMapper;
+import org.apache.fop.traits.BorderProps;
+import org.apache.fop.traits.RuleStyle;
 
 
 
@@ -75,6 +87,123 @@ public class PCLPainterTestCase {
         Assert.assertTrue(output.toString().contains("*v255a0b0c0I\u001B*v0S\u001B*c0.01h0.01V\u001B*c0P"));
     }
 
+    @Test
+    public void testSolidBordersAreFilledInQualityMode() throws IFException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PCLPainter pclPainter = createQualityPainter(output);
+        BorderProps solid = BorderProps.makeRectangular(Constants.EN_SOLID, 1000, Color.BLACK,
+                BorderProps.Mode.SEPARATE);
+        pclPainter.drawBorderRect(new Rectangle(0, 0, 10000, 5000), solid, solid, solid, solid, null);
+        Assert.assertTrue(output.toString().contains("*c100h10V"));
+        Assert.assertTrue(output.toString().contains("*c10h50V"));
+        Assert.assertFalse(output.toString().contains("*rB"));
+        output.reset();
+
+        BorderProps dotted = BorderProps.makeRectangular(Constants.EN_DOTTED, 1000, Color.BLACK,
+                BorderProps.Mode.SEPARATE);
+        pclPainter.drawBorderRect(new Rectangle(0, 0, 10000, 5000), dotted, null, null, null, null);
+        Assert.assertTrue(output.toString().contains("*rB"));
+    }
+
+    @Test
+    public void testRulesAreFilledInQualityMode() throws IFException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PCLPainter pclPainter = createQualityPainter(output);
+        pclPainter.drawLine(new Point(0, 1000), new Point(10000, 1000), 2000, Color.BLACK, RuleStyle.SOLID);
+        Assert.assertTrue(output.toString().contains("*c100h20V"));
+        Assert.assertFalse(output.toString().contains("*rB"));
+        output.reset();
+
+        pclPainter.drawLine(new Point(0, 1000), new Point(10000, 1000), 1000, Color.BLACK, RuleStyle.DASHED);
+        Assert.assertTrue(output.toString().contains("*c20h10V"));
+        Assert.assertFalse(output.toString().contains("*rB"));
+        output.reset();
+
+        pclPainter.drawLine(new Point(0, 1000), new Point(10000, 1000), 1000, Color.BLACK, RuleStyle.GROOVE);
+        Assert.assertTrue(output.toString().contains("*rB"));
+    }
+
+    @Test
+    public void testBorderedTableIsSmallerThanWithBitmaps() throws Exception {
+        String filled = new String(renderQualityPCL(createBorderedTable(), false), "ISO-8859-1");
+        String bitmaps = new String(renderQualityPCL(createBorderedTable(), true), "ISO-8859-1");
+        Assert.assertFalse(filled.contains("*rB"));
+        Assert.assertTrue(bitmaps.contains("*rB"));
+        Assert.assertTrue(filled.length() + " >= " + bitmaps.length(), filled.length() < bitmaps.length());
+    }
+
+    /**
+     * Renders a document to PCL in quality mode.
+     * @param fo the document
+     * @param bitmaps true to paint all borders and rules as bitmaps, as quality mode did before
+     * they were filled natively
+     */
+    private byte[] renderQualityPCL(String fo, final boolean bitmaps) throws Exception {
+        FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        PCLDocumentHandler documentHandler = new PCLDocumentHandler(new IFContext(userAgent)) {
+            public IFPainter startPageContent() throws IFException {
+                if (!bitmaps) {
+                    return super.startPageContent();
+                }
+                return new PCLPainter(this, getCurrentPageDefinition()) {
+                    public void drawBorderRect(Rectangle rect, BorderProps top, BorderProps bottom,
+                            BorderProps left, BorderProps right, Color innerBackgroundColor) throws IFException {
+                        if (top != null || bottom != null || left != null || right != null) {
+                            paintBordersAsBitmap(rect, top, bottom, left, right);
+                        }
+                    }
+
+                    public void drawLine(Point start, Point end, int width, Color color, RuleStyle style)
+                            throws IFException {
+                        paintLineAsBitmap(start, end, width, color, style);
+                    }
+                };
+            }
+        };
+        documentHandler.getPCLUtil().setRenderingMode(PCLRenderingMode.QUALITY);
+        userAgent.setDocumentHandlerOverride(documentHandler);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = userAgent.newFop(MimeConstants.MIME_PCL, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.transform(new StreamSource(new StringReader(fo)), new SAXResult(fop.getDefaultHandler()));
+        return out.toByteArray();
+    }
+
+    private String createBorderedTable() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">")
+                .append("<fo:layout-master-set><fo:simple-page-master master-name=\"page\"")
+                .append(" page-width=\"210mm\" page-height=\"297mm\" margin=\"20mm\">")
+                .append("<fo:region-body/></fo:simple-page-master></fo:layout-master-set>")
+                .append("<fo:page-sequence master-reference=\"page\"><fo:flow flow-name=\"xsl-region-body\">")
+                .append("<fo:block><fo:leader leader-pattern=\"rule\" rule-thickness=\"1pt\"")
+                .append(" leader-length=\"100%\"/></fo:block>")
+                .append("<fo:table table-layout=\"fixed\" width=\"100%\" border-collapse=\"collapse\">")
+                .append("<fo:table-column column-width=\"30%\"/><fo:table-column column-width=\"30%\"/>")
+                .append("<fo:table-column column-width=\"40%\"/><fo:table-body>");
+        for (int i = 0; i < 20; i++) {
+            sb.append("<fo:table-row>");
+            for (int j = 0; j < 3; j++) {
+                sb.append("<fo:table-cell border=\"1pt solid black\" padding=\"2pt\"><fo:block>Cell ")
+                        .append(i).append('/').append(j).append("</fo:block></fo:table-cell>");
+            }
+            sb.append("</fo:table-row>");
+        }
+        sb.append("</fo:table-body></fo:table></fo:flow></fo:page-sequence></fo:root>");
+        return sb.toString();
+    }
+
+    private PCLPainter createQualityPainter(ByteArrayOutputStream output) throws IFException {
+        Rectangle size = new Rectangle(1, 1);
+        PCLPageDefinition pclPageDef = new PCLPageDefinition("", 0, new Dimension(), size, true);
+        PCLDocumentHandler documentHandler = new PCLDocumentHandler(new IFContext(ua));
+        documentHandler.setResult(new StreamResult(output));
+        documentHandler.startDocument();
+        PCLPainter pclPainter = new PCLPainter(documentHandler, pclPageDef);
+        pclPainter.getPCLUtil().setRenderingMode(PCLRenderingMode.QUALITY);
+        return pclPainter;
+    }
+
     @Test
     public void testDrawImage() throws IFException {
         Rectangle size = new Rectangle(1, 1);
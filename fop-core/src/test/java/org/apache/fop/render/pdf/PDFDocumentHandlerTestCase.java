@@ -19,6 +19,7 @@
 package org.apache.fop.render.pdf;
 
 import java.awt.Dimension;
+import java.awt.geom.AffineTransform;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.OutputStream;
@@ -35,6 +36,7 @@ import org.apache.fop.apps.FopFactory;
 import org.apache.fop.fonts.FontInfo;
 import org.apache.fop.render.intermediate.IFContext;
 import org.apache.fop.render.intermediate.IFException;
+import org.apache.fop.render.intermediate.IFPainter;
 
 public class PDFDocumentHandlerTestCase {
     @Test
@@ -63,6 +65,44 @@ public class PDFDocumentHandlerTestCase {
         Assert.assertFalse(contents.get(0).equals(contents.get(1)));
     }
 
+    @Test
+    public void testRepeatedHeaderPaintedAsFormXObject() throws IFException {
+        FOUserAgent userAgent = FopFactory.newInstance(new File(".").toURI()).newFOUserAgent();
+        PDFDocumentHandler d = new PDFDocumentHandler(new IFContext(userAgent));
+        d.setFontInfo(new FontInfo());
+        OutputStream writer = new ByteArrayOutputStream();
+        d.setResult(new StreamResult(writer));
+        d.startDocument();
+        d.getPDFDocument().setFormXObjectEnabled(true);
+
+        for (int i = 0; i < 3; i++) {
+            d.startPage(i, "", "", new Dimension(100000, 100000));
+            IFPainter painter = d.startPageContent();
+            d.getContext().setRegionType("Header");
+            painter.startViewport(new AffineTransform(), new Dimension(100000, 20000), null);
+            d.getGenerator().add("0 0 10 10 re f\n");
+            painter.endViewport();
+            d.endPageContent();
+            d.endPage();
+        }
+        d.endDocument();
+
+        List<String> contents = new ArrayList<String>();
+        int forms = 0;
+        for (String line : writer.toString().split("\n")) {
+            if (line.trim().startsWith("/Contents")) {
+                contents.add(line);
+            } else if (line.trim().equals("/Subtype /Form")) {
+                forms++;
+            }
+        }
+        Assert.assertEquals(1, forms);
+        Assert.assertEquals(3, contents.size());
+        //the header is painted inline on the first page and through the Form XObject afterwards
+        Assert.assertFalse(contents.get(0).equals(contents.get(1)));
+        Assert.assertEquals(contents.get(1), contents.get(2));
+    }
+
     private void addPage(PDFDocumentHandler d, String command, int i) throws IFException {
         d.startPage(i, "", "", new Dimension());
         d.getGenerator().add(command);
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.pdf;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+import javax.xml.transform.stream.StreamResult;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.io.IOUtils;
+
+import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
+
+import org.apache.xmlgraphics.image.loader.ImageInfo;
+import org.apache.xmlgraphics.image.loader.ImageSize;
+import org.apache.xmlgraphics.image.loader.impl.ImageXMLDOM;
+
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.fonts.FontInfo;
+import org.apache.fop.pdf.PDFDocument;
+import org.apache.fop.pdf.PDFFormXObject;
+import org.apache.fop.pdf.PDFGState;
+import org.apache.fop.pdf.PDFReference;
+import org.apache.fop.render.intermediate.IFContext;
+
+public class PDFImageHandlerSVGTestCase {
+
+    private static final String SVG = "<svg xmlns=\"http://www.w3.org/2000/svg\""
+            + " xmlns:xlink=\"http://www.w3.org/1999/xlink\" width=\"100\" height=\"50\">"
+            + "<rect x=\"10\" y=\"10\" width=\"80\" height=\"30\" fill=\"red\" fill-opacity=\"0.5\"/>%s</svg>";
+
+    private static final String LINK = "<a xlink:href=\"http://xmlgraphics.apache.org/fop/\">"
+            + "<rect x=\"0\" y=\"0\" width=\"5\" height=\"5\"/></a>";
+
+    private PDFDocumentHandler documentHandler;
+
+    private PDFPainter painter;
+
+    @Before
+    public void setUp() throws Exception {
+        FopFactory fopFactory = FopFactory.newInstance(new File(".").toURI());
+        documentHandler = new PDFDocumentHandler(new IFContext(fopFactory.newFOUserAgent()));
+        documentHandler.setResult(new StreamResult(new ByteArrayOutputStream()));
+        documentHandler.startDocument();
+        documentHandler.getPDFDocument().setFormXObjectEnabled(true);
+        documentHandler.setFontInfo(new FontInfo());
+        documentHandler.startPage(0, "", "", new Dimension(200000, 200000));
+        painter = new PDFPainter(documentHandler, null);
+    }
+
+    @Test
+    public void testSecondPlacementReusesForm() throws Exception {
+        ImageXMLDOM image = createImage("");
+        PDFImageHandlerSVG handler = new PDFImageHandlerSVG();
+        handler.handleImage(painter.createRenderingContext(), image, new Rectangle(0, 0, 100000, 50000));
+        handler.handleImage(painter.createRenderingContext(), image, new Rectangle(50000, 100000, 100000, 50000));
+
+        PDFDocument pdfDoc = documentHandler.getPDFDocument();
+        PDFFormXObject form = (PDFFormXObject) pdfDoc.getXObject("SVGForm1");
+        assertNotNull(form);
+        assertNull(pdfDoc.getXObject("SVGForm2"));
+        SVGFormCache cache = documentHandler.getSVGFormCache();
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+
+        String content = getPageContent();
+        String doForm = form.getName() + " Do";
+        assertEquals(2, content.split(doForm, -1).length - 1);
+
+        //The form covers the rectangle in the SVG's user space, with room for antialiasing
+        assertEquals(new Rectangle2D.Double(9, 9, 82, 32), form.getBBox());
+
+        //The form uses the document's resources, which include the graphics state it refers to
+        PDFReference resources = (PDFReference) form.get("Resources");
+        assertSame(pdfDoc.getResources(), resources.getObject());
+        assertFalse(painter.generator.getResourceContext().getGStates().isEmpty());
+        assertTrue(painter.generator.getResourceContext().getXObjects().contains(form));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pdfDoc.getResources().output(out);
+        String resourcesDict = out.toString("UTF-8");
+        for (PDFGState gstate : painter.generator.getResourceContext().getGStates()) {
+            assertTrue(resourcesDict.contains("/" + gstate.getName() + " "));
+        }
+    }
+
+    @Test
+    public void testSVGWithLinkIsPaintedInline() throws Exception {
+        ImageXMLDOM image = createImage(LINK);
+        PDFImageHandlerSVG handler = new PDFImageHandlerSVG();
+        handler.handleImage(painter.createRenderingContext(), image, new Rectangle(0, 0, 100000, 50000));
+        handler.handleImage(painter.createRenderingContext(), image, new Rectangle(50000, 100000, 100000, 50000));
+
+        assertNull(documentHandler.getPDFDocument().getXObject("SVGForm1"));
+        SVGFormCache cache = documentHandler.getSVGFormCache();
+        assertEquals(1, cache.getEntryCount());
+        assertNull(cache.get(image.getDocument(), 100000, 50000).getForm());
+        assertFalse(getPageContent().contains(" Do"));
+    }
+
+    private String getPageContent() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        painter.generator.getStream().getFilterList().setDisableAllFilters(true);
+        painter.generator.getStream().output(out);
+        return out.toString("UTF-8");
+    }
+
+    private static ImageXMLDOM createImage(String extraContent) throws Exception {
+        SAXSVGDocumentFactory factory = new SAXSVGDocumentFactory(null);
+        Document doc = factory.createDocument(null,
+                IOUtils.toInputStream(String.format(SVG, extraContent), "UTF-8"));
+        ImageInfo info = new ImageInfo("test.svg", MimeConstants.MIME_SVG);
+        ImageSize size = new ImageSize();
+        size.setSizeInMillipoints(100000, 50000);
+        size.setResolution(72);
+        size.calcPixelsFromSize();
+        info.setSize(size);
+        return new ImageXMLDOM(info, doc, "http://www.w3.org/2000/svg");
+    }
+}
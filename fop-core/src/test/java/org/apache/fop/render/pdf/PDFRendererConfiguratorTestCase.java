@@ -73,4 +73,11 @@ public class PDFRendererConfiguratorTestCase extends
         docHandler.startDocument();
         Assert.assertTrue(getDocHandler().getThePDFDocument().isFormXObjectEnabled());
     }
+
+    @Test
+    public void testStructureTreeStreamingEnabled() throws Exception {
+        parseConfig(createBuilder().setStructureTreeStreamingEnabled(true));
+        docHandler.startDocument();
+        Assert.assertTrue(getDocHandler().getThePDFDocument().isStructureTreeStreamingEnabled());
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.pdf;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.apache.fop.pdf.PDFFormXObject;
+
+public class SVGFormCacheTestCase {
+
+    private static final String SVG_NS = "http://www.w3.org/2000/svg";
+
+    @Test
+    public void testFormsAreKeyedByDocumentAndSize() throws Exception {
+        SVGFormCache cache = new SVGFormCache(1000);
+        Document svg = createSVG(false);
+        PDFFormXObject form = mock(PDFFormXObject.class);
+        assertNull(cache.get(svg, 100, 200));
+        cache.put(svg, 100, 200, form, 10);
+        assertSame(form, cache.get(svg, 100, 200).getForm());
+        assertNull(cache.get(svg, 200, 100));
+        assertNull(cache.get(createSVG(false), 100, 200));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedFormsAreEvicted() throws Exception {
+        SVGFormCache cache = new SVGFormCache(100);
+        Document svg1 = createSVG(false);
+        Document svg2 = createSVG(false);
+        Document svg3 = createSVG(false);
+        PDFFormXObject form1 = mock(PDFFormXObject.class);
+        cache.put(svg1, 10, 10, form1, 40);
+        cache.put(svg2, 10, 10, mock(PDFFormXObject.class), 40);
+        assertSame(form1, cache.get(svg1, 10, 10).getForm());
+        cache.put(svg3, 10, 10, mock(PDFFormXObject.class), 40);
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(80, cache.getCurrentBytes());
+        assertEquals(1, cache.getEvictionCount());
+        assertSame(form1, cache.get(svg1, 10, 10).getForm());
+        assertNull(cache.get(svg2, 10, 10));
+
+        cache.put(createSVG(false), 10, 10, mock(PDFFormXObject.class), 101);
+        assertEquals(2, cache.getEntryCount());
+    }
+
+    @Test
+    public void testSVGWithLinksIsNotReusable() throws Exception {
+        assertTrue(SVGFormCache.isReusable(createSVG(false)));
+        assertFalse(SVGFormCache.isReusable(createSVG(true)));
+    }
+
+    @Test
+    public void testSVGThatIsNotReusableIsRemembered() throws Exception {
+        SVGFormCache cache = new SVGFormCache(10000);
+        Document svg = createSVG(true);
+        cache.putNotReusable(svg, 100, 200);
+        SVGFormCache.Entry entry = cache.get(svg, 100, 200);
+        assertNotNull(entry);
+        assertNull(entry.getForm());
+        assertNull(cache.get(svg, 200, 100));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testSVGsThatAreNotReusableAreEvicted() throws Exception {
+        SVGFormCache cache = new SVGFormCache(3000);
+        for (int i = 0; i < 10; i++) {
+            cache.putNotReusable(createSVG(true), 10, 10);
+        }
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(2048, cache.getCurrentBytes());
+        assertEquals(8, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testFormKeysAreUnique() {
+        SVGFormCache cache = new SVGFormCache(100);
+        assertNotEquals(cache.nextFormKey(), cache.nextFormKey());
+    }
+
+    private static Document createSVG(boolean withLink) throws Exception {
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+        Document doc = dbf.newDocumentBuilder().newDocument();
+        Element svg = doc.createElementNS(SVG_NS, "svg");
+        doc.appendChild(svg);
+        Element parent = svg;
+        if (withLink) {
+            parent = doc.createElementNS(SVG_NS, "a");
+            svg.appendChild(parent);
+        }
+        parent.appendChild(doc.createElementNS(SVG_NS, "rect"));
+        return doc;
+    }
+}
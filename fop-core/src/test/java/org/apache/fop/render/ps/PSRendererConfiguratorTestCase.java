@@ -87,6 +87,18 @@ public class PSRendererConfiguratorTestCase extends
         assertFalse(psUtil.isOptimizeResources());
     }
 
+    @Test
+    public void testSinglePassResources() throws Exception {
+        parseConfig(createBuilder().setSinglePassResources(true));
+        assertTrue(psUtil.isSinglePassResources());
+
+        parseConfig(createBuilder().setSinglePassResources(false));
+        assertFalse(psUtil.isSinglePassResources());
+
+        parseConfig(createBuilder());
+        assertFalse(psUtil.isSinglePassResources());
+    }
+
     @Test
     public void testSafeSetPageDevice() throws Exception {
         parseConfig(createBuilder().setSafeSetPageDevice(true));
@@ -41,8 +41,10 @@ import org.apache.xmlgraphics.ps.dsc.DSCException;
 import org.apache.xmlgraphics.ps.dsc.DSCListener;
 import org.apache.xmlgraphics.ps.dsc.DSCParser;
 import org.apache.xmlgraphics.ps.dsc.DefaultNestedDocumentHandler;
+import org.apache.xmlgraphics.ps.dsc.events.AbstractResourceDSCComment;
 import org.apache.xmlgraphics.ps.dsc.events.AbstractResourcesDSCComment;
 import org.apache.xmlgraphics.ps.dsc.events.DSCAtend;
+import org.apache.xmlgraphics.ps.dsc.events.DSCComment;
 import org.apache.xmlgraphics.ps.dsc.events.DSCCommentBeginDocument;
 import org.apache.xmlgraphics.ps.dsc.events.DSCCommentDocumentNeededResources;
 import org.apache.xmlgraphics.ps.dsc.events.DSCCommentDocumentSuppliedResources;
@@ -50,6 +52,7 @@ import org.apache.xmlgraphics.ps.dsc.events.DSCCommentEndOfFile;
 import org.apache.xmlgraphics.ps.dsc.events.DSCCommentIncludeResource;
 import org.apache.xmlgraphics.ps.dsc.events.DSCCommentPage;
 import org.apache.xmlgraphics.ps.dsc.events.DSCCommentPages;
+import org.apache.xmlgraphics.ps.dsc.events.DSCEvent;
 
 import org.apache.fop.apps.FOUserAgent;
 import org.apache.fop.render.intermediate.IFContext;
@@ -78,6 +81,66 @@ public class ResourceOptimizationTestCase extends AbstractPostScriptTest {
         verifyPostScriptFile(outputFile);
     }
 
+    /**
+     * Tests resource optimization without a second pass over the pages.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSinglePassResourceOptimization() throws Exception {
+        FOUserAgent ua = fopFactory.newFOUserAgent();
+        PSDocumentHandler handler = new PSDocumentHandler(new IFContext(ua));
+        handler.getPSUtil().setOptimizeResources(true);
+        handler.getPSUtil().setSinglePassResources(true);
+        ua.setDocumentHandlerOverride(handler);
+
+        File outputFile = renderFile(ua, "ps-resources.fo",
+                "-if-single-pass-l" + handler.getPSUtil().getLanguageLevel());
+        InputStream in = new java.io.BufferedInputStream(new java.io.FileInputStream(outputFile));
+        try {
+            DSCParser parser = new DSCParser(in);
+            parser.setCheckEOF(false);
+            PSResource form1 = new PSResource(PSResource.TYPE_FORM, "FOPForm:1");
+            PSResource form2 = new PSResource(PSResource.TYPE_FORM, "FOPForm:2");
+
+            //Page count and resources are given in the trailer
+            assertEquals(DSCAtend.class, gotoDSCComment(parser, DSCConstants.PAGES).getClass());
+            assertNotNull(gotoDSCComment(parser, DSCConstants.BEGIN_SETUP));
+
+            //All forms are defined in the setup, including the one used only once
+            Set<PSResource> defined = new java.util.HashSet<PSResource>();
+            boolean endOfSetup = false;
+            while (!endOfSetup && parser.hasNext()) {
+                DSCEvent event = parser.nextEvent();
+                if (event.isDSCComment()) {
+                    DSCComment comment = event.asDSCComment();
+                    if (DSCConstants.BEGIN_RESOURCE.equals(comment.getName())) {
+                        defined.add(((AbstractResourceDSCComment) comment).getResource());
+                    }
+                    endOfSetup = DSCConstants.END_SETUP.equals(comment.getName());
+                }
+            }
+            assertTrue(endOfSetup);
+            assertTrue(defined.contains(form1));
+            assertTrue(defined.contains(form2));
+
+            DSCCommentPage page = (DSCCommentPage)gotoDSCComment(parser, DSCConstants.PAGE);
+            assertEquals(1, page.getPagePosition());
+            page = (DSCCommentPage)gotoDSCComment(parser, DSCConstants.PAGE);
+            assertEquals(2, page.getPagePosition());
+
+            assertNotNull(gotoDSCComment(parser, DSCConstants.TRAILER));
+            DSCCommentPages pages = (DSCCommentPages)gotoDSCComment(parser, DSCConstants.PAGES);
+            assertEquals(2, pages.getPageCount());
+            DSCCommentDocumentSuppliedResources supplied
+                = (DSCCommentDocumentSuppliedResources)gotoDSCComment(parser,
+                        DSCConstants.DOCUMENT_SUPPLIED_RESOURCES);
+            assertTrue(supplied.getResources().contains(form1));
+            assertTrue(supplied.getResources().contains(form2));
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
     private void verifyPostScriptFile(File psFile) throws IOException, DSCException {
         InputStream in = new java.io.FileInputStream(psFile);
         in = new java.io.BufferedInputStream(in);
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.render.rtf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.xmlgraphics.io.Resource;
+import org.apache.xmlgraphics.io.TempResourceResolver;
+
+import org.apache.fop.apps.FOUserAgent;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.FopFactoryBuilder;
+import org.apache.fop.apps.MimeConstants;
+import org.apache.fop.apps.io.ResourceResolverFactory;
+import org.apache.fop.render.rtf.rtflib.rtfdoc.IRtfBodySpool;
+import org.apache.fop.render.rtf.rtflib.rtfdoc.RtfDocumentArea;
+import org.apache.fop.render.rtf.rtflib.rtfdoc.RtfFile;
+import org.apache.fop.render.rtf.rtflib.rtfdoc.RtfSection;
+
+/**
+ * Tests writing the sections of an RTF document as soon as they are complete.
+ */
+public class RtfStreamingTestCase {
+
+    @Test
+    public void testStreamedOutputIsUnchanged() throws Exception {
+        StringWriter expected = new StringWriter();
+        RtfFile file = new RtfFile(expected);
+        RtfDocumentArea doc = file.startDocumentArea();
+        for (int i = 1; i <= 3; i++) {
+            addSection(doc, i);
+        }
+        file.flush();
+
+        StringWriter actual = new StringWriter();
+        StringBodySpool spool = new StringBodySpool();
+        file = new RtfFile(actual);
+        doc = file.startDocumentArea(spool);
+        addSection(doc, 1);
+        assertEquals("", spool.body.toString());
+        addSection(doc, 2);
+        assertTrue(spool.body.toString().contains("section 1"));
+        assertFalse(spool.body.toString().contains("section 2"));
+        addSection(doc, 3);
+        assertEquals(2, doc.getChildCount());
+        file.flush();
+
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void testSpoolIsATempResource() throws Exception {
+        MemoryTempResourceResolver tempResolver = new MemoryTempResourceResolver();
+        FopFactory fopFactory = new FopFactoryBuilder(new File(".").toURI(),
+                ResourceResolverFactory.createTempAwareResourceResolver(tempResolver,
+                        ResourceResolverFactory.createDefaultResourceResolver())).build();
+        String fo = "<fo:root xmlns:fo=\"http://www.w3.org/1999/XSL/Format\">"
+                + "<fo:layout-master-set><fo:simple-page-master master-name=\"page\">"
+                + "<fo:region-body/></fo:simple-page-master></fo:layout-master-set>"
+                + createPageSequence(1) + createPageSequence(2) + createPageSequence(3)
+                + "</fo:root>";
+        String buffered = format(fopFactory, fo, false);
+        assertEquals(0, tempResolver.created);
+        String streamed = format(fopFactory, fo, true);
+        assertEquals(buffered, streamed);
+        assertEquals(1, tempResolver.created);
+        //the spool has been read and thereby released
+        assertTrue(tempResolver.resources.isEmpty());
+    }
+
+    private static String createPageSequence(int number) {
+        return "<fo:page-sequence master-reference=\"page\"><fo:flow flow-name=\"xsl-region-body\">"
+                + "<fo:block>Page-sequence " + number + "</fo:block></fo:flow></fo:page-sequence>";
+    }
+
+    private static String format(FopFactory fopFactory, String fo, boolean streaming) throws Exception {
+        FOUserAgent userAgent = fopFactory.newFOUserAgent();
+        userAgent.getRendererOptions().put(RTFHandler.STREAMING, streaming);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_RTF, userAgent, out);
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Source src = new StreamSource(new StringReader(fo));
+        Result res = new SAXResult(fop.getDefaultHandler());
+        transformer.transform(src, res);
+        return out.toString("UTF-8");
+    }
+
+    private static void addSection(RtfDocumentArea doc, int number) throws IOException {
+        RtfSection section = doc.newSection();
+        section.newParagraph().newText("section " + number);
+    }
+
+    private static final class StringBodySpool implements IRtfBodySpool {
+
+        private final StringWriter body = new StringWriter();
+
+        public Writer getWriter() {
+            return body;
+        }
+
+        public void transferTo(Writer out) throws IOException {
+            out.write(body.toString());
+        }
+    }
+
+    private static final class MemoryTempResourceResolver implements TempResourceResolver {
+
+        private final Map<String, ByteArrayOutputStream> resources
+                = new HashMap<String, ByteArrayOutputStream>();
+
+        private int created;
+
+        public Resource getResource(String id) throws IOException {
+            return new Resource(new ByteArrayInputStream(resources.remove(id).toByteArray()));
+        }
+
+        public OutputStream getOutputStream(String id) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            resources.put(id, out);
+            created++;
+            return out;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.util;
+
+import java.awt.Color;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ColorCacheTestCase {
+
+    @Test
+    public void testHitsAndMisses() {
+        ColorCache cache = new ColorCache(10);
+        assertNull(cache.get("#ff0000", null));
+        cache.put("#ff0000", null, Color.RED);
+        assertSame(Color.RED, cache.get("#ff0000", null));
+        assertNull(cache.get("#FF0000", null));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getEntryCount());
+    }
+
+    @Test
+    public void testEntriesAreSeparatedByContext() {
+        ColorCache cache = new ColorCache(10);
+        Object context1 = new Object();
+        Object context2 = new Object();
+        String spec = "fop-rgb-icc(1,0,0,x,'x.icc',1)";
+        cache.put(spec, context1, Color.RED);
+        cache.put(spec, null, Color.BLUE);
+        assertSame(Color.RED, cache.get(spec, context1));
+        assertSame(Color.BLUE, cache.get(spec, null));
+        assertNull(cache.get(spec, context2));
+    }
+
+    @Test
+    public void testOldestEntriesAreEvicted() {
+        ColorCache cache = new ColorCache(2);
+        cache.put("a", null, Color.RED);
+        cache.put("b", null, Color.GREEN);
+        cache.put("c", null, Color.BLUE);
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.get("a", null));
+        assertSame(Color.GREEN, cache.get("b", null));
+        assertSame(Color.BLUE, cache.get("c", null));
+    }
+
+    @Test
+    public void testNamedColorsAreNotCached() throws Exception {
+        int entries = ColorUtil.getColorCache().getEntryCount();
+        assertEquals(Color.RED, ColorUtil.parseColorString(null, "red"));
+        assertEquals(entries, ColorUtil.getColorCache().getEntryCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSize() {
+        new ColorCache(0);
+    }
+}
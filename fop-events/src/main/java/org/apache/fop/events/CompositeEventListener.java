@@ -22,10 +22,12 @@ package org.apache.fop.events;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.fop.events.model.EventSeverity;
+
 /**
  * EventListener implementation forwards events to possibly multiple other EventListeners.
  */
-public class CompositeEventListener implements EventListener {
+public class CompositeEventListener implements SeverityAwareEventListener {
 
     private List<EventListener> listeners = new ArrayList<EventListener>();
 
@@ -55,6 +57,22 @@ public class CompositeEventListener implements EventListener {
         return !listeners.isEmpty();
     }
 
+    /**
+     * {@inheritDoc}
+     * Returns true if at least one of the registered listeners may be interested in events
+     * of the given severity. Listeners that don't implement {@link SeverityAwareEventListener}
+     * are interested in all events.
+     */
+    public synchronized boolean isInterestedIn(EventSeverity severity) {
+        for (EventListener listener : listeners) {
+            if (!(listener instanceof SeverityAwareEventListener)
+                    || ((SeverityAwareEventListener) listener).isInterestedIn(severity)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /** {@inheritDoc } */
     public synchronized void processEvent(Event event) {
         for (EventListener listener : listeners) {
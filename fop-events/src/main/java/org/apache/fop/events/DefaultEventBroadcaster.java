@@ -23,9 +23,13 @@ import java.io.InputStream;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.MissingResourceException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.stream.StreamSource;
@@ -67,8 +71,28 @@ public class DefaultEventBroadcaster implements EventBroadcaster {
         this.listeners.processEvent(event);
     }
 
-    private static List<EventModel> eventModels = new java.util.ArrayList();
-    private Map proxies = new java.util.HashMap();
+    private static List<EventModel> eventModels = new CopyOnWriteArrayList<EventModel>();
+
+    /** Serializes the loading of event models, so each model is only loaded once. */
+    private static final Object MODEL_LOCK = new Object();
+
+    /** The dispatch tables of the event producer interfaces (key: interface class) */
+    private static final ConcurrentMap<Class, Map<Method, EventMethodDispatch>> DISPATCH_TABLES
+            = new ConcurrentHashMap<Class, Map<Method, EventMethodDispatch>>();
+
+    private final ConcurrentMap<Class, EventProducer> proxies
+            = new ConcurrentHashMap<Class, EventProducer>();
+
+    /**
+     * Indicates whether events of the given severity level are of interest to any of the
+     * registered listeners. Event producers don't build events that nobody is interested in
+     * (except fatal events which always lead to an exception).
+     * @param severity the severity level
+     * @return true if events of the given severity are to be broadcast
+     */
+    protected boolean isInterestedIn(EventSeverity severity) {
+        return this.listeners.isInterestedIn(severity);
+    }
 
     /**
      * Loads an event model and returns its instance.
@@ -98,21 +122,64 @@ public class DefaultEventBroadcaster implements EventBroadcaster {
      * Adds a new {@link EventModel} to the list of registered event models.
      * @param eventModel the event model instance
      */
-    public static synchronized void addEventModel(EventModel eventModel) {
+    public static void addEventModel(EventModel eventModel) {
         eventModels.add(eventModel);
     }
 
-    private static synchronized EventProducerModel getEventProducerModel(Class clazz) {
-        for (Object eventModel1 : eventModels) {
-            EventModel eventModel = (EventModel) eventModel1;
+    private static EventProducerModel findEventProducerModel(Class clazz) {
+        for (EventModel eventModel : eventModels) {
             EventProducerModel producerModel = eventModel.getProducer(clazz);
             if (producerModel != null) {
                 return producerModel;
             }
         }
-        EventModel model = loadModel(clazz);
-        addEventModel(model);
-        return model.getProducer(clazz);
+        return null;
+    }
+
+    private static EventProducerModel getEventProducerModel(Class clazz) {
+        EventProducerModel producerModel = findEventProducerModel(clazz);
+        if (producerModel == null) {
+            synchronized (MODEL_LOCK) {
+                producerModel = findEventProducerModel(clazz);
+                if (producerModel == null) {
+                    EventModel model = loadModel(clazz);
+                    addEventModel(model);
+                    producerModel = model.getProducer(clazz);
+                }
+            }
+        }
+        return producerModel;
+    }
+
+    /**
+     * Returns the dispatch table for the given EventProducer interface. It is built once from
+     * the event model and shared by all broadcasters.
+     * @param clazz a descendant interface of EventProducer
+     * @return the dispatch information for each of the interface's event methods
+     */
+    private static Map<Method, EventMethodDispatch> getDispatchTable(Class clazz) {
+        Map<Method, EventMethodDispatch> dispatchTable = DISPATCH_TABLES.get(clazz);
+        if (dispatchTable == null) {
+            EventProducerModel producerModel = getEventProducerModel(clazz);
+            if (producerModel == null) {
+                throw new IllegalStateException("Event model doesn't contain the definition for "
+                        + clazz.getName());
+            }
+            dispatchTable = new HashMap<Method, EventMethodDispatch>();
+            for (Method method : clazz.getMethods()) {
+                EventMethodModel methodModel = producerModel.getMethod(method.getName());
+                if (methodModel != null) {
+                    dispatchTable.put(method, new EventMethodDispatch(
+                            producerModel.getInterfaceName(), methodModel));
+                }
+            }
+            Map<Method, EventMethodDispatch> previous
+                    = DISPATCH_TABLES.putIfAbsent(clazz, dispatchTable);
+            if (previous != null) {
+                dispatchTable = previous;
+            }
+        }
+        return dispatchTable;
     }
 
     /** {@inheritDoc} */
@@ -122,60 +189,88 @@ public class DefaultEventBroadcaster implements EventBroadcaster {
                     "Class must be an implementation of the EventProducer interface: "
                     + clazz.getName());
         }
-        EventProducer producer;
-        producer = (EventProducer)this.proxies.get(clazz);
+        EventProducer producer = this.proxies.get(clazz);
         if (producer == null) {
             producer = createProxyFor(clazz);
-            this.proxies.put(clazz, producer);
+            EventProducer previous = this.proxies.putIfAbsent(clazz, producer);
+            if (previous != null) {
+                producer = previous;
+            }
         }
         return producer;
     }
 
     /**
      * Creates a dynamic proxy for the given EventProducer interface that will handle the
-     * conversion of the method call into the broadcasting of an event instance.
+     * conversion of the method call into the broadcasting of an event instance. The event IDs
+     * and parameter names are looked up once per interface, and no event is built if no
+     * listener is interested in its severity level (see {@link #isInterestedIn(EventSeverity)}).
      * @param clazz a descendant interface of EventProducer
      * @return the EventProducer instance
      */
     protected EventProducer createProxyFor(Class clazz) {
-        final EventProducerModel producerModel = getEventProducerModel(clazz);
-        if (producerModel == null) {
-            throw new IllegalStateException("Event model doesn't contain the definition for "
-                    + clazz.getName());
-        }
+        final Map<Method, EventMethodDispatch> dispatchTable = getDispatchTable(clazz);
         return (EventProducer)Proxy.newProxyInstance(clazz.getClassLoader(),
                 new Class[] {clazz},
                 new InvocationHandler() {
                     public Object invoke(Object proxy, Method method, Object[] args)
                             throws Throwable {
-                        String methodName = method.getName();
-                        EventMethodModel methodModel = producerModel.getMethod(methodName);
-                        String eventID = producerModel.getInterfaceName() + "." + methodName;
-                        if (methodModel == null) {
+                        EventMethodDispatch dispatch = dispatchTable.get(method);
+                        if (dispatch == null) {
                             throw new IllegalStateException(
                                     "Event model isn't consistent"
                                     + " with the EventProducer interface. Please rebuild FOP!"
                                     + " Affected method: "
-                                    + eventID);
-                        }
-                        Map params = new java.util.HashMap();
-                        int i = 1;
-                        for (Object o : methodModel.getParameters()) {
-                            EventMethodModel.Parameter param
-                                    = (EventMethodModel.Parameter) o;
-                            params.put(param.getName(), args[i]);
-                            i++;
-                        }
-                        Event ev = new Event(args[0], eventID, methodModel.getSeverity(), params);
-                        broadcastEvent(ev);
-
-                        if (ev.getSeverity() == EventSeverity.FATAL) {
-                            EventExceptionManager.throwException(ev,
-                                    methodModel.getExceptionClass());
+                                    + method.getDeclaringClass().getName() + "."
+                                    + method.getName());
                         }
+                        dispatch.dispatch(DefaultEventBroadcaster.this, args);
                         return null;
                     }
                 });
     }
 
+    /**
+     * The information needed to turn the invocation of an event method into an event,
+     * precomputed from the event model.
+     */
+    private static final class EventMethodDispatch {
+
+        private final String eventID;
+
+        private final EventSeverity severity;
+
+        private final String[] paramNames;
+
+        private final String exceptionClass;
+
+        EventMethodDispatch(String interfaceName, EventMethodModel methodModel) {
+            this.eventID = interfaceName + "." + methodModel.getMethodName();
+            this.severity = methodModel.getSeverity();
+            List parameters = methodModel.getParameters();
+            this.paramNames = new String[parameters.size()];
+            for (int i = 0; i < paramNames.length; i++) {
+                paramNames[i] = ((EventMethodModel.Parameter) parameters.get(i)).getName();
+            }
+            this.exceptionClass = methodModel.getExceptionClass();
+        }
+
+        void dispatch(DefaultEventBroadcaster broadcaster, Object[] args) throws Throwable {
+            if (severity != EventSeverity.FATAL && !broadcaster.isInterestedIn(severity)) {
+                return;
+            }
+            Map<String, Object> params = new HashMap<String, Object>(
+                    paramNames.length * 4 / 3 + 1);
+            for (int i = 0; i < paramNames.length; i++) {
+                params.put(paramNames[i], args[i + 1]);
+            }
+            Event ev = new Event(args[0], eventID, severity, params);
+            broadcaster.broadcastEvent(ev);
+
+            if (ev.getSeverity() == EventSeverity.FATAL) {
+                EventExceptionManager.throwException(ev, exceptionClass);
+            }
+        }
+    }
+
 }
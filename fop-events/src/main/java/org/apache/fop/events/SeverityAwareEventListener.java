@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/* $Id$ */
+
+package org.apache.fop.events;
+
+import org.apache.fop.events.model.EventSeverity;
+
+/**
+ * An event listener which declares the severity levels it is interested in. Event producers
+ * don't build events (and their parameters) nobody is interested in.
+ */
+public interface SeverityAwareEventListener extends EventListener {
+
+    /**
+     * Indicates whether events of the given severity may be of interest to this listener.
+     * If this method returns false, the listener might not be notified of such events.
+     * @param severity the severity level
+     * @return true if events of the given severity should be passed to this listener
+     */
+    boolean isInterestedIn(EventSeverity severity);
+
+}
@@ -24,6 +24,8 @@ import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -88,6 +90,41 @@ public class BasicEventTestCase {
         broadcaster.broadcastEvent(ev);
     }
 
+    @Test
+    public void testEventsWithoutInterestedListenerAreSkipped() throws Exception {
+        final MyEventListener recorder = new MyEventListener();
+        EventListener warningsOnly = new SeverityAwareEventListener() {
+            public boolean isInterestedIn(EventSeverity severity) {
+                return severity == EventSeverity.WARN;
+            }
+
+            public void processEvent(Event event) {
+                recorder.processEvent(event);
+            }
+        };
+
+        DefaultEventBroadcaster broadcaster = new DefaultEventBroadcaster();
+        broadcaster.addEventListener(warningsOnly);
+        TestEventProducer producer = TestEventProducer.Provider.get(broadcaster);
+        assertSame(producer, TestEventProducer.Provider.get(broadcaster));
+
+        producer.enjoy(this, "sunshine");
+        assertNull(recorder.event);
+
+        producer.complain(this, "I'm tired", 23);
+        assertNotNull(recorder.event);
+        assertEquals(EventSeverity.WARN, recorder.event.getSeverity());
+        assertEquals("I'm tired", recorder.event.getParam("reason"));
+
+        //Listeners that don't declare their interests receive all events
+        broadcaster.removeEventListener(warningsOnly);
+        MyEventListener listener = new MyEventListener();
+        broadcaster.addEventListener(listener);
+        producer.enjoy(this, "sunshine");
+        assertNotNull(listener.event);
+        assertEquals("sunshine", listener.event.getParam("what"));
+    }
+
     private class MyEventListener implements EventListener {
 
         private Event event;
@@ -60,6 +60,19 @@ for %%l in (%LOCAL_FOP_HOME%build\*.jar %LIBDIR%\*.jar %LOCAL_FOP_HOME%target\*.
 
 set JAVAOPTS=-Denv.windir=%WINDIR%
 
+rem Class data sharing (JDK 13 or later): if FOP_CDS_ARCHIVE is set, the classes loaded by
+rem FOP are mapped from that archive instead of being loaded again on each run. If the
+rem archive doesn't exist yet, it is created when this run exits ("fop -warmup" makes a good
+rem training run; "ant appcds" does that for you). Delete the archive after changing the JDK
+rem or the jars in the classpath.
+if "%FOP_CDS_ARCHIVE%" == "" goto doneCds
+if exist "%FOP_CDS_ARCHIVE%" goto useCds
+set FOP_OPTS=-XX:ArchiveClassesAtExit="%FOP_CDS_ARCHIVE%" %FOP_OPTS%
+goto doneCds
+:useCds
+set FOP_OPTS=-XX:SharedArchiveFile="%FOP_CDS_ARCHIVE%" %FOP_OPTS%
+:doneCds
+
 if "%JAVA_HOME%" == "" goto noJavaHome
 if not exist "%JAVA_HOME%\bin\java.exe" goto noJavaHome
 if "%JAVACMD%" == "" set JAVACMD=%JAVA_HOME%\bin\java